@@ -0,0 +1,175 @@
+package com.education.common.cache;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+
+/**
+ * 进程内缓存（一级缓存）
+ * 1. 容量上限：超出时淘汰最久未访问的条目（LRU，按分段近似）
+ * 2. 过期时间：条目写入后超过ttl即失效
+ * 3. 合并加载：同一个key同时只有一个线程执行加载，其余线程等待同一结果
+ * 按key哈希分段加锁，不同分段的读写互不阻塞；
+ * 加载过程中该key被失效时，本次加载结果不写入缓存，避免把旧数据放回去（其他key的失效不影响）
+ */
+public class LocalCache<K, V> {
+    
+    private static final int SEGMENT_COUNT = 16;
+    
+    private final long ttlMillis;
+    private final Segment<K, V>[] segments;
+    
+    @SuppressWarnings("unchecked")
+    public LocalCache(int maxSize, long ttlMillis) {
+        this.ttlMillis = ttlMillis;
+        // 容量较小时减少分段，避免每段容量被摊得过小
+        int segmentCount = Math.max(1, Math.min(SEGMENT_COUNT, Integer.highestOneBit(Math.max(maxSize / 16, 1))));
+        int segmentMaxSize = Math.max(1, (maxSize + segmentCount - 1) / segmentCount);
+        this.segments = new Segment[segmentCount];
+        for (int i = 0; i < segmentCount; i++) {
+            segments[i] = new Segment<>(segmentMaxSize);
+        }
+    }
+    
+    /**
+     * 获取缓存值（不存在或已过期返回null）
+     */
+    public V getIfPresent(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            return segment.getLive(key);
+        }
+    }
+    
+    /**
+     * 获取缓存值，未命中时调用loader加载（同一key并发加载只执行一次）
+     * loader返回null时不缓存；loader抛出的异常原样抛给所有等待的调用方
+     */
+    public V get(K key, Function<K, V> loader) {
+        Segment<K, V> segment = segmentFor(key);
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> inFlight;
+        synchronized (segment) {
+            V cached = segment.getLive(key);
+            if (cached != null) {
+                return cached;
+            }
+            inFlight = segment.loading.putIfAbsent(key, future);
+        }
+        if (inFlight != null) {
+            // 在分段锁外等待，加载线程写入结果时需要获取同一把锁
+            return await(inFlight);
+        }
+        
+        try {
+            V value = loader.apply(key);
+            synchronized (segment) {
+                // 加载期间该key被失效时，loading中已不是本次加载，结果不写入缓存
+                if (segment.loading.remove(key, future) && value != null) {
+                    segment.entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+                }
+            }
+            future.complete(value);
+            return value;
+        } catch (RuntimeException e) {
+            synchronized (segment) {
+                segment.loading.remove(key, future);
+            }
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+    
+    public void put(K key, V value) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.entries.put(key, new CacheEntry<>(value, System.currentTimeMillis() + ttlMillis));
+        }
+    }
+    
+    public void invalidate(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.loading.remove(key);
+            segment.entries.remove(key);
+        }
+    }
+    
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.loading.clear();
+                segment.entries.clear();
+            }
+        }
+    }
+    
+    public int size() {
+        int size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.entries.size();
+            }
+        }
+        return size;
+    }
+    
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= hash >>> 16;
+        return segments[hash & (segments.length - 1)];
+    }
+    
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+    
+    /**
+     * 一个分段：LRU条目和进行中的加载，由分段自身的锁保护
+     */
+    private static class Segment<K, V> {
+        private final Map<K, CacheEntry<V>> entries;
+        private final Map<K, CompletableFuture<V>> loading = new HashMap<>();
+        
+        private Segment(int maxSize) {
+            this.entries = new LinkedHashMap<K, CacheEntry<V>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+        
+        private V getLive(K key) {
+            CacheEntry<V> entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expireAt <= System.currentTimeMillis()) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.value;
+        }
+    }
+    
+    private static class CacheEntry<V> {
+        private final V value;
+        private final long expireAt;
+        
+        private CacheEntry(V value, long expireAt) {
+            this.value = value;
+            this.expireAt = expireAt;
+        }
+    }
+}
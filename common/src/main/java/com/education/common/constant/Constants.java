@@ -14,8 +14,16 @@ public class Constants {
     public static final String REDIS_TEACHER_PREFIX = "teacher:";
     public static final String REDIS_COURSE_PREFIX = "course:";
     
+    public static final String CHANNEL_COURSE_CHANGED = "course:changed";
+    public static final String CHANNEL_TEACHER_CHANGED = "teacher:changed";
+    public static final String CHANNEL_ENROLLMENT_CHANGED = "enrollment:changed";
+    
     public static final String QUEUE_SELECTION = "selection.queue";
     public static final String EXCHANGE_SELECTION = "selection.exchange";
     public static final String ROUTING_KEY_SELECTION = "selection.routing";
+    public static final String EXCHANGE_SELECTION_DLX = "selection.dlx";
+    public static final String QUEUE_SELECTION_DLQ = "selection.queue.dlq";
+    public static final String ROUTING_KEY_SELECTION_DLQ = "selection.routing.dlq";
+    public static final String ROUTING_KEY_SELECTION_NOTIFICATION = "selection.notification";
 }
 
@@ -0,0 +1,56 @@
+package com.education.common.datasource;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+/**
+ * 读写分离的路由上下文
+ * 线程内记录当前是否处于@ReadReplica方法中；请求内记录是否已经访问过主库
+ */
+public final class DataSourceRouteHolder {
+    
+    private static final String PRIMARY_USED_ATTR = DataSourceRouteHolder.class.getName() + ".primaryUsed";
+    
+    // @ReadReplica方法的嵌套层数
+    private static final ThreadLocal<Integer> REPLICA_DEPTH = new ThreadLocal<>();
+    
+    private DataSourceRouteHolder() {
+    }
+    
+    static void enterReplica() {
+        Integer depth = REPLICA_DEPTH.get();
+        REPLICA_DEPTH.set(depth == null ? 1 : depth + 1);
+    }
+    
+    static void exitReplica() {
+        Integer depth = REPLICA_DEPTH.get();
+        if (depth == null || depth <= 1) {
+            REPLICA_DEPTH.remove();
+        } else {
+            REPLICA_DEPTH.set(depth - 1);
+        }
+    }
+    
+    /**
+     * 当前线程是否处于@ReadReplica方法中
+     */
+    public static boolean isReplicaPreferred() {
+        return REPLICA_DEPTH.get() != null;
+    }
+    
+    /**
+     * 记录本次请求已访问主库（可能已写入），之后的读也走主库
+     * 非HTTP请求线程中不记录
+     */
+    static void markPrimaryUsed() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes != null) {
+            attributes.setAttribute(PRIMARY_USED_ATTR, Boolean.TRUE, RequestAttributes.SCOPE_REQUEST);
+        }
+    }
+    
+    static boolean isPrimaryUsed() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        return attributes != null && attributes.getAttribute(PRIMARY_USED_ATTR, RequestAttributes.SCOPE_REQUEST) != null;
+    }
+}
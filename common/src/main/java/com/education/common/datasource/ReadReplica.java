@@ -0,0 +1,15 @@
+package com.education.common.datasource;
+
+import java.lang.annotation.*;
+
+/**
+ * 标记只读查询方法，启用读写分离时路由到从库
+ * 方法运行在写事务内、或同一请求内已经访问过主库时仍走主库，保证读到自己的写入；
+ * 所有从库不可用或复制延迟超限时回退主库
+ * 标注在类上时对该类所有public方法生效；未启用读写分离时不起作用
+ */
+@Target({ElementType.METHOD, ElementType.TYPE})
+@Retention(RetentionPolicy.RUNTIME)
+@Documented
+public @interface ReadReplica {
+}
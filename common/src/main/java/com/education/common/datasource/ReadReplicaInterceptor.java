@@ -0,0 +1,20 @@
+package com.education.common.datasource;
+
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+
+/**
+ * @ReadReplica方法拦截器：方法执行期间标记当前线程优先读从库
+ */
+public class ReadReplicaInterceptor implements MethodInterceptor {
+    
+    @Override
+    public Object invoke(MethodInvocation invocation) throws Throwable {
+        DataSourceRouteHolder.enterReplica();
+        try {
+            return invocation.proceed();
+        } finally {
+            DataSourceRouteHolder.exitReplica();
+        }
+    }
+}
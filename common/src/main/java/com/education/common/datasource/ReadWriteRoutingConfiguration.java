@@ -0,0 +1,95 @@
+package com.education.common.datasource;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import org.springframework.aop.Advisor;
+import org.springframework.aop.support.ComposablePointcut;
+import org.springframework.aop.support.DefaultPointcutAdvisor;
+import org.springframework.aop.support.annotation.AnnotationMatchingPointcut;
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.context.annotation.Role;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.util.StringUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 读写分离配置
+ * 需要的服务在启动类上@Import本配置，并设置datasource.routing.enabled=true
+ * 主库连接池仍按spring.datasource.*配置；从库连接池复制主库的连接池参数
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnProperty(prefix = "datasource.routing", name = "enabled", havingValue = "true")
+@EnableConfigurationProperties({DataSourceProperties.class, ReadWriteRoutingProperties.class})
+public class ReadWriteRoutingConfiguration {
+    
+    @Bean(initMethod = "init", destroyMethod = "close")
+    @ConfigurationProperties("spring.datasource.druid")
+    public DruidDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+        DruidDataSource dataSource = new DruidDataSource();
+        dataSource.setName(ReadWriteRoutingDataSource.PRIMARY);
+        dataSource.setDriverClassName(dataSourceProperties.getDriverClassName());
+        dataSource.setUrl(dataSourceProperties.getUrl());
+        dataSource.setUsername(dataSourceProperties.getUsername());
+        dataSource.setPassword(dataSourceProperties.getPassword());
+        return dataSource;
+    }
+    
+    @Bean(initMethod = "start", destroyMethod = "close")
+    public ReplicaLagMonitor replicaLagMonitor(DruidDataSource primaryDataSource, ReadWriteRoutingProperties properties) {
+        Map<String, DruidDataSource> replicas = new LinkedHashMap<>();
+        List<ReadWriteRoutingProperties.Replica> configured = properties.getReplicas();
+        for (int i = 0; i < configured.size(); i++) {
+            ReadWriteRoutingProperties.Replica replica = configured.get(i);
+            String name = "replica-" + (i + 1);
+            DruidDataSource dataSource = primaryDataSource.cloneDruidDataSource();
+            dataSource.setName(name);
+            dataSource.setUrl(replica.getUrl());
+            if (StringUtils.hasText(replica.getUsername())) {
+                dataSource.setUsername(replica.getUsername());
+                dataSource.setPassword(replica.getPassword());
+            }
+            replicas.put(name, dataSource);
+        }
+        return new ReplicaLagMonitor(replicas, properties.getMaxLagSeconds(), properties.getLagCheckIntervalMs());
+    }
+    
+    @Bean
+    @Primary
+    public DataSource dataSource(DruidDataSource primaryDataSource, ReplicaLagMonitor replicaLagMonitor) {
+        Map<Object, Object> targets = new HashMap<>(replicaLagMonitor.getReplicas());
+        targets.put(ReadWriteRoutingDataSource.PRIMARY, primaryDataSource);
+        
+        ReadWriteRoutingDataSource routingDataSource = new ReadWriteRoutingDataSource(replicaLagMonitor);
+        routingDataSource.setTargetDataSources(targets);
+        routingDataSource.setDefaultTargetDataSource(primaryDataSource);
+        routingDataSource.afterPropertiesSet();
+        
+        // 显式给出连接默认属性，避免启动时为探测默认值而取连接
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy();
+        proxy.setTargetDataSource(routingDataSource);
+        proxy.setDefaultAutoCommit(true);
+        proxy.setDefaultTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+        proxy.afterPropertiesSet();
+        return proxy;
+    }
+    
+    @Bean
+    @Role(BeanDefinition.ROLE_INFRASTRUCTURE)
+    public static Advisor readReplicaAdvisor() {
+        ComposablePointcut pointcut = new ComposablePointcut(new AnnotationMatchingPointcut(ReadReplica.class, true))
+                .union(AnnotationMatchingPointcut.forMethodAnnotation(ReadReplica.class));
+        return new DefaultPointcutAdvisor(pointcut, new ReadReplicaInterceptor());
+    }
+}
@@ -0,0 +1,47 @@
+package com.education.common.datasource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 读写分离路由数据源
+ * 只读事务和@ReadReplica方法轮询路由到复制延迟正常的从库，其余（写事务、无事务的自动提交语句）走主库
+ * 需要包在LazyConnectionDataSourceProxy中使用：事务开始时还未设置只读标记，
+ * 延迟到第一条SQL执行时再取真实连接，才能按事务的只读属性路由
+ */
+public class ReadWriteRoutingDataSource extends AbstractRoutingDataSource {
+    
+    public static final String PRIMARY = "primary";
+    
+    private final ReplicaLagMonitor lagMonitor;
+    private final AtomicInteger sequence = new AtomicInteger();
+    
+    public ReadWriteRoutingDataSource(ReplicaLagMonitor lagMonitor) {
+        this.lagMonitor = lagMonitor;
+    }
+    
+    @Override
+    protected Object determineCurrentLookupKey() {
+        boolean inTransaction = TransactionSynchronizationManager.isActualTransactionActive();
+        boolean readOnly = inTransaction
+                ? TransactionSynchronizationManager.isCurrentTransactionReadOnly()
+                : DataSourceRouteHolder.isReplicaPreferred();
+        if (!readOnly) {
+            // 无法区分自动提交语句是读还是写，一律视为可能已写入
+            DataSourceRouteHolder.markPrimaryUsed();
+            return PRIMARY;
+        }
+        // 同一请求内已访问过主库时继续读主库，避免读不到刚写入的数据
+        if (DataSourceRouteHolder.isPrimaryUsed()) {
+            return PRIMARY;
+        }
+        List<String> replicas = lagMonitor.getHealthyReplicas();
+        if (replicas.isEmpty()) {
+            return PRIMARY;
+        }
+        return replicas.get(Math.floorMod(sequence.getAndIncrement(), replicas.size()));
+    }
+}
@@ -0,0 +1,31 @@
+package com.education.common.datasource;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 读写分离配置
+ * 从库连接池参数沿用主库（spring.datasource.druid），只需配置连接地址和账号
+ */
+@ConfigurationProperties(prefix = "datasource.routing")
+@Data
+public class ReadWriteRoutingProperties {
+    
+    private boolean enabled = false;
+    // 从库复制延迟超过该值（秒）时不再路由读请求，回退主库
+    private long maxLagSeconds = 3;
+    // 复制延迟检查间隔（毫秒）
+    private long lagCheckIntervalMs = 1000;
+    private List<Replica> replicas = new ArrayList<>();
+    
+    @Data
+    public static class Replica {
+        private String url;
+        // 为空时使用主库账号
+        private String username;
+        private String password;
+    }
+}
@@ -0,0 +1,124 @@
+package com.education.common.datasource;
+
+import com.alibaba.druid.pool.DruidDataSource;
+import lombok.extern.slf4j.Slf4j;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从库复制延迟监控
+ * 定时查询每个从库的复制延迟，连接失败、复制中断或延迟超限的从库暂时摘除，恢复后自动加回
+ */
+@Slf4j
+public class ReplicaLagMonitor {
+    
+    // 检查时获取连接的最长等待时间（毫秒），避免从库不可用时阻塞检查线程
+    private static final long CONNECT_TIMEOUT_MS = 1000;
+    
+    private final Map<String, DruidDataSource> replicas;
+    private final long maxLagSeconds;
+    private final long checkIntervalMs;
+    
+    private volatile List<String> healthyReplicas = Collections.emptyList();
+    // MySQL 8.0.22之前只支持SHOW SLAVE STATUS
+    private volatile boolean legacySyntax;
+    private ScheduledExecutorService scheduler;
+    
+    public ReplicaLagMonitor(Map<String, DruidDataSource> replicas, long maxLagSeconds, long checkIntervalMs) {
+        this.replicas = Collections.unmodifiableMap(new LinkedHashMap<>(replicas));
+        this.maxLagSeconds = maxLagSeconds;
+        this.checkIntervalMs = checkIntervalMs;
+    }
+    
+    public Map<String, DruidDataSource> getReplicas() {
+        return replicas;
+    }
+    
+    /**
+     * 当前可以承接读请求的从库
+     */
+    public List<String> getHealthyReplicas() {
+        return healthyReplicas;
+    }
+    
+    public void start() {
+        if (replicas.isEmpty()) {
+            log.warn("读写分离已启用但未配置从库，所有请求走主库");
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "replica-lag-monitor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 首次检查通过前所有读请求走主库
+        scheduler.scheduleWithFixedDelay(this::check, 0, checkIntervalMs, TimeUnit.MILLISECONDS);
+    }
+    
+    public void close() {
+        if (scheduler != null) {
+            scheduler.shutdownNow();
+        }
+        replicas.values().forEach(DruidDataSource::close);
+    }
+    
+    void check() {
+        List<String> healthy = new ArrayList<>();
+        for (Map.Entry<String, DruidDataSource> entry : replicas.entrySet()) {
+            String name = entry.getKey();
+            boolean wasHealthy = healthyReplicas.contains(name);
+            try {
+                Long lag = queryLagSeconds(entry.getValue());
+                if (lag != null && lag <= maxLagSeconds) {
+                    healthy.add(name);
+                    if (!wasHealthy) {
+                        log.info("从库可用，开始承接读请求: replica={}, lag={}s", name, lag);
+                    }
+                } else if (wasHealthy) {
+                    log.warn("从库复制延迟超限或复制中断，读请求回退主库: replica={}, lag={}", name, lag);
+                }
+            } catch (Exception e) {
+                if (wasHealthy) {
+                    log.warn("从库连接失败，读请求回退主库: replica={}, error={}", name, e.getMessage());
+                }
+            }
+        }
+        healthyReplicas = Collections.unmodifiableList(healthy);
+    }
+    
+    /**
+     * 查询复制延迟（秒）
+     * @return 延迟秒数；复制线程未运行时为null；实例没有复制状态（非复制从库）时视为0
+     */
+    private Long queryLagSeconds(DruidDataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection(CONNECT_TIMEOUT_MS);
+             Statement statement = connection.createStatement()) {
+            if (!legacySyntax) {
+                try (ResultSet rs = statement.executeQuery("SHOW REPLICA STATUS")) {
+                    return readLag(rs, "Seconds_Behind_Source");
+                } catch (SQLException e) {
+                    log.info("SHOW REPLICA STATUS不可用，改用SHOW SLAVE STATUS: {}", e.getMessage());
+                    legacySyntax = true;
+                }
+            }
+            try (ResultSet rs = statement.executeQuery("SHOW SLAVE STATUS")) {
+                return readLag(rs, "Seconds_Behind_Master");
+            }
+        }
+    }
+    
+    private Long readLag(ResultSet rs, String column) throws SQLException {
+        if (!rs.next()) {
+            return 0L;
+        }
+        long lag = rs.getLong(column);
+        return rs.wasNull() ? null : lag;
+    }
+}
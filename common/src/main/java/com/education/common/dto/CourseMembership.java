@@ -0,0 +1,7 @@
+package com.education.common.dto;
+
+/**
+ * 学生-课程选课关系（批量检查选课关系时使用）
+ */
+public record CourseMembership(Long studentId, Long courseId) {
+}
@@ -0,0 +1,57 @@
+package com.education.common.dto;
+
+import com.education.common.util.WeekSlotBitmap;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 课程只读视图（其他服务通过Feign读取course-service课程信息时使用）
+ * 由Jackson在Feign解码时一次性转换好类型，时间字段已解析为LocalDateTime，
+ * 上课时间位图在构造时解码一次，之后的过滤比较不再做字符串解析
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record CourseView(
+        Long courseId,
+        String courseName,
+        String courseCode,
+        String courseDescription,
+        BigDecimal credit,
+        Long teacherId,
+        String teacherName,
+        String department,
+        Integer totalCapacity,
+        Integer selectedCount,
+        String coverImage,
+        Integer status,
+        LocalDateTime startTime,
+        LocalDateTime endTime,
+        String scheduleBitmap,
+        LocalDateTime createdAt,
+        @JsonIgnore long[] scheduleBits) implements Serializable {
+    
+    public CourseView {
+        if (scheduleBits == null && scheduleBitmap != null) {
+            scheduleBits = WeekSlotBitmap.decode(scheduleBitmap);
+        }
+    }
+    
+    /**
+     * 是否开放选课
+     */
+    @JsonIgnore
+    public boolean isOpen() {
+        return status != null && status == 1;
+    }
+    
+    /**
+     * 是否已满（容量或已选人数未知时视为未满）
+     */
+    @JsonIgnore
+    public boolean isFull() {
+        return totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity;
+    }
+}
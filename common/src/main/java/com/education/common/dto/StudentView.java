@@ -0,0 +1,19 @@
+package com.education.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.Serializable;
+
+/**
+ * 学生只读视图（其他服务通过Feign读取student-service学生信息时使用）
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record StudentView(
+        Long studentId,
+        String name,
+        String username, // 学号
+        String major,
+        String grade,
+        String className,
+        Integer status) implements Serializable {
+}
@@ -0,0 +1,17 @@
+package com.education.common.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.io.Serializable;
+
+/**
+ * 教师只读视图（其他服务通过Feign同步teacher-service教师信息时使用）
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record TeacherView(
+        Long teacherId,
+        Long userId, // user_credentials表的id（没有登录账号时为null）
+        String name,
+        String department,
+        Integer status) implements Serializable {
+}
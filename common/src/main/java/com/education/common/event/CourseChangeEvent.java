@@ -0,0 +1,58 @@
+package com.education.common.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 课程变更事件
+ * 由course-service在课程变更的事务提交后通过Redis频道发布，其他服务据此刷新本地缓存
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class CourseChangeEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TYPE_CREATED = "CREATED";
+    public static final String TYPE_UPDATED = "UPDATED";
+    public static final String TYPE_DELETED = "DELETED";
+    public static final String TYPE_SEATS = "SEATS"; // 仅选课人数变化
+    public static final String TYPE_IMPORTED = "IMPORTED"; // 批量导入，新建的课程ID在courseIds中
+    
+    private String eventId; // 事件唯一ID，订阅方据此去重
+    private Long courseId;
+    private String type;
+    private Long timestamp;
+    private Integer capacityDelta; // 课程容量变化量（仅容量变化时有值）
+    private List<Long> courseIds; // 批量变更的课程ID（此时courseId为空）
+    
+    public CourseChangeEvent(Long courseId, String type) {
+        this.courseId = courseId;
+        this.type = type;
+        this.eventId = UUID.randomUUID().toString();
+        this.timestamp = System.currentTimeMillis();
+    }
+    
+    public CourseChangeEvent(List<Long> courseIds, String type) {
+        this.courseIds = courseIds;
+        this.type = type;
+        this.eventId = UUID.randomUUID().toString();
+        this.timestamp = System.currentTimeMillis();
+    }
+    
+    /**
+     * 本事件涉及的全部课程ID（单个或批量）
+     */
+    public List<Long> affectedCourseIds() {
+        if (courseIds != null && !courseIds.isEmpty()) {
+            return courseIds;
+        }
+        return courseId != null ? Collections.singletonList(courseId) : Collections.emptyList();
+    }
+}
@@ -0,0 +1,34 @@
+package com.education.common.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * 选课关系变更事件
+ * 由selection-service在选课/退课的事务提交后通过Redis频道发布，各实例据此更新本地的课程成员索引
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class EnrollmentChangeEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TYPE_SELECTED = "SELECTED";
+    public static final String TYPE_WITHDRAWN = "WITHDRAWN";
+    
+    private Long courseId;
+    private List<Long> studentIds;
+    private String type;
+    private Long timestamp;
+    
+    public EnrollmentChangeEvent(Long courseId, List<Long> studentIds, String type) {
+        this.courseId = courseId;
+        this.studentIds = studentIds;
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,37 @@
+package com.education.common.event;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+
+/**
+ * 教师变更事件
+ * 由teacher-service在教师信息变更的事务提交后通过Redis频道发布，
+ * 事件中携带其他服务投影所需的字段，订阅方无需再回查教师库
+ */
+@Data
+@NoArgsConstructor
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class TeacherChangeEvent implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    public static final String TYPE_CREATED = "CREATED";
+    public static final String TYPE_UPDATED = "UPDATED";
+    public static final String TYPE_DELETED = "DELETED";
+    
+    private Long teacherId;
+    private Long userId; // user_credentials表的id（未知时为null）
+    private String name;
+    private String department;
+    private Integer status;
+    private String type;
+    private Long timestamp;
+    
+    public TeacherChangeEvent(Long teacherId, String type) {
+        this.teacherId = teacherId;
+        this.type = type;
+        this.timestamp = System.currentTimeMillis();
+    }
+}
@@ -0,0 +1,114 @@
+package com.education.common.pagination;
+
+import com.baomidou.mybatisplus.annotation.DbType;
+import com.baomidou.mybatisplus.core.metadata.IPage;
+import com.baomidou.mybatisplus.core.toolkit.ParameterUtils;
+import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.education.common.cache.LocalCache;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.BoundSql;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * 分页插件扩展：减少分页查询附带的COUNT(*)
+ * 1. CACHED（普通Page默认）：按 (Mapper方法, SQL, 参数值) 缓存总数，短TTL内相同条件的翻页不再重复统计
+ * 2. HAS_NEXT：不统计总数，多取一条判断是否有下一页
+ * 3. APPROXIMATE：先用EXPLAIN的预估行数，预估值超过阈值时直接作为总数，否则按CACHED统计
+ * 缓存命中时总数可能落后于最新数据（最多TTL），但记录本身始终按实际查询返回
+ */
+@Slf4j
+public class CountCachingPaginationInnerInterceptor extends PaginationInnerInterceptor {
+    
+    private final LocalCache<String, Long> countCache;
+    private final boolean cacheEnabled;
+    private final long approximateThreshold;
+    
+    /**
+     * @param countCacheTtlMillis 总数缓存时间，不大于0时普通Page每次都统计
+     * @param approximateThreshold APPROXIMATE方式下采用预估值的最小行数
+     */
+    public CountCachingPaginationInnerInterceptor(DbType dbType, long countCacheTtlMillis, int countCacheMaxSize,
+                                                  long approximateThreshold) {
+        super(dbType);
+        this.cacheEnabled = countCacheTtlMillis > 0;
+        this.countCache = new LocalCache<>(countCacheMaxSize, Math.max(countCacheTtlMillis, 1));
+        this.approximateThreshold = approximateThreshold;
+    }
+    
+    @Override
+    public boolean willDoQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                               ResultHandler resultHandler, BoundSql boundSql) throws SQLException {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page == null || page.getSize() < 0 || !page.searchCount() || resultHandler != Executor.NO_RESULT_HANDLER) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        CountMode mode = page instanceof QueryPage<?> queryPage ? queryPage.getCountMode() : CountMode.CACHED;
+        if (mode == CountMode.EXACT || (mode == CountMode.CACHED && !cacheEnabled)) {
+            return super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        }
+        
+        if (mode == CountMode.APPROXIMATE) {
+            long estimated = estimateRows(executor, ms, parameter, boundSql);
+            if (estimated >= approximateThreshold) {
+                page.setTotal(estimated);
+                ((QueryPage<?>) page).setApproximate(true);
+                return true;
+            }
+        }
+        
+        String cacheKey = executor.createCacheKey(ms, parameter, RowBounds.DEFAULT, boundSql).toString();
+        Long cached = countCache.getIfPresent(cacheKey);
+        if (cached != null) {
+            // 缓存的总数可能已过时，不据此跳过查询
+            page.setTotal(cached);
+            return true;
+        }
+        boolean continueQuery = super.willDoQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+        countCache.put(cacheKey, page.getTotal());
+        return continueQuery;
+    }
+    
+    @Override
+    public void beforeQuery(Executor executor, MappedStatement ms, Object parameter, RowBounds rowBounds,
+                            ResultHandler resultHandler, BoundSql boundSql) {
+        IPage<?> page = ParameterUtils.findPage(parameter).orElse(null);
+        if (page instanceof QueryPage<?> queryPage && queryPage.getCountMode() == CountMode.HAS_NEXT) {
+            queryPage.setProbing(true);
+            try {
+                super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+            } finally {
+                queryPage.setProbing(false);
+            }
+            return;
+        }
+        super.beforeQuery(executor, ms, parameter, rowBounds, resultHandler, boundSql);
+    }
+    
+    /**
+     * 通过EXPLAIN获取MySQL优化器预估的结果行数（rows * filtered%），失败时返回-1
+     */
+    private long estimateRows(Executor executor, MappedStatement ms, Object parameter, BoundSql boundSql) {
+        try {
+            try (PreparedStatement ps = executor.getTransaction().getConnection()
+                    .prepareStatement("EXPLAIN " + boundSql.getSql())) {
+                ms.getConfiguration().newParameterHandler(ms, parameter, boundSql).setParameters(ps);
+                try (ResultSet rs = ps.executeQuery()) {
+                    if (rs.next()) {
+                        double filtered = rs.getDouble("filtered");
+                        return (long) (rs.getLong("rows") * (filtered > 0 ? filtered : 100) / 100);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            log.warn("预估分页总数失败，改为统计: statement={}, error={}", ms.getId(), e.getMessage());
+        }
+        return -1;
+    }
+}
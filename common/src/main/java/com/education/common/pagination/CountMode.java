@@ -0,0 +1,23 @@
+package com.education.common.pagination;
+
+/**
+ * 分页查询的总数统计方式
+ */
+public enum CountMode {
+    /**
+     * 每次执行COUNT(*)
+     */
+    EXACT,
+    /**
+     * 相同查询条件的COUNT(*)结果在短时间内复用（普通Page的默认方式）
+     */
+    CACHED,
+    /**
+     * 不统计总数，多取一条判断是否有下一页
+     */
+    HAS_NEXT,
+    /**
+     * 按执行计划估算总数（估算值低于阈值时退回CACHED），用于大表的管理端列表
+     */
+    APPROXIMATE
+}
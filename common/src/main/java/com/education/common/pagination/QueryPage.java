@@ -0,0 +1,87 @@
+package com.education.common.pagination;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 指定总数统计方式的分页参数，配合CountCachingPaginationInnerInterceptor使用
+ * HAS_NEXT方式下查询多取一条，hasNext表示是否还有下一页，total不可用；
+ * APPROXIMATE方式下approximate为true时total为估算值
+ */
+public class QueryPage<T> extends Page<T> {
+    private static final long serialVersionUID = 1L;
+    
+    private final CountMode countMode;
+    private boolean hasNext;
+    private boolean approximate;
+    // 分页插件拼接LIMIT期间为true，此时getSize()多返回一条
+    private transient boolean probing;
+    
+    public QueryPage(long current, long size, CountMode countMode) {
+        super(current, size, countMode != CountMode.HAS_NEXT);
+        this.countMode = countMode;
+    }
+    
+    public static <T> QueryPage<T> of(long current, long size, CountMode countMode) {
+        return new QueryPage<>(current, size, countMode);
+    }
+    
+    public CountMode getCountMode() {
+        return countMode;
+    }
+    
+    public boolean isHasNext() {
+        return hasNext;
+    }
+    
+    public boolean isApproximate() {
+        return approximate;
+    }
+    
+    /**
+     * 以相同的分页参数和统计结果承载转换后的记录（如实体转DTO），hasNext、approximate随之返回给调用方
+     */
+    public <R> QueryPage<R> withRecords(List<R> records) {
+        QueryPage<R> page = new QueryPage<>(getCurrent(), super.getSize(), countMode);
+        page.setTotal(getTotal());
+        page.hasNext = hasNext;
+        page.approximate = approximate;
+        page.setRecords(records);
+        return page;
+    }
+    
+    void setApproximate(boolean approximate) {
+        this.approximate = approximate;
+    }
+    
+    void setProbing(boolean probing) {
+        this.probing = probing;
+    }
+    
+    @Override
+    public long getSize() {
+        long size = super.getSize();
+        return probing ? size + 1 : size;
+    }
+    
+    /**
+     * 偏移量始终按实际每页条数计算，不受多取的一条影响
+     */
+    @Override
+    public long offset() {
+        long current = getCurrent();
+        return current > 1 ? (current - 1) * super.getSize() : 0;
+    }
+    
+    @Override
+    public Page<T> setRecords(List<T> records) {
+        long size = super.getSize();
+        if (countMode == CountMode.HAS_NEXT && records != null && records.size() > size) {
+            hasNext = true;
+            records = new ArrayList<>(records.subList(0, (int) size));
+        }
+        return super.setRecords(records);
+    }
+}
@@ -0,0 +1,31 @@
+package com.education.common.result;
+
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 游标分页结果（keyset分页）
+ * 下一页通过nextCursor定位，不使用OFFSET，翻到多深的页代价都和第一页相同
+ */
+@Data
+public class CursorPage<T> implements Serializable {
+    private static final long serialVersionUID = 1L;
+    
+    private List<T> records = new ArrayList<>();
+    private Integer size;
+    private String nextCursor; // 没有下一页时为null
+    private Boolean hasMore;
+    
+    public CursorPage() {
+    }
+    
+    public CursorPage(List<T> records, Integer size, String nextCursor) {
+        this.records = records;
+        this.size = size;
+        this.nextCursor = nextCursor;
+        this.hasMore = nextCursor != null;
+    }
+}
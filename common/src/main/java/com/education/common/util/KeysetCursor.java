@@ -0,0 +1,56 @@
+package com.education.common.util;
+
+import com.education.common.exception.BusinessException;
+import lombok.Data;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 按 (created_at DESC, id DESC) 排序的游标
+ * 对外是一个不透明的字符串（URL安全的Base64），内容为 "创建时间|ID"
+ */
+@Data
+public class KeysetCursor {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final LocalDateTime createdAt;
+    private final Long id;
+    
+    public static String encode(LocalDateTime createdAt, Long id) {
+        if (createdAt == null || id == null) {
+            return null;
+        }
+        String raw = createdAt + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析游标，空字符串表示第一页（返回null）
+     */
+    public static KeysetCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            return new KeysetCursor(LocalDateTime.parse(raw.substring(0, index)), Long.valueOf(raw.substring(index + 1)));
+        } catch (Exception e) {
+            throw new BusinessException(400, "无效的分页游标");
+        }
+    }
+    
+    /**
+     * 判断 (createdAt, id) 是否排在游标之后（即属于下一页），创建时间为空的记录排在最后
+     */
+    public boolean follows(LocalDateTime otherCreatedAt, Long otherId) {
+        if (otherCreatedAt == null) {
+            return true;
+        }
+        int cmp = otherCreatedAt.compareTo(createdAt);
+        return cmp < 0 || (cmp == 0 && otherId != null && otherId < id);
+    }
+}
@@ -0,0 +1,108 @@
+package com.education.common.util;
+
+import java.nio.ByteBuffer;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * 周课表位图工具类
+ * 一周按10分钟划分为1008个时间段（7天 * 144段），每段占1位，共16个long
+ * 课程上课时间、学生已占用时间都可以表示为位图，冲突检查只需按位与
+ * 传输和缓存时使用Base64字符串（128字节）
+ */
+public class WeekSlotBitmap {
+    
+    public static final int SLOT_MINUTES = 10;
+    public static final int SLOTS_PER_DAY = 24 * 60 / SLOT_MINUTES;
+    public static final int SLOTS_PER_WEEK = 7 * SLOTS_PER_DAY;
+    public static final int WORDS = (SLOTS_PER_WEEK + 63) / 64;
+    
+    /**
+     * 创建空位图
+     */
+    public static long[] empty() {
+        return new long[WORDS];
+    }
+    
+    /**
+     * 标记某天的一段上课时间
+     * 开始时间向下取整、结束时间向上取整到10分钟，区间为左闭右开
+     * @param dayOfWeek 星期几：1-周一，...，7-周日
+     */
+    public static void mark(long[] bits, int dayOfWeek, LocalTime start, LocalTime end) {
+        if (dayOfWeek < 1 || dayOfWeek > 7 || start == null || end == null || !start.isBefore(end)) {
+            return;
+        }
+        int dayOffset = (dayOfWeek - 1) * SLOTS_PER_DAY;
+        int from = dayOffset + start.toSecondOfDay() / 60 / SLOT_MINUTES;
+        int to = dayOffset + (end.toSecondOfDay() / 60 + SLOT_MINUTES - 1) / SLOT_MINUTES;
+        for (int slot = from; slot < to; slot++) {
+            bits[slot >>> 6] |= 1L << (slot & 63);
+        }
+    }
+    
+    /**
+     * 两个位图是否有重叠的时间段
+     */
+    public static boolean intersects(long[] a, long[] b) {
+        for (int i = 0; i < WORDS; i++) {
+            if ((a[i] & b[i]) != 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    /**
+     * 将source合并到target（按位或）
+     */
+    public static void or(long[] target, long[] source) {
+        for (int i = 0; i < WORDS; i++) {
+            target[i] |= source[i];
+        }
+    }
+    
+    public static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+    
+    /**
+     * 编码为Base64字符串
+     */
+    public static String encode(long[] bits) {
+        ByteBuffer buffer = ByteBuffer.allocate(WORDS * Long.BYTES);
+        for (long word : bits) {
+            buffer.putLong(word);
+        }
+        return Base64.getEncoder().encodeToString(buffer.array());
+    }
+    
+    /**
+     * 从Base64字符串解码（格式不正确时返回null）
+     */
+    public static long[] decode(String encoded) {
+        if (encoded == null || encoded.isEmpty()) {
+            return null;
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        if (bytes.length != WORDS * Long.BYTES) {
+            return null;
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        long[] bits = new long[WORDS];
+        for (int i = 0; i < WORDS; i++) {
+            bits[i] = buffer.getLong();
+        }
+        return bits;
+    }
+}
@@ -0,0 +1,100 @@
+package com.education.common.pagination;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * HAS_NEXT分页：多取一条判断下一页，偏移量和返回的记录数仍按实际每页条数
+ */
+class QueryPageTest {
+    
+    @Test
+    void hasNextModeSkipsCount() {
+        QueryPage<Integer> page = QueryPage.of(1, 10, CountMode.HAS_NEXT);
+        
+        assertFalse(page.searchCount());
+        assertTrue(QueryPage.of(1, 10, CountMode.EXACT).searchCount());
+    }
+    
+    @Test
+    void probingFetchesOneExtraRowWithoutShiftingOffset() {
+        QueryPage<Integer> page = QueryPage.of(3, 10, CountMode.HAS_NEXT);
+        
+        page.setProbing(true);
+        assertEquals(11, page.getSize());
+        assertEquals(20, page.offset());
+        
+        page.setProbing(false);
+        assertEquals(10, page.getSize());
+        assertEquals(20, page.offset());
+    }
+    
+    @Test
+    void firstPageStartsAtZero() {
+        QueryPage<Integer> page = QueryPage.of(1, 10, CountMode.HAS_NEXT);
+        page.setProbing(true);
+        
+        assertEquals(0, page.offset());
+    }
+    
+    @Test
+    void extraRowMeansThereIsANextPage() {
+        QueryPage<Integer> page = QueryPage.of(1, 10, CountMode.HAS_NEXT);
+        
+        page.setRecords(rows(11));
+        
+        assertTrue(page.isHasNext());
+        assertEquals(rows(10), page.getRecords());
+    }
+    
+    @Test
+    void fullPageWithoutExtraRowIsTheLastPage() {
+        QueryPage<Integer> page = QueryPage.of(2, 10, CountMode.HAS_NEXT);
+        
+        page.setRecords(rows(10));
+        
+        assertFalse(page.isHasNext());
+        assertEquals(10, page.getRecords().size());
+    }
+    
+    @Test
+    void emptyResultIsTheLastPage() {
+        QueryPage<Integer> page = QueryPage.of(5, 10, CountMode.HAS_NEXT);
+        
+        page.setRecords(List.of());
+        
+        assertFalse(page.isHasNext());
+        assertTrue(page.getRecords().isEmpty());
+    }
+    
+    @Test
+    void otherModesKeepRecordsAsIs() {
+        QueryPage<Integer> page = QueryPage.of(1, 10, CountMode.EXACT);
+        
+        page.setRecords(rows(11));
+        
+        assertFalse(page.isHasNext());
+        assertEquals(11, page.getRecords().size());
+    }
+    
+    @Test
+    void convertedPageKeepsHasNext() {
+        QueryPage<Integer> page = QueryPage.of(1, 10, CountMode.HAS_NEXT);
+        page.setRecords(rows(11));
+        
+        QueryPage<String> converted = page.withRecords(List.of("a", "b"));
+        
+        assertTrue(converted.isHasNext());
+        assertEquals(10, converted.getSize());
+        assertEquals(List.of("a", "b"), converted.getRecords());
+    }
+    
+    private static List<Integer> rows(int count) {
+        return IntStream.rangeClosed(1, count).boxed().collect(Collectors.toList());
+    }
+}
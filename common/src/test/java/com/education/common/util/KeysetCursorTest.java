@@ -0,0 +1,83 @@
+package com.education.common.util;
+
+import com.education.common.exception.BusinessException;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分页游标：编码解码、非法游标、(created_at DESC, id DESC) 的翻页顺序
+ */
+class KeysetCursorTest {
+    
+    private static final LocalDateTime CREATED_AT = LocalDateTime.of(2024, 9, 1, 8, 30, 15, 123_000_000);
+    
+    @Test
+    void encodeThenDecodeKeepsCreatedAtAndId() {
+        String cursor = KeysetCursor.encode(CREATED_AT, 42L);
+        
+        KeysetCursor decoded = KeysetCursor.decode(cursor);
+        
+        assertEquals(CREATED_AT, decoded.getCreatedAt());
+        assertEquals(42L, decoded.getId());
+    }
+    
+    @Test
+    void encodedCursorIsUrlSafe() {
+        String cursor = KeysetCursor.encode(CREATED_AT, Long.MAX_VALUE);
+        
+        assertTrue(cursor.matches("[A-Za-z0-9_-]+"), cursor);
+    }
+    
+    @Test
+    void encodeReturnsNullWhenFieldMissing() {
+        assertNull(KeysetCursor.encode(null, 1L));
+        assertNull(KeysetCursor.encode(CREATED_AT, null));
+    }
+    
+    @Test
+    void blankCursorMeansFirstPage() {
+        assertNull(KeysetCursor.decode(null));
+        assertNull(KeysetCursor.decode(""));
+        assertNull(KeysetCursor.decode("   "));
+    }
+    
+    @Test
+    void invalidCursorIsRejected() {
+        BusinessException e = assertThrows(BusinessException.class, () -> KeysetCursor.decode("not-a-cursor"));
+        assertEquals(400, e.getCode());
+        
+        String withoutId = Base64.getUrlEncoder()
+                .encodeToString(CREATED_AT.toString().getBytes(StandardCharsets.UTF_8));
+        assertThrows(BusinessException.class, () -> KeysetCursor.decode(withoutId));
+    }
+    
+    @Test
+    void olderRecordsFollowTheCursor() {
+        KeysetCursor cursor = new KeysetCursor(CREATED_AT, 42L);
+        
+        assertTrue(cursor.follows(CREATED_AT.minusSeconds(1), 100L));
+        assertFalse(cursor.follows(CREATED_AT.plusSeconds(1), 1L));
+    }
+    
+    @Test
+    void sameCreatedAtIsOrderedByIdDescending() {
+        KeysetCursor cursor = new KeysetCursor(CREATED_AT, 42L);
+        
+        assertTrue(cursor.follows(CREATED_AT, 41L));
+        assertFalse(cursor.follows(CREATED_AT, 42L));
+        assertFalse(cursor.follows(CREATED_AT, 43L));
+        assertFalse(cursor.follows(CREATED_AT, null));
+    }
+    
+    @Test
+    void recordsWithoutCreatedAtComeLast() {
+        KeysetCursor cursor = new KeysetCursor(CREATED_AT, 42L);
+        
+        assertTrue(cursor.follows(null, 1L));
+    }
+}
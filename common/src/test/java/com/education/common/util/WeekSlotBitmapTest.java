@@ -0,0 +1,110 @@
+package com.education.common.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalTime;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 周课表位图：时间段取整、左闭右开的冲突判断、Base64编码
+ */
+class WeekSlotBitmapTest {
+    
+    @Test
+    void markRoundsStartDownAndEndUp() {
+        long[] bits = WeekSlotBitmap.empty();
+        
+        // 周一 08:05-08:55 -> 08:00-09:00，即第48~53段
+        WeekSlotBitmap.mark(bits, 1, LocalTime.of(8, 5), LocalTime.of(8, 55));
+        
+        for (int slot = 0; slot < WeekSlotBitmap.SLOTS_PER_WEEK; slot++) {
+            assertEquals(slot >= 48 && slot < 54, isSet(bits, slot), "slot " + slot);
+        }
+    }
+    
+    @Test
+    void adjacentClassesDoNotConflict() {
+        long[] first = bitmap(1, LocalTime.of(8, 0), LocalTime.of(9, 40));
+        long[] next = bitmap(1, LocalTime.of(9, 40), LocalTime.of(11, 20));
+        
+        assertFalse(WeekSlotBitmap.intersects(first, next));
+    }
+    
+    @Test
+    void overlappingClassesConflict() {
+        long[] first = bitmap(1, LocalTime.of(8, 0), LocalTime.of(9, 40));
+        long[] overlapping = bitmap(1, LocalTime.of(9, 35), LocalTime.of(10, 0));
+        
+        assertTrue(WeekSlotBitmap.intersects(first, overlapping));
+    }
+    
+    @Test
+    void sameTimeOnAnotherDayDoesNotConflict() {
+        long[] monday = bitmap(1, LocalTime.of(8, 0), LocalTime.of(9, 40));
+        long[] tuesday = bitmap(2, LocalTime.of(8, 0), LocalTime.of(9, 40));
+        
+        assertFalse(WeekSlotBitmap.intersects(monday, tuesday));
+    }
+    
+    @Test
+    void lastSlotOfSundayFitsInBitmap() {
+        long[] bits = bitmap(7, LocalTime.of(23, 50), LocalTime.of(23, 59));
+        
+        assertTrue(isSet(bits, WeekSlotBitmap.SLOTS_PER_WEEK - 1));
+        assertFalse(isSet(bits, WeekSlotBitmap.SLOTS_PER_WEEK - 2));
+    }
+    
+    @Test
+    void invalidRangesAreIgnored() {
+        long[] bits = WeekSlotBitmap.empty();
+        
+        WeekSlotBitmap.mark(bits, 0, LocalTime.of(8, 0), LocalTime.of(9, 0));
+        WeekSlotBitmap.mark(bits, 8, LocalTime.of(8, 0), LocalTime.of(9, 0));
+        WeekSlotBitmap.mark(bits, 1, LocalTime.of(9, 0), LocalTime.of(9, 0));
+        WeekSlotBitmap.mark(bits, 1, LocalTime.of(10, 0), LocalTime.of(9, 0));
+        WeekSlotBitmap.mark(bits, 1, null, LocalTime.of(9, 0));
+        
+        assertTrue(WeekSlotBitmap.isEmpty(bits));
+    }
+    
+    @Test
+    void orMergesOccupiedSlots() {
+        long[] occupied = WeekSlotBitmap.empty();
+        WeekSlotBitmap.or(occupied, bitmap(1, LocalTime.of(8, 0), LocalTime.of(9, 0)));
+        WeekSlotBitmap.or(occupied, bitmap(3, LocalTime.of(14, 0), LocalTime.of(15, 0)));
+        
+        assertTrue(WeekSlotBitmap.intersects(occupied, bitmap(3, LocalTime.of(14, 30), LocalTime.of(16, 0))));
+        assertFalse(WeekSlotBitmap.intersects(occupied, bitmap(2, LocalTime.of(8, 0), LocalTime.of(9, 0))));
+    }
+    
+    @Test
+    void encodeThenDecodeRoundTrips() {
+        long[] bits = bitmap(5, LocalTime.of(13, 30), LocalTime.of(15, 10));
+        WeekSlotBitmap.or(bits, bitmap(7, LocalTime.of(20, 0), LocalTime.of(21, 0)));
+        
+        String encoded = WeekSlotBitmap.encode(bits);
+        
+        assertEquals(WeekSlotBitmap.WORDS * Long.BYTES, Base64.getDecoder().decode(encoded).length);
+        assertArrayEquals(bits, WeekSlotBitmap.decode(encoded));
+    }
+    
+    @Test
+    void decodeRejectsMalformedInput() {
+        assertNull(WeekSlotBitmap.decode(null));
+        assertNull(WeekSlotBitmap.decode(""));
+        assertNull(WeekSlotBitmap.decode("not base64!"));
+        assertNull(WeekSlotBitmap.decode(Base64.getEncoder().encodeToString(new byte[8])));
+    }
+    
+    private static long[] bitmap(int dayOfWeek, LocalTime start, LocalTime end) {
+        long[] bits = WeekSlotBitmap.empty();
+        WeekSlotBitmap.mark(bits, dayOfWeek, start, end);
+        return bits;
+    }
+    
+    private static boolean isSet(long[] bits, int slot) {
+        return (bits[slot >>> 6] & (1L << (slot & 63))) != 0;
+    }
+}
@@ -1,12 +1,19 @@
 package com.education.course;
 
+import com.education.common.datasource.ReadWriteRoutingConfiguration;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@EnableFeignClients
+@EnableScheduling
+@Import(ReadWriteRoutingConfiguration.class)
 @MapperScan("com.education.course.mapper")
 public class CourseServiceApplication {
     public static void main(String[] args) {
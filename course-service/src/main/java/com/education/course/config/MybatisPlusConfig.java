@@ -2,7 +2,8 @@ package com.education.course.config;
 
 import com.baomidou.mybatisplus.annotation.DbType;
 import com.baomidou.mybatisplus.extension.plugins.MybatisPlusInterceptor;
-import com.baomidou.mybatisplus.extension.plugins.inner.PaginationInnerInterceptor;
+import com.education.common.pagination.CountCachingPaginationInnerInterceptor;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -14,12 +15,17 @@ public class MybatisPlusConfig {
     
     /**
      * 分页插件配置
+     * 相同条件的分页总数短时间内复用，支持不统计总数（hasNext）和预估总数（见QueryPage）
      */
     @Bean
-    public MybatisPlusInterceptor mybatisPlusInterceptor() {
+    public MybatisPlusInterceptor mybatisPlusInterceptor(
+            @Value("${pagination.count-cache-ttl-ms:5000}") long countCacheTtlMillis,
+            @Value("${pagination.count-cache-max-size:1000}") int countCacheMaxSize,
+            @Value("${pagination.approximate-threshold:100000}") long approximateThreshold) {
         MybatisPlusInterceptor interceptor = new MybatisPlusInterceptor();
         // 添加分页插件
-        interceptor.addInnerInterceptor(new PaginationInnerInterceptor(DbType.MYSQL));
+        interceptor.addInnerInterceptor(new CountCachingPaginationInnerInterceptor(
+                DbType.MYSQL, countCacheTtlMillis, countCacheMaxSize, approximateThreshold));
         return interceptor;
     }
 }
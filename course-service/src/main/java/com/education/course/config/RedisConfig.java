@@ -1,11 +1,16 @@
 package com.education.course.config;
 
+import com.education.common.constant.Constants;
+import com.education.course.listener.CourseChangeListener;
+import com.education.course.listener.TeacherChangeListener;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -37,5 +42,19 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+    
+    /**
+     * Redis频道订阅容器
+     * 课程变更事件用于清除各实例的本地缓存，教师变更事件用于维护教师投影
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CourseChangeListener courseChangeListener,
+                                                                       TeacherChangeListener teacherChangeListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(courseChangeListener, new ChannelTopic(Constants.CHANNEL_COURSE_CHANGED));
+        container.addMessageListener(teacherChangeListener, new ChannelTopic(Constants.CHANNEL_TEACHER_CHANGED));
+        return container;
+    }
 }
-
@@ -3,17 +3,32 @@ package com.education.course.controller;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.result.Result;
 import com.education.course.dto.CourseDTO;
+import com.education.course.dto.CourseImportReport;
+import com.education.course.dto.CourseRankDTO;
+import com.education.course.dto.CourseSuggestionDTO;
+import com.education.course.entity.CourseSchedule;
+import com.education.course.service.CourseImportService;
+import com.education.course.service.CourseRankingService;
 import com.education.course.service.CourseService;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.InputStream;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+
 @RestController
 @RequestMapping("/course")
 @RequiredArgsConstructor
 public class CourseController {
     
     private final CourseService courseService;
+    private final CourseImportService courseImportService;
+    private final CourseRankingService courseRankingService;
     
     @GetMapping("/{id}")
     public Result<CourseDTO> getById(@PathVariable("id") Long id) {
@@ -21,22 +36,117 @@ public class CourseController {
         return Result.success(dto);
     }
     
+    /**
+     * 批量获取课程信息（供其他服务一次性查询多门课程）
+     */
+    @PostMapping("/batch")
+    public Result<List<CourseDTO>> getByIds(@RequestBody List<Long> ids) {
+        List<CourseDTO> list = courseService.getByIds(ids);
+        return Result.success(list);
+    }
+    
+    /**
+     * 按开课院系、开课时间范围查询课程ID（不限课程状态）
+     */
+    @GetMapping("/ids")
+    public Result<List<Long>> listIds(
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "startFrom", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startFrom,
+            @RequestParam(value = "startTo", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime startTo) {
+        return Result.success(courseService.listCourseIds(department, startFrom, startTo));
+    }
+    
+    /**
+     * 获取课程时间表
+     */
+    @GetMapping("/{id}/schedule")
+    public Result<List<CourseSchedule>> getSchedule(@PathVariable("id") Long id) {
+        return Result.success(courseService.getSchedule(id));
+    }
+    
+    /**
+     * 课程分页列表
+     * 传入cursor（第一页传空字符串）时使用游标分页，返回nextCursor；否则按页码分页
+     */
     @GetMapping("/page")
-    public Result<Page<CourseDTO>> getPage(
+    public Result<?> getPage(
             @RequestParam(value = "current", defaultValue = "1") Integer current,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
             @RequestParam(value = "keyword", required = false) String keyword,
-            @RequestParam(value = "status", required = false) Integer status) {
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return Result.success(courseService.getCursorPage(cursor, size, keyword, status));
+        }
         Page<CourseDTO> page = courseService.getPage(current, size, keyword, status);
         return Result.success(page);
     }
     
+    /**
+     * 课程输入联想（搜索框下拉提示）
+     */
+    @GetMapping("/suggest")
+    public Result<List<CourseSuggestionDTO>> suggest(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(value = "status", required = false) Integer status,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(courseService.suggest(prefix, status, limit));
+    }
+    
+    /**
+     * 满员率排行（首页），不传department时为全校排行；只读Redis
+     */
+    @GetMapping("/rank/fill")
+    public Result<List<CourseRankDTO>> topByFillRate(
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(courseRankingService.topByFillRate(department, limit));
+    }
+    
+    /**
+     * 即将满员的课程（满员率不低于threshold且未满）；只读Redis
+     */
+    @GetMapping("/rank/almost-full")
+    public Result<List<CourseRankDTO>> almostFull(
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "threshold", required = false) Double threshold,
+            @RequestParam(value = "limit", defaultValue = "20") Integer limit) {
+        return Result.success(courseRankingService.almostFull(department, threshold, limit));
+    }
+    
+    /**
+     * 热门课程（按浏览热度）；只读Redis
+     */
+    @GetMapping("/rank/popular")
+    public Result<List<CourseRankDTO>> popular(
+            @RequestParam(value = "limit", defaultValue = "10") Integer limit) {
+        return Result.success(courseRankingService.popular(limit));
+    }
+    
     @PostMapping
     public Result<CourseDTO> create(@Valid @RequestBody CourseDTO dto) {
         CourseDTO result = courseService.create(dto);
         return Result.success("创建成功", result);
     }
     
+    /**
+     * 批量导入课程（CSV，首行为表头），返回逐行结果
+     */
+    @PostMapping(value = "/import", consumes = "text/csv")
+    public Result<CourseImportReport> importCsv(InputStream body) {
+        return Result.success(courseImportService.importCsv(body));
+    }
+    
+    /**
+     * 批量导入课程（JSON课程数组），返回逐行结果
+     */
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Result<CourseImportReport> importJson(InputStream body) {
+        return Result.success(courseImportService.importJson(body));
+    }
+    
     @PutMapping("/{id}")
     public Result<CourseDTO> update(@PathVariable("id") Long id, @Valid @RequestBody CourseDTO dto) {
         CourseDTO result = courseService.update(id, dto);
@@ -66,5 +176,23 @@ public class CourseController {
         courseService.decrementSelectedCount(id);
         return Result.success("选课人数已减少");
     }
+    
+    /**
+     * 批量按增量调整课程选课人数（选课服务座位库存回写，一次请求提交多门课程）
+     */
+    @PutMapping("/adjust-selected/batch")
+    public Result<Integer> adjustSelectedCountBatch(@RequestBody Map<Long, Integer> deltas) {
+        int updated = courseService.adjustSelectedCountBatch(deltas);
+        return Result.success("选课人数已调整", updated);
+    }
+    
+    /**
+     * 按增量调整课程选课人数（选课服务座位库存回写）
+     */
+    @PutMapping("/{id}/adjust-selected")
+    public Result<?> adjustSelectedCount(@PathVariable("id") Long id, @RequestParam("delta") Integer delta) {
+        courseService.adjustSelectedCount(id, delta);
+        return Result.success("选课人数已调整");
+    }
 }
 
@@ -21,6 +21,8 @@ public class CourseDTO {
     private Integer status;
     private LocalDateTime startTime;
     private LocalDateTime endTime;
+    private String scheduleBitmap; // 每周上课时间位图（Base64，见WeekSlotBitmap），未排课时为空
+    private LocalDateTime createdAt; // 只读，游标分页按 (createdAt, courseId) 定位
     
     // 兼容旧字段名
     public Long getId() {
@@ -0,0 +1,40 @@
+package com.education.course.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 课程批量导入结果（逐行）
+ */
+@Data
+public class CourseImportReport {
+    
+    public static final String STATUS_CREATED = "CREATED";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private int total;
+    private int created;
+    private int failed;
+    private List<Row> rows = new ArrayList<>();
+    
+    public void add(Row row) {
+        rows.add(row);
+        total++;
+        if (STATUS_CREATED.equals(row.getStatus())) {
+            created++;
+        } else {
+            failed++;
+        }
+    }
+    
+    @Data
+    public static class Row {
+        private int row; // CSV为数据行号（表头为第1行），JSON为数组下标+1
+        private String courseCode;
+        private Long courseId; // 导入成功时为新课程ID
+        private String status;
+        private String message; // 失败原因
+    }
+}
@@ -0,0 +1,20 @@
+package com.education.course.dto;
+
+import lombok.Data;
+
+/**
+ * 课程排行榜条目（首页热门课程、即将满员课程），直接取自Redis
+ */
+@Data
+public class CourseRankDTO {
+    private Long courseId;
+    private String courseName;
+    private String courseCode;
+    private String teacherName;
+    private String department;
+    private Integer selectedCount;
+    private Integer totalCapacity;
+    private Integer status;
+    private Double fillRate; // 选课人数 / 课程容量
+    private Double popularity; // 浏览热度（抽样计数，定期衰减）
+}
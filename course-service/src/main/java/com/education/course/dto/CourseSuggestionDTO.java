@@ -0,0 +1,18 @@
+package com.education.course.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 课程输入联想结果
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CourseSuggestionDTO {
+    private Long courseId;
+    private String courseName;
+    private String courseCode;
+    private String teacherName;
+}
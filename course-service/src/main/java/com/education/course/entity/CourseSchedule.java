@@ -0,0 +1,23 @@
+package com.education.course.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+
+@Data
+@TableName("course_schedule")
+public class CourseSchedule {
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private Long courseId;
+    private Integer dayOfWeek; // 1-周一，2-周二，...，7-周日
+    private LocalTime startTime;
+    private LocalTime endTime;
+    private String classroom;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,23 @@
+package com.education.course.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 教师投影（course-service本地维护的教师信息副本）
+ */
+@Data
+@TableName("teacher_projection")
+public class TeacherProjection {
+    @TableId(type = IdType.INPUT)
+    private Long teacherId;
+    private Long userId; // user_credentials表的id
+    private String name;
+    private String department;
+    private Integer status;
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,31 @@
+package com.education.course.feign;
+
+import com.education.common.dto.TeacherView;
+import com.education.common.result.Result;
+import org.springframework.cloud.openfeign.FeignClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestParam;
+
+import java.util.List;
+
+/**
+ * 教师服务Feign客户端
+ * 用于同步本地教师投影，不再跨库查询teacher_service_db
+ */
+@FeignClient(name = "teacher-service", path = "/teacher")
+public interface TeacherServiceClient {
+    
+    /**
+     * 教师投影数据（按teacherId游标分页）
+     */
+    @GetMapping("/projections")
+    Result<List<TeacherView>> listProjections(@RequestParam("afterId") Long afterId, @RequestParam("size") Integer size);
+    
+    /**
+     * 批量解析教师投影数据，参数中每个ID可能是teacherId，也可能是userId（不存在的不返回）
+     */
+    @PostMapping("/projections/resolve")
+    Result<List<TeacherView>> resolveProjections(@RequestBody List<Long> ids);
+}
@@ -0,0 +1,45 @@
+package com.education.course.listener;
+
+import com.education.common.event.CourseChangeEvent;
+import com.education.course.service.CourseDetailCache;
+import com.education.course.service.CourseSearchIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 课程变更事件监听（Redis频道）
+ * 事件在事务提交后发布，收到后再清除一次缓存，避免提交前被并发读请求回填旧数据；
+ * 同时增量更新本实例的课程检索索引（仅选课人数变化时不涉及检索字段）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseChangeListener implements MessageListener {
+    
+    private final ObjectMapper objectMapper;
+    private final CourseDetailCache courseDetailCache;
+    private final CourseSearchIndex courseSearchIndex;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CourseChangeEvent event = objectMapper.readValue(message.getBody(), CourseChangeEvent.class);
+            List<Long> courseIds = event.affectedCourseIds();
+            // 批量导入的都是新课程，没有缓存需要清除
+            if (!CourseChangeEvent.TYPE_IMPORTED.equals(event.getType())) {
+                courseDetailCache.evictAll(courseIds);
+            }
+            if (!CourseChangeEvent.TYPE_SEATS.equals(event.getType())) {
+                courseSearchIndex.refresh(courseIds);
+            }
+        } catch (Exception e) {
+            log.error("处理课程变更事件失败", e);
+        }
+    }
+}
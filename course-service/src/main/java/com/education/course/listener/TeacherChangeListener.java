@@ -0,0 +1,39 @@
+package com.education.course.listener;
+
+import com.education.common.event.TeacherChangeEvent;
+import com.education.course.entity.TeacherProjection;
+import com.education.course.service.CourseService;
+import com.education.course.service.TeacherDirectory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 教师变更事件监听（Redis频道）
+ * 更新本地教师投影，教师姓名变化时同步课程表中的teacher_name并清除相关课程缓存
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeacherChangeListener implements MessageListener {
+    
+    private final ObjectMapper objectMapper;
+    private final TeacherDirectory teacherDirectory;
+    private final CourseService courseService;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            TeacherChangeEvent event = objectMapper.readValue(message.getBody(), TeacherChangeEvent.class);
+            TeacherProjection teacher = teacherDirectory.apply(event);
+            if (teacher != null) {
+                courseService.syncTeacherName(teacher);
+            }
+        } catch (Exception e) {
+            log.error("处理教师变更事件失败", e);
+        }
+    }
+}
@@ -3,8 +3,44 @@ package com.education.course.mapper;
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.education.course.entity.Course;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.Map;
 
 @Mapper
 public interface CourseMapper extends BaseMapper<Course> {
+    
+    /**
+     * 选课人数+1（容量未满时），返回影响行数：0表示课程不存在或已满
+     */
+    @Update("UPDATE courses SET selected_count = IFNULL(selected_count, 0) + 1, updated_at = NOW() " +
+            "WHERE course_id = #{courseId} AND (total_capacity IS NULL OR IFNULL(selected_count, 0) < total_capacity)")
+    int incrementSelectedCount(@Param("courseId") Long courseId);
+    
+    /**
+     * 选课人数-1（大于0时），返回影响行数
+     */
+    @Update("UPDATE courses SET selected_count = selected_count - 1, updated_at = NOW() " +
+            "WHERE course_id = #{courseId} AND selected_count > 0")
+    int decrementSelectedCount(@Param("courseId") Long courseId);
+    
+    /**
+     * 按增量调整选课人数（结果不小于0），返回影响行数
+     */
+    @Update("UPDATE courses SET selected_count = GREATEST(IFNULL(selected_count, 0) + #{delta}, 0), updated_at = NOW() " +
+            "WHERE course_id = #{courseId}")
+    int adjustSelectedCount(@Param("courseId") Long courseId, @Param("delta") int delta);
+    
+    /**
+     * 批量按增量调整选课人数（一条语句），返回影响行数
+     * @param deltas 课程ID -> 增量
+     */
+    @Update("<script>" +
+            "UPDATE courses SET selected_count = GREATEST(IFNULL(selected_count, 0) + CASE course_id " +
+            "<foreach collection='deltas' index='courseId' item='delta'>WHEN #{courseId} THEN #{delta} </foreach>" +
+            "ELSE 0 END, 0), updated_at = NOW() WHERE course_id IN " +
+            "<foreach collection='deltas' index='courseId' item='delta' open='(' separator=',' close=')'>#{courseId}</foreach>" +
+            "</script>")
+    int adjustSelectedCountBatch(@Param("deltas") Map<Long, Integer> deltas);
 }
-
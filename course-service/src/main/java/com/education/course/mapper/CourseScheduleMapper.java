@@ -0,0 +1,9 @@
+package com.education.course.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.education.course.entity.CourseSchedule;
+import org.apache.ibatis.annotations.Mapper;
+
+@Mapper
+public interface CourseScheduleMapper extends BaseMapper<CourseSchedule> {
+}
@@ -0,0 +1,35 @@
+package com.education.course.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.education.course.entity.TeacherProjection;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface TeacherProjectionMapper extends BaseMapper<TeacherProjection> {
+    
+    /**
+     * 按变更事件写入投影，事件中没有userId时保留原值
+     */
+    @Insert("INSERT INTO teacher_projection (teacher_id, user_id, name, department, status, updated_at) " +
+            "VALUES (#{teacherId}, #{userId}, #{name}, #{department}, #{status}, NOW()) " +
+            "ON DUPLICATE KEY UPDATE user_id = IFNULL(VALUES(user_id), user_id), name = VALUES(name), " +
+            "department = VALUES(department), status = VALUES(status), updated_at = NOW()")
+    int upsert(TeacherProjection projection);
+    
+    /**
+     * 批量写入投影（一条语句），没有userId时保留原值
+     */
+    @Insert("<script>" +
+            "INSERT INTO teacher_projection (teacher_id, user_id, name, department, status, updated_at) VALUES " +
+            "<foreach collection='list' item='t' separator=','>" +
+            "(#{t.teacherId}, #{t.userId}, #{t.name}, #{t.department}, #{t.status}, NOW())" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE user_id = IFNULL(VALUES(user_id), user_id), name = VALUES(name), " +
+            "department = VALUES(department), status = VALUES(status), updated_at = NOW()" +
+            "</script>")
+    int upsertBatch(@Param("list") List<TeacherProjection> projections);
+}
@@ -0,0 +1,40 @@
+package com.education.course.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 启动后按浏览热度排行预热课程详情缓存（本地 + Redis）
+ * 冷启动或Redis数据丢失后，热门课程不必在第一批请求到达时集中回源数据库
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseCacheWarmer {
+    
+    private final CourseRankingService courseRankingService;
+    private final CourseService courseService;
+    
+    @Value("${course.ranking.warm-up-size:200}")
+    private int warmUpSize;
+    
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        if (warmUpSize <= 0) {
+            return;
+        }
+        try {
+            List<Long> courseIds = courseRankingService.popularCourseIds(warmUpSize);
+            int warmed = courseService.warmUp(courseIds);
+            log.info("课程详情缓存已预热: courses={}", warmed);
+        } catch (Exception e) {
+            log.error("预热课程详情缓存失败", e);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package com.education.course.service;
+
+import com.education.common.cache.LocalCache;
+import com.education.common.constant.Constants;
+import com.education.course.dto.CourseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 课程详情两级缓存
+ * L1：进程内LRU缓存（容量上限 + 短TTL），L2：Redis（course:{id}）
+ * 同一课程并发未命中时只有一个线程回源，课程变更事件到达时各实例清除本地缓存
+ */
+@Slf4j
+@Component
+public class CourseDetailCache {
+    
+    private static final long REDIS_TTL_MINUTES = 30;
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LocalCache<Long, CourseDTO> localCache;
+    
+    public CourseDetailCache(RedisTemplate<String, Object> redisTemplate,
+                             ObjectMapper objectMapper,
+                             @Value("${course.cache.local.max-size:10000}") int maxSize,
+                             @Value("${course.cache.local.ttl-seconds:60}") long ttlSeconds) {
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.localCache = new LocalCache<>(maxSize, TimeUnit.SECONDS.toMillis(ttlSeconds));
+    }
+    
+    /**
+     * 读取课程详情：L1 -> L2 -> loader（数据库）
+     */
+    public CourseDTO get(Long id, Function<Long, CourseDTO> loader) {
+        return localCache.get(id, key -> {
+            String cacheKey = Constants.REDIS_COURSE_PREFIX + key;
+            try {
+                Object cached = redisTemplate.opsForValue().get(cacheKey);
+                if (cached instanceof CourseDTO) {
+                    return (CourseDTO) cached;
+                } else if (cached instanceof LinkedHashMap) {
+                    return objectMapper.convertValue(cached, CourseDTO.class);
+                }
+            } catch (Exception e) {
+                log.warn("读取课程缓存失败: courseId={}", key, e);
+            }
+            
+            CourseDTO dto = loader.apply(key);
+            if (dto != null) {
+                try {
+                    redisTemplate.opsForValue().set(cacheKey, dto, REDIS_TTL_MINUTES, TimeUnit.MINUTES);
+                } catch (Exception e) {
+                    log.warn("写入课程缓存失败: courseId={}", key, e);
+                }
+            }
+            return dto;
+        });
+    }
+    
+    /**
+     * 清除课程缓存（本地 + Redis）
+     */
+    public void evict(Long id) {
+        localCache.invalidate(id);
+        redisTemplate.delete(Constants.REDIS_COURSE_PREFIX + id);
+    }
+    
+    /**
+     * 批量清除课程缓存（Redis一次DEL）
+     */
+    public void evictAll(Collection<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return;
+        }
+        ids.forEach(localCache::invalidate);
+        redisTemplate.delete(ids.stream().map(id -> Constants.REDIS_COURSE_PREFIX + id).collect(Collectors.toList()));
+    }
+}
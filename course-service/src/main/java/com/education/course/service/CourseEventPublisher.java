@@ -0,0 +1,76 @@
+package com.education.course.service;
+
+import com.education.common.constant.Constants;
+import com.education.common.event.CourseChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 课程变更事件发布
+ * 事件在事务提交后发布，避免订阅方读到未提交（或已回滚）的数据
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseEventPublisher {
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public void publishAfterCommit(Long courseId, String type) {
+        publishAfterCommit(courseId, type, null);
+    }
+    
+    /**
+     * @param capacityDelta 课程容量变化量，选课服务据此调整座位库存并处理候补
+     */
+    public void publishAfterCommit(Long courseId, String type, Integer capacityDelta) {
+        if (courseId == null) {
+            return;
+        }
+        CourseChangeEvent event = new CourseChangeEvent(courseId, type);
+        if (capacityDelta != null && capacityDelta != 0) {
+            event.setCapacityDelta(capacityDelta);
+        }
+        publishAfterCommit(event);
+    }
+    
+    /**
+     * 批量变更只发布一条事件，订阅方按courseIds处理
+     */
+    public void publishAfterCommit(List<Long> courseIds, String type) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return;
+        }
+        publishAfterCommit(new CourseChangeEvent(courseIds, type));
+    }
+    
+    private void publishAfterCommit(CourseChangeEvent event) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+    
+    private void publish(CourseChangeEvent event) {
+        try {
+            stringRedisTemplate.convertAndSend(Constants.CHANNEL_COURSE_CHANGED, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // 发布失败不影响课程变更，订阅方有定时全量刷新兜底
+            log.warn("发布课程变更事件失败: courseIds={}, type={}", event.affectedCourseIds(), event.getType(), e);
+        }
+    }
+}
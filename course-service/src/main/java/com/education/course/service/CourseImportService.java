@@ -0,0 +1,370 @@
+package com.education.course.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.common.event.CourseChangeEvent;
+import com.education.common.exception.BusinessException;
+import com.education.course.dto.CourseDTO;
+import com.education.course.dto.CourseImportReport;
+import com.education.course.entity.Course;
+import com.education.course.entity.TeacherProjection;
+import com.education.course.mapper.CourseMapper;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLIntegrityConstraintViolationException;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 课程批量导入（新学期课程目录）
+ * 与逐门调用create相比：
+ * 1. 全部行解析、校验完成后，课程代码唯一性一次查询，教师ID/用户ID一次批量解析
+ * 2. 新课程通过JDBC批量插入（同一事务），全部成功后只发布一条课程变更事件
+ * 单行数据有误只影响该行，结果中逐行给出成功的课程ID或失败原因
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseImportService {
+    
+    // 每批插入的行数
+    private static final int INSERT_BATCH_SIZE = 500;
+    private static final int MAX_COURSE_CODE_LENGTH = 50;
+    
+    // CSV表头（忽略大小写和下划线）-> CourseDTO字段
+    private static final Map<String, String> CSV_COLUMNS = new HashMap<>();
+    static {
+        for (String field : List.of("courseName", "courseCode", "courseDescription", "credit", "teacherId",
+                "department", "totalCapacity", "coverImage", "status", "startTime", "endTime")) {
+            CSV_COLUMNS.put(field.toLowerCase(Locale.ROOT), field);
+        }
+    }
+    
+    private final CourseMapper courseMapper;
+    private final TeacherDirectory teacherDirectory;
+    private final CourseEventPublisher courseEventPublisher;
+    private final CoursePageCache coursePageCache;
+    private final CourseRankingService courseRankingService;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+    
+    @Value("${course.import.max-rows:5000}")
+    private int maxRows;
+    
+    /**
+     * 解析后的一行
+     * @param error 解析失败原因，成功时为null
+     */
+    private record ParsedRow(int row, CourseDTO course, String error) {
+    }
+    
+    /**
+     * 导入CSV：首行为表头，列名为CourseDTO字段名（忽略大小写和下划线），时间格式 yyyy-MM-dd HH:mm:ss 或ISO格式
+     */
+    public CourseImportReport importCsv(InputStream input) {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            List<String> header = readCsvRecord(reader);
+            if (header == null) {
+                throw new BusinessException(400, "导入文件为空");
+            }
+            String[] fields = new String[header.size()];
+            for (int i = 0; i < header.size(); i++) {
+                String column = header.get(i).replace("\uFEFF", "").replace("_", "").trim().toLowerCase(Locale.ROOT);
+                fields[i] = CSV_COLUMNS.get(column);
+                if (fields[i] == null) {
+                    throw new BusinessException(400, "未知的列: " + header.get(i));
+                }
+            }
+            if (!Arrays.asList(fields).containsAll(List.of("courseName", "courseCode"))) {
+                throw new BusinessException(400, "缺少必需的列: courseName、courseCode");
+            }
+            
+            int rowNumber = 1;
+            List<String> record;
+            while ((record = readCsvRecord(reader)) != null) {
+                rowNumber++;
+                if (record.size() == 1 && record.get(0).isBlank()) {
+                    continue;
+                }
+                checkRowLimit(rows.size());
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < fields.length && i < record.size(); i++) {
+                    String value = record.get(i).trim();
+                    if (!value.isEmpty()) {
+                        values.put(fields[i], normalizeDateTime(fields[i], value));
+                    }
+                }
+                rows.add(convert(rowNumber, values));
+            }
+        } catch (IOException e) {
+            throw new BusinessException(400, "读取导入文件失败: " + e.getMessage());
+        }
+        return importRows(rows);
+    }
+    
+    /**
+     * 导入JSON：课程数组，元素格式与创建课程接口相同；逐个元素流式解析
+     */
+    public CourseImportReport importJson(InputStream input) {
+        List<ParsedRow> rows = new ArrayList<>();
+        try (MappingIterator<JsonNode> iterator = objectMapper.readerFor(JsonNode.class).readValues(input)) {
+            int rowNumber = 0;
+            while (iterator.hasNextValue()) {
+                JsonNode node = iterator.nextValue();
+                rowNumber++;
+                checkRowLimit(rows.size());
+                rows.add(convert(rowNumber, node));
+            }
+        } catch (IOException | RuntimeException e) {
+            if (e instanceof BusinessException businessException) {
+                throw businessException;
+            }
+            throw new BusinessException(400, "导入文件不是有效的JSON数组: " + e.getMessage());
+        }
+        return importRows(rows);
+    }
+    
+    private CourseImportReport importRows(List<ParsedRow> rows) {
+        long start = System.currentTimeMillis();
+        Map<Integer, CourseImportReport.Row> results = new LinkedHashMap<>();
+        Map<String, ParsedRow> byCode = new LinkedHashMap<>();
+        for (ParsedRow row : rows) {
+            CourseImportReport.Row result = new CourseImportReport.Row();
+            result.setRow(row.row());
+            results.put(row.row(), result);
+            if (row.error() != null) {
+                fail(result, row.error());
+                continue;
+            }
+            CourseDTO dto = row.course();
+            result.setCourseCode(dto.getCourseCode());
+            String error = validate(dto);
+            if (error != null) {
+                fail(result, error);
+                continue;
+            }
+            // 课程代码唯一索引不区分大小写，这里同样按小写比较
+            ParsedRow duplicate = byCode.putIfAbsent(dto.getCourseCode().toLowerCase(Locale.ROOT), row);
+            if (duplicate != null) {
+                fail(result, "与第" + duplicate.row() + "行课程代码重复");
+            }
+        }
+        
+        // 课程代码唯一性：一次查询
+        if (!byCode.isEmpty()) {
+            courseMapper.selectList(new LambdaQueryWrapper<Course>()
+                    .select(Course::getCourseCode)
+                    .in(Course::getCourseCode, byCode.values().stream()
+                            .map(row -> row.course().getCourseCode())
+                            .collect(Collectors.toList())))
+                    .forEach(course -> {
+                        ParsedRow row = byCode.remove(course.getCourseCode().toLowerCase(Locale.ROOT));
+                        if (row != null) {
+                            fail(results.get(row.row()), "课程代码已存在");
+                        }
+                    });
+        }
+        
+        // 教师信息：一次批量解析（teacherId或userId）
+        Map<Long, TeacherProjection> teachers = teacherDirectory.resolveAll(byCode.values().stream()
+                .map(row -> row.course().getTeacherId())
+                .filter(Objects::nonNull)
+                .collect(Collectors.toSet()));
+        
+        List<Course> courses = new ArrayList<>();
+        List<CourseImportReport.Row> pending = new ArrayList<>();
+        LocalDateTime now = LocalDateTime.now();
+        for (ParsedRow row : byCode.values()) {
+            CourseDTO dto = row.course();
+            TeacherProjection teacher = null;
+            if (dto.getTeacherId() != null) {
+                teacher = teachers.get(dto.getTeacherId());
+                if (teacher == null) {
+                    fail(results.get(row.row()), "教师不存在: " + dto.getTeacherId());
+                    continue;
+                }
+            }
+            courses.add(toCourse(dto, teacher, now));
+            pending.add(results.get(row.row()));
+        }
+        
+        if (!courses.isEmpty()) {
+            insertAll(courses);
+            for (int i = 0; i < courses.size(); i++) {
+                CourseImportReport.Row result = pending.get(i);
+                result.setCourseId(courses.get(i).getCourseId());
+                result.setStatus(CourseImportReport.STATUS_CREATED);
+            }
+        }
+        
+        CourseImportReport report = new CourseImportReport();
+        results.values().forEach(report::add);
+        log.info("课程批量导入完成: total={}, created={}, failed={}, cost={}ms",
+                report.getTotal(), report.getCreated(), report.getFailed(), System.currentTimeMillis() - start);
+        return report;
+    }
+    
+    /**
+     * 同一事务内分批插入，提交后发布一条导入事件并使课程列表缓存失效
+     * 校验之后被其他请求占用了课程代码时整体回滚
+     */
+    private void insertAll(List<Course> courses) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                courseMapper.insert(courses, INSERT_BATCH_SIZE);
+                List<Long> courseIds = courses.stream()
+                        .map(Course::getCourseId)
+                        .collect(Collectors.toList());
+                courseEventPublisher.publishAfterCommit(courseIds, CourseChangeEvent.TYPE_IMPORTED);
+                coursePageCache.bumpVersionAfterCommit();
+                courseRankingService.refreshAfterCommit(courseIds);
+            });
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof SQLIntegrityConstraintViolationException) {
+                    courses.forEach(course -> course.setCourseId(null));
+                    throw new BusinessException(400, "导入期间课程代码被占用，本次导入未生效，请重新导入");
+                }
+            }
+            throw e;
+        }
+    }
+    
+    private Course toCourse(CourseDTO dto, TeacherProjection teacher, LocalDateTime now) {
+        Course course = new Course();
+        course.setCourseName(dto.getCourseName());
+        course.setCourseCode(dto.getCourseCode());
+        course.setCourseDescription(dto.getCourseDescription());
+        course.setCredit(dto.getCredit());
+        if (teacher != null) {
+            course.setTeacherId(teacher.getTeacherId());
+            course.setTeacherName(teacher.getName());
+        } else {
+            course.setTeacherName("未分配");
+        }
+        course.setDepartment(teacher != null && StringUtils.hasText(teacher.getDepartment())
+                ? teacher.getDepartment() : dto.getDepartment());
+        course.setTotalCapacity(dto.getTotalCapacity());
+        course.setSelectedCount(0);
+        course.setCoverImage(dto.getCoverImage());
+        course.setStatus(dto.getStatus() != null ? dto.getStatus() : 1);
+        course.setStartTime(dto.getStartTime());
+        course.setEndTime(dto.getEndTime());
+        course.setCreatedAt(now);
+        course.setUpdatedAt(now);
+        return course;
+    }
+    
+    /**
+     * @return 校验失败原因，通过时返回null
+     */
+    private String validate(CourseDTO dto) {
+        if (!StringUtils.hasText(dto.getCourseName())) {
+            return "课程名称不能为空";
+        }
+        if (!StringUtils.hasText(dto.getCourseCode())) {
+            return "课程代码不能为空";
+        }
+        dto.setCourseCode(dto.getCourseCode().trim());
+        if (dto.getCourseCode().length() > MAX_COURSE_CODE_LENGTH) {
+            return "课程代码不能超过" + MAX_COURSE_CODE_LENGTH + "个字符";
+        }
+        if (dto.getCredit() != null && dto.getCredit().compareTo(BigDecimal.ZERO) < 0) {
+            return "学分不能为负数";
+        }
+        if (dto.getTotalCapacity() != null && dto.getTotalCapacity() < 0) {
+            return "课程容量不能为负数";
+        }
+        if (dto.getStartTime() != null && dto.getEndTime() != null && dto.getEndTime().isBefore(dto.getStartTime())) {
+            return "结课时间早于开课时间";
+        }
+        return null;
+    }
+    
+    private ParsedRow convert(int rowNumber, Object source) {
+        try {
+            return new ParsedRow(rowNumber, objectMapper.convertValue(source, CourseDTO.class), null);
+        } catch (IllegalArgumentException e) {
+            return new ParsedRow(rowNumber, null, "字段格式错误: " + e.getMessage());
+        }
+    }
+    
+    private void checkRowLimit(int parsed) {
+        if (parsed >= maxRows) {
+            throw new BusinessException(400, "单次最多导入" + maxRows + "门课程");
+        }
+    }
+    
+    private static void fail(CourseImportReport.Row result, String message) {
+        result.setStatus(CourseImportReport.STATUS_FAILED);
+        result.setMessage(message);
+    }
+    
+    /**
+     * CSV中的时间允许写成 yyyy-MM-dd HH:mm:ss，转换为ISO格式
+     */
+    private static String normalizeDateTime(String field, String value) {
+        if (("startTime".equals(field) || "endTime".equals(field)) && value.length() > 10 && value.charAt(10) == ' ') {
+            return value.substring(0, 10) + "T" + value.substring(11);
+        }
+        return value;
+    }
+    
+    /**
+     * 读取一条CSV记录（支持双引号包裹的字段、字段内的逗号、换行和转义双引号）
+     * @return 字段列表，已到文件末尾时返回null
+     */
+    static List<String> readCsvRecord(BufferedReader reader) throws IOException {
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        boolean any = false;
+        int c;
+        while ((c = reader.read()) != -1) {
+            any = true;
+            if (quoted) {
+                if (c == '"') {
+                    reader.mark(1);
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        if (next != -1) {
+                            reader.reset();
+                        }
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                fields.add(field.toString());
+                return fields;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+        }
+        if (!any) {
+            return null;
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
@@ -0,0 +1,165 @@
+package com.education.course.service;
+
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.education.common.cache.LocalCache;
+import com.education.course.dto.CourseDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 课程分页列表结果缓存
+ * 缓存键 = 全局目录版本号 + 归一化后的查询参数 (keyword, status, current, size)
+ * 课程增删改、选课人数变化在事务提交后递增版本号，旧版本的缓存不再被访问，随TTL自然过期，无需扫描删除
+ * L1为进程内缓存，L2为Redis；每次查询只需读取一次版本号
+ */
+@Slf4j
+@Component
+public class CoursePageCache {
+    
+    private static final String VERSION_KEY = "course:catalog:version";
+    private static final String PAGE_KEY_PREFIX = "course:page:";
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final LocalCache<String, Page<CourseDTO>> localCache;
+    private final Duration redisTtl;
+    private final Counter localHits;
+    private final Counter redisHits;
+    private final Counter misses;
+    
+    public CoursePageCache(StringRedisTemplate stringRedisTemplate,
+                           ObjectMapper objectMapper,
+                           MeterRegistry meterRegistry,
+                           @Value("${course.cache.page.local-max-size:2000}") int localMaxSize,
+                           @Value("${course.cache.page.local-ttl-seconds:30}") long localTtlSeconds,
+                           @Value("${course.cache.page.redis-ttl-seconds:300}") long redisTtlSeconds) {
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.localCache = new LocalCache<>(localMaxSize, TimeUnit.SECONDS.toMillis(localTtlSeconds));
+        this.redisTtl = Duration.ofSeconds(redisTtlSeconds);
+        this.localHits = counter(meterRegistry, "local_hit");
+        this.redisHits = counter(meterRegistry, "redis_hit");
+        this.misses = counter(meterRegistry, "miss");
+    }
+    
+    /**
+     * 缓存中的一页结果
+     */
+    public record CachedPage(long total, List<CourseDTO> records) {
+    }
+    
+    /**
+     * 读取分页结果：L1 -> L2 -> loader（数据库/检索索引）
+     * Redis不可用时直接回源
+     */
+    public Page<CourseDTO> get(Integer current, Integer size, String keyword, Integer status,
+                               Supplier<Page<CourseDTO>> loader) {
+        String version;
+        try {
+            version = stringRedisTemplate.opsForValue().get(VERSION_KEY);
+        } catch (Exception e) {
+            log.warn("读取课程目录版本失败，直接查询: {}", e.getMessage());
+            return loader.get();
+        }
+        // 关键字可能含有分隔符，放在最后避免不同参数组合拼出相同的键
+        String cacheKey = PAGE_KEY_PREFIX + (version != null ? version : "0") + ":"
+                + (status != null ? status : "") + ":" + current + ":" + size + ":" + normalize(keyword);
+        
+        Page<CourseDTO> local = localCache.getIfPresent(cacheKey);
+        if (local != null) {
+            localHits.increment();
+            return local;
+        }
+        return localCache.get(cacheKey, key -> {
+            try {
+                String cached = stringRedisTemplate.opsForValue().get(key);
+                if (cached != null) {
+                    redisHits.increment();
+                    return toPage(current, size, objectMapper.readValue(cached, CachedPage.class));
+                }
+            } catch (Exception e) {
+                log.warn("读取课程列表缓存失败: key={}", key, e);
+            }
+            
+            misses.increment();
+            Page<CourseDTO> page = loader.get();
+            try {
+                stringRedisTemplate.opsForValue().set(key,
+                        objectMapper.writeValueAsString(new CachedPage(page.getTotal(), page.getRecords())), redisTtl);
+            } catch (Exception e) {
+                log.warn("写入课程列表缓存失败: key={}", key, e);
+            }
+            return page;
+        });
+    }
+    
+    /**
+     * 事务提交后递增目录版本号（同一事务内多次调用只递增一次）
+     * 必须在提交后递增：提交前递增时，并发读请求可能用新版本号缓存到未提交前的旧数据
+     */
+    public void bumpVersionAfterCommit() {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            bumpVersion();
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof VersionBump) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new VersionBump());
+    }
+    
+    private void bumpVersion() {
+        try {
+            stringRedisTemplate.opsForValue().increment(VERSION_KEY);
+        } catch (Exception e) {
+            // 递增失败时旧结果最多保留到本地缓存和Redis缓存的TTL
+            log.error("递增课程目录版本失败", e);
+        }
+    }
+    
+    private Page<CourseDTO> toPage(Integer current, Integer size, CachedPage cached) {
+        Page<CourseDTO> page = new Page<>(current, size, cached.total());
+        page.setRecords(cached.records());
+        return page;
+    }
+    
+    /**
+     * 关键字归一化：去掉首尾空白，统一大小写（检索与数据库模糊查询均不区分大小写）
+     */
+    private static String normalize(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return "";
+        }
+        return keyword.trim().toLowerCase(Locale.ROOT);
+    }
+    
+    private static Counter counter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("course.page.cache.requests")
+                .description("课程分页列表缓存访问次数")
+                .tag("result", result)
+                .register(meterRegistry);
+    }
+    
+    private class VersionBump implements TransactionSynchronization {
+        @Override
+        public void afterCommit() {
+            bumpVersion();
+        }
+    }
+}
@@ -0,0 +1,396 @@
+package com.education.course.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.course.dto.CourseRankDTO;
+import com.education.course.entity.Course;
+import com.education.course.mapper.CourseMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.zset.Aggregate;
+import org.springframework.data.redis.connection.zset.Weights;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.ZSetOperations;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+
+/**
+ * 课程排行榜（Redis有序集合）
+ * 1. 满员率：开放选课的课程按 选课人数/容量 记入全校和各院系的有序集合，课程变更、选课人数变化提交后更新
+ * 2. 浏览热度：课程详情按抽样计数（每sampleRate次浏览约计一次，一次加sampleRate），每天衰减一半
+ * 3. 课程摘要存在Hash中，排行榜接口只读Redis，不查数据库
+ * 定时全量重建兜底增量更新遗漏的情况
+ */
+@Slf4j
+@Service
+public class CourseRankingService {
+    
+    private static final String FILL_ALL_KEY = "course:rank:fill:all";
+    private static final String FILL_DEPARTMENT_PREFIX = "course:rank:fill:dept:";
+    private static final String VIEWS_KEY = "course:rank:views";
+    private static final String CARD_KEY = "course:rank:card";
+    // 出现过的院系，全量重建时据此清理已没有开放课程的院系排行
+    private static final String DEPARTMENTS_KEY = "course:rank:departments";
+    private static final String REBUILD_LOCK_KEY = "course:rank:rebuild:lock";
+    private static final String REBUILD_SUFFIX = ":rebuild";
+    private static final Duration REBUILD_LOCK_TTL = Duration.ofMinutes(5);
+    private static final int STATUS_OPEN = 1;
+    private static final int QUERY_BATCH_SIZE = 500;
+    private static final int MAX_LIMIT = 100;
+    
+    private final CourseMapper courseMapper;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int viewSampleRate;
+    
+    public CourseRankingService(CourseMapper courseMapper,
+                                StringRedisTemplate stringRedisTemplate,
+                                ObjectMapper objectMapper,
+                                @Value("${course.ranking.view-sample-rate:10}") int viewSampleRate) {
+        this.courseMapper = courseMapper;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.objectMapper = objectMapper;
+        this.viewSampleRate = Math.max(viewSampleRate, 1);
+    }
+    
+    /**
+     * 记录一次课程详情浏览（抽样，不影响详情接口的响应）
+     */
+    public void recordView(Long courseId) {
+        if (courseId == null || ThreadLocalRandom.current().nextInt(viewSampleRate) != 0) {
+            return;
+        }
+        try {
+            stringRedisTemplate.opsForZSet().incrementScore(VIEWS_KEY, String.valueOf(courseId), viewSampleRate);
+        } catch (Exception e) {
+            log.warn("记录课程浏览热度失败: courseId={}", courseId, e);
+        }
+    }
+    
+    /**
+     * 事务提交后刷新课程的排行数据（同一事务内的多次调用合并为一次批量刷新）
+     */
+    public void refreshAfterCommit(Collection<Long> courseIds) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            refresh(courseIds);
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof PendingRefresh pending) {
+                pending.courseIds.addAll(courseIds);
+                return;
+            }
+        }
+        PendingRefresh pending = new PendingRefresh();
+        pending.courseIds.addAll(courseIds);
+        TransactionSynchronizationManager.registerSynchronization(pending);
+    }
+    
+    public void refreshAfterCommit(Long courseId) {
+        if (courseId != null) {
+            refreshAfterCommit(Collections.singletonList(courseId));
+        }
+    }
+    
+    /**
+     * 满员率排行（全校或指定院系）
+     */
+    public List<CourseRankDTO> topByFillRate(String department, Integer limit) {
+        int count = normalizeLimit(limit);
+        return toRanks(stringRedisTemplate.opsForZSet().reverseRangeWithScores(fillKey(department), 0, count - 1), true);
+    }
+    
+    /**
+     * 即将满员的课程：满员率在 [threshold, 1) 之间，按满员率从高到低
+     */
+    public List<CourseRankDTO> almostFull(String department, Double threshold, Integer limit) {
+        double min = threshold != null ? Math.max(0, Math.min(threshold, 1)) : 0.9;
+        return toRanks(stringRedisTemplate.opsForZSet().reverseRangeByScoreWithScores(
+                fillKey(department), min, Math.nextDown(1.0), 0, normalizeLimit(limit)), true);
+    }
+    
+    /**
+     * 浏览热度排行（只返回开放选课的课程）
+     */
+    public List<CourseRankDTO> popular(Integer limit) {
+        int count = normalizeLimit(limit);
+        // 热度集合中包含已结束/未开放的课程，多取一些再按摘要过滤
+        List<CourseRankDTO> ranks = toRanks(
+                stringRedisTemplate.opsForZSet().reverseRangeWithScores(VIEWS_KEY, 0, count * 2L - 1), false);
+        return ranks.size() > count ? ranks.subList(0, count) : ranks;
+    }
+    
+    /**
+     * 浏览热度最高的课程ID（供缓存预热使用）
+     */
+    public List<Long> popularCourseIds(int limit) {
+        Set<String> members = stringRedisTemplate.opsForZSet().reverseRange(VIEWS_KEY, 0, limit - 1);
+        if (members == null) {
+            return Collections.emptyList();
+        }
+        return members.stream().map(Long::valueOf).collect(Collectors.toList());
+    }
+    
+    /**
+     * 按数据库中的最新数据刷新课程的排行和摘要：
+     * 开放选课且有容量的课程写入满员率排行，否则移出；院系变化时从原院系排行移出；课程已删除时同时移出热度排行
+     */
+    public void refresh(Collection<Long> courseIds) {
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(courseIds));
+        for (int from = 0; from < ids.size(); from += QUERY_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + QUERY_BATCH_SIZE, ids.size()));
+            try {
+                refreshChunk(chunk);
+            } catch (Exception e) {
+                // 排行榜只影响首页展示，失败时等待全量重建
+                log.warn("刷新课程排行失败: courseIds={}", chunk.size(), e);
+            }
+        }
+    }
+    
+    private void refreshChunk(List<Long> courseIds) {
+        Map<Long, Course> courses = courseMapper.selectList(rankQuery().in(Course::getCourseId, courseIds)).stream()
+                .collect(Collectors.toMap(Course::getCourseId, course -> course));
+        List<Object> members = courseIds.stream().map(String::valueOf).collect(Collectors.toList());
+        List<Object> previousCards = stringRedisTemplate.opsForHash().multiGet(CARD_KEY, members);
+        
+        Map<String, Set<ZSetOperations.TypedTuple<String>>> additions = new HashMap<>();
+        Map<String, String> cards = new HashMap<>();
+        Map<String, List<String>> removals = new HashMap<>();
+        List<String> removedCards = new ArrayList<>();
+        List<String> deleted = new ArrayList<>();
+        for (int i = 0; i < courseIds.size(); i++) {
+            Long courseId = courseIds.get(i);
+            String member = String.valueOf(courseId);
+            Course course = courses.get(courseId);
+            CourseRankDTO previous = parseCard(previousCards.get(i));
+            CourseRankDTO card = course != null ? toCard(course) : null;
+            
+            if (previous != null && StringUtils.hasText(previous.getDepartment())
+                    && (card == null || !previous.getDepartment().equals(card.getDepartment()))) {
+                removals.computeIfAbsent(fillKey(previous.getDepartment()), k -> new ArrayList<>()).add(member);
+            }
+            if (course == null) {
+                deleted.add(member);
+            }
+            if (card == null) {
+                removals.computeIfAbsent(FILL_ALL_KEY, k -> new ArrayList<>()).add(member);
+                removedCards.add(member);
+                continue;
+            }
+            cards.put(member, writeCard(card));
+            ZSetOperations.TypedTuple<String> tuple = ZSetOperations.TypedTuple.of(member, card.getFillRate());
+            additions.computeIfAbsent(FILL_ALL_KEY, k -> new HashSet<>()).add(tuple);
+            if (StringUtils.hasText(card.getDepartment())) {
+                additions.computeIfAbsent(fillKey(card.getDepartment()), k -> new HashSet<>()).add(tuple);
+            }
+        }
+        
+        removals.forEach((key, values) -> stringRedisTemplate.opsForZSet().remove(key, values.toArray()));
+        if (!removedCards.isEmpty()) {
+            stringRedisTemplate.opsForHash().delete(CARD_KEY, removedCards.toArray());
+        }
+        if (!deleted.isEmpty()) {
+            stringRedisTemplate.opsForZSet().remove(VIEWS_KEY, deleted.toArray());
+        }
+        additions.forEach((key, tuples) -> stringRedisTemplate.opsForZSet().add(key, tuples));
+        if (!cards.isEmpty()) {
+            stringRedisTemplate.opsForHash().putAll(CARD_KEY, cards);
+        }
+        Set<String> departments = additions.keySet().stream()
+                .filter(key -> key.startsWith(FILL_DEPARTMENT_PREFIX))
+                .map(key -> key.substring(FILL_DEPARTMENT_PREFIX.length()))
+                .collect(Collectors.toSet());
+        if (!departments.isEmpty()) {
+            stringRedisTemplate.opsForSet().add(DEPARTMENTS_KEY, departments.toArray(new String[0]));
+        }
+    }
+    
+    /**
+     * 全量重建满员率排行和课程摘要
+     * 先写入临时键再RENAME替换，重建期间排行榜照常可读；多实例下同一时间只有一个实例重建
+     */
+    @Scheduled(initialDelayString = "${course.ranking.rebuild-interval-ms:600000}",
+               fixedDelayString = "${course.ranking.rebuild-interval-ms:600000}")
+    public void rebuild() {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(REBUILD_LOCK_KEY, token, REBUILD_LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            return;
+        }
+        try {
+            Map<String, Set<ZSetOperations.TypedTuple<String>>> rankings = new HashMap<>();
+            Map<String, String> cards = new HashMap<>();
+            for (Course course : courseMapper.selectList(rankQuery().eq(Course::getStatus, STATUS_OPEN))) {
+                CourseRankDTO card = toCard(course);
+                if (card == null) {
+                    continue;
+                }
+                String member = String.valueOf(course.getCourseId());
+                cards.put(member, writeCard(card));
+                ZSetOperations.TypedTuple<String> tuple = ZSetOperations.TypedTuple.of(member, card.getFillRate());
+                rankings.computeIfAbsent(FILL_ALL_KEY, k -> new HashSet<>()).add(tuple);
+                if (StringUtils.hasText(card.getDepartment())) {
+                    rankings.computeIfAbsent(fillKey(card.getDepartment()), k -> new HashSet<>()).add(tuple);
+                }
+            }
+            
+            Set<String> staleDepartments = Optional.ofNullable(stringRedisTemplate.opsForSet().members(DEPARTMENTS_KEY))
+                    .orElse(Collections.emptySet());
+            Set<String> departments = new HashSet<>();
+            for (Map.Entry<String, Set<ZSetOperations.TypedTuple<String>>> entry : rankings.entrySet()) {
+                String tempKey = entry.getKey() + REBUILD_SUFFIX;
+                stringRedisTemplate.delete(tempKey);
+                stringRedisTemplate.opsForZSet().add(tempKey, entry.getValue());
+                stringRedisTemplate.rename(tempKey, entry.getKey());
+                if (entry.getKey().startsWith(FILL_DEPARTMENT_PREFIX)) {
+                    departments.add(entry.getKey().substring(FILL_DEPARTMENT_PREFIX.length()));
+                }
+            }
+            if (!rankings.containsKey(FILL_ALL_KEY)) {
+                stringRedisTemplate.delete(FILL_ALL_KEY);
+            }
+            for (String department : staleDepartments) {
+                if (!departments.contains(department)) {
+                    stringRedisTemplate.delete(fillKey(department));
+                    stringRedisTemplate.opsForSet().remove(DEPARTMENTS_KEY, department);
+                }
+            }
+            if (!departments.isEmpty()) {
+                stringRedisTemplate.opsForSet().add(DEPARTMENTS_KEY, departments.toArray(new String[0]));
+            }
+            
+            String tempCardKey = CARD_KEY + REBUILD_SUFFIX;
+            stringRedisTemplate.delete(tempCardKey);
+            if (cards.isEmpty()) {
+                stringRedisTemplate.delete(CARD_KEY);
+            } else {
+                stringRedisTemplate.opsForHash().putAll(tempCardKey, cards);
+                stringRedisTemplate.rename(tempCardKey, CARD_KEY);
+            }
+            log.info("课程排行已重建: courses={}, departments={}", cards.size(), departments.size());
+        } catch (Exception e) {
+            log.error("重建课程排行失败", e);
+        } finally {
+            if (token.equals(stringRedisTemplate.opsForValue().get(REBUILD_LOCK_KEY))) {
+                stringRedisTemplate.delete(REBUILD_LOCK_KEY);
+            }
+        }
+    }
+    
+    /**
+     * 浏览热度每天衰减一半，近期浏览的课程排在前面
+     */
+    @Scheduled(cron = "${course.ranking.decay-cron:0 30 3 * * ?}")
+    public void decayViews() {
+        try {
+            stringRedisTemplate.opsForZSet().unionAndStore(VIEWS_KEY, Collections.emptyList(), VIEWS_KEY,
+                    Aggregate.SUM, Weights.of(0.5));
+            // 衰减到不足一次抽样计数的课程移出热度排行
+            stringRedisTemplate.opsForZSet().removeRangeByScore(VIEWS_KEY, 0, 1);
+        } catch (Exception e) {
+            log.error("衰减课程浏览热度失败", e);
+        }
+    }
+    
+    private List<CourseRankDTO> toRanks(Set<ZSetOperations.TypedTuple<String>> tuples, boolean byFillRate) {
+        if (tuples == null || tuples.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<ZSetOperations.TypedTuple<String>> ordered = new ArrayList<>(tuples);
+        List<Object> members = ordered.stream().map(ZSetOperations.TypedTuple::getValue).collect(Collectors.toList());
+        List<Object> cards = stringRedisTemplate.opsForHash().multiGet(CARD_KEY, members);
+        List<CourseRankDTO> ranks = new ArrayList<>(ordered.size());
+        for (int i = 0; i < ordered.size(); i++) {
+            CourseRankDTO card = parseCard(cards.get(i));
+            if (card == null) {
+                continue;
+            }
+            if (byFillRate) {
+                card.setFillRate(ordered.get(i).getScore());
+            } else {
+                card.setPopularity(ordered.get(i).getScore());
+            }
+            ranks.add(card);
+        }
+        return ranks;
+    }
+    
+    /**
+     * 排行需要的字段
+     */
+    private static LambdaQueryWrapper<Course> rankQuery() {
+        return new LambdaQueryWrapper<Course>()
+                .select(Course::getCourseId, Course::getCourseName, Course::getCourseCode, Course::getTeacherName,
+                        Course::getDepartment, Course::getSelectedCount, Course::getTotalCapacity, Course::getStatus);
+    }
+    
+    /**
+     * @return 课程摘要；未开放选课或没有容量（不限人数）的课程不参与满员率排行，返回null
+     */
+    private static CourseRankDTO toCard(Course course) {
+        Integer capacity = course.getTotalCapacity();
+        if (!Integer.valueOf(STATUS_OPEN).equals(course.getStatus()) || capacity == null || capacity <= 0) {
+            return null;
+        }
+        int selected = course.getSelectedCount() != null ? course.getSelectedCount() : 0;
+        CourseRankDTO card = new CourseRankDTO();
+        card.setCourseId(course.getCourseId());
+        card.setCourseName(course.getCourseName());
+        card.setCourseCode(course.getCourseCode());
+        card.setTeacherName(course.getTeacherName());
+        card.setDepartment(course.getDepartment());
+        card.setSelectedCount(selected);
+        card.setTotalCapacity(capacity);
+        card.setStatus(course.getStatus());
+        card.setFillRate(Math.min((double) selected / capacity, 1.0));
+        return card;
+    }
+    
+    private String writeCard(CourseRankDTO card) {
+        try {
+            return objectMapper.writeValueAsString(card);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+    
+    private CourseRankDTO parseCard(Object value) {
+        if (value == null) {
+            return null;
+        }
+        try {
+            return objectMapper.readValue(value.toString(), CourseRankDTO.class);
+        } catch (Exception e) {
+            return null;
+        }
+    }
+    
+    private static String fillKey(String department) {
+        return StringUtils.hasText(department) ? FILL_DEPARTMENT_PREFIX + department : FILL_ALL_KEY;
+    }
+    
+    private static int normalizeLimit(Integer limit) {
+        return Math.max(1, Math.min(limit != null ? limit : 10, MAX_LIMIT));
+    }
+    
+    private class PendingRefresh implements TransactionSynchronization {
+        private final Set<Long> courseIds = new LinkedHashSet<>();
+        
+        @Override
+        public void afterCommit() {
+            refresh(courseIds);
+        }
+    }
+}
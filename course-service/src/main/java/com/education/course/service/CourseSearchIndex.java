@@ -0,0 +1,416 @@
+package com.education.course.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.course.entity.Course;
+import com.education.course.entity.TeacherProjection;
+import com.education.course.mapper.CourseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+import java.text.Normalizer;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 课程全文检索（进程内倒排索引）
+ * 索引课程名称、课程代码、教师名称、课程简介：
+ * 1. 中日韩文字按单字和相邻两字（bigram）切分；字母数字按单词切分，并在字母与数字的交界处再切开（CS101 -> cs、101），
+ *    名称/代码/教师名称额外索引单词的所有子串（n-gram），输入联想和"101"查CS101、"va"查Java都能命中
+ * 2. 查询词切分后取各词倒排表的交集，从最短的倒排表开始逐个校验，耗时只与命中数有关，不随课程总数增长
+ * 3. 按 idf * 字段权重 累加打分排序，分数相同时新课程在前
+ * 课程增删改事件到达时按课程ID增量更新，定时全量重建兜底事件丢失；重建期间增量更新过的课程在替换后重新加载，
+ * 不会被重建开始时读到的旧数据覆盖；索引未加载或翻页超过检索窗口时调用方回退到数据库查询
+ */
+@Slf4j
+@Component
+public class CourseSearchIndex {
+    
+    // 字段权重：名称、代码命中比教师名称、简介更相关
+    private static final float WEIGHT_NAME = 3.0f;
+    private static final float WEIGHT_CODE = 3.0f;
+    private static final float WEIGHT_TEACHER = 2.0f;
+    private static final float WEIGHT_DESCRIPTION = 1.0f;
+    // 单词子串最多索引的长度
+    private static final int MAX_PREFIX_LENGTH = 20;
+    // 单词中间的子串（非前缀）命中时的权重折扣
+    private static final float INFIX_DISCOUNT = 0.5f;
+    // 检索结果最多可翻到的深度（offset + limit），更深的翻页回退到数据库查询，排序堆不随页码无限增长
+    private static final int MAX_RESULT_WINDOW = 10000;
+    private static final String WORD_PREFIX = "w:";
+    private static final int REFRESH_BATCH_SIZE = 500;
+    
+    private final CourseMapper courseMapper;
+    private final TeacherDirectory teacherDirectory;
+    
+    // 词 -> (课程ID -> 权重)
+    private final Map<String, Map<Long, Float>> postings = new HashMap<>();
+    // 课程ID -> 已索引的课程摘要（用于增量更新时删除旧词、联想结果展示）
+    private final Map<Long, Entry> entries = new HashMap<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+    // 全量重建进行中时记录被增量更新的课程ID（写锁保护），替换索引后重新加载；未在重建时为null
+    private Set<Long> refreshedDuringRebuild;
+    
+    public CourseSearchIndex(CourseMapper courseMapper, TeacherDirectory teacherDirectory) {
+        this.courseMapper = courseMapper;
+        this.teacherDirectory = teacherDirectory;
+    }
+    
+    /**
+     * 已索引的课程摘要
+     */
+    public record Entry(Long courseId, String courseName, String courseCode, String teacherName,
+                        Integer status, Set<String> terms) {
+    }
+    
+    /**
+     * 检索结果：当前页的课程ID（按相关度排序）和命中总数
+     */
+    public record SearchResult(List<Long> courseIds, long total) {
+    }
+    
+    /**
+     * 全文检索
+     * @param status 课程状态，为null时不限
+     * @return 检索结果；索引未就绪、关键字没有可检索的内容或翻页超过检索窗口时返回null，由调用方回退到数据库查询
+     */
+    public SearchResult search(String keyword, Integer status, long offset, int limit) {
+        List<String> terms = queryTerms(keyword);
+        if (terms.isEmpty() || offset + limit > MAX_RESULT_WINDOW || !ensureLoaded()) {
+            return null;
+        }
+        
+        lock.readLock().lock();
+        try {
+            List<Map<Long, Float>> lists = new ArrayList<>(terms.size());
+            List<Double> idfs = new ArrayList<>(terms.size());
+            for (String term : terms) {
+                Map<Long, Float> list = postings.get(term);
+                if (list == null) {
+                    return new SearchResult(Collections.emptyList(), 0);
+                }
+                lists.add(list);
+            }
+            lists.sort(Comparator.comparingInt(Map::size));
+            for (Map<Long, Float> list : lists) {
+                idfs.add(Math.log(1.0 + (double) entries.size() / list.size()));
+            }
+            
+            // 只保留到当前页末尾所需的前N条（小顶堆，按命中数逐步扩容），总数照常累计
+            int keep = (int) (offset + limit);
+            PriorityQueue<ScoredId> top = new PriorityQueue<>();
+            long total = 0;
+            candidates:
+            for (Map.Entry<Long, Float> candidate : lists.get(0).entrySet()) {
+                Long courseId = candidate.getKey();
+                if (status != null && !status.equals(entries.get(courseId).status())) {
+                    continue;
+                }
+                double score = idfs.get(0) * candidate.getValue();
+                for (int i = 1; i < lists.size(); i++) {
+                    Float weight = lists.get(i).get(courseId);
+                    if (weight == null) {
+                        continue candidates;
+                    }
+                    score += idfs.get(i) * weight;
+                }
+                total++;
+                if (keep == 0) {
+                    continue;
+                }
+                ScoredId scored = new ScoredId(courseId, score);
+                if (top.size() < keep) {
+                    top.add(scored);
+                } else if (scored.compareTo(top.peek()) > 0) {
+                    top.poll();
+                    top.add(scored);
+                }
+            }
+            
+            List<ScoredId> ranked = new ArrayList<>(top);
+            ranked.sort(Comparator.reverseOrder());
+            List<Long> page = new ArrayList<>();
+            for (int i = (int) Math.min(offset, ranked.size()); i < ranked.size(); i++) {
+                page.add(ranked.get(i).courseId());
+            }
+            return new SearchResult(page, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 输入联想：按相关度返回前limit门课程的摘要
+     * 最后一个单词按子串匹配（索引中保存了名称、代码、教师名称的单词子串）
+     */
+    public List<Entry> suggest(String prefix, Integer status, int limit) {
+        SearchResult result = search(prefix, status, 0, limit);
+        if (result == null) {
+            return Collections.emptyList();
+        }
+        lock.readLock().lock();
+        try {
+            List<Entry> suggestions = new ArrayList<>(result.courseIds().size());
+            for (Long courseId : result.courseIds()) {
+                Entry entry = entries.get(courseId);
+                if (entry != null) {
+                    suggestions.add(entry);
+                }
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+    
+    /**
+     * 按数据库中的最新数据更新课程的索引（课程已删除时移出索引）
+     * 每批课程一次查询，批量导入时不逐门回查
+     */
+    public void refresh(Collection<Long> courseIds) {
+        if (courseIds == null || courseIds.isEmpty()) {
+            return;
+        }
+        if (!loaded) {
+            // 首次加载进行中时只记录，加载完成后重新读取
+            lock.writeLock().lock();
+            try {
+                if (refreshedDuringRebuild != null) {
+                    refreshedDuringRebuild.addAll(courseIds);
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        List<Long> ids = new ArrayList<>(new LinkedHashSet<>(courseIds));
+        for (int from = 0; from < ids.size(); from += REFRESH_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + REFRESH_BATCH_SIZE, ids.size()));
+            List<Course> courses = courseMapper.selectBatchIds(chunk);
+            lock.writeLock().lock();
+            try {
+                if (refreshedDuringRebuild != null) {
+                    refreshedDuringRebuild.addAll(chunk);
+                }
+                chunk.forEach(this::remove);
+                courses.forEach(this::add);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+    
+    /**
+     * 全量重建索引
+     * 在锁外构建新索引，构建完成后整体替换，重建期间检索照常进行
+     * 重建期间收到的增量更新会被替换掉（快照读取得更早），替换后按课程ID重新加载一次
+     */
+    @Scheduled(initialDelayString = "${course.search.rebuild-interval-ms:600000}",
+               fixedDelayString = "${course.search.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        // 先开始记录再读取快照，之后完成的增量更新都会在替换后重新加载
+        lock.writeLock().lock();
+        try {
+            refreshedDuringRebuild = new HashSet<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        
+        List<Course> courses;
+        try {
+            courses = courseMapper.selectList(new LambdaQueryWrapper<Course>()
+                    .select(Course::getCourseId, Course::getCourseName, Course::getCourseCode,
+                            Course::getCourseDescription, Course::getTeacherId, Course::getTeacherName,
+                            Course::getStatus));
+        } catch (Exception e) {
+            log.error("加载课程检索索引失败", e);
+            lock.writeLock().lock();
+            try {
+                refreshedDuringRebuild = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            return;
+        }
+        
+        CourseSearchIndex staging = new CourseSearchIndex(courseMapper, teacherDirectory);
+        for (Course course : courses) {
+            staging.add(course);
+        }
+        Set<Long> stale;
+        lock.writeLock().lock();
+        try {
+            postings.clear();
+            postings.putAll(staging.postings);
+            entries.clear();
+            entries.putAll(staging.entries);
+            loaded = true;
+            stale = refreshedDuringRebuild;
+            refreshedDuringRebuild = null;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("课程检索索引已重建: courses={}, terms={}", staging.entries.size(), staging.postings.size());
+        
+        try {
+            refresh(stale);
+        } catch (Exception e) {
+            log.error("重新加载重建期间更新的课程失败", e);
+        }
+    }
+    
+    private boolean ensureLoaded() {
+        if (!loaded) {
+            synchronized (this) {
+                if (!loaded) {
+                    rebuild();
+                }
+            }
+        }
+        return loaded;
+    }
+    
+    private void add(Course course) {
+        String teacherName = course.getTeacherName();
+        if (course.getTeacherId() != null) {
+            TeacherProjection teacher = teacherDirectory.get(course.getTeacherId());
+            if (teacher != null && StringUtils.hasText(teacher.getName())) {
+                teacherName = teacher.getName();
+            }
+        }
+        
+        Map<String, Float> weights = new HashMap<>();
+        indexField(weights, course.getCourseName(), WEIGHT_NAME, true);
+        indexField(weights, course.getCourseCode(), WEIGHT_CODE, true);
+        indexField(weights, teacherName, WEIGHT_TEACHER, true);
+        indexField(weights, course.getCourseDescription(), WEIGHT_DESCRIPTION, false);
+        
+        Long courseId = course.getCourseId();
+        weights.forEach((term, weight) -> postings.computeIfAbsent(term, k -> new HashMap<>()).put(courseId, weight));
+        entries.put(courseId, new Entry(courseId, course.getCourseName(), course.getCourseCode(), teacherName,
+                course.getStatus(), weights.keySet()));
+    }
+    
+    private void remove(Long courseId) {
+        Entry entry = entries.remove(courseId);
+        if (entry == null) {
+            return;
+        }
+        for (String term : entry.terms()) {
+            Map<Long, Float> list = postings.get(term);
+            if (list != null) {
+                list.remove(courseId);
+                if (list.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+    
+    /**
+     * 切分一个字段并记录每个词的权重（同一词出现在多个字段时取最高权重）
+     * 子串按 子串长度/单词长度 折算权重，完整单词命中的得分更高，单词中间的子串再打折扣
+     */
+    private static void indexField(Map<String, Float> weights, String text, float weight, boolean withSubstrings) {
+        if (!StringUtils.hasText(text)) {
+            return;
+        }
+        tokenize(text, cjkRun -> {
+            for (int i = 0; i < cjkRun.length(); i++) {
+                weights.merge(cjkRun.substring(i, i + 1), weight, Math::max);
+                if (i + 1 < cjkRun.length()) {
+                    weights.merge(cjkRun.substring(i, i + 2), weight, Math::max);
+                }
+            }
+        }, word -> {
+            int length = word.length();
+            if (!withSubstrings) {
+                weights.merge(WORD_PREFIX + word.substring(0, Math.min(length, MAX_PREFIX_LENGTH)), weight, Math::max);
+                return;
+            }
+            for (int start = 0; start < length; start++) {
+                float discount = start == 0 ? 1.0f : INFIX_DISCOUNT;
+                for (int end = start + 1; end <= Math.min(length, start + MAX_PREFIX_LENGTH); end++) {
+                    weights.merge(WORD_PREFIX + word.substring(start, end), weight * discount * (end - start) / length,
+                            Math::max);
+                }
+            }
+        });
+    }
+    
+    /**
+     * 切分查询关键字：中日韩文字单字时按单字查询，否则按bigram查询；字母数字按单词（子串）查询
+     */
+    static List<String> queryTerms(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return Collections.emptyList();
+        }
+        Set<String> terms = new LinkedHashSet<>();
+        tokenize(keyword, cjkRun -> {
+            if (cjkRun.length() == 1) {
+                terms.add(cjkRun);
+            }
+            for (int i = 0; i + 1 < cjkRun.length(); i++) {
+                terms.add(cjkRun.substring(i, i + 2));
+            }
+        }, word -> terms.add(WORD_PREFIX + word.substring(0, Math.min(word.length(), MAX_PREFIX_LENGTH))));
+        return new ArrayList<>(terms);
+    }
+    
+    /**
+     * 按全角/半角、大小写归一化后切分为连续的中日韩文字段和字母数字单词，其余字符作为分隔符
+     * 字母和数字的交界处也切开，课程代码CS101切为cs、101
+     */
+    private static void tokenize(String text, java.util.function.Consumer<String> cjkRuns,
+                                 java.util.function.Consumer<String> words) {
+        String normalized = Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        StringBuilder cjk = new StringBuilder();
+        StringBuilder word = new StringBuilder();
+        int i = 0;
+        while (i < normalized.length()) {
+            int cp = normalized.codePointAt(i);
+            i += Character.charCount(cp);
+            if (isCjk(cp)) {
+                flush(word, words);
+                cjk.appendCodePoint(cp);
+            } else if (Character.isLetterOrDigit(cp)) {
+                flush(cjk, cjkRuns);
+                if (word.length() > 0 && Character.isDigit(word.codePointBefore(word.length())) != Character.isDigit(cp)) {
+                    flush(word, words);
+                }
+                word.appendCodePoint(cp);
+            } else {
+                flush(cjk, cjkRuns);
+                flush(word, words);
+            }
+        }
+        flush(cjk, cjkRuns);
+        flush(word, words);
+    }
+    
+    private static void flush(StringBuilder run, java.util.function.Consumer<String> consumer) {
+        if (run.length() > 0) {
+            consumer.accept(run.toString());
+            run.setLength(0);
+        }
+    }
+    
+    private static boolean isCjk(int cp) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(cp);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+    
+    private record ScoredId(Long courseId, double score) implements Comparable<ScoredId> {
+        @Override
+        public int compareTo(ScoredId other) {
+            int byScore = Double.compare(score, other.score);
+            return byScore != 0 ? byScore : Long.compare(courseId, other.courseId);
+        }
+    }
+}
@@ -2,52 +2,123 @@ package com.education.course.service;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
-import com.education.common.constant.Constants;
+import com.education.common.event.CourseChangeEvent;
 import com.education.common.exception.BusinessException;
+import com.education.common.result.CursorPage;
+import com.education.common.util.KeysetCursor;
+import com.education.common.util.WeekSlotBitmap;
 import com.education.course.dto.CourseDTO;
+import com.education.course.dto.CourseSuggestionDTO;
 import com.education.course.entity.Course;
-import com.education.course.entity.Teacher;
+import com.education.course.entity.CourseSchedule;
+import com.education.course.entity.TeacherProjection;
 import com.education.course.mapper.CourseMapper;
-import com.education.course.mapper.TeacherMapper;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.education.course.mapper.CourseScheduleMapper;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeanUtils;
-import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.List;
-import java.util.concurrent.TimeUnit;
+import java.util.*;
 import java.util.stream.Collectors;
 
+@Slf4j
 @Service
 @RequiredArgsConstructor
 public class CourseService {
     
+    // 批量查询单次最多返回的课程数
+    private static final int MAX_BATCH_SIZE = 500;
+    
     private final CourseMapper courseMapper;
-    private final TeacherMapper teacherMapper;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final ObjectMapper objectMapper;
+    private final CourseScheduleMapper courseScheduleMapper;
+    private final CourseEventPublisher courseEventPublisher;
+    private final CourseDetailCache courseDetailCache;
+    private final TeacherDirectory teacherDirectory;
+    private final CourseSearchIndex courseSearchIndex;
+    private final CoursePageCache coursePageCache;
+    private final CourseRankingService courseRankingService;
     
+    /**
+     * 获取课程详情（本地缓存 -> Redis -> 数据库）
+     */
     public CourseDTO getById(Long id) {
+        CourseDTO dto = courseDetailCache.get(id, this::loadById);
+        courseRankingService.recordView(id);
+        return dto;
+    }
+    
+    /**
+     * 预热课程详情缓存（不计入浏览热度），不存在的课程直接跳过
+     * @return 预热成功的课程数
+     */
+    public int warmUp(List<Long> ids) {
+        int warmed = 0;
+        for (Long id : ids) {
+            try {
+                courseDetailCache.get(id, this::loadById);
+                warmed++;
+            } catch (BusinessException e) {
+                // 课程已删除
+            }
+        }
+        return warmed;
+    }
+    
+    private CourseDTO loadById(Long id) {
         Course course = courseMapper.selectById(id);
         if (course == null) {
             throw new BusinessException(404, "课程不存在");
         }
+        return convertToDTO(course);
+    }
+    
+    /**
+     * 批量获取课程信息
+     * 课程和时间表各一次查询，教师信息取自本地教师目录，不存在的ID直接忽略
+     */
+    public List<CourseDTO> getByIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> distinctIds = ids.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "单次最多查询" + MAX_BATCH_SIZE + "门课程");
+        }
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
         
-        CourseDTO dto = convertToDTO(course);
-        
-        // 清除缓存并重新设置，确保教师信息是最新的
-        String cacheKey = Constants.REDIS_COURSE_PREFIX + id;
-        redisTemplate.delete(cacheKey);
-        redisTemplate.opsForValue().set(cacheKey, dto, 30, TimeUnit.MINUTES);
-        return dto;
+        List<Course> courses = courseMapper.selectBatchIds(distinctIds);
+        Map<Long, String> scheduleBitmaps = loadScheduleBitmaps(courses);
+        return courses.stream()
+                .map(course -> convertToDTO(course, scheduleBitmaps))
+                .collect(Collectors.toList());
     }
     
+    /**
+     * 课程分页列表
+     * 相同查询参数的结果按课程目录版本缓存，课程或选课人数变化后自动失效
+     * 带关键字时走全文检索索引，按相关度排序；索引不可用时回退到数据库模糊查询
+     * 未命中缓存时的查询走主库，不走从库：版本号在主库提交后递增，从库可能还没复制到这次写入，
+     * 用新版本号缓存从库的旧数据后，在缓存TTL内都不会再被失效（缓存命中率高，回源查询很少）
+     */
     public Page<CourseDTO> getPage(Integer current, Integer size, String keyword, Integer status) {
+        String trimmed = StringUtils.hasText(keyword) ? keyword.trim() : null;
+        return coursePageCache.get(current, size, trimmed, status, () -> loadPage(current, size, trimmed, status));
+    }
+    
+    private Page<CourseDTO> loadPage(Integer current, Integer size, String keyword, Integer status) {
+        if (StringUtils.hasText(keyword)) {
+            Page<CourseDTO> searched = search(current, size, keyword, status);
+            if (searched != null) {
+                return searched;
+            }
+        }
+        
         Page<Course> page = new Page<>(current, size);
         LambdaQueryWrapper<Course> wrapper = new LambdaQueryWrapper<>();
         
@@ -61,18 +132,120 @@ public class CourseService {
             wrapper.eq(Course::getStatus, status);
         }
         
-        wrapper.orderByDesc(Course::getCreatedAt);
+        wrapper.orderByDesc(Course::getCreatedAt).orderByDesc(Course::getCourseId);
         Page<Course> coursePage = courseMapper.selectPage(page, wrapper);
         
         Page<CourseDTO> dtoPage = new Page<>(current, size, coursePage.getTotal());
+        Map<Long, String> scheduleBitmaps = loadScheduleBitmaps(coursePage.getRecords());
         List<CourseDTO> dtoList = coursePage.getRecords().stream()
-                .map(this::convertToDTO)
+                .map(course -> convertToDTO(course, scheduleBitmaps))
                 .collect(Collectors.toList());
         dtoPage.setRecords(dtoList);
         
         return dtoPage;
     }
     
+    /**
+     * 全文检索：按相关度排序分页
+     * @return 索引未就绪时返回null
+     */
+    private Page<CourseDTO> search(Integer current, Integer size, String keyword, Integer status) {
+        int pageNo = Math.max(1, current != null ? current : 1);
+        int pageSize = Math.max(1, Math.min(size != null ? size : 10, MAX_BATCH_SIZE));
+        CourseSearchIndex.SearchResult result = courseSearchIndex.search(
+                keyword, status, (long) (pageNo - 1) * pageSize, pageSize);
+        if (result == null) {
+            return null;
+        }
+        
+        // 批量查询不保证顺序，按检索结果的相关度顺序重新排列
+        Map<Long, CourseDTO> byId = getByIds(result.courseIds()).stream()
+                .collect(Collectors.toMap(CourseDTO::getCourseId, dto -> dto));
+        List<CourseDTO> records = result.courseIds().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        Page<CourseDTO> dtoPage = new Page<>(pageNo, pageSize, result.total());
+        dtoPage.setRecords(records);
+        return dtoPage;
+    }
+    
+    /**
+     * 课程输入联想：按名称、代码、教师名称前缀匹配，返回相关度最高的若干门课程
+     */
+    public List<CourseSuggestionDTO> suggest(String prefix, Integer status, Integer limit) {
+        int max = Math.max(1, Math.min(limit != null ? limit : 10, 50));
+        return courseSearchIndex.suggest(prefix, status, max).stream()
+                .map(entry -> new CourseSuggestionDTO(entry.courseId(), entry.courseName(),
+                        entry.courseCode(), entry.teacherName()))
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 按开课院系、开课时间范围查询课程ID（不限课程状态），供选课服务按院系/学期导出名单
+     * @param startFrom 开课时间下限（含），为空不限
+     * @param startTo 开课时间上限（不含），为空不限
+     */
+    public List<Long> listCourseIds(String department, LocalDateTime startFrom, LocalDateTime startTo) {
+        LambdaQueryWrapper<Course> wrapper = new LambdaQueryWrapper<>();
+        wrapper.select(Course::getCourseId);
+        if (StringUtils.hasText(department)) {
+            wrapper.eq(Course::getDepartment, department);
+        }
+        if (startFrom != null) {
+            wrapper.ge(Course::getStartTime, startFrom);
+        }
+        if (startTo != null) {
+            wrapper.lt(Course::getStartTime, startTo);
+        }
+        wrapper.orderByAsc(Course::getCourseId);
+        return courseMapper.selectList(wrapper).stream()
+                .map(Course::getCourseId)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 游标分页（keyset）：按 (created_at, course_id) 倒序，从游标位置往后取一页
+     * 多取一条判断是否还有下一页，不统计总数
+     */
+    public CursorPage<CourseDTO> getCursorPage(String cursor, Integer size, String keyword, Integer status) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : 10, MAX_BATCH_SIZE));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        
+        LambdaQueryWrapper<Course> wrapper = new LambdaQueryWrapper<>();
+        if (StringUtils.hasText(keyword)) {
+            wrapper.and(w -> w.like(Course::getCourseName, keyword)
+                    .or().like(Course::getCourseCode, keyword)
+                    .or().like(Course::getTeacherName, keyword));
+        }
+        if (status != null) {
+            wrapper.eq(Course::getStatus, status);
+        }
+        if (after != null) {
+            wrapper.and(w -> w.lt(Course::getCreatedAt, after.getCreatedAt())
+                    .or(o -> o.eq(Course::getCreatedAt, after.getCreatedAt()).lt(Course::getCourseId, after.getId())));
+        }
+        wrapper.orderByDesc(Course::getCreatedAt).orderByDesc(Course::getCourseId)
+               .last("LIMIT " + (pageSize + 1));
+        
+        List<Course> courses = courseMapper.selectList(wrapper);
+        boolean hasMore = courses.size() > pageSize;
+        if (hasMore) {
+            courses = courses.subList(0, pageSize);
+        }
+        Map<Long, String> scheduleBitmaps = loadScheduleBitmaps(courses);
+        List<CourseDTO> records = courses.stream()
+                .map(course -> convertToDTO(course, scheduleBitmaps))
+                .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (hasMore) {
+            Course last = courses.get(courses.size() - 1);
+            nextCursor = KeysetCursor.encode(last.getCreatedAt(), last.getCourseId());
+        }
+        return new CursorPage<>(records, pageSize, nextCursor);
+    }
+    
     @Transactional
     public CourseDTO create(CourseDTO dto) {
         LambdaQueryWrapper<Course> wrapper = new LambdaQueryWrapper<>();
@@ -82,68 +255,16 @@ public class CourseService {
             throw new BusinessException(400, "课程代码已存在");
         }
         
-        // 根据teacherId获取教师信息
+        // 根据teacherId获取教师信息（本地教师投影）
         // 注意：dto.getTeacherId() 可能是 userId（user_credentials表的id），也可能是真正的teacherId
         String teacherName = null;
         String department = null;
         Long actualTeacherId = dto.getTeacherId();
         
         if (dto.getTeacherId() != null) {
-            // 先尝试直接通过teacherId查询（如果已经是teacherId）
-            System.out.println("=== 开始查询教师信息 ===");
-            System.out.println("输入的teacherId/userId: " + dto.getTeacherId());
-            Teacher teacher = teacherMapper.selectById(dto.getTeacherId());
-            System.out.println("通过teacherId查询结果: " + (teacher != null ? "找到教师 " + teacher.getName() : "未找到"));
-            
-            // 如果查询不到，可能是userId，尝试通过userId查询
-            if (teacher == null) {
-                System.out.println("通过teacherId查询不到教师，尝试通过userId查询: " + dto.getTeacherId());
-                // 先尝试分步查询：先获取teacherId
-                try {
-                    Long teacherIdFromUser = teacherMapper.selectTeacherIdByUserId(dto.getTeacherId());
-                    System.out.println("通过userId查询到的teacherId: " + teacherIdFromUser);
-                    if (teacherIdFromUser != null) {
-                        teacher = teacherMapper.selectById(teacherIdFromUser);
-                        System.out.println("通过teacherId查询结果: " + (teacher != null ? "找到教师 " + teacher.getName() : "未找到"));
-                        if (teacher != null) {
-                            actualTeacherId = teacher.getTeacherId();
-                        }
-                    } else {
-                        System.err.println("警告: userId=" + dto.getTeacherId() + " 在user_credentials表中没有对应的teacher_id");
-                    }
-                } catch (Exception e) {
-                    System.err.println("查询teacherId失败: " + e.getMessage());
-                    e.printStackTrace();
-                    // 如果分步查询失败，尝试直接JOIN查询
-                    try {
-                        teacher = teacherMapper.selectByUserId(dto.getTeacherId());
-                        System.out.println("通过JOIN查询结果: " + (teacher != null ? "找到教师 " + teacher.getName() : "未找到"));
-                        if (teacher != null) {
-                            actualTeacherId = teacher.getTeacherId();
-                        }
-                    } catch (Exception e2) {
-                        System.err.println("JOIN查询也失败: " + e2.getMessage());
-                    }
-                }
-                
-                if (teacher != null) {
-                    // 获取真正的teacherId
-                    actualTeacherId = teacher.getTeacherId();
-                    System.out.println("通过userId找到教师，真正的teacherId=" + actualTeacherId + ", teacherName=" + teacher.getName());
-                } else {
-                    System.err.println("错误: 通过userId也查询不到教师，userId=" + dto.getTeacherId());
-                    System.err.println("可能的原因：");
-                    System.err.println("1. userId在user_credentials表中不存在");
-                    System.err.println("2. userId对应的teacher_id为null");
-                    System.err.println("3. teacher_id对应的教师在teachers表中不存在");
-                    System.err.println("4. 数据库权限问题，无法跨数据库查询");
-                }
-            } else {
-                System.out.println("直接通过teacherId查询成功");
-            }
-            System.out.println("=== 查询教师信息结束 ===");
-            
+            TeacherProjection teacher = teacherDirectory.resolve(dto.getTeacherId());
             if (teacher != null) {
+                actualTeacherId = teacher.getTeacherId();
                 teacherName = teacher.getName();
                 department = teacher.getDepartment();
                 System.out.println("创建课程 - 获取教师信息: userId=" + dto.getTeacherId() + ", teacherId=" + actualTeacherId + ", teacherName=" + teacherName + ", department=" + department);
@@ -188,74 +309,11 @@ public class CourseService {
         // 插入数据库
         int insertResult = courseMapper.insert(course);
         System.out.println("插入结果: " + insertResult + ", 生成的courseId: " + course.getCourseId());
+        courseEventPublisher.publishAfterCommit(course.getCourseId(), CourseChangeEvent.TYPE_CREATED);
+        coursePageCache.bumpVersionAfterCommit();
+        courseRankingService.refreshAfterCommit(course.getCourseId());
         
-        // 插入后立即查询验证
-        if (course.getCourseId() != null) {
-            Course insertedCourse = courseMapper.selectById(course.getCourseId());
-            if (insertedCourse != null) {
-                System.out.println("=== 插入后查询的数据 ===");
-                System.out.println("courseId: " + insertedCourse.getCourseId());
-                System.out.println("teacherId: " + insertedCourse.getTeacherId());
-                System.out.println("teacherName: " + insertedCourse.getTeacherName());
-                System.out.println("department: " + insertedCourse.getDepartment());
-                System.out.println("========================");
-                
-                // 如果teacherName为空或者是"未知教师"，尝试修复
-                if ((!StringUtils.hasText(insertedCourse.getTeacherName()) || "未知教师".equals(insertedCourse.getTeacherName())) 
-                    && insertedCourse.getTeacherId() != null) {
-                    System.err.println("错误: 插入后teacherName为空或未知，尝试修复... teacherId=" + insertedCourse.getTeacherId());
-                    Teacher teacher = teacherMapper.selectById(insertedCourse.getTeacherId());
-                    // 如果通过teacherId查询不到，尝试通过userId查询
-                    if (teacher == null) {
-                        System.out.println("通过teacherId查询不到，尝试通过userId查询: " + insertedCourse.getTeacherId());
-                        // 先尝试分步查询
-                        try {
-                            Long teacherIdFromUser = teacherMapper.selectTeacherIdByUserId(insertedCourse.getTeacherId());
-                            System.out.println("通过userId查询到的teacherId: " + teacherIdFromUser);
-                            if (teacherIdFromUser != null) {
-                                teacher = teacherMapper.selectById(teacherIdFromUser);
-                                System.out.println("通过teacherId查询结果: " + (teacher != null ? "找到教师 " + teacher.getName() : "未找到"));
-                            }
-                        } catch (Exception e) {
-                            System.err.println("分步查询失败: " + e.getMessage());
-                            e.printStackTrace();
-                        }
-                        // 如果分步查询失败，尝试JOIN查询
-                        if (teacher == null) {
-                            try {
-                                teacher = teacherMapper.selectByUserId(insertedCourse.getTeacherId());
-                            } catch (Exception e) {
-                                System.err.println("JOIN查询失败: " + e.getMessage());
-                            }
-                        }
-                    }
-                    if (teacher != null) {
-                        insertedCourse.setTeacherName(teacher.getName());
-                        if (StringUtils.hasText(teacher.getDepartment())) {
-                            insertedCourse.setDepartment(teacher.getDepartment());
-                        }
-                        // 如果通过userId查询到了，更新teacherId为真正的teacherId
-                        if (!insertedCourse.getTeacherId().equals(teacher.getTeacherId())) {
-                            insertedCourse.setTeacherId(teacher.getTeacherId());
-                        }
-                        courseMapper.updateById(insertedCourse);
-                        System.out.println("修复完成 - teacherId: " + insertedCourse.getTeacherId() + ", teacherName: " + insertedCourse.getTeacherName());
-                        // 重新查询
-                        insertedCourse = courseMapper.selectById(course.getCourseId());
-                    } else {
-                        System.err.println("错误: 无法找到教师信息，teacherId/userId=" + insertedCourse.getTeacherId());
-                    }
-                }
-                
-                // 使用验证后的数据
-                CourseDTO result = convertToDTO(insertedCourse);
-                return result;
-            }
-        }
-        
-        // 如果查询失败，使用原始数据
-        CourseDTO result = convertToDTO(course);
-        return result;
+        return convertToDTO(course);
     }
     
     @Transactional
@@ -274,26 +332,12 @@ public class CourseService {
             }
         }
         
-        // 如果teacherId有变化，重新获取教师信息
+        // 重新获取教师信息（本地教师投影），dto.getTeacherId() 可能是 userId，也可能是真正的teacherId
         Long actualTeacherId = dto.getTeacherId();
-        Teacher teacher = null;
-        
         if (dto.getTeacherId() != null) {
-            // 先尝试通过teacherId查询
-            teacher = teacherMapper.selectById(dto.getTeacherId());
-            // 如果查询不到，可能是userId，尝试通过userId查询
-            if (teacher == null) {
-                teacher = teacherMapper.selectByUserId(dto.getTeacherId());
-                // 如果还是查询不到，使用安全的分步查询
-                if (teacher == null) {
-                    teacher = teacherMapper.selectByUserIdSafe(dto.getTeacherId());
-                }
-                if (teacher != null) {
-                    actualTeacherId = teacher.getTeacherId();
-                }
-            }
-            
+            TeacherProjection teacher = teacherDirectory.resolve(dto.getTeacherId());
             if (teacher != null) {
+                actualTeacherId = teacher.getTeacherId();
                 dto.setTeacherName(teacher.getName());
                 if (StringUtils.hasText(teacher.getDepartment())) {
                     dto.setDepartment(teacher.getDepartment());
@@ -301,30 +345,6 @@ public class CourseService {
             }
         }
         
-        // 如果teacherId没变，但teacherName可能为空，重新获取
-        if (dto.getTeacherId() != null && dto.getTeacherId().equals(course.getTeacherId())) {
-            if (!StringUtils.hasText(course.getTeacherName()) || !StringUtils.hasText(dto.getTeacherName())) {
-                if (teacher == null) {
-                    teacher = teacherMapper.selectById(dto.getTeacherId());
-                    if (teacher == null) {
-                        teacher = teacherMapper.selectByUserId(dto.getTeacherId());
-                        if (teacher == null) {
-                            teacher = teacherMapper.selectByUserIdSafe(dto.getTeacherId());
-                        }
-                        if (teacher != null) {
-                            actualTeacherId = teacher.getTeacherId();
-                        }
-                    }
-                }
-                if (teacher != null) {
-                    dto.setTeacherName(teacher.getName());
-                    if (StringUtils.hasText(teacher.getDepartment())) {
-                        dto.setDepartment(teacher.getDepartment());
-                    }
-                }
-            }
-        }
-        
         // 更新字段，但排除courseId、selectedCount、createdAt
         course.setCourseName(dto.getCourseName());
         course.setCourseCode(dto.getCourseCode());
@@ -332,30 +352,13 @@ public class CourseService {
         course.setCredit(dto.getCredit());
         // 使用实际的teacherId
         course.setTeacherId(actualTeacherId != null ? actualTeacherId : dto.getTeacherId());
-        // 确保teacherName被设置
         if (StringUtils.hasText(dto.getTeacherName())) {
             course.setTeacherName(dto.getTeacherName());
-        } else if (course.getTeacherId() != null) {
-            // 如果DTO中没有teacherName，从教师服务获取
-            if (teacher == null) {
-                teacher = teacherMapper.selectById(course.getTeacherId());
-                if (teacher == null) {
-                    teacher = teacherMapper.selectByUserId(course.getTeacherId());
-                    if (teacher == null) {
-                        teacher = teacherMapper.selectByUserIdSafe(course.getTeacherId());
-                    }
-                }
-            }
-            if (teacher != null) {
-                course.setTeacherName(teacher.getName());
-                if (!StringUtils.hasText(course.getDepartment()) && StringUtils.hasText(teacher.getDepartment())) {
-                    course.setDepartment(teacher.getDepartment());
-                }
-            }
         }
         if (StringUtils.hasText(dto.getDepartment())) {
             course.setDepartment(dto.getDepartment());
         }
+        Integer oldCapacity = course.getTotalCapacity();
         course.setTotalCapacity(dto.getTotalCapacity());
         course.setCoverImage(dto.getCoverImage());
         course.setStatus(dto.getStatus());
@@ -371,33 +374,15 @@ public class CourseService {
         
         courseMapper.updateById(course);
         
-        // 更新后查询验证
-        Course updatedCourse = courseMapper.selectById(id);
-        if (updatedCourse != null && !StringUtils.hasText(updatedCourse.getTeacherName()) && updatedCourse.getTeacherId() != null) {
-            System.err.println("错误: 更新后teacherName为空，尝试修复...");
-            Teacher fixTeacher = teacherMapper.selectById(updatedCourse.getTeacherId());
-            // 如果通过teacherId查询不到，尝试通过userId查询
-            if (fixTeacher == null) {
-                fixTeacher = teacherMapper.selectByUserId(updatedCourse.getTeacherId());
-                if (fixTeacher == null) {
-                    fixTeacher = teacherMapper.selectByUserIdSafe(updatedCourse.getTeacherId());
-                }
-            }
-            if (fixTeacher != null) {
-                updatedCourse.setTeacherName(fixTeacher.getName());
-                // 如果通过userId查询到了，更新teacherId
-                if (!updatedCourse.getTeacherId().equals(fixTeacher.getTeacherId())) {
-                    updatedCourse.setTeacherId(fixTeacher.getTeacherId());
-                }
-                courseMapper.updateById(updatedCourse);
-            }
-            updatedCourse = courseMapper.selectById(id);
-        }
-        
-        redisTemplate.delete(Constants.REDIS_COURSE_PREFIX + id);
+        courseDetailCache.evict(id);
+        // 携带容量变化量，选课服务据此调整座位库存，扩容时自动为候补学生补位
+        int capacityDelta = (course.getTotalCapacity() != null ? course.getTotalCapacity() : 0)
+            - (oldCapacity != null ? oldCapacity : 0);
+        courseEventPublisher.publishAfterCommit(id, CourseChangeEvent.TYPE_UPDATED, capacityDelta);
+        coursePageCache.bumpVersionAfterCommit();
+        courseRankingService.refreshAfterCommit(id);
         
-        CourseDTO result = convertToDTO(updatedCourse != null ? updatedCourse : course);
-        return result;
+        return convertToDTO(course);
     }
     
     @Transactional
@@ -408,31 +393,25 @@ public class CourseService {
         }
         
         courseMapper.deleteById(id);
-        redisTemplate.delete(Constants.REDIS_COURSE_PREFIX + id);
+        courseDetailCache.evict(id);
+        courseEventPublisher.publishAfterCommit(id, CourseChangeEvent.TYPE_DELETED);
+        coursePageCache.bumpVersionAfterCommit();
+        courseRankingService.refreshAfterCommit(id);
     }
     
     /**
      * 增加课程选课人数
+     * 单条条件UPDATE完成容量检查和累加，避免先查后改的并发丢失更新
      */
     @Transactional
     public void incrementSelectedCount(Long id) {
-        Course course = courseMapper.selectById(id);
-        if (course == null) {
-            throw new BusinessException(404, "课程不存在");
-        }
-        
-        // 检查容量
-        if (course.getSelectedCount() != null && course.getTotalCapacity() != null 
-            && course.getSelectedCount() >= course.getTotalCapacity()) {
+        if (courseMapper.incrementSelectedCount(id) == 0) {
+            if (courseMapper.selectById(id) == null) {
+                throw new BusinessException(404, "课程不存在");
+            }
             throw new BusinessException(400, "课程容量已满");
         }
-        
-        course.setSelectedCount((course.getSelectedCount() == null ? 0 : course.getSelectedCount()) + 1);
-        course.setUpdatedAt(LocalDateTime.now());
-        courseMapper.updateById(course);
-        
-        // 清除缓存
-        redisTemplate.delete(Constants.REDIS_COURSE_PREFIX + id);
+        evictAndPublishSeats(id);
     }
     
     /**
@@ -440,53 +419,164 @@ public class CourseService {
      */
     @Transactional
     public void decrementSelectedCount(Long id) {
-        Course course = courseMapper.selectById(id);
-        if (course == null) {
+        if (courseMapper.decrementSelectedCount(id) == 0 && courseMapper.selectById(id) == null) {
             throw new BusinessException(404, "课程不存在");
         }
+        evictAndPublishSeats(id);
+    }
+    
+    /**
+     * 按增量调整课程选课人数
+     * 由选课服务的座位库存定时回写，座位是否可选已在Redis中判定，这里只做累加
+     */
+    @Transactional
+    public void adjustSelectedCount(Long id, int delta) {
+        if (courseMapper.adjustSelectedCount(id, delta) == 0) {
+            throw new BusinessException(404, "课程不存在");
+        }
+        evictAndPublishSeats(id);
+    }
+    
+    /**
+     * 批量按增量调整课程选课人数（一条UPDATE完成）
+     * 不存在的课程直接忽略
+     */
+    @Transactional
+    public int adjustSelectedCountBatch(Map<Long, Integer> deltas) {
+        Map<Long, Integer> effective = new LinkedHashMap<>();
+        if (deltas != null) {
+            deltas.forEach((courseId, delta) -> {
+                if (courseId != null && delta != null && delta != 0) {
+                    effective.put(courseId, delta);
+                }
+            });
+        }
+        if (effective.isEmpty()) {
+            return 0;
+        }
+        if (effective.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "单次最多调整" + MAX_BATCH_SIZE + "门课程");
+        }
         
-        int currentCount = course.getSelectedCount() == null ? 0 : course.getSelectedCount();
-        if (currentCount > 0) {
-            course.setSelectedCount(currentCount - 1);
-            course.setUpdatedAt(LocalDateTime.now());
-            courseMapper.updateById(course);
+        int updated = courseMapper.adjustSelectedCountBatch(effective);
+        evictAndPublishSeats(new ArrayList<>(effective.keySet()));
+        return updated;
+    }
+    
+    private void evictAndPublishSeats(Long id) {
+        evictAndPublishSeats(Collections.singletonList(id));
+    }
+    
+    /**
+     * 选课人数变化后只清除课程缓存，并通知其他服务
+     * 批量调整时缓存一次批量删除，只发布一条携带全部课程ID的事件，
+     * 列表缓存版本只递增一次，满员率排行合并为一次批量刷新
+     */
+    private void evictAndPublishSeats(List<Long> ids) {
+        courseDetailCache.evictAll(ids);
+        if (ids.size() == 1) {
+            courseEventPublisher.publishAfterCommit(ids.get(0), CourseChangeEvent.TYPE_SEATS);
+        } else {
+            courseEventPublisher.publishAfterCommit(ids, CourseChangeEvent.TYPE_SEATS);
+        }
+        coursePageCache.bumpVersionAfterCommit();
+        courseRankingService.refreshAfterCommit(ids);
+    }
+    
+    /**
+     * 教师姓名变更后同步课程表中冗余的teacher_name（按名称搜索课程依赖该列）
+     * 只更新名称不一致的课程，多个实例重复收到同一事件时只有第一个实际生效
+     */
+    @Transactional
+    public void syncTeacherName(TeacherProjection teacher) {
+        if (teacher == null || !StringUtils.hasText(teacher.getName())) {
+            return;
+        }
+        List<Long> courseIds = courseMapper.selectList(new LambdaQueryWrapper<Course>()
+                .select(Course::getCourseId)
+                .eq(Course::getTeacherId, teacher.getTeacherId())
+                .and(w -> w.isNull(Course::getTeacherName).or().ne(Course::getTeacherName, teacher.getName())))
+                .stream()
+                .map(Course::getCourseId)
+                .collect(Collectors.toList());
+        if (courseIds.isEmpty()) {
+            return;
         }
         
-        // 清除缓存
-        redisTemplate.delete(Constants.REDIS_COURSE_PREFIX + id);
+        Course update = new Course();
+        update.setTeacherName(teacher.getName());
+        update.setUpdatedAt(LocalDateTime.now());
+        courseMapper.update(update, new LambdaQueryWrapper<Course>().in(Course::getCourseId, courseIds));
+        for (Long courseId : courseIds) {
+            courseDetailCache.evict(courseId);
+            courseEventPublisher.publishAfterCommit(courseId, CourseChangeEvent.TYPE_UPDATED);
+        }
+        coursePageCache.bumpVersionAfterCommit();
+        courseRankingService.refreshAfterCommit(courseIds);
+        log.info("课程教师名称已同步: teacherId={}, courses={}", teacher.getTeacherId(), courseIds.size());
+    }
+    
+    /**
+     * 获取课程时间表
+     */
+    public List<CourseSchedule> getSchedule(Long courseId) {
+        return courseScheduleMapper.selectList(
+            new LambdaQueryWrapper<CourseSchedule>()
+                .eq(CourseSchedule::getCourseId, courseId)
+                .orderByAsc(CourseSchedule::getDayOfWeek)
+                .orderByAsc(CourseSchedule::getStartTime)
+        );
+    }
+    
+    /**
+     * 批量查询课程时间表并转换为每周位图
+     * @return 课程ID到位图（Base64）的映射，未排课的课程不在其中
+     */
+    private Map<Long, String> loadScheduleBitmaps(List<Course> courses) {
+        if (courses.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> courseIds = courses.stream().map(Course::getCourseId).collect(Collectors.toList());
+        Map<Long, long[]> bitmaps = new HashMap<>();
+        for (CourseSchedule schedule : courseScheduleMapper.selectList(
+                new LambdaQueryWrapper<CourseSchedule>().in(CourseSchedule::getCourseId, courseIds))) {
+            long[] bits = bitmaps.computeIfAbsent(schedule.getCourseId(), k -> WeekSlotBitmap.empty());
+            if (schedule.getDayOfWeek() != null) {
+                WeekSlotBitmap.mark(bits, schedule.getDayOfWeek(), schedule.getStartTime(), schedule.getEndTime());
+            }
+        }
+        Map<Long, String> encoded = new HashMap<>();
+        bitmaps.forEach((courseId, bits) -> encoded.put(courseId, WeekSlotBitmap.encode(bits)));
+        return encoded;
     }
     
     /**
      * 将Course实体转换为DTO，并填充教师信息
      */
     private CourseDTO convertToDTO(Course course) {
+        return convertToDTO(course, loadScheduleBitmaps(Collections.singletonList(course)));
+    }
+    
+    /**
+     * 将Course实体转换为DTO，教师信息从本地教师目录获取，时间表位图从预先查询好的Map中获取
+     */
+    private CourseDTO convertToDTO(Course course, Map<Long, String> scheduleBitmaps) {
         CourseDTO dto = new CourseDTO();
         BeanUtils.copyProperties(course, dto);
+        dto.setScheduleBitmap(scheduleBitmaps.get(course.getCourseId()));
         
-        // 如果teacherId不为空，尝试从教师数据库获取教师信息
         if (dto.getTeacherId() != null) {
-            try {
-                Teacher teacher = teacherMapper.selectById(dto.getTeacherId());
-                if (teacher != null && StringUtils.hasText(teacher.getName())) {
-                    // 总是使用最新的教师名称
-                    dto.setTeacherName(teacher.getName());
-                    // 如果department为空，也设置
-                    if (!StringUtils.hasText(dto.getDepartment()) && StringUtils.hasText(teacher.getDepartment())) {
-                        dto.setDepartment(teacher.getDepartment());
-                    }
-                } else {
-                    // 如果查询不到教师，但数据库中teacherName有值，保持原值
-                    if (!StringUtils.hasText(dto.getTeacherName())) {
-                        dto.setTeacherName("未知教师");
-                    }
-                }
-            } catch (Exception e) {
-                // 记录异常但继续处理
-                System.err.println("获取教师信息失败: teacherId=" + dto.getTeacherId() + ", error=" + e.getMessage());
-                // 如果查询失败，但数据库中teacherName有值，保持原值
-                if (!StringUtils.hasText(dto.getTeacherName())) {
-                    dto.setTeacherName("查询失败");
+            TeacherProjection teacher = teacherDirectory.get(dto.getTeacherId());
+            if (teacher != null && StringUtils.hasText(teacher.getName())) {
+                // 总是使用最新的教师名称
+                dto.setTeacherName(teacher.getName());
+                // 如果department为空，也设置
+                if (!StringUtils.hasText(dto.getDepartment()) && StringUtils.hasText(teacher.getDepartment())) {
+                    dto.setDepartment(teacher.getDepartment());
                 }
+            } else if (!StringUtils.hasText(dto.getTeacherName())) {
+                // 如果查询不到教师，但数据库中teacherName有值，保持原值
+                dto.setTeacherName("未知教师");
             }
         } else {
             if (!StringUtils.hasText(dto.getTeacherName())) {
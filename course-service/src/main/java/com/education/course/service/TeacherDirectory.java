@@ -0,0 +1,267 @@
+package com.education.course.service;
+
+import com.education.common.dto.TeacherView;
+import com.education.common.event.TeacherChangeEvent;
+import com.education.common.result.Result;
+import com.education.course.entity.TeacherProjection;
+import com.education.course.feign.TeacherServiceClient;
+import com.education.course.mapper.TeacherProjectionMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * 教师目录（内存）
+ * 数据来自本库的teacher_projection表，课程DTO转换时直接查内存，不访问teacher-service的数据库：
+ * 1. 首次使用时通过teacher-service接口全量同步一次投影表，再整表加载到内存
+ * 2. 收到教师变更事件后同时更新投影表和内存
+ * 3. 定时全量同步，兜底Redis频道消息丢失的情况
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeacherDirectory {
+    
+    // 与teacher-service批量接口的单次上限保持一致
+    private static final int SYNC_BATCH_SIZE = 500;
+    
+    private final TeacherProjectionMapper teacherProjectionMapper;
+    private final TeacherServiceClient teacherServiceClient;
+    
+    private volatile Map<Long, TeacherProjection> byTeacherId;
+    private volatile Map<Long, Long> teacherIdByUserId;
+    private final Object updateLock = new Object();
+    
+    /**
+     * 按teacherId获取教师信息（只查内存）
+     */
+    public TeacherProjection get(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+        ensureLoaded();
+        return byTeacherId.get(teacherId);
+    }
+    
+    /**
+     * 解析教师信息，参数可能是teacherId，也可能是userId（user_credentials表的id）
+     * 内存中没有时（例如刚创建的教师，变更事件还没到）向teacher-service查询一次该教师
+     */
+    public TeacherProjection resolve(Long teacherIdOrUserId) {
+        if (teacherIdOrUserId == null) {
+            return null;
+        }
+        return resolveAll(Collections.singletonList(teacherIdOrUserId)).get(teacherIdOrUserId);
+    }
+    
+    /**
+     * 批量解析教师信息（批量导入课程用），参数中每个ID可能是teacherId，也可能是userId
+     * 内存中没有的教师每批一次远程查询、一条语句写入投影表，不逐个回查
+     * @return 参数ID -> 教师信息，解析不到的ID不在结果中
+     */
+    public Map<Long, TeacherProjection> resolveAll(Collection<Long> teacherIdsOrUserIds) {
+        Map<Long, TeacherProjection> resolved = new HashMap<>();
+        if (teacherIdsOrUserIds == null || teacherIdsOrUserIds.isEmpty()) {
+            return resolved;
+        }
+        ensureLoaded();
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : teacherIdsOrUserIds) {
+            if (id == null) {
+                continue;
+            }
+            TeacherProjection teacher = lookup(id);
+            if (teacher != null) {
+                resolved.put(id, teacher);
+            } else {
+                missing.add(id);
+            }
+        }
+        if (missing.isEmpty()) {
+            return resolved;
+        }
+        
+        List<Long> ids = new ArrayList<>(missing);
+        for (int from = 0; from < ids.size(); from += SYNC_BATCH_SIZE) {
+            List<Long> chunk = ids.subList(from, Math.min(from + SYNC_BATCH_SIZE, ids.size()));
+            List<TeacherProjection> teachers;
+            try {
+                teachers = toProjections(teacherServiceClient.resolveProjections(new ArrayList<>(chunk)));
+            } catch (Exception e) {
+                log.warn("查询教师信息失败: ids={}, error={}", chunk.size(), e.getMessage());
+                continue;
+            }
+            if (teachers.isEmpty()) {
+                continue;
+            }
+            synchronized (updateLock) {
+                teacherProjectionMapper.upsertBatch(teachers);
+                teachers.forEach(this::index);
+            }
+        }
+        for (Long id : missing) {
+            TeacherProjection teacher = lookup(id);
+            if (teacher != null) {
+                resolved.put(id, teacher);
+            }
+        }
+        return resolved;
+    }
+    
+    /**
+     * 只查内存：先按teacherId，再按userId
+     */
+    private TeacherProjection lookup(Long teacherIdOrUserId) {
+        TeacherProjection teacher = byTeacherId.get(teacherIdOrUserId);
+        if (teacher != null) {
+            return teacher;
+        }
+        Long teacherId = teacherIdByUserId.get(teacherIdOrUserId);
+        return teacherId != null ? byTeacherId.get(teacherId) : null;
+    }
+    
+    /**
+     * 应用教师变更事件
+     * @return 更新后的教师信息，教师被删除时返回null
+     */
+    public TeacherProjection apply(TeacherChangeEvent event) {
+        if (event.getTeacherId() == null) {
+            return null;
+        }
+        ensureLoaded();
+        synchronized (updateLock) {
+            if (TeacherChangeEvent.TYPE_DELETED.equals(event.getType())) {
+                teacherProjectionMapper.deleteById(event.getTeacherId());
+                TeacherProjection removed = byTeacherId.remove(event.getTeacherId());
+                if (removed != null && removed.getUserId() != null) {
+                    teacherIdByUserId.remove(removed.getUserId());
+                }
+                return null;
+            }
+            
+            TeacherProjection previous = byTeacherId.get(event.getTeacherId());
+            TeacherProjection teacher = new TeacherProjection();
+            teacher.setTeacherId(event.getTeacherId());
+            teacher.setUserId(event.getUserId() != null ? event.getUserId() : previous != null ? previous.getUserId() : null);
+            teacher.setName(event.getName());
+            teacher.setDepartment(event.getDepartment());
+            teacher.setStatus(event.getStatus());
+            teacherProjectionMapper.upsert(teacher);
+            index(teacher);
+            return teacher;
+        }
+    }
+    
+    /**
+     * 全量同步投影表并重新加载内存
+     * 通过teacher-service接口按teacherId分页拉取全部教师，写入投影表后删除已不存在的教师；
+     * 拉取失败时仍加载本库已有的投影
+     */
+    @Scheduled(initialDelayString = "${course.teacher-projection.sync-interval-ms:600000}",
+               fixedDelayString = "${course.teacher-projection.sync-interval-ms:600000}")
+    public void refreshAll() {
+        synchronized (updateLock) {
+            try {
+                Set<Long> remoteIds = new HashSet<>();
+                long afterId = 0;
+                while (true) {
+                    List<TeacherProjection> page = toProjections(teacherServiceClient.listProjections(afterId, SYNC_BATCH_SIZE));
+                    if (page.isEmpty()) {
+                        break;
+                    }
+                    teacherProjectionMapper.upsertBatch(page);
+                    page.forEach(teacher -> remoteIds.add(teacher.getTeacherId()));
+                    afterId = page.get(page.size() - 1).getTeacherId();
+                    if (page.size() < SYNC_BATCH_SIZE) {
+                        break;
+                    }
+                }
+                List<Long> deleted = teacherProjectionMapper.selectList(null).stream()
+                        .map(TeacherProjection::getTeacherId)
+                        .filter(teacherId -> !remoteIds.contains(teacherId))
+                        .collect(Collectors.toList());
+                if (!deleted.isEmpty()) {
+                    teacherProjectionMapper.deleteBatchIds(deleted);
+                }
+                log.info("教师投影已同步: synced={}, pruned={}", remoteIds.size(), deleted.size());
+            } catch (Exception e) {
+                log.warn("从teacher-service同步教师投影失败，使用本地已有数据: {}", e.getMessage());
+            }
+            
+            List<TeacherProjection> teachers;
+            try {
+                teachers = teacherProjectionMapper.selectList(null);
+            } catch (Exception e) {
+                log.error("加载教师投影失败: {}", e.getMessage());
+                if (byTeacherId == null) {
+                    teacherIdByUserId = new ConcurrentHashMap<>();
+                    byTeacherId = new ConcurrentHashMap<>();
+                }
+                return;
+            }
+            Map<Long, TeacherProjection> teacherMap = new ConcurrentHashMap<>();
+            Map<Long, Long> userMap = new ConcurrentHashMap<>();
+            for (TeacherProjection teacher : teachers) {
+                teacherMap.put(teacher.getTeacherId(), teacher);
+                if (teacher.getUserId() != null) {
+                    userMap.put(teacher.getUserId(), teacher.getTeacherId());
+                }
+            }
+            teacherIdByUserId = userMap;
+            byTeacherId = teacherMap;
+        }
+    }
+    
+    private void ensureLoaded() {
+        if (byTeacherId != null) {
+            return;
+        }
+        synchronized (updateLock) {
+            if (byTeacherId == null) {
+                refreshAll();
+            }
+        }
+    }
+    
+    /**
+     * 远程结果转换为投影，调用失败时抛出异常
+     */
+    private List<TeacherProjection> toProjections(Result<List<TeacherView>> result) {
+        if (result == null || result.getCode() != 200) {
+            throw new IllegalStateException(result != null ? result.getMessage() : "无响应");
+        }
+        if (result.getData() == null) {
+            return Collections.emptyList();
+        }
+        return result.getData().stream()
+                .filter(view -> view != null && view.teacherId() != null)
+                .map(view -> {
+                    TeacherProjection teacher = new TeacherProjection();
+                    teacher.setTeacherId(view.teacherId());
+                    teacher.setUserId(view.userId());
+                    teacher.setName(view.name());
+                    teacher.setDepartment(view.department());
+                    teacher.setStatus(view.status());
+                    return teacher;
+                })
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 写入内存索引；userId变化时移除旧的映射
+     */
+    private void index(TeacherProjection teacher) {
+        TeacherProjection previous = byTeacherId.put(teacher.getTeacherId(), teacher);
+        if (previous != null && previous.getUserId() != null && !previous.getUserId().equals(teacher.getUserId())) {
+            teacherIdByUserId.remove(previous.getUserId());
+        }
+        if (teacher.getUserId() != null) {
+            teacherIdByUserId.put(teacher.getUserId(), teacher.getTeacherId());
+        }
+    }
+}
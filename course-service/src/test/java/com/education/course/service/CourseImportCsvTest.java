@@ -0,0 +1,68 @@
+package com.education.course.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 课程导入的CSV记录解析：引号包裹的字段、字段内的逗号/换行/转义双引号、CRLF换行
+ */
+class CourseImportCsvTest {
+    
+    @Test
+    void splitsPlainFieldsAndRecords() throws IOException {
+        BufferedReader reader = reader("courseCode,courseName\nCS101,数据结构\n");
+        
+        assertEquals(List.of("courseCode", "courseName"), CourseImportService.readCsvRecord(reader));
+        assertEquals(List.of("CS101", "数据结构"), CourseImportService.readCsvRecord(reader));
+        assertNull(CourseImportService.readCsvRecord(reader));
+    }
+    
+    @Test
+    void acceptsCrlfAndMissingTrailingNewline() throws IOException {
+        BufferedReader reader = reader("a,b\r\nc,d");
+        
+        assertEquals(List.of("a", "b"), CourseImportService.readCsvRecord(reader));
+        assertEquals(List.of("c", "d"), CourseImportService.readCsvRecord(reader));
+        assertNull(CourseImportService.readCsvRecord(reader));
+    }
+    
+    @Test
+    void keepsCommasLineBreaksAndEscapedQuotesInsideQuotes() throws IOException {
+        BufferedReader reader = reader("\"Java, 进阶\",\"第一行\r\n第二行\",\"他说\"\"你好\"\"\"\nnext\n");
+        
+        assertEquals(List.of("Java, 进阶", "第一行\r\n第二行", "他说\"你好\""), CourseImportService.readCsvRecord(reader));
+        assertEquals(List.of("next"), CourseImportService.readCsvRecord(reader));
+    }
+    
+    @Test
+    void closingQuoteAtEndOfFile() throws IOException {
+        BufferedReader reader = reader("a,\"b\"");
+        
+        assertEquals(List.of("a", "b"), CourseImportService.readCsvRecord(reader));
+        assertNull(CourseImportService.readCsvRecord(reader));
+    }
+    
+    @Test
+    void keepsEmptyFields() throws IOException {
+        BufferedReader reader = reader(",x,,\n\n");
+        
+        assertEquals(List.of("", "x", "", ""), CourseImportService.readCsvRecord(reader));
+        assertEquals(List.of(""), CourseImportService.readCsvRecord(reader));
+        assertNull(CourseImportService.readCsvRecord(reader));
+    }
+    
+    @Test
+    void emptyInputHasNoRecords() throws IOException {
+        assertNull(CourseImportService.readCsvRecord(reader("")));
+    }
+    
+    private static BufferedReader reader(String csv) {
+        return new BufferedReader(new StringReader(csv));
+    }
+}
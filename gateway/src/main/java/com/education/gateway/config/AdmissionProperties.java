@@ -0,0 +1,32 @@
+package com.education.gateway.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 排队准入配置（选课高峰期限制进入后端的请求速率）
+ */
+@Configuration
+@ConfigurationProperties(prefix = "admission")
+@Data
+public class AdmissionProperties {
+    
+    private boolean enabled = true;
+    // 放行后的通行证有效期（秒），有效期内不再排队
+    private long passTtlSeconds = 120;
+    // 排队号有效期（秒），超时未再次请求的访问者需要重新排队
+    private long ticketTtlSeconds = 600;
+    private List<RouteLimit> routes = new ArrayList<>();
+    
+    @Data
+    public static class RouteLimit {
+        // 路径前缀，如 /api/selection/select
+        private String path;
+        // 每秒放行数
+        private int permitsPerSecond = 100;
+    }
+}
@@ -0,0 +1,131 @@
+package com.education.gateway.filter;
+
+import com.alibaba.fastjson2.JSON;
+import com.education.common.result.Result;
+import com.education.gateway.config.AdmissionProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cloud.gateway.filter.GatewayFilterChain;
+import org.springframework.cloud.gateway.filter.GlobalFilter;
+import org.springframework.core.Ordered;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.ReactiveStringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+import org.springframework.web.server.ServerWebExchange;
+import reactor.core.publisher.Mono;
+
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 排队准入过滤器
+ * 选课开放瞬间所有学生同时请求选课接口，这里按路由限制每秒放行的请求数：
+ * 超出速率的访问者领取排队号，返回429、排队位置和Retry-After；
+ * 放行的访问者获得短期通行证，有效期内直接放行，不会重复排队
+ * Redis不可用时直接放行，不影响正常访问
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class AdmissionControlFilter implements GlobalFilter, Ordered {
+    
+    private static final String PASS_PREFIX = "admission:pass:";
+    private static final String TICKET_PREFIX = "admission:ticket:";
+    private static final String ROOM_PREFIX = "admission:room:";
+    
+    private static final DefaultRedisScript<Long> ADMISSION_SCRIPT = new DefaultRedisScript<>();
+    
+    static {
+        ADMISSION_SCRIPT.setScriptSource(new ResourceScriptSource(new ClassPathResource("lua/admission.lua")));
+        ADMISSION_SCRIPT.setResultType(Long.class);
+    }
+    
+    private final ReactiveStringRedisTemplate redisTemplate;
+    private final AdmissionProperties properties;
+    
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, GatewayFilterChain chain) {
+        if (!properties.isEnabled()) {
+            return chain.filter(exchange);
+        }
+        ServerHttpRequest request = exchange.getRequest();
+        String path = request.getURI().getPath();
+        AdmissionProperties.RouteLimit route = properties.getRoutes().stream()
+                .filter(limit -> StringUtils.hasText(limit.getPath()) && path.startsWith(limit.getPath()))
+                .findFirst()
+                .orElse(null);
+        if (route == null || route.getPermitsPerSecond() <= 0) {
+            return chain.filter(exchange);
+        }
+        
+        String visitor = visitorOf(request);
+        String routeKey = route.getPath();
+        return redisTemplate.execute(ADMISSION_SCRIPT,
+                        Arrays.asList(PASS_PREFIX + routeKey + ":" + visitor,
+                                TICKET_PREFIX + routeKey + ":" + visitor,
+                                ROOM_PREFIX + routeKey),
+                        Arrays.asList(String.valueOf(route.getPermitsPerSecond()),
+                                String.valueOf(properties.getPassTtlSeconds()),
+                                String.valueOf(properties.getTicketTtlSeconds())))
+                .next()
+                .defaultIfEmpty(0L)
+                .onErrorResume(e -> {
+                    log.warn("排队准入检查失败，直接放行: path={}, error={}", path, e.getMessage());
+                    return Mono.just(0L);
+                })
+                .flatMap(position -> position <= 0
+                        ? chain.filter(exchange)
+                        : reject(exchange, route, position));
+    }
+    
+    /**
+     * 返回429和排队信息，Retry-After按当前速率估算
+     */
+    private Mono<Void> reject(ServerWebExchange exchange, AdmissionProperties.RouteLimit route, long position) {
+        long retryAfter = Math.max((position + route.getPermitsPerSecond() - 1) / route.getPermitsPerSecond(), 1);
+        log.debug("排队中: path={}, position={}, retryAfter={}s", route.getPath(), position, retryAfter);
+        
+        ServerHttpResponse response = exchange.getResponse();
+        response.setStatusCode(HttpStatus.TOO_MANY_REQUESTS);
+        response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+        response.getHeaders().set(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfter));
+        
+        Map<String, Object> queue = new HashMap<>();
+        queue.put("position", position);
+        queue.put("retryAfter", retryAfter);
+        Result<Map<String, Object>> result = new Result<>(429,
+                "当前访问人数较多，您前面还有" + position + "人，请" + retryAfter + "秒后重试", queue);
+        byte[] body = JSON.toJSONString(result).getBytes(StandardCharsets.UTF_8);
+        return response.writeWith(Mono.just(response.bufferFactory().wrap(body)));
+    }
+    
+    /**
+     * 访问者标识：已登录用户按用户ID，否则按客户端地址
+     */
+    private String visitorOf(ServerHttpRequest request) {
+        String userId = request.getHeaders().getFirst("X-User-Id");
+        if (StringUtils.hasText(userId)) {
+            return "u" + userId;
+        }
+        InetSocketAddress address = request.getRemoteAddress();
+        return "ip" + (address != null && address.getAddress() != null
+                ? address.getAddress().getHostAddress() : "unknown");
+    }
+    
+    @Override
+    public int getOrder() {
+        // 在AuthFilter之后执行，此时请求头中已有用户ID
+        return -90;
+    }
+}
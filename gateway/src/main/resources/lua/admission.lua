@@ -0,0 +1,35 @@
+-- 选课高峰的排队准入（原子操作）
+-- 每条路由维护一个虚拟等候室：issued 已发放的排队号，served 当前放行到的排队号（按速率随时间推进）
+-- KEYS[1] 访问者的通行证，KEYS[2] 访问者的排队号，KEYS[3] 路由等候室 hash：issued、served、ts
+-- ARGV[1] 每秒放行数，ARGV[2] 通行证有效期（秒），ARGV[3] 排队号有效期（秒）
+-- 返回：0-放行，>0-前面还有多少人
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+local time = redis.call('TIME')
+local now = tonumber(time[1]) * 1000 + math.floor(tonumber(time[2]) / 1000)
+local rate = tonumber(ARGV[1])
+
+local issued = tonumber(redis.call('HGET', KEYS[3], 'issued') or '0')
+local served = tonumber(redis.call('HGET', KEYS[3], 'served') or '0')
+local ts = tonumber(redis.call('HGET', KEYS[3], 'ts') or tostring(now))
+served = served + math.max(now - ts, 0) * rate / 1000
+-- 空闲时累积的放行额度最多一秒
+if served > issued + rate then
+    served = issued + rate
+end
+
+local ticket = tonumber(redis.call('GET', KEYS[2]) or '0')
+if ticket == 0 then
+    issued = issued + 1
+    ticket = issued
+    redis.call('SET', KEYS[2], ticket, 'EX', ARGV[3])
+end
+redis.call('HSET', KEYS[3], 'issued', issued, 'served', tostring(served), 'ts', now)
+
+if ticket <= served then
+    redis.call('DEL', KEYS[2])
+    redis.call('SET', KEYS[1], '1', 'EX', ARGV[2])
+    return 0
+end
+return math.ceil(ticket - served)
@@ -1,11 +1,13 @@
 package com.education.message;
 
+import com.education.common.datasource.ReadWriteRoutingConfiguration;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
 import org.springframework.scheduling.annotation.EnableAsync;
 
 @SpringBootApplication
@@ -13,6 +15,7 @@ import org.springframework.scheduling.annotation.EnableAsync;
 @EnableFeignClients
 @EnableCaching
 @EnableAsync
+@Import(ReadWriteRoutingConfiguration.class)
 @MapperScan("com.education.message.mapper")
 public class MessageServiceApplication {
     public static void main(String[] args) {
@@ -1,11 +1,16 @@
 package com.education.message.feign;
 
+import com.education.common.dto.CourseMembership;
 import com.education.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestParam;
 
+import java.util.List;
+
 /**
  * 选课服务Feign客户端
  * 用于验证学生是否选择了某门课程
@@ -22,6 +27,12 @@ public interface SelectionServiceClient {
             @RequestParam("courseId") Long courseId
     );
     
+    /**
+     * 批量检查选课关系，结果与请求顺序一致
+     */
+    @PostMapping("/check/batch")
+    Result<List<Boolean>> checkSelections(@RequestBody List<CourseMembership> queries);
+    
     /**
      * 获取课程的所有学生ID列表
      */
@@ -1,7 +1,9 @@
 package com.education.message.service;
 
 import com.education.common.constant.Constants;
+import com.education.common.dto.CourseMembership;
 import com.education.common.exception.BusinessException;
+import com.education.common.result.Result;
 import com.education.message.constant.MessageConstants;
 import com.education.message.enums.MessageType;
 import com.education.message.enums.ScopeType;
@@ -15,8 +17,7 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
 
-import java.util.Arrays;
-import java.util.List;
+import java.util.*;
 
 /**
  * 消息权限验证服务
@@ -71,6 +72,15 @@ public class MessagePermissionService {
      * 检查用户是否有权限接收消息
      */
     public boolean canReceiveMessage(Long receiverId, String receiverRole, MessageDTO messageDTO) {
+        return canReceiveMessage(receiverId, receiverRole, messageDTO, Collections.emptyMap());
+    }
+    
+    /**
+     * 检查用户是否有权限接收消息
+     * @param courseMembership 预先批量查询的课程成员关系（courseId -> 是否成员），没有命中时逐条查询
+     */
+    public boolean canReceiveMessage(Long receiverId, String receiverRole, MessageDTO messageDTO,
+                                     Map<Long, Boolean> courseMembership) {
         String scopeType = messageDTO.getScopeType();
         Long scopeId = messageDTO.getScopeId();
         String roleMask = messageDTO.getRoleMask();
@@ -89,7 +99,8 @@ public class MessagePermissionService {
             case PRIVATE:
                 return messageDTO.getReceiverId() != null && messageDTO.getReceiverId().equals(receiverId);
             case COURSE:
-                return isCourseMember(receiverId, receiverRole, scopeId);
+                Boolean member = scopeId != null ? courseMembership.get(scopeId) : null;
+                return member != null ? member : isCourseMember(receiverId, receiverRole, scopeId);
             case GROUP:
                 // TODO: 实现群组成员检查
                 return true;
@@ -100,6 +111,46 @@ public class MessagePermissionService {
         }
     }
     
+    /**
+     * 批量预查消息列表涉及的课程成员关系，避免权限过滤时逐条远程调用：
+     * 学生一次批量查询选课关系，教师每门课程只查询一次
+     * 查询失败时返回已查到的部分，其余由canReceiveMessage逐条查询
+     * @return courseId -> 是否课程成员
+     */
+    public Map<Long, Boolean> preloadCourseMembership(Long userId, String userRole, List<MessageDTO> messages) {
+        Map<Long, Boolean> membership = new HashMap<>();
+        List<Long> courseIds = new ArrayList<>(new LinkedHashSet<>(messages.stream()
+                .filter(dto -> ScopeType.COURSE.getCode().equals(dto.getScopeType()) && dto.getScopeId() != null)
+                .map(MessageDTO::getScopeId)
+                .toList()));
+        if (courseIds.isEmpty() || userId == null) {
+            return membership;
+        }
+        
+        if (Constants.ROLE_STUDENT.equals(userRole)) {
+            try {
+                List<CourseMembership> queries = courseIds.stream()
+                        .map(courseId -> new CourseMembership(userId, courseId))
+                        .toList();
+                Result<List<Boolean>> result = selectionServiceClient.checkSelections(queries);
+                if (result != null && result.getCode() == 200 && result.getData() != null
+                        && result.getData().size() == courseIds.size()) {
+                    for (int i = 0; i < courseIds.size(); i++) {
+                        membership.put(courseIds.get(i), Boolean.TRUE.equals(result.getData().get(i)));
+                    }
+                }
+            } catch (Exception e) {
+                log.warn("批量检查选课关系失败，改为逐条检查: userId={}, courses={}, error={}",
+                        userId, courseIds.size(), e.getMessage());
+            }
+        } else if (Constants.ROLE_TEACHER.equals(userRole)) {
+            for (Long courseId : courseIds) {
+                membership.put(courseId, isCourseTeacher(userId, courseId));
+            }
+        }
+        return membership;
+    }
+    
     /**
      * 检查消息类型权限
      */
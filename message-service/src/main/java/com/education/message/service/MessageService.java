@@ -3,7 +3,10 @@ package com.education.message.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.constant.Constants;
+import com.education.common.datasource.ReadReplica;
 import com.education.common.exception.BusinessException;
+import com.education.common.pagination.CountMode;
+import com.education.common.pagination.QueryPage;
 import com.education.message.constant.MessageConstants;
 import com.education.message.dto.MessageDTO;
 import com.education.message.entity.Message;
@@ -26,6 +29,7 @@ import org.springframework.util.StringUtils;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -98,7 +102,8 @@ public class MessageService {
      * 获取消息列表（带权限过滤）
      */
     public Page<MessageDTO> getMessages(Long userId, Long otherUserId, Integer current, Integer size) {
-        Page<Message> page = new Page<>(current, size);
+        // 私聊记录由前端上拉逐页加载，只需知道是否还有更早的消息，不统计总数
+        QueryPage<Message> page = QueryPage.of(current, size, CountMode.HAS_NEXT);
         LambdaQueryWrapper<Message> wrapper = new LambdaQueryWrapper<>();
         wrapper.and(w -> w.and(w1 -> w1.eq(Message::getSenderId, userId)
                                         .eq(Message::getReceiverId, otherUserId))
@@ -107,27 +112,29 @@ public class MessageService {
         wrapper.eq(Message::getScopeType, ScopeType.PRIVATE.getCode());
         wrapper.orderByDesc(Message::getCreatedAt);
         
-        Page<Message> messagePage = messageMapper.selectPage(page, wrapper);
+        messageMapper.selectPage(page, wrapper);
         
-        Page<MessageDTO> dtoPage = new Page<>(current, size, messagePage.getTotal());
-        List<MessageDTO> dtoList = messagePage.getRecords().stream()
+        List<MessageDTO> dtoList = page.getRecords().stream()
                 .map(this::convertToDTO)
                 .peek(this::fillUserNames)
                 .collect(Collectors.toList());
-        dtoPage.setRecords(dtoList);
         
-        return dtoPage;
+        return page.withRecords(dtoList);
     }
     
     /**
      * 获取消息分页（带权限过滤和数据隔离）
      */
+    @ReadReplica
     public Page<MessageDTO> getPage(Long currentUserId, String currentUserRole, Integer current, Integer size, 
                                     String keyword, String messageType, String scopeType, Long scopeId) {
         log.info("=== 获取消息分页 === userId={}, role={}, current={}, size={}, keyword={}, messageType={}, scopeType={}, scopeId={}", 
                 currentUserId, currentUserRole, current, size, keyword, messageType, scopeType, scopeId);
         
-        Page<Message> page = new Page<>(current, size);
+        // 管理员列表覆盖整张消息表，总数按执行计划预估；非管理员的总数取自权限过滤后的结果，不需要统计
+        Page<Message> page = Constants.ROLE_ADMIN.equals(currentUserRole)
+                ? QueryPage.of(current, size, CountMode.APPROXIMATE)
+                : new Page<>(current, size, false);
         LambdaQueryWrapper<Message> wrapper = new LambdaQueryWrapper<>();
         
         // 1. 数据隔离：根据用户角色和范围过滤
@@ -189,19 +196,23 @@ public class MessageService {
                     .peek(this::fillUserNames)
                     .collect(Collectors.toList());
             
-            Page<MessageDTO> dtoPage = new Page<>(current, size, messagePage.getTotal());
-            dtoPage.setRecords(dtoList);
+            // 管理员分页为QueryPage，总数为执行计划预估值时approximate为true
+            Page<MessageDTO> dtoPage = ((QueryPage<Message>) page).withRecords(dtoList);
             log.info("✓ 管理员返回：{} 条消息", dtoList.size());
             return dtoPage;
         }
         
-        // 非管理员需要进行权限过滤
-        List<MessageDTO> filteredList = messagePage.getRecords().stream()
+        // 非管理员需要进行权限过滤，课程成员关系按整页批量预查
+        List<MessageDTO> dtos = messagePage.getRecords().stream()
                 .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        Map<Long, Boolean> courseMembership =
+                permissionService.preloadCourseMembership(currentUserId, currentUserRole, dtos);
+        List<MessageDTO> filteredList = dtos.stream()
                 .filter(dto -> {
                     // 再次验证接收权限
                     try {
-                        return permissionService.canReceiveMessage(currentUserId, currentUserRole, dto);
+                        return permissionService.canReceiveMessage(currentUserId, currentUserRole, dto, courseMembership);
                     } catch (Exception e) {
                         log.warn("权限验证失败: messageId={}, error={}", dto.getMessageId(), e.getMessage());
                         return false;
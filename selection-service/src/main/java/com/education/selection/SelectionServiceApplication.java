@@ -1,16 +1,21 @@
 package com.education.selection;
 
+import com.education.common.datasource.ReadWriteRoutingConfiguration;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.amqp.rabbit.annotation.EnableRabbit;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
 import org.springframework.cloud.openfeign.EnableFeignClients;
+import org.springframework.context.annotation.Import;
+import org.springframework.scheduling.annotation.EnableScheduling;
 
 @SpringBootApplication
 @EnableDiscoveryClient
 @EnableRabbit
 @EnableFeignClients
+@EnableScheduling
+@Import(ReadWriteRoutingConfiguration.class)
 @MapperScan("com.education.selection.mapper")
 public class SelectionServiceApplication {
     public static void main(String[] args) {
@@ -6,15 +6,32 @@ import org.springframework.amqp.rabbit.config.SimpleRabbitListenerContainerFacto
 import org.springframework.amqp.rabbit.connection.ConnectionFactory;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.amqp.support.converter.Jackson2JsonMessageConverter;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
 public class RabbitMQConfig {
     
+    @Value("${selection.async.batch-size:50}")
+    private Integer batchSize;
+    
+    @Value("${selection.async.prefetch:200}")
+    private Integer prefetch;
+    
+    @Value("${selection.async.receive-timeout-ms:200}")
+    private Long receiveTimeoutMs;
+    
+    /**
+     * 选课命令队列
+     * 消费失败（nack且不重回队列）的消息转入死信队列，便于人工排查
+     */
     @Bean
     public Queue selectionQueue() {
-        return new Queue(Constants.QUEUE_SELECTION, true);
+        return QueueBuilder.durable(Constants.QUEUE_SELECTION)
+                .deadLetterExchange(Constants.EXCHANGE_SELECTION_DLX)
+                .deadLetterRoutingKey(Constants.ROUTING_KEY_SELECTION_DLQ)
+                .build();
     }
     
     @Bean
@@ -29,6 +46,29 @@ public class RabbitMQConfig {
                 .with(Constants.ROUTING_KEY_SELECTION);
     }
     
+    /**
+     * 选课死信交换机
+     */
+    @Bean
+    public DirectExchange selectionDeadLetterExchange() {
+        return new DirectExchange(Constants.EXCHANGE_SELECTION_DLX, true, false);
+    }
+    
+    /**
+     * 选课死信队列
+     */
+    @Bean
+    public Queue selectionDeadLetterQueue() {
+        return new Queue(Constants.QUEUE_SELECTION_DLQ, true);
+    }
+    
+    @Bean
+    public Binding selectionDeadLetterBinding() {
+        return BindingBuilder.bind(selectionDeadLetterQueue())
+                .to(selectionDeadLetterExchange())
+                .with(Constants.ROUTING_KEY_SELECTION_DLQ);
+    }
+    
     /**
      * 选课通知队列
      */
@@ -44,16 +84,19 @@ public class RabbitMQConfig {
     public Binding selectionNotificationBinding() {
         return BindingBuilder.bind(selectionNotificationQueue())
                 .to(selectionExchange())
-                .with("selection.notification");
+                .with(Constants.ROUTING_KEY_SELECTION_NOTIFICATION);
     }
     
     /**
      * 配置 RabbitTemplate 的消息转换器（用于发送消息）
+     * 自定义的RabbitTemplate不会应用spring.rabbitmq.template.*配置，这里显式开启mandatory：
+     * 无法路由的消息退回给发送方（发件箱中继据此判断投递失败），而不是被broker丢弃后照常确认
      */
     @Bean
     public RabbitTemplate rabbitTemplate(ConnectionFactory connectionFactory) {
         RabbitTemplate template = new RabbitTemplate(connectionFactory);
         template.setMessageConverter(new Jackson2JsonMessageConverter());
+        template.setMandatory(true);
         return template;
     }
     
@@ -68,5 +111,23 @@ public class RabbitMQConfig {
         factory.setMessageConverter(new Jackson2JsonMessageConverter());
         return factory;
     }
+    
+    /**
+     * 选课命令批量消费的容器工厂
+     * 手动确认：整批落库成功后才ack，消费者崩溃时未确认的消息会重新投递
+     * prefetch限制每个消费者未确认消息的上限，batch-size/receive-timeout决定一批的大小和最长等待时间
+     */
+    @Bean
+    public SimpleRabbitListenerContainerFactory selectionBatchContainerFactory(ConnectionFactory connectionFactory) {
+        SimpleRabbitListenerContainerFactory factory = new SimpleRabbitListenerContainerFactory();
+        factory.setConnectionFactory(connectionFactory);
+        factory.setAcknowledgeMode(AcknowledgeMode.MANUAL);
+        factory.setPrefetchCount(prefetch);
+        factory.setBatchListener(true);
+        factory.setConsumerBatchEnabled(true);
+        factory.setBatchSize(batchSize);
+        factory.setReceiveTimeout(receiveTimeoutMs);
+        factory.setDefaultRequeueRejected(false);
+        return factory;
+    }
 }
-
@@ -1,11 +1,16 @@
 package com.education.selection.config;
 
+import com.education.common.constant.Constants;
+import com.education.selection.listener.CourseChangeListener;
+import com.education.selection.listener.EnrollmentChangeListener;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.redis.connection.RedisConnectionFactory;
 import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
 import org.springframework.data.redis.serializer.GenericJackson2JsonRedisSerializer;
 import org.springframework.data.redis.serializer.StringRedisSerializer;
 
@@ -37,5 +42,18 @@ public class RedisConfig {
         template.afterPropertiesSet();
         return template;
     }
+    
+    /**
+     * Redis频道订阅容器（课程变更事件、选课关系变更事件）
+     */
+    @Bean
+    public RedisMessageListenerContainer redisMessageListenerContainer(RedisConnectionFactory connectionFactory,
+                                                                       CourseChangeListener courseChangeListener,
+                                                                       EnrollmentChangeListener enrollmentChangeListener) {
+        RedisMessageListenerContainer container = new RedisMessageListenerContainer();
+        container.setConnectionFactory(connectionFactory);
+        container.addMessageListener(courseChangeListener, new ChannelTopic(Constants.CHANNEL_COURSE_CHANGED));
+        container.addMessageListener(enrollmentChangeListener, new ChannelTopic(Constants.CHANNEL_ENROLLMENT_CHANGED));
+        return container;
+    }
 }
-
@@ -1,13 +1,39 @@
 package com.education.selection.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.education.common.dto.CourseMembership;
+import com.education.common.dto.CourseView;
 import com.education.common.result.Result;
+import com.education.selection.dto.BatchScoreResult;
 import com.education.selection.dto.SelectionDTO;
+import com.education.selection.dto.SelectionTicketDTO;
+import com.education.selection.dto.WaitlistEntryDTO;
+import com.education.selection.export.ExportFormat;
+import com.education.selection.export.ExportWriter;
+import com.education.selection.service.CourseMembershipIndex;
+import com.education.selection.service.CreditLedgerService;
+import com.education.selection.service.EnrollmentExportService;
+import com.education.selection.service.IdempotencyService;
+import com.education.selection.service.SeatCountReconciler;
 import com.education.selection.service.SelectionService;
+import com.education.selection.service.WaitlistService;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
 
-import java.util.Map;
 
 /**
  * 选课控制器
@@ -25,30 +51,120 @@ import java.util.Map;
 public class SelectionController {
     
     private final SelectionService selectionService;
+    private final CreditLedgerService creditLedgerService;
+    private final WaitlistService waitlistService;
+    private final IdempotencyService idempotencyService;
+    private final CourseMembershipIndex courseMembershipIndex;
+    private final EnrollmentExportService enrollmentExportService;
+    private final SeatCountReconciler seatCountReconciler;
+    
+    @Value("${selection.async.enabled:false}")
+    private boolean asyncEnabled;
     
     /**
      * 获取可选课程列表（步骤2：拉取可选课程）
      * 过滤：专业匹配、容量、时间冲突、重复选
+     * 传入cursor（第一页传空字符串）时使用游标分页，返回nextCursor；否则按页码分页
      */
     @GetMapping("/available")
-    public Result<Page<Map<String, Object>>> getAvailableCourses(
+    public Result<?> getAvailableCourses(
             @RequestParam(value = "studentId", required = false) Long studentId,
             @RequestParam(value = "current", defaultValue = "1") Integer current,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
-            @RequestParam(value = "keyword", required = false) String keyword) {
-        Page<Map<String, Object>> page = selectionService.getAvailableCourses(studentId, current, size, keyword);
+            @RequestParam(value = "keyword", required = false) String keyword,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+        if (cursor != null) {
+            return Result.success(selectionService.getAvailableCoursesByCursor(studentId, cursor, size, keyword));
+        }
+        Page<CourseView> page = selectionService.getAvailableCourses(studentId, current, size, keyword);
         return Result.success(page);
     }
     
     /**
      * 选课（步骤3-6：提交选课请求 -> 并发控制 -> 写入数据库 -> 消息通知）
+     * async=true时只预占座位并返回受理凭证，写库由消息消费者批量完成
+     * 携带Idempotency-Key时，重复提交直接返回第一次的结果（或处理中），不再重复执行
      */
     @PostMapping("/select")
-    public Result<SelectionDTO> selectCourse(
+    public Result<?> selectCourse(
+            @RequestParam("studentId") Long studentId,
+            @RequestParam("courseId") Long courseId,
+            @RequestParam(value = "async", required = false) Boolean async,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) {
+        boolean useAsync = async != null ? async : asyncEnabled;
+        return idempotencyService.execute(idempotencyKey, studentId, "select:" + courseId + ":" + useAsync, () -> {
+            if (useAsync) {
+                SelectionTicketDTO ticket = selectionService.submitSelection(studentId, courseId);
+                return Result.success("选课请求已受理", ticket);
+            }
+            SelectionDTO dto = selectionService.selectCourse(studentId, courseId);
+            return Result.success("选课成功", dto);
+        });
+    }
+    
+    /**
+     * 加入课程候补（课程已满时），有空位后按加入顺序自动补位并通知
+     */
+    @PostMapping("/waitlist/join")
+    public Result<WaitlistEntryDTO> joinWaitlist(
             @RequestParam("studentId") Long studentId,
             @RequestParam("courseId") Long courseId) {
-        SelectionDTO dto = selectionService.selectCourse(studentId, courseId);
-        return Result.success("选课成功", dto);
+        return Result.success("已加入候补", waitlistService.join(studentId, courseId));
+    }
+    
+    /**
+     * 退出课程候补
+     */
+    @PostMapping("/waitlist/leave")
+    public Result<?> leaveWaitlist(
+            @RequestParam("studentId") Long studentId,
+            @RequestParam("courseId") Long courseId) {
+        waitlistService.leave(studentId, courseId);
+        return Result.success("已退出候补");
+    }
+    
+    /**
+     * 查询候补排队位置
+     */
+    @GetMapping("/waitlist/position")
+    public Result<WaitlistEntryDTO> getWaitlistPosition(
+            @RequestParam("studentId") Long studentId,
+            @RequestParam("courseId") Long courseId) {
+        return Result.success(waitlistService.getEntry(studentId, courseId));
+    }
+    
+    /**
+     * 检查学生是否已选某门课程（内存索引）
+     */
+    @GetMapping("/check")
+    public Result<Boolean> checkSelection(
+            @RequestParam("studentId") Long studentId,
+            @RequestParam("courseId") Long courseId) {
+        return Result.success(courseMembershipIndex.isMember(studentId, courseId));
+    }
+    
+    /**
+     * 批量检查选课关系，结果与请求顺序一致
+     */
+    @PostMapping("/check/batch")
+    public Result<java.util.List<Boolean>> checkSelections(@RequestBody java.util.List<CourseMembership> queries) {
+        return Result.success(courseMembershipIndex.check(queries));
+    }
+    
+    /**
+     * 获取课程已选学生ID列表
+     */
+    @GetMapping("/course/{courseId}/students")
+    public Result<java.util.List<Long>> getCourseStudents(@PathVariable("courseId") Long courseId) {
+        return Result.success(courseMembershipIndex.getStudentIds(courseId));
+    }
+    
+    /**
+     * 查询异步选课结果
+     */
+    @GetMapping("/ticket/{ticketId}")
+    public Result<SelectionTicketDTO> getTicket(@PathVariable("ticketId") String ticketId) {
+        return Result.success(selectionService.getTicket(ticketId));
     }
     
     /**
@@ -64,6 +180,35 @@ public class SelectionController {
         return Result.success(page);
     }
     
+    /**
+     * 流式导出选课名单/成绩单（CSV或XLSX）
+     * 按课程、开课院系或学期（开课日期范围）筛选，默认只导出已选记录
+     */
+    @GetMapping("/export")
+    public void export(
+            @RequestParam(value = "courseId", required = false) Long courseId,
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "termStart", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termStart,
+            @RequestParam(value = "termEnd", required = false)
+            @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate termEnd,
+            @RequestParam(value = "includeWithdrawn", defaultValue = "false") boolean includeWithdrawn,
+            @RequestParam(value = "format", defaultValue = "csv") String format,
+            HttpServletResponse response) throws IOException {
+        ExportFormat exportFormat = ExportFormat.of(format);
+        // 先解析导出范围，参数错误时还能以JSON返回错误
+        java.util.List<Long> courseIds = enrollmentExportService.resolveCourseIds(courseId, department, termStart, termEnd);
+        
+        String filename = "选课名单_" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMddHHmmss"))
+                + "." + exportFormat.getExtension();
+        response.setContentType(exportFormat.getContentType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+                ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString());
+        try (ExportWriter writer = exportFormat.open(response.getOutputStream())) {
+            enrollmentExportService.export(courseIds, includeWithdrawn ? null : 0, writer);
+        }
+    }
+    
     /**
      * 取消选课
      */
@@ -83,12 +228,38 @@ public class SelectionController {
     }
     
     /**
-     * 批量更新成绩
+     * 批量更新成绩，返回逐行结果
      */
     @PutMapping("/batch-score")
-    public Result<?> batchUpdateScore(@RequestBody java.util.List<java.util.Map<String, Object>> scoreList) {
-        selectionService.batchUpdateScore(scoreList);
-        return Result.success("批量更新成绩成功");
+    public Result<BatchScoreResult> batchUpdateScore(@RequestBody java.util.List<java.util.Map<String, Object>> scoreList) {
+        return Result.success("批量更新成绩完成", selectionService.batchUpdateScore(scoreList));
+    }
+    
+    /**
+     * 通过CSV文件批量导入成绩（每行：enrollmentId,score）
+     */
+    @PostMapping(value = "/batch-score/csv", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public Result<BatchScoreResult> importScores(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream input = file.getInputStream()) {
+            return Result.success("成绩导入完成", selectionService.importScores(input));
+        }
+    }
+    
+    /**
+     * 手动核对课程选课人数与剩余座位，返回修正的数量（其他实例正在核对时返回-1）
+     * 人数偏差需要连续两轮核对都出现才会修正
+     */
+    @PostMapping("/seat/reconcile")
+    public Result<Integer> reconcileSeats(@RequestParam(value = "full", defaultValue = "false") boolean full) {
+        return Result.success(seatCountReconciler.runExclusively(full));
+    }
+    
+    /**
+     * 手动校正学生学分台账（按选课记录全量重建）
+     */
+    @PostMapping("/credit-ledger/repair")
+    public Result<Integer> repairCreditLedger() {
+        return Result.success(creditLedgerService.repairAll());
     }
 }
 
@@ -0,0 +1,27 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 批量录入成绩结果
+ */
+@Data
+public class BatchScoreResult {
+    private int total;
+    private int updated;
+    private int failed;
+    private List<ScoreRowResult> results = new ArrayList<>();
+    
+    public void add(ScoreRowResult row) {
+        results.add(row);
+        total++;
+        if (row.isSuccess()) {
+            updated++;
+        } else {
+            failed++;
+        }
+    }
+}
@@ -0,0 +1,19 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+/**
+ * 幂等请求记录（保存在Redis中）
+ */
+@Data
+public class IdempotencyRecord {
+    public static final String STATUS_PROCESSING = "PROCESSING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    
+    private String status;
+    private String fingerprint; // 请求参数摘要，同一个Idempotency-Key不能用于不同的请求
+    private Integer code;
+    private String message;
+    private Object data;
+    private Long createdAt;
+}
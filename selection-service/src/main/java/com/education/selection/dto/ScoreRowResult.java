@@ -0,0 +1,15 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+/**
+ * 批量录入成绩的单行结果
+ */
+@Data
+public class ScoreRowResult {
+    private Integer row; // 行号（从1开始，CSV不含表头）
+    private Long enrollmentId;
+    private Double score;
+    private boolean success;
+    private String message;
+}
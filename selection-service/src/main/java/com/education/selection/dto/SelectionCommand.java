@@ -0,0 +1,16 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+/**
+ * 异步选课命令
+ * 座位已在Redis中预占，消费者只负责落库和通知
+ */
+@Data
+public class SelectionCommand {
+    private String ticketId;
+    private Long studentId;
+    private Long courseId;
+    private Long submittedAt; // 提交时间戳（毫秒）
+    private boolean fromWaitlist; // 候补补位产生的命令：落库成功后通知学生候补成功，失败时通知已移出候补
+}
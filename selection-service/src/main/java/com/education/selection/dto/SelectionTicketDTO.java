@@ -0,0 +1,22 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+/**
+ * 异步选课受理凭证
+ */
+@Data
+public class SelectionTicketDTO {
+    public static final String STATUS_PENDING = "PENDING";
+    public static final String STATUS_SUCCESS = "SUCCESS";
+    public static final String STATUS_FAILED = "FAILED";
+    
+    private String ticketId;
+    private Long studentId;
+    private Long courseId;
+    private String status; // PENDING-处理中，SUCCESS-选课成功，FAILED-选课失败
+    private String message;
+    private Long enrollmentId;
+    private Long submittedAt;
+    private Long finishedAt;
+}
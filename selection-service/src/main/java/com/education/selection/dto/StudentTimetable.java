@@ -0,0 +1,167 @@
+package com.education.selection.dto;
+
+import com.education.common.dto.CourseView;
+import com.education.common.util.WeekSlotBitmap;
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.*;
+
+/**
+ * 学生课表（已选课程的上课时间）
+ * occupancy为所有已排课课程位图的并集，候选课程与其按位与为0时可以直接判定无冲突；
+ * 按位与不为0、或涉及未排课课程时，再逐门比较（同时考虑课程起止日期）
+ */
+@Data
+public class StudentTimetable {
+    
+    private Long studentId;
+    private String occupancy; // 已排课课程位图的并集（Base64）
+    private List<Entry> entries = new ArrayList<>();
+    
+    @JsonIgnore
+    private long[] occupancyBits;
+    
+    @Data
+    public static class Entry {
+        private Long courseId;
+        private String bitmap; // 课程位图（Base64），未排课时为空
+        private LocalDateTime startTime;
+        private LocalDateTime endTime;
+        
+        @JsonIgnore
+        private long[] bits;
+        
+        long[] bits() {
+            if (bits == null && bitmap != null) {
+                bits = WeekSlotBitmap.decode(bitmap);
+            }
+            return bits;
+        }
+    }
+    
+    /**
+     * 根据已选课程构建课表
+     * @param courses 课程信息，获取不到信息的课程只记录ID
+     */
+    public static StudentTimetable of(Long studentId, Collection<Long> courseIds, Map<Long, CourseView> courses) {
+        StudentTimetable timetable = new StudentTimetable();
+        timetable.setStudentId(studentId);
+        long[] occupancy = WeekSlotBitmap.empty();
+        for (Long courseId : courseIds) {
+            CourseView course = courses.get(courseId);
+            Entry entry = course != null ? toEntry(course) : new Entry();
+            entry.setCourseId(courseId);
+            if (entry.bits() != null) {
+                WeekSlotBitmap.or(occupancy, entry.bits());
+            }
+            timetable.entries.add(entry);
+        }
+        timetable.occupancy = WeekSlotBitmap.encode(occupancy);
+        timetable.occupancyBits = occupancy;
+        return timetable;
+    }
+    
+    /**
+     * 加入尚未写库的课程，返回新的课表（批量处理同一学生的多条选课时使用）
+     */
+    public StudentTimetable with(Collection<CourseView> pendingCourses) {
+        if (pendingCourses.isEmpty()) {
+            return this;
+        }
+        StudentTimetable copy = new StudentTimetable();
+        copy.setStudentId(studentId);
+        long[] occupancy = occupancyBits().clone();
+        copy.entries.addAll(entries);
+        for (CourseView course : pendingCourses) {
+            Entry entry = toEntry(course);
+            if (entry.bits() != null) {
+                WeekSlotBitmap.or(occupancy, entry.bits());
+            }
+            copy.entries.add(entry);
+        }
+        copy.occupancy = WeekSlotBitmap.encode(occupancy);
+        copy.occupancyBits = occupancy;
+        return copy;
+    }
+    
+    /**
+     * 已选课程ID
+     */
+    @JsonIgnore
+    public Set<Long> getCourseIds() {
+        Set<Long> courseIds = new HashSet<>();
+        for (Entry entry : entries) {
+            courseIds.add(entry.getCourseId());
+        }
+        return courseIds;
+    }
+    
+    /**
+     * 查找与候选课程时间冲突的已选课程
+     * @return 冲突的课程ID，没有冲突返回null
+     */
+    public Long findConflict(Long courseId, CourseView course) {
+        long[] candidateBits = course.scheduleBits();
+        LocalDateTime startTime = course.startTime();
+        LocalDateTime endTime = course.endTime();
+        
+        // 快速路径：候选课程已排课、且所有已选课程都已排课时，一次按位与即可判定
+        if (candidateBits != null && !hasUnscheduled()
+                && !WeekSlotBitmap.intersects(candidateBits, occupancyBits())) {
+            return null;
+        }
+        
+        for (Entry entry : entries) {
+            if (Objects.equals(entry.getCourseId(), courseId)) {
+                continue;
+            }
+            boolean datesKnown = startTime != null && endTime != null
+                    && entry.startTime != null && entry.endTime != null;
+            boolean datesOverlap = datesKnown
+                    && startTime.isBefore(entry.endTime) && entry.startTime.isBefore(endTime);
+            
+            if (candidateBits != null && entry.bits() != null) {
+                // 双方都已排课：起止日期有交集（或未知）且每周上课时间重叠才算冲突
+                if ((!datesKnown || datesOverlap) && WeekSlotBitmap.intersects(candidateBits, entry.bits())) {
+                    return entry.getCourseId();
+                }
+            } else if (datesOverlap) {
+                // 任意一方未排课时，沿用按起止时间判断的规则
+                return entry.getCourseId();
+            }
+        }
+        return null;
+    }
+    
+    private boolean hasUnscheduled() {
+        for (Entry entry : entries) {
+            if (entry.bits() == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private long[] occupancyBits() {
+        if (occupancyBits == null) {
+            long[] decoded = WeekSlotBitmap.decode(occupancy);
+            occupancyBits = decoded != null ? decoded : WeekSlotBitmap.empty();
+        }
+        return occupancyBits;
+    }
+    
+    /**
+     * 课程视图中的位图已解码，直接共享（只读，不会被修改）
+     */
+    private static Entry toEntry(CourseView course) {
+        Entry entry = new Entry();
+        entry.setCourseId(course.courseId());
+        entry.setBitmap(course.scheduleBitmap());
+        entry.setBits(course.scheduleBits());
+        entry.setStartTime(course.startTime());
+        entry.setEndTime(course.endTime());
+        return entry;
+    }
+}
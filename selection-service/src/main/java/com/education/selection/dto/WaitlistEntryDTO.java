@@ -0,0 +1,15 @@
+package com.education.selection.dto;
+
+import lombok.Data;
+
+/**
+ * 候补排队信息
+ */
+@Data
+public class WaitlistEntryDTO {
+    private Long studentId;
+    private Long courseId;
+    private Long position; // 排队位置（从1开始）
+    private Long waitingCount; // 当前候补总人数
+    private Long joinedAt;
+}
@@ -5,6 +5,7 @@ import com.baomidou.mybatisplus.annotation.TableId;
 import com.baomidou.mybatisplus.annotation.TableName;
 import lombok.Data;
 
+import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
 @Data
@@ -16,6 +17,7 @@ public class Enrollment {
     private Long courseId;
     private LocalDateTime enrollmentTime;
     private Integer status; // 0-已选，1-已退
+    private BigDecimal credit; // 选课时的课程学分快照
     private Double score; // 成绩（0-100）
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -0,0 +1,29 @@
+package com.education.selection.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 选课消息发件箱
+ */
+@Data
+@TableName("selection_outbox")
+public class SelectionOutbox {
+    public static final int STATUS_PENDING = 0;
+    public static final int STATUS_SENT = 1;
+    public static final int STATUS_FAILED = 2;
+    
+    @TableId(type = IdType.AUTO)
+    private Long id;
+    private String routingKey;
+    private String eventType;
+    private String payload; // 消息内容（JSON）
+    private Integer status; // 0-待发送，1-已发送，2-发送失败
+    private Integer attempts;
+    private LocalDateTime createdAt;
+    private LocalDateTime sentAt;
+}
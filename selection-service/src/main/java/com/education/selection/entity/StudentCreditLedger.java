@@ -0,0 +1,21 @@
+package com.education.selection.entity;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * 学生学分台账（已选课程总学分）
+ */
+@Data
+@TableName("student_credit_ledger")
+public class StudentCreditLedger {
+    @TableId(type = IdType.INPUT)
+    private Long studentId;
+    private BigDecimal totalCredits;
+    private LocalDateTime updatedAt;
+}
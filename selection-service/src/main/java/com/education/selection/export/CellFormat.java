@@ -0,0 +1,29 @@
+package com.education.selection.export;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * 导出单元格的文本格式
+ */
+final class CellFormat {
+    
+    private static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+    
+    private CellFormat() {
+    }
+    
+    static String text(Object value) {
+        if (value == null) {
+            return "";
+        }
+        if (value instanceof LocalDateTime time) {
+            return DATE_TIME.format(time);
+        }
+        if (value instanceof BigDecimal decimal) {
+            return decimal.stripTrailingZeros().toPlainString();
+        }
+        return value.toString();
+    }
+}
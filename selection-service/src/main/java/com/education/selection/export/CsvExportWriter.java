@@ -0,0 +1,55 @@
+package com.education.selection.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * CSV导出（UTF-8带BOM，Excel直接打开不乱码）
+ */
+public class CsvExportWriter implements ExportWriter {
+    
+    private final Writer writer;
+    private boolean started;
+    
+    public CsvExportWriter(OutputStream output) {
+        this.writer = new BufferedWriter(new OutputStreamWriter(output, StandardCharsets.UTF_8), 64 * 1024);
+    }
+    
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        if (!started) {
+            writer.write('\uFEFF');
+            started = true;
+        }
+        for (int i = 0; i < cells.size(); i++) {
+            if (i > 0) {
+                writer.write(',');
+            }
+            writer.write(escape(cells.get(i)));
+        }
+        writer.write("\r\n");
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        writer.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        writer.close();
+    }
+    
+    private static String escape(Object value) {
+        String text = CellFormat.text(value);
+        // 以公式字符开头的文本加单引号，避免在Excel中被当作公式执行
+        if (value instanceof String && !text.isEmpty() && "=+-@".indexOf(text.charAt(0)) >= 0) {
+            text = "'" + text;
+        }
+        if (text.indexOf(',') >= 0 || text.indexOf('"') >= 0 || text.indexOf('\n') >= 0 || text.indexOf('\r') >= 0) {
+            return "\"" + text.replace("\"", "\"\"") + "\"";
+        }
+        return text;
+    }
+}
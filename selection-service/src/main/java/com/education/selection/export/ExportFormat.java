@@ -0,0 +1,46 @@
+package com.education.selection.export;
+
+import com.education.common.exception.BusinessException;
+
+import java.io.OutputStream;
+import java.util.function.Function;
+
+/**
+ * 导出文件格式
+ */
+public enum ExportFormat {
+    
+    CSV("csv", "text/csv;charset=UTF-8", CsvExportWriter::new),
+    XLSX("xlsx", "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet", XlsxExportWriter::new);
+    
+    private final String extension;
+    private final String contentType;
+    private final Function<OutputStream, ExportWriter> factory;
+    
+    ExportFormat(String extension, String contentType, Function<OutputStream, ExportWriter> factory) {
+        this.extension = extension;
+        this.contentType = contentType;
+        this.factory = factory;
+    }
+    
+    public String getExtension() {
+        return extension;
+    }
+    
+    public String getContentType() {
+        return contentType;
+    }
+    
+    public ExportWriter open(OutputStream output) {
+        return factory.apply(output);
+    }
+    
+    public static ExportFormat of(String format) {
+        for (ExportFormat value : values()) {
+            if (value.extension.equalsIgnoreCase(format)) {
+                return value;
+            }
+        }
+        throw new BusinessException(400, "不支持的导出格式: " + format);
+    }
+}
@@ -0,0 +1,23 @@
+package com.education.selection.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 流式表格导出
+ * 逐行写入输出流，不在内存中保留已写出的行
+ */
+public interface ExportWriter extends Closeable {
+    
+    /**
+     * 写入一行（null写为空单元格）
+     */
+    void writeRow(List<?> cells) throws IOException;
+    
+    /**
+     * 写完所有行后调用，补全文件结尾并刷新输出
+     * 未调用finish直接close时文件不完整，用于标识导出中途失败
+     */
+    void finish() throws IOException;
+}
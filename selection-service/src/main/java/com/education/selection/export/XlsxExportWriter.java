@@ -0,0 +1,158 @@
+package com.education.selection.export;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * XLSX导出
+ * 直接按SpreadsheetML格式写zip条目，工作表逐行写出（单元格使用内联字符串，不维护共享字符串表），
+ * 内存占用与行数无关；超过单个工作表行数上限时自动续写到下一个工作表，并重复表头
+ */
+public class XlsxExportWriter implements ExportWriter {
+    
+    // Excel单个工作表的行数上限
+    private static final int MAX_ROWS_PER_SHEET = 1_048_576;
+    private static final String SHEET_NAME = "Sheet";
+    
+    private final ZipOutputStream zip;
+    private final Writer writer;
+    private List<?> header;
+    private int sheetCount;
+    private int rowInSheet;
+    
+    public XlsxExportWriter(OutputStream output) {
+        this.zip = new ZipOutputStream(output, StandardCharsets.UTF_8);
+        this.writer = new BufferedWriter(new OutputStreamWriter(zip, StandardCharsets.UTF_8), 64 * 1024);
+    }
+    
+    @Override
+    public void writeRow(List<?> cells) throws IOException {
+        boolean isHeader = header == null;
+        if (isHeader) {
+            header = new ArrayList<>(cells);
+        }
+        if (sheetCount == 0 || rowInSheet >= MAX_ROWS_PER_SHEET) {
+            if (sheetCount > 0) {
+                closeSheet();
+            }
+            openSheet();
+            if (!isHeader) {
+                writeCells(header);
+            }
+        }
+        writeCells(cells);
+    }
+    
+    @Override
+    public void finish() throws IOException {
+        if (sheetCount == 0) {
+            openSheet();
+        }
+        closeSheet();
+        
+        StringBuilder sheets = new StringBuilder();
+        StringBuilder sheetRels = new StringBuilder();
+        StringBuilder overrides = new StringBuilder();
+        for (int i = 1; i <= sheetCount; i++) {
+            sheets.append("<sheet name=\"").append(SHEET_NAME).append(i)
+                  .append("\" sheetId=\"").append(i).append("\" r:id=\"rId").append(i).append("\"/>");
+            sheetRels.append("<Relationship Id=\"rId").append(i)
+                     .append("\" Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/worksheet\"")
+                     .append(" Target=\"worksheets/sheet").append(i).append(".xml\"/>");
+            overrides.append("<Override PartName=\"/xl/worksheets/sheet").append(i).append(".xml\"")
+                     .append(" ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.worksheet+xml\"/>");
+        }
+        
+        writeEntry("xl/workbook.xml",
+                "<workbook xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"" +
+                " xmlns:r=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships\">" +
+                "<sheets>" + sheets + "</sheets></workbook>");
+        writeEntry("xl/_rels/workbook.xml.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                sheetRels + "</Relationships>");
+        writeEntry("_rels/.rels",
+                "<Relationships xmlns=\"http://schemas.openxmlformats.org/package/2006/relationships\">" +
+                "<Relationship Id=\"rId1\"" +
+                " Type=\"http://schemas.openxmlformats.org/officeDocument/2006/relationships/officeDocument\"" +
+                " Target=\"xl/workbook.xml\"/></Relationships>");
+        writeEntry("[Content_Types].xml",
+                "<Types xmlns=\"http://schemas.openxmlformats.org/package/2006/content-types\">" +
+                "<Default Extension=\"rels\" ContentType=\"application/vnd.openxmlformats-package.relationships+xml\"/>" +
+                "<Default Extension=\"xml\" ContentType=\"application/xml\"/>" +
+                "<Override PartName=\"/xl/workbook.xml\"" +
+                " ContentType=\"application/vnd.openxmlformats-officedocument.spreadsheetml.sheet.main+xml\"/>" +
+                overrides + "</Types>");
+        zip.finish();
+        zip.flush();
+    }
+    
+    @Override
+    public void close() throws IOException {
+        zip.close();
+    }
+    
+    private void openSheet() throws IOException {
+        sheetCount++;
+        rowInSheet = 0;
+        zip.putNextEntry(new ZipEntry("xl/worksheets/sheet" + sheetCount + ".xml"));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+        writer.write("<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>");
+    }
+    
+    private void closeSheet() throws IOException {
+        writer.write("</sheetData></worksheet>");
+        writer.flush();
+        zip.closeEntry();
+    }
+    
+    private void writeCells(List<?> cells) throws IOException {
+        rowInSheet++;
+        writer.write("<row r=\"");
+        writer.write(Integer.toString(rowInSheet));
+        writer.write("\">");
+        for (Object cell : cells) {
+            if (cell == null) {
+                writer.write("<c/>");
+            } else if (cell instanceof Number) {
+                writer.write("<c><v>");
+                writer.write(CellFormat.text(cell));
+                writer.write("</v></c>");
+            } else {
+                writer.write("<c t=\"inlineStr\"><is><t xml:space=\"preserve\">");
+                writeEscaped(CellFormat.text(cell));
+                writer.write("</t></is></c>");
+            }
+        }
+        writer.write("</row>");
+    }
+    
+    private void writeEntry(String name, String xml) throws IOException {
+        zip.putNextEntry(new ZipEntry(name));
+        writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>");
+        writer.write(xml);
+        writer.flush();
+        zip.closeEntry();
+    }
+    
+    private void writeEscaped(String text) throws IOException {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            switch (c) {
+                case '&' -> writer.write("&amp;");
+                case '<' -> writer.write("&lt;");
+                case '>' -> writer.write("&gt;");
+                case '"' -> writer.write("&quot;");
+                default -> {
+                    // XML 1.0不允许的控制字符直接丢弃
+                    if (c >= 0x20 || c == '\t' || c == '\n' || c == '\r') {
+                        writer.write(c);
+                    }
+                }
+            }
+        }
+    }
+}
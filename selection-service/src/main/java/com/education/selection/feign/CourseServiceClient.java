@@ -1,12 +1,12 @@
 package com.education.selection.feign;
 
+import com.education.common.dto.CourseView;
+import com.education.common.result.CursorPage;
 import com.education.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
-import org.springframework.web.bind.annotation.PutMapping;
-import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -17,32 +17,42 @@ import java.util.Map;
 public interface CourseServiceClient {
     
     /**
-     * 获取课程信息
-     * 使用Map接收，避免直接依赖course-service的DTO
+     * 批量获取课程信息（不存在的课程不返回）
+     * 使用common中的只读视图接收，避免直接依赖course-service的DTO
      */
-    @GetMapping("/{id}")
-    Result<Map<String, Object>> getCourseById(@PathVariable("id") Long id);
+    @PostMapping("/batch")
+    Result<List<CourseView>> getCoursesByIds(@RequestBody List<Long> ids);
     
     /**
-     * 获取课程分页列表（用于可选课程列表）
+     * 按开课院系、开课时间范围查询课程ID（不限课程状态）
+     * 时间参数为ISO格式（yyyy-MM-ddTHH:mm:ss），开课时间在[startFrom, startTo)内
+     */
+    @GetMapping("/ids")
+    Result<List<Long>> listCourseIds(
+            @RequestParam(value = "department", required = false) String department,
+            @RequestParam(value = "startFrom", required = false) String startFrom,
+            @RequestParam(value = "startTo", required = false) String startTo);
+    
+    /**
+     * 获取课程列表（游标分页，第一页cursor传空字符串）
      */
     @GetMapping("/page")
-    Result<Map<String, Object>> getCoursePage(
-            @RequestParam(value = "current", defaultValue = "1") Integer current,
+    Result<CursorPage<CourseView>> getCoursePageByCursor(
+            @RequestParam(value = "cursor") String cursor,
             @RequestParam(value = "size", defaultValue = "10") Integer size,
             @RequestParam(value = "keyword", required = false) String keyword,
             @RequestParam(value = "status", required = false) Integer status);
     
-    /**
-     * 增加课程选课人数
-     */
-    @PutMapping("/{id}/increment-selected")
-    Result<?> incrementSelectedCount(@PathVariable("id") Long id);
-    
     /**
      * 减少课程选课人数
      */
     @PutMapping("/{id}/decrement-selected")
     Result<?> decrementSelectedCount(@PathVariable("id") Long id);
+    
+    /**
+     * 批量按增量调整课程选课人数（座位库存回写，一次请求提交所有课程）
+     */
+    @PutMapping("/adjust-selected/batch")
+    Result<Integer> adjustSelectedCounts(@RequestBody Map<Long, Integer> deltas);
 }
 
@@ -1,11 +1,12 @@
 package com.education.selection.feign;
 
+import com.education.common.dto.StudentView;
 import com.education.common.result.Result;
 import org.springframework.cloud.openfeign.FeignClient;
-import org.springframework.web.bind.annotation.GetMapping;
-import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 
-import java.util.Map;
+import java.util.List;
 
 /**
  * 学生服务Feign客户端
@@ -15,10 +16,10 @@ import java.util.Map;
 public interface StudentServiceClient {
     
     /**
-     * 获取学生信息
-     * 使用Map接收，避免直接依赖student-service的DTO
+     * 批量获取学生信息（不存在的学生不返回）
+     * 使用common中的只读视图接收，避免直接依赖student-service的DTO
      */
-    @GetMapping("/{studentId}")
-    Result<Map<String, Object>> getStudentById(@PathVariable("studentId") Long studentId);
+    @PostMapping("/batch")
+    Result<List<StudentView>> getStudentsByIds(@RequestBody List<Long> ids);
 }
 
@@ -0,0 +1,47 @@
+package com.education.selection.listener;
+
+import com.education.common.event.CourseChangeEvent;
+import com.education.selection.service.CourseCatalogService;
+import com.education.selection.service.SeatInventoryService;
+import com.education.selection.service.WaitlistService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 课程变更事件监听（Redis频道）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class CourseChangeListener implements MessageListener {
+    
+    private final ObjectMapper objectMapper;
+    private final CourseCatalogService courseCatalogService;
+    private final SeatInventoryService seatInventoryService;
+    private final WaitlistService waitlistService;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            CourseChangeEvent event = objectMapper.readValue(message.getBody(), CourseChangeEvent.class);
+            log.debug("收到课程变更事件: courseIds={}, type={}", event.affectedCourseIds(), event.getType());
+            event.affectedCourseIds().forEach(courseCatalogService::markChanged);
+            
+            Integer capacityDelta = event.getCapacityDelta();
+            if (capacityDelta != null && capacityDelta != 0) {
+                // 旧版本发布的事件没有eventId，退回按时间戳去重
+                String eventId = event.getEventId() != null ? event.getEventId() : String.valueOf(event.getTimestamp());
+                seatInventoryService.adjustCapacity(event.getCourseId(), capacityDelta, eventId);
+                if (capacityDelta > 0) {
+                    waitlistService.requestPromotion(event.getCourseId());
+                }
+            }
+        } catch (Exception e) {
+            log.warn("解析课程变更事件失败: {}", e.getMessage());
+        }
+    }
+}
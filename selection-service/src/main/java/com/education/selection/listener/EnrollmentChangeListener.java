@@ -0,0 +1,34 @@
+package com.education.selection.listener;
+
+import com.education.common.event.EnrollmentChangeEvent;
+import com.education.selection.service.CourseMembershipIndex;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.stereotype.Component;
+
+/**
+ * 选课关系变更事件监听（Redis频道），更新本实例的课程成员索引
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrollmentChangeListener implements MessageListener {
+    
+    private final ObjectMapper objectMapper;
+    private final CourseMembershipIndex courseMembershipIndex;
+    
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        try {
+            EnrollmentChangeEvent event = objectMapper.readValue(message.getBody(), EnrollmentChangeEvent.class);
+            log.debug("收到选课关系变更事件: courseId={}, type={}, students={}",
+                event.getCourseId(), event.getType(), event.getStudentIds().size());
+            courseMembershipIndex.apply(event);
+        } catch (Exception e) {
+            log.warn("解析选课关系变更事件失败: {}", e.getMessage());
+        }
+    }
+}
@@ -1,27 +1,88 @@
 package com.education.selection.listener;
 
-import com.education.selection.dto.SelectionDTO;
+import com.education.common.constant.Constants;
+import com.education.common.exception.BusinessException;
+import com.education.selection.dto.SelectionCommand;
 import com.education.selection.service.SelectionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabbitmq.client.Channel;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.core.Message;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.stereotype.Component;
 
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * 异步选课命令消费者
+ * 按批次接收消息，整批落库成功后一次性ack；
+ * 整批失败时逐条重试（落库在同一事务内，失败时整批已回滚；批量处理中已校验失败的命令不再重复处理），单条仍失败且确认未写入选课记录的
+ * 归还座位、标记凭证失败，并转入死信队列
+ */
 @Slf4j
 @Component
 @RequiredArgsConstructor
 public class SelectionListener {
     
     private final SelectionService selectionService;
+    private final ObjectMapper objectMapper;
     
-    @RabbitListener(queues = "selection.queue")
-    public void handleSelection(SelectionDTO dto) {
+    @RabbitListener(queues = Constants.QUEUE_SELECTION, containerFactory = "selectionBatchContainerFactory")
+    public void handleSelectionBatch(List<Message> messages, Channel channel) throws IOException {
+        log.info("处理选课消息批次: size={}", messages.size());
+        
+        List<Message> valid = new ArrayList<>(messages.size());
+        List<SelectionCommand> commands = new ArrayList<>(messages.size());
+        for (Message message : messages) {
+            try {
+                commands.add(objectMapper.readValue(message.getBody(), SelectionCommand.class));
+                valid.add(message);
+            } catch (IOException e) {
+                log.error("选课消息格式错误，转入死信队列", e);
+                channel.basicNack(deliveryTag(message), false, false);
+            }
+        }
+        if (commands.isEmpty()) {
+            return;
+        }
+        
+        // 批量处理中已校验失败（已归还座位、标记失败）的命令，逐条处理时跳过
+        Set<SelectionCommand> rejected = Collections.newSetFromMap(new IdentityHashMap<>());
         try {
-            log.info("处理选课消息：studentId={}, courseId={}", dto.getStudentId(), dto.getCourseId());
-            selectionService.processSelection(dto);
+            selectionService.completeSelections(commands, rejected);
+            for (Message message : valid) {
+                channel.basicAck(deliveryTag(message), false);
+            }
+            return;
         } catch (Exception e) {
-            log.error("处理选课消息失败", e);
+            log.warn("选课消息批量处理失败，改为逐条处理: size={}, error={}", commands.size(), e.getMessage());
+        }
+        
+        for (int i = 0; i < commands.size(); i++) {
+            SelectionCommand command = commands.get(i);
+            long deliveryTag = deliveryTag(valid.get(i));
+            if (rejected.contains(command)) {
+                channel.basicAck(deliveryTag, false);
+                continue;
+            }
+            try {
+                selectionService.completeSelections(Collections.singletonList(command), rejected);
+                channel.basicAck(deliveryTag, false);
+            } catch (Exception e) {
+                log.error("处理选课消息失败: ticketId={}", command.getTicketId(), e);
+                String reason = e instanceof BusinessException ? e.getMessage() : "系统繁忙，选课失败";
+                if (selectionService.failSelectionAfterRollback(command, reason)) {
+                    channel.basicNack(deliveryTag, false, false);
+                } else {
+                    channel.basicAck(deliveryTag, false);
+                }
+            }
         }
     }
+    
+    private long deliveryTag(Message message) {
+        return message.getMessageProperties().getDeliveryTag();
+    }
 }
-
@@ -2,9 +2,139 @@ package com.education.selection.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.education.selection.entity.Enrollment;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.ResultType;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
+import org.apache.ibatis.session.ResultHandler;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface EnrollmentMapper extends BaseMapper<Enrollment> {
+    
+    /**
+     * 查询课程当前已选（status=0）的学生ID，用于预热座位库存
+     */
+    @Select("SELECT student_id FROM enrollments WHERE course_id = #{courseId} AND status = 0")
+    List<Long> selectActiveStudentIds(@Param("courseId") Long courseId);
+    
+    /**
+     * 逐行扫描所有已选（status=0）的选课关系（只取course_id、student_id），用于构建课程成员索引
+     */
+    @Select("SELECT course_id, student_id FROM enrollments WHERE status = 0")
+    @ResultType(Enrollment.class)
+    void scanActiveMemberships(ResultHandler<Enrollment> handler);
+    
+    /**
+     * 流式读取导出范围内的选课记录，按 (课程, 选课记录ID) 排序
+     * 只前滚游标，fetchSize=Integer.MIN_VALUE让驱动只对这条语句逐行流式读取，连接池其他语句不受影响；
+     * 游标关闭前该连接不能执行其他语句，调用方须在事务内消费完游标
+     * @param courseIds 课程范围，为null时不限课程
+     * @param status 选课状态，为null时不限状态
+     */
+    @Select("<script>" +
+            "SELECT enrollment_id, student_id, course_id, enrollment_time, status, credit, score FROM enrollments " +
+            "<where>" +
+            "<if test='courseIds != null'>course_id IN " +
+            "<foreach collection='courseIds' item='courseId' open='(' separator=',' close=')'>#{courseId}</foreach>" +
+            "</if>" +
+            "<if test='status != null'> AND status = #{status}</if>" +
+            "</where> " +
+            "ORDER BY course_id, enrollment_id" +
+            "</script>")
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<Enrollment> streamForExport(@Param("courseIds") Collection<Long> courseIds, @Param("status") Integer status);
+    
+    /**
+     * 查询在 [since, until) 内有变更的选课记录涉及的课程ID，用于增量核对选课人数
+     */
+    @Select("SELECT DISTINCT course_id FROM enrollments WHERE updated_at >= #{since} AND updated_at < #{until}")
+    List<Long> selectCourseIdsUpdatedBetween(@Param("since") LocalDateTime since, @Param("until") LocalDateTime until);
+    
+    /**
+     * 查询在since之后（含）仍有变更的选课记录涉及的课程ID
+     */
+    @Select("SELECT DISTINCT course_id FROM enrollments WHERE updated_at >= #{since}")
+    List<Long> selectCourseIdsUpdatedSince(@Param("since") LocalDateTime since);
+    
+    /**
+     * 查询所有有选课记录的课程ID，用于全量核对选课人数
+     */
+    @Select("SELECT DISTINCT course_id FROM enrollments")
+    List<Long> selectAllCourseIds();
+    
+    /**
+     * 按课程统计已选（status=0）人数，没有已选记录的课程不返回
+     * 每行包含course_id、active_count
+     */
+    @Select("<script>" +
+            "SELECT course_id, COUNT(*) AS active_count FROM enrollments WHERE status = 0 AND course_id IN " +
+            "<foreach collection='courseIds' item='courseId' open='(' separator=',' close=')'>#{courseId}</foreach> " +
+            "GROUP BY course_id" +
+            "</script>")
+    List<Map<String, Object>> countActiveByCourseIds(@Param("courseIds") Collection<Long> courseIds);
+    
+    /**
+     * 批量写入选课记录
+     * 已存在的记录（之前退课）直接恢复为已选状态
+     */
+    @Insert("<script>" +
+            "INSERT INTO enrollments (student_id, course_id, enrollment_time, status, credit, created_at, updated_at) VALUES " +
+            "<foreach collection='list' item='e' separator=','>" +
+            "(#{e.studentId}, #{e.courseId}, #{e.enrollmentTime}, 0, #{e.credit}, #{e.createdAt}, #{e.updatedAt})" +
+            "</foreach> " +
+            "ON DUPLICATE KEY UPDATE status = 0, credit = VALUES(credit), " +
+            "enrollment_time = VALUES(enrollment_time), updated_at = VALUES(updated_at)" +
+            "</script>")
+    int upsertBatch(@Param("list") List<Enrollment> enrollments);
+    
+    /**
+     * 按（学生, 课程）批量查询选课记录
+     */
+    @Select("<script>" +
+            "SELECT * FROM enrollments WHERE (student_id, course_id) IN " +
+            "<foreach collection='list' item='e' open='(' separator=',' close=')'>(#{e.studentId}, #{e.courseId})</foreach>" +
+            "</script>")
+    List<Enrollment> selectByStudentCoursePairs(@Param("list") List<Enrollment> pairs);
+    
+    /**
+     * 查询缺少学分快照的课程ID（升级前的历史记录），studentId为空时查询全部
+     */
+    @Select("<script>" +
+            "SELECT DISTINCT course_id FROM enrollments WHERE credit IS NULL" +
+            "<if test='studentId != null'> AND student_id = #{studentId}</if>" +
+            "</script>")
+    List<Long> selectCourseIdsMissingCredit(@Param("studentId") Long studentId);
+    
+    /**
+     * 按课程批量回填学分快照（一条UPDATE ... CASE）
+     */
+    @Update("<script>" +
+            "UPDATE enrollments SET credit = CASE course_id " +
+            "<foreach collection='credits' index='courseId' item='credit'>WHEN #{courseId} THEN #{credit} </foreach>" +
+            "END WHERE credit IS NULL AND course_id IN " +
+            "<foreach collection='credits' index='courseId' open='(' separator=',' close=')'>#{courseId}</foreach>" +
+            "</script>")
+    int fillMissingCredits(@Param("credits") Map<Long, BigDecimal> credits);
+    
+    /**
+     * 批量写入成绩（一条UPDATE ... CASE），只更新已选状态的记录
+     */
+    @Update("<script>" +
+            "UPDATE enrollments SET score = CASE enrollment_id " +
+            "<foreach collection='list' item='e'>WHEN #{e.enrollmentId} THEN #{e.score,jdbcType=DOUBLE} </foreach>" +
+            "END, updated_at = NOW() WHERE status = 0 AND enrollment_id IN " +
+            "<foreach collection='list' item='e' open='(' separator=',' close=')'>#{e.enrollmentId}</foreach>" +
+            "</script>")
+    int updateScoreBatch(@Param("list") List<Enrollment> enrollments);
 }
-
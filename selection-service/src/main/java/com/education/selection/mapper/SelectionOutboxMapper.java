@@ -0,0 +1,57 @@
+package com.education.selection.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.education.selection.entity.SelectionOutbox;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface SelectionOutboxMapper extends BaseMapper<SelectionOutbox> {
+    
+    /**
+     * 批量写入待发送消息
+     */
+    @Insert("<script>" +
+            "INSERT INTO selection_outbox (routing_key, event_type, payload, status, attempts, created_at) VALUES " +
+            "<foreach collection='list' item='m' separator=','>" +
+            "(#{m.routingKey}, #{m.eventType}, #{m.payload}, 0, 0, NOW())" +
+            "</foreach>" +
+            "</script>")
+    int insertBatch(@Param("list") List<SelectionOutbox> messages);
+    
+    /**
+     * 锁定一批待发送消息（其他实例的中继跳过已锁定的行）
+     */
+    @Select("SELECT * FROM selection_outbox WHERE status = 0 ORDER BY id LIMIT #{limit} FOR UPDATE SKIP LOCKED")
+    List<SelectionOutbox> lockPending(@Param("limit") int limit);
+    
+    @Update("<script>" +
+            "UPDATE selection_outbox SET status = 1, sent_at = NOW() WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markSent(@Param("ids") Collection<Long> ids);
+    
+    /**
+     * 记录发送失败，超过重试次数的标记为发送失败，不再重试
+     */
+    @Update("<script>" +
+            "UPDATE selection_outbox SET attempts = attempts + 1, " +
+            "status = IF(attempts >= #{maxAttempts}, 2, status) WHERE id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach>" +
+            "</script>")
+    int markFailed(@Param("ids") Collection<Long> ids, @Param("maxAttempts") int maxAttempts);
+    
+    /**
+     * 清理已发送的历史消息（每次最多limit条）
+     */
+    @Delete("DELETE FROM selection_outbox WHERE status = 1 AND sent_at < #{before} LIMIT #{limit}")
+    int deleteSentBefore(@Param("before") LocalDateTime before, @Param("limit") int limit);
+}
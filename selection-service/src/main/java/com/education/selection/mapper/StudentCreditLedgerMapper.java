@@ -0,0 +1,64 @@
+package com.education.selection.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.education.selection.entity.StudentCreditLedger;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+
+@Mapper
+public interface StudentCreditLedgerMapper extends BaseMapper<StudentCreditLedger> {
+    
+    /**
+     * 原子增减学生总学分，台账不存在时返回0
+     */
+    @Update("UPDATE student_credit_ledger SET total_credits = GREATEST(total_credits + #{delta}, 0), updated_at = NOW() " +
+            "WHERE student_id = #{studentId}")
+    int addCredits(@Param("studentId") Long studentId, @Param("delta") BigDecimal delta);
+    
+    /**
+     * 按enrollments重建单个学生的台账（没有已选课程时写入0）
+     */
+    @Insert("INSERT INTO student_credit_ledger (student_id, total_credits, updated_at) " +
+            "SELECT #{studentId}, IFNULL(SUM(credit), 0), NOW() FROM enrollments " +
+            "WHERE student_id = #{studentId} AND status = 0 " +
+            "ON DUPLICATE KEY UPDATE total_credits = VALUES(total_credits), updated_at = VALUES(updated_at)")
+    int rebuild(@Param("studentId") Long studentId);
+    
+    /**
+     * 按enrollments批量重建学生台账，studentIds为空时重建全部有已选课程的学生
+     */
+    @Insert("<script>" +
+            "INSERT INTO student_credit_ledger (student_id, total_credits, updated_at) " +
+            "SELECT student_id, IFNULL(SUM(credit), 0), NOW() FROM enrollments WHERE status = 0" +
+            "<if test='studentIds != null'> AND student_id IN " +
+            "<foreach collection='studentIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></if>" +
+            " GROUP BY student_id " +
+            "ON DUPLICATE KEY UPDATE total_credits = VALUES(total_credits), updated_at = VALUES(updated_at)" +
+            "</script>")
+    int rebuildBatch(@Param("studentIds") Collection<Long> studentIds);
+    
+    /**
+     * 查询台账与选课记录不一致的学生（总学分不同，或有已选课程却没有台账）
+     */
+    @Select("SELECT l.student_id FROM student_credit_ledger l " +
+            "LEFT JOIN (SELECT student_id, SUM(credit) AS total FROM enrollments WHERE status = 0 GROUP BY student_id) e " +
+            "ON e.student_id = l.student_id " +
+            "WHERE l.total_credits <> IFNULL(e.total, 0) " +
+            "UNION " +
+            "SELECT e.student_id FROM enrollments e LEFT JOIN student_credit_ledger l ON l.student_id = e.student_id " +
+            "WHERE e.status = 0 AND l.student_id IS NULL")
+    List<Long> selectDriftedStudentIds();
+    
+    /**
+     * 锁定并读取学生台账（校正时与选课落库的重建互斥）
+     */
+    @Select("SELECT * FROM student_credit_ledger WHERE student_id = #{studentId} FOR UPDATE")
+    StudentCreditLedger selectForUpdate(@Param("studentId") Long studentId);
+}
@@ -0,0 +1,144 @@
+package com.education.selection.service;
+
+import com.education.common.dto.CourseView;
+import com.education.common.result.CursorPage;
+import com.education.common.result.Result;
+import com.education.selection.feign.CourseServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 课程目录服务
+ * 在本地维护开放选课课程的快照：
+ * 1. 首次使用时全量拉取一次
+ * 2. 收到课程变更事件后只记录课程ID，定时合并成一次批量查询，增量更新快照
+ * 3. 定时全量刷新，兜底Redis频道消息丢失的情况
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseCatalogService {
+    
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PAGES = 100;
+    private static final int BATCH_SIZE = 500;
+    
+    private final CourseServiceClient courseServiceClient;
+    
+    private volatile CourseCatalogSnapshot snapshot;
+    private final AtomicLong versionSequence = new AtomicLong();
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+    private final Object updateLock = new Object();
+    
+    /**
+     * 获取当前快照（尚未加载时同步加载一次，加载失败返回空快照）
+     */
+    public CourseCatalogSnapshot current() {
+        CourseCatalogSnapshot current = snapshot;
+        if (current != null) {
+            return current;
+        }
+        synchronized (updateLock) {
+            if (snapshot == null) {
+                refreshAll();
+            }
+            return snapshot != null ? snapshot : CourseCatalogSnapshot.empty();
+        }
+    }
+    
+    /**
+     * 记录变更的课程，等待下一轮合并更新
+     */
+    public void markChanged(Long courseId) {
+        if (courseId != null) {
+            pendingCourseIds.add(courseId);
+        }
+    }
+    
+    /**
+     * 合并处理积累的课程变更：一次批量查询，生成新版本快照
+     */
+    @Scheduled(fixedDelayString = "${selection.catalog.apply-interval-ms:500}")
+    public void applyPendingChanges() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        synchronized (updateLock) {
+            List<Long> courseIds = new ArrayList<>(pendingCourseIds);
+            pendingCourseIds.removeAll(courseIds);
+            CourseCatalogSnapshot current = snapshot;
+            if (current == null) {
+                // 快照尚未加载，首次加载时会拿到最新数据
+                return;
+            }
+            
+            List<CourseView> upserts = new ArrayList<>();
+            Set<Long> removed = new HashSet<>(courseIds);
+            try {
+                for (int from = 0; from < courseIds.size(); from += BATCH_SIZE) {
+                    List<Long> chunk = courseIds.subList(from, Math.min(from + BATCH_SIZE, courseIds.size()));
+                    Result<List<CourseView>> result = courseServiceClient.getCoursesByIds(new ArrayList<>(chunk));
+                    if (result == null || result.getCode() != 200 || result.getData() == null) {
+                        throw new IllegalStateException(result != null ? result.getMessage() : "无响应");
+                    }
+                    upserts.addAll(result.getData());
+                }
+            } catch (Exception e) {
+                log.warn("增量更新课程目录失败，稍后重试: courseIds={}, error={}", courseIds, e.getMessage());
+                pendingCourseIds.addAll(courseIds);
+                return;
+            }
+            // 批量接口没有返回的课程已被删除
+            upserts.forEach(course -> removed.remove(course.courseId()));
+            
+            snapshot = current.apply(versionSequence.incrementAndGet(), upserts, removed);
+            log.debug("课程目录已增量更新: version={}, changed={}, removed={}, size={}",
+                snapshot.getVersion(), courseIds.size(), removed.size(), snapshot.size());
+        }
+    }
+    
+    /**
+     * 全量刷新快照
+     * 拉取失败时保留旧快照
+     */
+    @Scheduled(initialDelayString = "${selection.catalog.full-refresh-interval-ms:600000}",
+               fixedDelayString = "${selection.catalog.full-refresh-interval-ms:600000}")
+    public void refreshAll() {
+        synchronized (updateLock) {
+            List<CourseView> allCourses = new ArrayList<>();
+            try {
+                // 游标分页拉取，每页都是一次索引定位，不随页数变慢
+                String cursor = "";
+                for (int pageNum = 1; pageNum <= MAX_PAGES; pageNum++) {
+                    Result<CursorPage<CourseView>> pageResult = courseServiceClient.getCoursePageByCursor(cursor, PAGE_SIZE, null, 1);
+                    if (pageResult == null || pageResult.getCode() != 200 || pageResult.getData() == null) {
+                        throw new IllegalStateException(pageResult != null ? pageResult.getMessage() : "无响应");
+                    }
+                    List<CourseView> records = pageResult.getData().getRecords();
+                    if (records != null) {
+                        allCourses.addAll(records);
+                    }
+                    if (records == null || records.isEmpty() || pageResult.getData().getNextCursor() == null) {
+                        break;
+                    }
+                    cursor = pageResult.getData().getNextCursor();
+                    if (pageNum == MAX_PAGES) {
+                        log.warn("课程数量过多，课程目录只加载了前{}条课程", allCourses.size());
+                    }
+                }
+            } catch (Exception e) {
+                log.error("全量加载课程目录失败: {}", e.getMessage());
+                return;
+            }
+            
+            snapshot = CourseCatalogSnapshot.of(versionSequence.incrementAndGet(), allCourses);
+            log.info("课程目录已全量加载: version={}, size={}", snapshot.getVersion(), snapshot.size());
+        }
+    }
+}
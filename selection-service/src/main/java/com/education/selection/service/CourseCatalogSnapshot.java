@@ -0,0 +1,174 @@
+package com.education.selection.service;
+
+import com.education.common.dto.CourseView;
+import com.education.common.util.KeysetCursor;
+import org.springframework.util.StringUtils;
+
+import java.util.*;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 开放选课课程目录快照（不可变）
+ * 按课程ID、关键字字符建立索引，查询时无需远程调用
+ * 课程变更时基于旧快照生成新快照并整体替换，读线程始终看到一致的数据
+ */
+public final class CourseCatalogSnapshot {
+    
+    private static final CourseCatalogSnapshot EMPTY = new CourseCatalogSnapshot(0L, Collections.emptyList());
+    
+    private final long version;
+    // 与course-service分页接口一致：按 (创建时间, 课程ID) 倒序
+    private final List<CourseView> courses;
+    private final Map<Long, CourseView> byId;
+    // 关键字索引：字符 -> 课程名称/代码/教师名称中包含该字符的课程ID
+    private final Map<Integer, Set<Long>> charIndex;
+    
+    private CourseCatalogSnapshot(long version, Collection<CourseView> source) {
+        this.version = version;
+        
+        List<CourseView> sorted = new ArrayList<>(source);
+        sorted.sort(Comparator.comparing(CourseView::createdAt, Comparator.nullsFirst(Comparator.naturalOrder()))
+                .thenComparing(CourseView::courseId)
+                .reversed());
+        this.courses = Collections.unmodifiableList(sorted);
+        
+        Map<Long, CourseView> idIndex = new HashMap<>();
+        Map<Integer, Set<Long>> tokenIndex = new HashMap<>();
+        for (CourseView course : sorted) {
+            Long courseId = course.courseId();
+            idIndex.put(courseId, course);
+            searchableText(course).codePoints().distinct()
+                    .forEach(cp -> tokenIndex.computeIfAbsent(cp, k -> new HashSet<>()).add(courseId));
+        }
+        this.byId = Collections.unmodifiableMap(idIndex);
+        this.charIndex = tokenIndex;
+    }
+    
+    public static CourseCatalogSnapshot empty() {
+        return EMPTY;
+    }
+    
+    /**
+     * 根据全量课程构建快照（没有courseId的记录会被忽略）
+     */
+    public static CourseCatalogSnapshot of(long version, Collection<CourseView> courses) {
+        return new CourseCatalogSnapshot(version, courses.stream()
+                .filter(c -> c.courseId() != null)
+                .collect(Collectors.toList()));
+    }
+    
+    /**
+     * 基于当前快照生成新快照
+     * @param upserts 新增或变更的课程（非开放状态的课程会被移除）
+     * @param removedIds 已删除的课程ID
+     */
+    public CourseCatalogSnapshot apply(long newVersion, Collection<CourseView> upserts, Collection<Long> removedIds) {
+        Map<Long, CourseView> next = new LinkedHashMap<>(byId);
+        removedIds.forEach(next::remove);
+        for (CourseView course : upserts) {
+            Long courseId = course.courseId();
+            if (courseId == null) {
+                continue;
+            }
+            if (course.isOpen()) {
+                next.put(courseId, course);
+            } else {
+                next.remove(courseId);
+            }
+        }
+        return new CourseCatalogSnapshot(newVersion, next.values());
+    }
+    
+    /**
+     * 按关键字查询（匹配课程名称、课程代码、教师名称，不区分大小写），结果按创建时间倒序
+     */
+    public List<CourseView> search(String keyword) {
+        if (!StringUtils.hasText(keyword)) {
+            return courses;
+        }
+        return scan(keyword, null).collect(Collectors.toList());
+    }
+    
+    /**
+     * 从游标位置往后惰性遍历匹配关键字的课程（顺序同search）
+     * 游标位置通过二分查找定位，调用方limit凑满一页后即停止，深翻页与第一页代价相同
+     * @param after 上一页最后一条的游标，为null表示从头开始
+     */
+    public Stream<CourseView> scan(String keyword, KeysetCursor after) {
+        List<CourseView> tail = after != null ? courses.subList(firstAfter(after), courses.size()) : courses;
+        if (!StringUtils.hasText(keyword)) {
+            return tail.stream();
+        }
+        String needle = keyword.trim().toLowerCase();
+        
+        // 先用字符索引求候选集（取各字符倒排表的交集），再做子串校验
+        Set<Long> candidates = null;
+        for (int cp : needle.codePoints().distinct().toArray()) {
+            Set<Long> posting = charIndex.getOrDefault(cp, Collections.emptySet());
+            if (candidates == null) {
+                candidates = new HashSet<>(posting);
+            } else {
+                candidates.retainAll(posting);
+            }
+            if (candidates.isEmpty()) {
+                return Stream.empty();
+            }
+        }
+        
+        final Set<Long> matched = candidates;
+        return tail.stream().filter(c -> matched.contains(c.courseId()) && matches(c, needle));
+    }
+    
+    /**
+     * 生成指向该课程之后的游标
+     */
+    public static String cursorOf(CourseView course) {
+        return KeysetCursor.encode(course.createdAt(), course.courseId());
+    }
+    
+    public CourseView getById(Long courseId) {
+        return byId.get(courseId);
+    }
+    
+    public long getVersion() {
+        return version;
+    }
+    
+    public int size() {
+        return courses.size();
+    }
+    
+    /**
+     * 第一条排在游标之后的课程下标（courses已按游标顺序排序）
+     */
+    private int firstAfter(KeysetCursor after) {
+        int low = 0;
+        int high = courses.size();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            CourseView course = courses.get(mid);
+            if (after.follows(course.createdAt(), course.courseId())) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        return low;
+    }
+    
+    private static boolean matches(CourseView course, String needle) {
+        for (String value : new String[]{course.courseName(), course.courseCode(), course.teacherName()}) {
+            if (value != null && value.toLowerCase().contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+    
+    private static String searchableText(CourseView course) {
+        return (Objects.toString(course.courseName(), "") + "\n"
+                + Objects.toString(course.courseCode(), "") + "\n"
+                + Objects.toString(course.teacherName(), "")).toLowerCase();
+    }
+}
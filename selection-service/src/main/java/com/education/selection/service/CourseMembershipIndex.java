@@ -0,0 +1,168 @@
+package com.education.selection.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.common.dto.CourseMembership;
+import com.education.common.event.EnrollmentChangeEvent;
+import com.education.selection.entity.Enrollment;
+import com.education.selection.mapper.EnrollmentMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * 课程成员索引
+ * 在内存中为每门课程保存已选学生ID的位图，message-service的消息权限过滤据此判断选课关系，不再逐条查库：
+ * 1. 首次使用时逐行扫描enrollments全量构建
+ * 2. 选课/退课事务提交后立即更新本实例，并通过Redis频道通知其他实例
+ * 3. 定时全量重建，兜底频道消息丢失的情况
+ * 位图采用写时复制，读操作不加锁
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CourseMembershipIndex {
+    
+    private final EnrollmentMapper enrollmentMapper;
+    
+    private volatile Map<Long, BitSet> membersByCourse;
+    private final Object updateLock = new Object();
+    // 全量重建期间收到的变更，重建完成后补上
+    private final Queue<EnrollmentChangeEvent> changesDuringReload = new ConcurrentLinkedQueue<>();
+    private volatile boolean reloading;
+    
+    /**
+     * 学生是否已选该课程
+     */
+    public boolean isMember(Long studentId, Long courseId) {
+        if (studentId == null || courseId == null) {
+            return false;
+        }
+        if (!fitsBitmap(studentId)) {
+            return isMemberInDatabase(studentId, courseId);
+        }
+        BitSet members = index().get(courseId);
+        return members != null && members.get(studentId.intValue());
+    }
+    
+    /**
+     * 批量检查选课关系，结果与请求顺序一致
+     */
+    public List<Boolean> check(List<CourseMembership> queries) {
+        List<Boolean> results = new ArrayList<>(queries.size());
+        for (CourseMembership query : queries) {
+            results.add(query != null && isMember(query.studentId(), query.courseId()));
+        }
+        return results;
+    }
+    
+    /**
+     * 课程已选学生ID
+     */
+    public List<Long> getStudentIds(Long courseId) {
+        BitSet members = index().get(courseId);
+        List<Long> studentIds = new ArrayList<>(members != null ? members.cardinality() : 0);
+        if (members != null) {
+            members.stream().forEach(studentId -> studentIds.add((long) studentId));
+        }
+        return studentIds;
+    }
+    
+    /**
+     * 应用选课关系变更（本实例提交后直接调用，其他实例通过Redis频道调用，重复应用结果相同）
+     */
+    public void apply(EnrollmentChangeEvent event) {
+        if (event == null || event.getCourseId() == null || event.getStudentIds() == null) {
+            return;
+        }
+        if (reloading) {
+            changesDuringReload.add(event);
+        }
+        if (membersByCourse == null) {
+            // 尚未构建，首次构建时会读到最新数据
+            return;
+        }
+        boolean selected = EnrollmentChangeEvent.TYPE_SELECTED.equals(event.getType());
+        synchronized (updateLock) {
+            BitSet current = membersByCourse.get(event.getCourseId());
+            BitSet updated = current != null ? (BitSet) current.clone() : new BitSet();
+            for (Long studentId : event.getStudentIds()) {
+                if (studentId != null && fitsBitmap(studentId)) {
+                    updated.set(studentId.intValue(), selected);
+                }
+            }
+            if (updated.isEmpty()) {
+                membersByCourse.remove(event.getCourseId());
+            } else {
+                membersByCourse.put(event.getCourseId(), updated);
+            }
+        }
+    }
+    
+    /**
+     * 全量重建索引
+     */
+    @Scheduled(initialDelayString = "${selection.membership.full-reload-interval-ms:600000}",
+               fixedDelayString = "${selection.membership.full-reload-interval-ms:600000}")
+    public void reload() {
+        long start = System.currentTimeMillis();
+        reloading = true;
+        try {
+            Map<Long, BitSet> rebuilt = new ConcurrentHashMap<>();
+            int[] rows = {0};
+            enrollmentMapper.scanActiveMemberships(context -> {
+                Enrollment enrollment = context.getResultObject();
+                Long studentId = enrollment.getStudentId();
+                if (enrollment.getCourseId() != null && studentId != null && fitsBitmap(studentId)) {
+                    rebuilt.computeIfAbsent(enrollment.getCourseId(), k -> new BitSet()).set(studentId.intValue());
+                    rows[0]++;
+                }
+            });
+            synchronized (updateLock) {
+                membersByCourse = rebuilt;
+                reloading = false;
+            }
+            // 扫描期间的变更可能没有被扫描到，重新应用一次
+            EnrollmentChangeEvent change;
+            while ((change = changesDuringReload.poll()) != null) {
+                apply(change);
+            }
+            log.info("课程成员索引已重建: courses={}, memberships={}, cost={}ms",
+                rebuilt.size(), rows[0], System.currentTimeMillis() - start);
+        } catch (Exception e) {
+            log.warn("重建课程成员索引失败，保留旧索引: {}", e.getMessage());
+        } finally {
+            reloading = false;
+            changesDuringReload.clear();
+        }
+    }
+    
+    private Map<Long, BitSet> index() {
+        Map<Long, BitSet> current = membersByCourse;
+        if (current != null) {
+            return current;
+        }
+        synchronized (this) {
+            if (membersByCourse == null) {
+                reload();
+            }
+            return membersByCourse != null ? membersByCourse : Collections.emptyMap();
+        }
+    }
+    
+    private boolean isMemberInDatabase(Long studentId, Long courseId) {
+        Long count = enrollmentMapper.selectCount(new LambdaQueryWrapper<Enrollment>()
+            .eq(Enrollment::getStudentId, studentId)
+            .eq(Enrollment::getCourseId, courseId)
+            .eq(Enrollment::getStatus, 0));
+        return count != null && count > 0;
+    }
+    
+    private static boolean fitsBitmap(Long studentId) {
+        return studentId >= 0 && studentId <= Integer.MAX_VALUE;
+    }
+}
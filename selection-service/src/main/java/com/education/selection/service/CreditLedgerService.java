@@ -0,0 +1,151 @@
+package com.education.selection.service;
+
+import com.education.selection.entity.StudentCreditLedger;
+import com.education.selection.mapper.EnrollmentMapper;
+import com.education.selection.mapper.StudentCreditLedgerMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.*;
+
+/**
+ * 学生学分台账服务
+ * 每个学生已选课程的总学分保存在student_credit_ledger中，选课/退课时在同一事务内增减，
+ * Redis中的seat:credits只是台账的缓存（由座位库存Lua脚本原子地检查学分上限），
+ * 预热时直接读取台账，不再逐门课程远程查询学分
+ * 选课记录保存了选课时的学分快照，台账可以随时按enrollments在数据库内重建
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CreditLedgerService {
+    
+    private final StudentCreditLedgerMapper ledgerMapper;
+    private final EnrollmentMapper enrollmentMapper;
+    private final RemoteDataLoader remoteDataLoader;
+    private final SeatInventoryService seatInventoryService;
+    private final TransactionTemplate transactionTemplate;
+    
+    /**
+     * 查询学生已选总学分
+     * 台账不存在时按选课记录建立
+     */
+    public BigDecimal getTotalCredits(Long studentId) {
+        StudentCreditLedger ledger = ledgerMapper.selectById(studentId);
+        if (ledger == null) {
+            rebuild(studentId);
+            ledger = ledgerMapper.selectById(studentId);
+        }
+        return ledger != null && ledger.getTotalCredits() != null ? ledger.getTotalCredits() : BigDecimal.ZERO;
+    }
+    
+    /**
+     * 增减学生已选总学分（选课传正数，退课传负数）
+     * 需要与选课记录的写入在同一事务内调用；学分未知或台账不存在时按选课记录重建
+     */
+    public void addCredits(Long studentId, BigDecimal delta) {
+        if (delta == null || ledgerMapper.addCredits(studentId, delta) == 0) {
+            rebuild(studentId);
+        }
+    }
+    
+    /**
+     * 按选课记录重建一批学生的台账（异步选课批量落库后调用，重复执行结果相同）
+     */
+    public void rebuild(Collection<Long> studentIds) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        ledgerMapper.rebuildBatch(studentIds);
+    }
+    
+    /**
+     * 按选课记录重建单个学生的台账
+     */
+    public void rebuild(Long studentId) {
+        fillMissingCredits(studentId);
+        ledgerMapper.rebuild(studentId);
+        log.debug("学分台账已重建: studentId={}", studentId);
+    }
+    
+    /**
+     * 学分台账校正任务
+     * 回填历史选课记录的学分快照后，找出台账与选课记录不一致的学生逐个重建，
+     * Redis学分缓存按台账的校正量增减，不直接删除：缓存中还包含已预占、尚未落库的异步选课学分，
+     * 删除后重新预热只能读到台账，这部分预占会丢失，学生可能超出学分上限
+     * @return 被校正的学生数
+     */
+    @Scheduled(cron = "${selection.credit-ledger.repair-cron:0 30 3 * * ?}")
+    public int repairAll() {
+        long start = System.currentTimeMillis();
+        fillMissingCredits(null);
+        
+        List<Long> drifted = ledgerMapper.selectDriftedStudentIds();
+        int corrected = 0;
+        for (Long studentId : drifted) {
+            try {
+                BigDecimal[] totals = transactionTemplate.execute(status -> repair(studentId));
+                if (totals == null || totals[0] == null) {
+                    // 原来没有台账，Redis中也不会有按台账预热的学分缓存
+                    continue;
+                }
+                BigDecimal delta = totals[1].subtract(totals[0]);
+                if (delta.signum() != 0) {
+                    seatInventoryService.adjustCredits(studentId, delta);
+                    log.warn("学分台账不一致，已校正: studentId={}, ledger={}, actual={}", studentId, totals[0], totals[1]);
+                    corrected++;
+                }
+            } catch (Exception e) {
+                log.error("校正学分台账失败: studentId={}", studentId, e);
+            }
+        }
+        log.info("学分台账校正完成: drifted={}, corrected={}, cost={}ms",
+            drifted.size(), corrected, System.currentTimeMillis() - start);
+        return corrected;
+    }
+    
+    /**
+     * 在事务内锁定台账后按选课记录重建，校正量只包含已落库的选课记录
+     * （并发落库的台账重建会等待锁释放，同一笔选课不会既计入校正量又已计入Redis）
+     * @return [重建前总学分（没有台账时为null）, 重建后总学分]
+     */
+    private BigDecimal[] repair(Long studentId) {
+        StudentCreditLedger before = ledgerMapper.selectForUpdate(studentId);
+        ledgerMapper.rebuild(studentId);
+        StudentCreditLedger after = ledgerMapper.selectById(studentId);
+        return new BigDecimal[] {
+            before != null ? totalOf(before) : null,
+            after != null ? totalOf(after) : BigDecimal.ZERO
+        };
+    }
+    
+    /**
+     * 回填缺少学分快照的选课记录（升级前的历史数据），每批课程一次远程查询
+     */
+    private void fillMissingCredits(Long studentId) {
+        List<Long> courseIds = enrollmentMapper.selectCourseIdsMissingCredit(studentId);
+        if (courseIds.isEmpty()) {
+            return;
+        }
+        Map<Long, BigDecimal> credits = new LinkedHashMap<>();
+        remoteDataLoader.getCourses(courseIds).forEach((courseId, course) -> {
+            if (course.credit() != null) {
+                credits.put(courseId, course.credit());
+            }
+        });
+        if (credits.isEmpty()) {
+            log.warn("回填选课学分失败，课程信息不存在: courseIds={}", courseIds);
+            return;
+        }
+        int updated = enrollmentMapper.fillMissingCredits(credits);
+        log.info("选课记录学分已回填: studentId={}, courses={}, updated={}", studentId, credits.size(), updated);
+    }
+    
+    private static BigDecimal totalOf(StudentCreditLedger ledger) {
+        return ledger.getTotalCredits() != null ? ledger.getTotalCredits() : BigDecimal.ZERO;
+    }
+}
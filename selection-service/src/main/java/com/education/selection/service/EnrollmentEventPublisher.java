@@ -0,0 +1,54 @@
+package com.education.selection.service;
+
+import com.education.common.constant.Constants;
+import com.education.common.event.EnrollmentChangeEvent;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+
+/**
+ * 选课关系变更事件发布
+ * 事务提交后先更新本实例的课程成员索引，再通过Redis频道通知其他实例
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class EnrollmentEventPublisher {
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    private final CourseMembershipIndex courseMembershipIndex;
+    
+    public void publishAfterCommit(Long courseId, List<Long> studentIds, String type) {
+        if (courseId == null || studentIds == null || studentIds.isEmpty()) {
+            return;
+        }
+        EnrollmentChangeEvent event = new EnrollmentChangeEvent(courseId, studentIds, type);
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+    
+    private void publish(EnrollmentChangeEvent event) {
+        courseMembershipIndex.apply(event);
+        try {
+            stringRedisTemplate.convertAndSend(Constants.CHANNEL_ENROLLMENT_CHANGED, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // 发布失败不影响选课，其他实例有定时全量重建兜底
+            log.warn("发布选课关系变更事件失败: courseId={}, type={}, error={}", event.getCourseId(), event.getType(), e.getMessage());
+        }
+    }
+}
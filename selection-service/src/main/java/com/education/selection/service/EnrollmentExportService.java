@@ -0,0 +1,146 @@
+package com.education.selection.service;
+
+import com.education.common.dto.CourseView;
+import com.education.common.dto.StudentView;
+import com.education.common.exception.BusinessException;
+import com.education.common.result.Result;
+import com.education.selection.entity.Enrollment;
+import com.education.selection.export.ExportWriter;
+import com.education.selection.feign.CourseServiceClient;
+import com.education.selection.mapper.EnrollmentMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 选课名单/成绩单流式导出
+ * 用数据库游标逐批读取选课记录，每批的学生、课程信息各通过一次批量接口获取，
+ * 读一批写一批，内存占用只与批大小有关，与导出总行数无关
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class EnrollmentExportService {
+    
+    // 每批关联学生、课程信息的行数，与批量接口单次上限一致
+    private static final int BATCH_SIZE = 500;
+    
+    private static final List<String> HEADER = List.of(
+            "选课记录ID", "学号", "姓名", "专业", "班级",
+            "课程ID", "课程代码", "课程名称", "开课院系", "任课教师", "学分",
+            "状态", "成绩", "选课时间");
+    
+    private final EnrollmentMapper enrollmentMapper;
+    private final CourseServiceClient courseServiceClient;
+    private final RemoteDataLoader remoteDataLoader;
+    
+    /**
+     * 解析导出范围内的课程ID
+     * 只按课程导出时直接使用该课程；指定院系或学期（开课日期范围）时向课程服务查询课程ID
+     * @param termStart 学期开始日期（含）
+     * @param termEnd 学期结束日期（含）
+     * @return 课程ID列表，null表示不限课程
+     */
+    public List<Long> resolveCourseIds(Long courseId, String department, LocalDate termStart, LocalDate termEnd) {
+        if (!StringUtils.hasText(department) && termStart == null && termEnd == null) {
+            return courseId != null ? List.of(courseId) : null;
+        }
+        if (termStart != null && termEnd != null && termEnd.isBefore(termStart)) {
+            throw new BusinessException(400, "学期结束日期不能早于开始日期");
+        }
+        
+        Result<List<Long>> result = courseServiceClient.listCourseIds(
+                StringUtils.hasText(department) ? department : null,
+                termStart != null ? termStart.atStartOfDay().toString() : null,
+                termEnd != null ? termEnd.plusDays(1).atStartOfDay().toString() : null);
+        if (result == null || result.getCode() != 200 || result.getData() == null) {
+            log.error("查询导出范围内的课程失败: department={}, term={}~{}, result={}", department, termStart, termEnd, result);
+            throw new BusinessException(500, "查询课程信息失败，请稍后重试");
+        }
+        List<Long> courseIds = result.getData();
+        if (courseId != null) {
+            return courseIds.contains(courseId) ? List.of(courseId) : Collections.emptyList();
+        }
+        return courseIds;
+    }
+    
+    /**
+     * 流式导出选课记录，游标须在同一事务内读完
+     * @param courseIds 课程范围，null表示不限课程
+     * @param status 选课状态，null表示不限状态
+     * @return 导出的行数（不含表头）
+     */
+    @Transactional(readOnly = true)
+    public int export(List<Long> courseIds, Integer status, ExportWriter writer) throws IOException {
+        writer.writeRow(HEADER);
+        int rows = 0;
+        if (courseIds == null || !courseIds.isEmpty()) {
+            List<Enrollment> batch = new ArrayList<>(BATCH_SIZE);
+            try (Cursor<Enrollment> cursor = enrollmentMapper.streamForExport(courseIds, status)) {
+                for (Enrollment enrollment : cursor) {
+                    batch.add(enrollment);
+                    if (batch.size() >= BATCH_SIZE) {
+                        rows += writeBatch(batch, writer);
+                        batch.clear();
+                    }
+                }
+            }
+            rows += writeBatch(batch, writer);
+        }
+        writer.finish();
+        
+        log.info("导出选课记录完成: courses={}, status={}, rows={}",
+                courseIds != null ? courseIds.size() : "全部", status, rows);
+        return rows;
+    }
+    
+    private int writeBatch(List<Enrollment> batch, ExportWriter writer) throws IOException {
+        if (batch.isEmpty()) {
+            return 0;
+        }
+        // 学生信息不走请求内缓存，避免缓存随导出行数增长；课程数量有限，复用请求内缓存
+        Map<Long, StudentView> students = Collections.emptyMap();
+        Map<Long, CourseView> courses = Collections.emptyMap();
+        try {
+            students = remoteDataLoader.getStudentsUncached(batch.stream()
+                    .map(Enrollment::getStudentId).collect(Collectors.toSet()));
+        } catch (Exception e) {
+            log.warn("导出时批量获取学生信息失败: {}", e.getMessage());
+        }
+        try {
+            courses = remoteDataLoader.getCourses(batch.stream()
+                    .map(Enrollment::getCourseId).collect(Collectors.toSet()));
+        } catch (Exception e) {
+            log.warn("导出时批量获取课程信息失败: {}", e.getMessage());
+        }
+        
+        for (Enrollment enrollment : batch) {
+            StudentView student = students.get(enrollment.getStudentId());
+            CourseView course = courses.get(enrollment.getCourseId());
+            writer.writeRow(Arrays.asList(
+                    enrollment.getEnrollmentId(),
+                    student != null ? student.username() : null,
+                    student != null ? student.name() : null,
+                    student != null ? student.major() : null,
+                    student != null ? student.className() : null,
+                    enrollment.getCourseId(),
+                    course != null ? course.courseCode() : null,
+                    course != null ? course.courseName() : null,
+                    course != null ? course.department() : null,
+                    course != null ? course.teacherName() : null,
+                    enrollment.getCredit() != null ? enrollment.getCredit() : (course != null ? course.credit() : null),
+                    enrollment.getStatus() != null && enrollment.getStatus() == 0 ? "已选" : "已退",
+                    enrollment.getScore(),
+                    enrollment.getEnrollmentTime()));
+        }
+        return batch.size();
+    }
+}
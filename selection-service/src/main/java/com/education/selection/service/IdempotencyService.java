@@ -0,0 +1,139 @@
+package com.education.selection.service;
+
+import com.education.common.exception.BusinessException;
+import com.education.common.result.Result;
+import com.education.selection.dto.IdempotencyRecord;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.function.Supplier;
+
+/**
+ * 幂等请求服务
+ * 客户端重试、重复点击时携带相同的Idempotency-Key，只有第一次请求真正执行：
+ * 执行中的重复请求直接返回“处理中”，执行完成后返回保存的结果（包括业务失败），
+ * 系统异常不保存结果，允许客户端用同一个Key重试
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class IdempotencyService {
+    
+    private static final String KEY_PREFIX = "selection:idem:";
+    private static final int MAX_KEY_LENGTH = 128;
+    // 执行中标记的有效期，防止实例宕机后Key一直处于处理中
+    private static final Duration PROCESSING_TTL = Duration.ofSeconds(30);
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${selection.idempotency.ttl-hours:24}")
+    private long ttlHours;
+    
+    /**
+     * 按Idempotency-Key执行请求，没有Key时直接执行
+     * @param studentId   Key按学生隔离
+     * @param fingerprint 请求参数摘要
+     */
+    public Result<?> execute(String idempotencyKey, Long studentId, String fingerprint, Supplier<Result<?>> action) {
+        if (!StringUtils.hasText(idempotencyKey)) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BusinessException(400, "Idempotency-Key过长");
+        }
+        
+        String key = KEY_PREFIX + studentId + ":" + idempotencyKey;
+        IdempotencyRecord processing = new IdempotencyRecord();
+        processing.setStatus(IdempotencyRecord.STATUS_PROCESSING);
+        processing.setFingerprint(fingerprint);
+        processing.setCreatedAt(System.currentTimeMillis());
+        Boolean acquired = redisTemplate.opsForValue().setIfAbsent(key, processing, PROCESSING_TTL);
+        if (!Boolean.TRUE.equals(acquired)) {
+            return replay(key, fingerprint);
+        }
+        
+        Result<?> result;
+        try {
+            result = action.get();
+        } catch (BusinessException e) {
+            if (e.getCode() != null && e.getCode() < 500) {
+                // 业务校验失败（已满、已选、学分超限等）同样保存，重试时返回相同结果
+                complete(key, fingerprint, e.getCode(), e.getMessage(), null);
+            } else {
+                redisTemplate.delete(key);
+            }
+            throw e;
+        } catch (RuntimeException e) {
+            redisTemplate.delete(key);
+            throw e;
+        }
+        if (result == null || result.getCode() == null) {
+            // 没有明确的结果码，不能作为最终结果保存，允许客户端用同一个Key重试
+            redisTemplate.delete(key);
+            return result;
+        }
+        complete(key, fingerprint, result.getCode(), result.getMessage(), result.getData());
+        return result;
+    }
+    
+    private Result<?> replay(String key, String fingerprint) {
+        IdempotencyRecord record = get(key);
+        if (record == null) {
+            // 刚好过期或被删除（上一次执行出现系统异常）
+            throw new BusinessException(409, "请求状态已变化，请重新提交");
+        }
+        if (!fingerprint.equals(record.getFingerprint())) {
+            throw new BusinessException(422, "Idempotency-Key已用于其他请求");
+        }
+        if (IdempotencyRecord.STATUS_PROCESSING.equals(record.getStatus())) {
+            log.debug("重复请求，原请求处理中: key={}", key);
+            return new Result<>(202, "请求正在处理中，请稍后查询结果", null);
+        }
+        Integer code = record.getCode();
+        if (code == null) {
+            // 缺少结果码的记录不是确定的结果，删除后让客户端重新提交
+            log.warn("幂等记录缺少结果码，已删除: key={}", key);
+            redisTemplate.delete(key);
+            throw new BusinessException(409, "请求状态已变化，请重新提交");
+        }
+        log.debug("重复请求，返回已保存的结果: key={}, code={}", key, code);
+        if (code != 200) {
+            throw new BusinessException(code, record.getMessage());
+        }
+        return new Result<>(code, record.getMessage(), record.getData());
+    }
+    
+    private void complete(String key, String fingerprint, Integer code, String message, Object data) {
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setStatus(IdempotencyRecord.STATUS_COMPLETED);
+        record.setFingerprint(fingerprint);
+        record.setCode(code);
+        record.setMessage(message);
+        record.setData(data);
+        record.setCreatedAt(System.currentTimeMillis());
+        try {
+            redisTemplate.opsForValue().set(key, record, Duration.ofHours(ttlHours));
+        } catch (Exception e) {
+            log.warn("保存幂等结果失败: key={}, error={}", key, e.getMessage());
+            redisTemplate.delete(key);
+        }
+    }
+    
+    private IdempotencyRecord get(String key) {
+        Object cached = redisTemplate.opsForValue().get(key);
+        if (cached instanceof IdempotencyRecord) {
+            return (IdempotencyRecord) cached;
+        } else if (cached instanceof LinkedHashMap) {
+            return objectMapper.convertValue(cached, IdempotencyRecord.class);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,163 @@
+package com.education.selection.service;
+
+import com.education.common.constant.Constants;
+import com.education.selection.entity.SelectionOutbox;
+import com.education.selection.mapper.SelectionOutboxMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.connection.CorrelationData;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.amqp.support.converter.MessageConversionException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 发件箱中继
+ * 定时锁定一批待发送消息（FOR UPDATE SKIP LOCKED，多实例互不重复），
+ * 全部投递到selection.exchange后统一等待publisher confirm，确认成功的标记为已发送，
+ * 其余记录失败次数留待下一轮重试（消费方需要容忍极少数情况下的重复投递）；
+ * 整批都没有收到确认时视为broker不可用，未确认的消息不计入失败次数
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OutboxRelay {
+    
+    // 单条消息最多失败次数，超过后标记为发送失败，避免阻塞后续消息
+    private static final int MAX_ATTEMPTS = 10;
+    // 单次调度最多处理的批数，其余留给下一轮
+    private static final int MAX_BATCHES_PER_RUN = 20;
+    private static final int CLEANUP_BATCH_SIZE = 5000;
+    
+    private final SelectionOutboxMapper outboxMapper;
+    private final RabbitTemplate rabbitTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${selection.outbox.batch-size:200}")
+    private int batchSize;
+    
+    @Value("${selection.outbox.confirm-timeout-ms:5000}")
+    private long confirmTimeoutMs;
+    
+    @Value("${selection.outbox.retention-days:7}")
+    private long retentionDays;
+    
+    @Scheduled(fixedDelayString = "${selection.outbox.relay-interval-ms:500}")
+    public void relay() {
+        for (int i = 0; i < MAX_BATCHES_PER_RUN; i++) {
+            Integer sent;
+            try {
+                sent = transactionTemplate.execute(status -> relayBatch());
+            } catch (Exception e) {
+                log.warn("发件箱消息投递失败，稍后重试: {}", e.getMessage());
+                return;
+            }
+            // 本批没有全部发送成功或已经取空，等待下一轮
+            if (sent == null || sent < batchSize) {
+                return;
+            }
+        }
+    }
+    
+    /**
+     * 投递一批消息，返回发送成功的消息数
+     * 单条消息的失败（无法解析、无法路由、被broker拒绝）计入失败次数，超过上限后不再重试，不会堵住后续消息；
+     * 已发出的消息一条确认都没有收到时视为broker不可用，这些消息不计入失败次数，下一轮原样重试
+     */
+    private int relayBatch() {
+        List<SelectionOutbox> messages = outboxMapper.lockPending(batchSize);
+        if (messages.isEmpty()) {
+            return 0;
+        }
+        
+        Map<Long, CorrelationData> pending = new LinkedHashMap<>();
+        List<Long> failed = new ArrayList<>();
+        List<Long> unconfirmed = new ArrayList<>();
+        for (SelectionOutbox message : messages) {
+            Map<?, ?> payload;
+            try {
+                payload = objectMapper.readValue(message.getPayload(), LinkedHashMap.class);
+            } catch (Exception e) {
+                log.warn("发件箱消息无法解析: id={}, error={}", message.getId(), e.getMessage());
+                failed.add(message.getId());
+                continue;
+            }
+            CorrelationData correlation = new CorrelationData(String.valueOf(message.getId()));
+            try {
+                rabbitTemplate.convertAndSend(Constants.EXCHANGE_SELECTION, message.getRoutingKey(), payload, correlation);
+                pending.put(message.getId(), correlation);
+            } catch (MessageConversionException e) {
+                log.warn("发件箱消息无法转换: id={}, error={}", message.getId(), e.getMessage());
+                failed.add(message.getId());
+            } catch (Exception e) {
+                log.warn("发件箱消息发送失败: id={}, error={}", message.getId(), e.getMessage());
+                unconfirmed.add(message.getId());
+            }
+        }
+        
+        // 整批发出后统一等待确认，broker一次确认多条
+        List<Long> sent = new ArrayList<>(pending.size());
+        int confirmed = 0;
+        long deadline = System.currentTimeMillis() + confirmTimeoutMs;
+        for (Map.Entry<Long, CorrelationData> entry : pending.entrySet()) {
+            CorrelationData correlation = entry.getValue();
+            CorrelationData.Confirm confirm;
+            try {
+                long wait = Math.max(deadline - System.currentTimeMillis(), 1);
+                confirm = correlation.getFuture().get(wait, TimeUnit.MILLISECONDS);
+            } catch (Exception e) {
+                log.warn("等待发件箱消息确认超时: id={}", entry.getKey());
+                unconfirmed.add(entry.getKey());
+                continue;
+            }
+            confirmed++;
+            if (confirm.isAck() && correlation.getReturned() == null) {
+                sent.add(entry.getKey());
+            } else {
+                log.warn("发件箱消息未被确认: id={}, reason={}", entry.getKey(),
+                    correlation.getReturned() != null ? "无法路由" : confirm.getReason());
+                failed.add(entry.getKey());
+            }
+        }
+        
+        if (confirmed == 0 && !unconfirmed.isEmpty()) {
+            log.warn("RabbitMQ不可用，本批消息均未确认，稍后重试: count={}", unconfirmed.size());
+        } else {
+            // broker可用时，个别未确认的消息同样计入失败次数
+            failed.addAll(unconfirmed);
+        }
+        if (!sent.isEmpty()) {
+            outboxMapper.markSent(sent);
+        }
+        if (!failed.isEmpty()) {
+            outboxMapper.markFailed(failed, MAX_ATTEMPTS);
+        }
+        log.debug("发件箱消息已投递: total={}, sent={}, failed={}", messages.size(), sent.size(), failed.size());
+        return sent.size();
+    }
+    
+    /**
+     * 清理已发送的历史消息
+     */
+    @Scheduled(cron = "${selection.outbox.cleanup-cron:0 0 4 * * ?}")
+    public void cleanup() {
+        LocalDateTime before = LocalDateTime.now().minusDays(retentionDays);
+        int total = 0;
+        int deleted;
+        do {
+            deleted = outboxMapper.deleteSentBefore(before, CLEANUP_BATCH_SIZE);
+            total += deleted;
+        } while (deleted >= CLEANUP_BATCH_SIZE);
+        if (total > 0) {
+            log.info("已清理发件箱历史消息: count={}, before={}", total, before);
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package com.education.selection.service;
+
+import com.education.common.dto.CourseView;
+import com.education.common.dto.StudentView;
+import com.education.common.result.Result;
+import com.education.selection.feign.CourseServiceClient;
+import com.education.selection.feign.StudentServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * 课程/学生信息批量加载器
+ * 调用方先收集一批ID，再通过一次批量接口查询，避免逐条Feign调用（N+1）
+ * 在HTTP请求内，结果缓存在请求属性中，同一请求内重复查询同一ID不会再次远程调用；
+ * 在消息消费等非请求线程中，每次调用独立查询
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class RemoteDataLoader {
+    
+    private static final String COURSE_CACHE_ATTR = RemoteDataLoader.class.getName() + ".courses";
+    private static final String STUDENT_CACHE_ATTR = RemoteDataLoader.class.getName() + ".students";
+    
+    // 与课程服务、学生服务批量接口的单次上限保持一致
+    private static final int BATCH_SIZE = 500;
+    
+    private final CourseServiceClient courseServiceClient;
+    private final StudentServiceClient studentServiceClient;
+    
+    /**
+     * 批量获取课程信息，返回的Map中只包含存在的课程
+     */
+    public Map<Long, CourseView> getCourses(Collection<Long> courseIds) {
+        return load(requestCache(COURSE_CACHE_ATTR), courseIds, courseServiceClient::getCoursesByIds, CourseView::courseId);
+    }
+    
+    /**
+     * 获取单个课程信息（不存在时返回null）
+     */
+    public CourseView getCourse(Long courseId) {
+        return getCourses(Collections.singletonList(courseId)).get(courseId);
+    }
+    
+    /**
+     * 批量获取学生信息，返回的Map中只包含存在的学生
+     */
+    public Map<Long, StudentView> getStudents(Collection<Long> studentIds) {
+        return load(requestCache(STUDENT_CACHE_ATTR), studentIds, studentServiceClient::getStudentsByIds, StudentView::studentId);
+    }
+    
+    /**
+     * 批量获取学生信息，不写入请求内缓存
+     * 用于流式导出等一次请求处理大量学生的场景，避免缓存随导出行数增长
+     */
+    public Map<Long, StudentView> getStudentsUncached(Collection<Long> studentIds) {
+        return load(new HashMap<>(), studentIds, studentServiceClient::getStudentsByIds, StudentView::studentId);
+    }
+    
+    /**
+     * 获取单个学生信息（不存在时返回null）
+     */
+    public StudentView getStudent(Long studentId) {
+        return getStudents(Collections.singletonList(studentId)).get(studentId);
+    }
+    
+    private <T> Map<Long, T> load(Map<Long, Optional<T>> cache, Collection<Long> ids,
+                                  Function<List<Long>, Result<List<T>>> batchCall,
+                                  Function<T, Long> idGetter) {
+        Set<Long> pending = new LinkedHashSet<>();
+        for (Long id : ids) {
+            if (id != null && !cache.containsKey(id)) {
+                pending.add(id);
+            }
+        }
+        List<Long> missing = new ArrayList<>(pending);
+        
+        for (int from = 0; from < missing.size(); from += BATCH_SIZE) {
+            List<Long> chunk = missing.subList(from, Math.min(from + BATCH_SIZE, missing.size()));
+            Result<List<T>> result = batchCall.apply(new ArrayList<>(chunk));
+            if (result == null || result.getCode() != 200 || result.getData() == null) {
+                log.warn("批量查询失败: ids={}, result={}", chunk, result);
+                continue;
+            }
+            for (T item : result.getData()) {
+                Long id = item != null ? idGetter.apply(item) : null;
+                if (id != null) {
+                    cache.put(id, Optional.of(item));
+                }
+            }
+            // 查询成功但未返回的ID记为不存在，避免重复查询
+            for (Long id : chunk) {
+                cache.putIfAbsent(id, Optional.empty());
+            }
+        }
+        
+        Map<Long, T> found = new HashMap<>();
+        for (Long id : ids) {
+            Optional<T> item = id != null ? cache.get(id) : null;
+            if (item != null && item.isPresent()) {
+                found.put(id, item.get());
+            }
+        }
+        return found;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private <T> Map<Long, Optional<T>> requestCache(String cacheAttr) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new HashMap<>();
+        }
+        Object cache = attributes.getAttribute(cacheAttr, RequestAttributes.SCOPE_REQUEST);
+        if (cache == null) {
+            cache = new HashMap<Long, Optional<T>>();
+            attributes.setAttribute(cacheAttr, cache, RequestAttributes.SCOPE_REQUEST);
+        }
+        return (Map<Long, Optional<T>>) cache;
+    }
+}
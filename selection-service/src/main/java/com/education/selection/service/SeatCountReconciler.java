@@ -0,0 +1,278 @@
+package com.education.selection.service;
+
+import com.education.common.dto.CourseView;
+import com.education.common.result.Result;
+import com.education.selection.feign.CourseServiceClient;
+import com.education.selection.mapper.EnrollmentMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 选课人数核对
+ * courses.selected_count由座位库存增量回写和退课时的远程调用维护，调用失败会产生偏差。
+ * 定时按水位线找出有变更的选课记录涉及的课程，在数据库内按课程统计已选人数，
+ * 与course-service中的选课人数（加上尚未回写的增量）批量比对，偏差通过一次批量调整修正；
+ * 同时按 容量 - 已选学生数 核对Redis中的剩余座位
+ * 选课进行中的课程数据可能暂时不一致，同一偏差需要连续两轮核对都出现才修正
+ */
+@Slf4j
+@Service
+public class SeatCountReconciler {
+    
+    private static final String WATERMARK_KEY = "seat:reconcile:watermark";
+    // 上一轮发现偏差、待下一轮确认的课程：courseId -> "人数偏差,座位偏差"
+    private static final String SUSPECT_KEY = "seat:reconcile:suspect";
+    private static final String LOCK_KEY = "seat:reconcile:lock";
+    private static final Duration LOCK_TTL = Duration.ofMinutes(5);
+    // 与课程服务批量接口单次上限保持一致
+    private static final int BATCH_SIZE = 500;
+    
+    private static final String TYPE_SELECTED_COUNT = "selected_count";
+    private static final String TYPE_SEAT_STOCK = "seat_stock";
+    
+    private final EnrollmentMapper enrollmentMapper;
+    private final CourseServiceClient courseServiceClient;
+    private final RemoteDataLoader remoteDataLoader;
+    private final SeatInventoryService seatInventoryService;
+    private final StringRedisTemplate stringRedisTemplate;
+    private final MeterRegistry meterRegistry;
+    
+    private final Timer runTimer;
+    private final Counter checkedCounter;
+    private final AtomicInteger suspectGauge = new AtomicInteger();
+    
+    @Value("${selection.reconcile.settle-seconds:10}")
+    private long settleSeconds;
+    
+    public SeatCountReconciler(EnrollmentMapper enrollmentMapper, CourseServiceClient courseServiceClient,
+                               RemoteDataLoader remoteDataLoader, SeatInventoryService seatInventoryService,
+                               StringRedisTemplate stringRedisTemplate, MeterRegistry meterRegistry) {
+        this.enrollmentMapper = enrollmentMapper;
+        this.courseServiceClient = courseServiceClient;
+        this.remoteDataLoader = remoteDataLoader;
+        this.seatInventoryService = seatInventoryService;
+        this.stringRedisTemplate = stringRedisTemplate;
+        this.meterRegistry = meterRegistry;
+        this.runTimer = Timer.builder("selection.seat.reconcile.duration")
+                .description("选课人数核对耗时")
+                .register(meterRegistry);
+        this.checkedCounter = Counter.builder("selection.seat.reconcile.checked")
+                .description("核对的课程数")
+                .register(meterRegistry);
+        meterRegistry.gauge("selection.seat.reconcile.suspects", suspectGauge);
+    }
+    
+    /**
+     * 增量核对：只核对上次水位线之后有选课记录变更的课程
+     */
+    @Scheduled(initialDelayString = "${selection.reconcile.interval-ms:60000}",
+               fixedDelayString = "${selection.reconcile.interval-ms:60000}")
+    public void reconcileChanged() {
+        runExclusively(false);
+    }
+    
+    /**
+     * 全量核对：兜底选课记录没有变化、但course-service中的人数被改动的情况
+     */
+    @Scheduled(cron = "${selection.reconcile.full-cron:0 0 4 * * ?}")
+    public void reconcileAll() {
+        runExclusively(true);
+    }
+    
+    /**
+     * 多实例下同一时间只有一个实例执行核对
+     * @return 修正的课程数，其他实例正在核对时返回-1
+     */
+    public int runExclusively(boolean full) {
+        String token = UUID.randomUUID().toString();
+        Boolean locked = stringRedisTemplate.opsForValue().setIfAbsent(LOCK_KEY, token, LOCK_TTL);
+        if (!Boolean.TRUE.equals(locked)) {
+            log.debug("其他实例正在核对选课人数，跳过本轮");
+            return -1;
+        }
+        try {
+            return runTimer.record(() -> reconcile(full));
+        } catch (Exception e) {
+            log.error("核对选课人数失败", e);
+            return 0;
+        } finally {
+            if (token.equals(stringRedisTemplate.opsForValue().get(LOCK_KEY))) {
+                stringRedisTemplate.delete(LOCK_KEY);
+            }
+        }
+    }
+    
+    private int reconcile(boolean full) {
+        meterRegistry.counter("selection.seat.reconcile.runs", "mode", full ? "full" : "incremental").increment();
+        
+        // 最近仍有变更的选课记录可能还没有回写，留到下一轮
+        LocalDateTime until = LocalDateTime.now().minusSeconds(settleSeconds).truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime since = full ? null : readWatermark();
+        
+        Set<Long> courseIds = new LinkedHashSet<>(since == null
+                ? enrollmentMapper.selectAllCourseIds()
+                : enrollmentMapper.selectCourseIdsUpdatedBetween(since, until));
+        Map<Long, String> suspects = readSuspects();
+        courseIds.addAll(suspects.keySet());
+        if (courseIds.isEmpty()) {
+            writeWatermark(until);
+            suspectGauge.set(0);
+            return 0;
+        }
+        Set<Long> unsettled = new HashSet<>(enrollmentMapper.selectCourseIdsUpdatedSince(until));
+        
+        // 先回写已累积的增量，尽量缩小course-service与数据库之间的正常差异
+        seatInventoryService.flushSelectedCounts();
+        
+        Map<Long, String> nextSuspects = new HashMap<>();
+        Map<Long, Integer> corrections = new LinkedHashMap<>();
+        int stockFixed = 0;
+        List<Long> ids = new ArrayList<>(courseIds);
+        for (int from = 0; from < ids.size(); from += BATCH_SIZE) {
+            List<Long> chunk = new ArrayList<>();
+            for (Long courseId : ids.subList(from, Math.min(from + BATCH_SIZE, ids.size()))) {
+                if (unsettled.contains(courseId)) {
+                    nextSuspects.put(courseId, suspects.getOrDefault(courseId, ""));
+                } else {
+                    chunk.add(courseId);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                stockFixed += checkChunk(chunk, suspects, nextSuspects, corrections);
+            }
+        }
+        
+        int countFixed = applyCorrections(corrections, nextSuspects);
+        writeSuspects(nextSuspects);
+        writeWatermark(until);
+        suspectGauge.set(nextSuspects.size());
+        
+        log.info("选课人数核对完成: mode={}, since={}, courses={}, selectedCountFixed={}, stockFixed={}, suspects={}",
+            full ? "full" : "incremental", since, ids.size(), countFixed, stockFixed, nextSuspects.size());
+        return countFixed + stockFixed;
+    }
+    
+    /**
+     * 核对一批课程，记录待修正的人数偏差，直接修正已确认的座位偏差
+     * @return 修正了剩余座位的课程数
+     */
+    private int checkChunk(List<Long> courseIds, Map<Long, String> suspects,
+                           Map<Long, String> nextSuspects, Map<Long, Integer> corrections) {
+        Map<Long, Integer> activeCounts = new HashMap<>();
+        for (Map<String, Object> row : enrollmentMapper.countActiveByCourseIds(courseIds)) {
+            activeCounts.put(((Number) row.get("course_id")).longValue(), ((Number) row.get("active_count")).intValue());
+        }
+        Map<Long, CourseView> courses = remoteDataLoader.getCourses(courseIds);
+        Map<Long, Integer> pendingDeltas = seatInventoryService.getPendingDeltas(courseIds);
+        checkedCounter.increment(courseIds.size());
+        
+        int stockFixed = 0;
+        for (Long courseId : courseIds) {
+            CourseView course = courses.get(courseId);
+            if (course == null) {
+                // 课程已删除或课程服务暂不可用，不做判断
+                continue;
+            }
+            int active = activeCounts.getOrDefault(courseId, 0);
+            int recorded = (course.selectedCount() != null ? course.selectedCount() : 0)
+                    + pendingDeltas.getOrDefault(courseId, 0);
+            int countDrift = recorded - active;
+            Integer stockDrift = seatInventoryService.reconcileStock(courseId, course.totalCapacity(), null);
+            boolean stockDrifting = stockDrift != null && stockDrift != 0;
+            if (countDrift == 0 && !stockDrifting) {
+                continue;
+            }
+            
+            String observation = countDrift + "," + (stockDrifting ? stockDrift : 0);
+            if (!observation.equals(suspects.get(courseId))) {
+                // 第一次发现或偏差已变化，下一轮再确认
+                nextSuspects.put(courseId, observation);
+                continue;
+            }
+            if (countDrift != 0) {
+                corrections.put(courseId, -countDrift);
+            }
+            if (stockDrifting) {
+                Integer current = seatInventoryService.reconcileStock(courseId, course.totalCapacity(), stockDrift);
+                if (stockDrift.equals(current)) {
+                    stockFixed++;
+                    recordDrift(TYPE_SEAT_STOCK, stockDrift);
+                    log.warn("课程剩余座位有偏差，已修正: courseId={}, drift={}", courseId, stockDrift);
+                }
+            }
+        }
+        return stockFixed;
+    }
+    
+    /**
+     * 通过一次批量调整修正course-service中的选课人数，失败的课程下一轮重新核对
+     * @return 修正的课程数
+     */
+    private int applyCorrections(Map<Long, Integer> corrections, Map<Long, String> nextSuspects) {
+        if (corrections.isEmpty()) {
+            return 0;
+        }
+        try {
+            Result<Integer> result = courseServiceClient.adjustSelectedCounts(corrections);
+            if (result == null || result.getCode() != 200) {
+                throw new IllegalStateException(result != null ? result.getMessage() : "无响应");
+            }
+        } catch (Exception e) {
+            log.warn("修正选课人数失败，下一轮重新核对: corrections={}, error={}", corrections, e.getMessage());
+            corrections.keySet().forEach(courseId -> nextSuspects.put(courseId, ""));
+            return 0;
+        }
+        corrections.forEach((courseId, delta) -> {
+            recordDrift(TYPE_SELECTED_COUNT, delta);
+            log.warn("课程选课人数有偏差，已修正: courseId={}, delta={}", courseId, delta);
+        });
+        return corrections.size();
+    }
+    
+    private void recordDrift(String type, int drift) {
+        meterRegistry.counter("selection.seat.reconcile.corrections", "type", type).increment();
+        DistributionSummary.builder("selection.seat.reconcile.drift")
+                .description("修正的偏差大小（绝对值）")
+                .tag("type", type)
+                .register(meterRegistry)
+                .record(Math.abs(drift));
+    }
+    
+    private LocalDateTime readWatermark() {
+        String value = stringRedisTemplate.opsForValue().get(WATERMARK_KEY);
+        return value != null ? LocalDateTime.parse(value) : null;
+    }
+    
+    private void writeWatermark(LocalDateTime watermark) {
+        stringRedisTemplate.opsForValue().set(WATERMARK_KEY, watermark.toString());
+    }
+    
+    private Map<Long, String> readSuspects() {
+        Map<Long, String> suspects = new HashMap<>();
+        stringRedisTemplate.opsForHash().entries(SUSPECT_KEY)
+            .forEach((courseId, observation) -> suspects.put(Long.valueOf(courseId.toString()), observation.toString()));
+        return suspects;
+    }
+    
+    private void writeSuspects(Map<Long, String> suspects) {
+        stringRedisTemplate.delete(SUSPECT_KEY);
+        if (!suspects.isEmpty()) {
+            Map<String, String> values = new HashMap<>();
+            suspects.forEach((courseId, observation) -> values.put(String.valueOf(courseId), observation));
+            stringRedisTemplate.opsForHash().putAll(SUSPECT_KEY, values);
+        }
+    }
+}
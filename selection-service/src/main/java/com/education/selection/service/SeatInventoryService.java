@@ -0,0 +1,337 @@
+package com.education.selection.service;
+
+import com.education.common.result.Result;
+import com.education.selection.feign.CourseServiceClient;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.*;
+import java.util.stream.Collectors;
+
+/**
+ * 座位库存服务
+ * 每门课程的剩余座位保存在Redis中，选课时通过一个Lua脚本原子地完成：
+ * 容量检查、重复选检查、学分上限检查、扣减库存
+ * 选课人数的变化先累积在Redis增量表中，由定时任务批量回写course-service（MySQL）
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SeatInventoryService {
+    
+    private static final String INVENTORY_PREFIX = "seat:inv:";
+    private static final String MEMBERS_PREFIX = "seat:members:";
+    private static final String CREDITS_PREFIX = "seat:credits:";
+    private static final String DIRTY_KEY = "seat:dirty";
+    private static final String CAPACITY_EVENT_PREFIX = "seat:capacity:event:";
+    private static final long CAPACITY_EVENT_TTL_SECONDS = 3600;
+    // 与course-service批量接口的单次上限保持一致
+    private static final int FLUSH_BATCH_SIZE = 500;
+    // 一次补位最多跳过的队首学生（已选上或队首被并发修改）
+    private static final int MAX_PROMOTE_ATTEMPTS = 100;
+    
+    // 学分以“学分*10”的整数形式存储，避免Lua中的浮点误差
+    private static final BigDecimal CREDIT_SCALE = BigDecimal.TEN;
+    
+    private static final DefaultRedisScript<Long> RESERVE_SCRIPT = loadScript("lua/seat_reserve.lua", Long.class);
+    private static final DefaultRedisScript<Long> RELEASE_SCRIPT = loadScript("lua/seat_release.lua", Long.class);
+    private static final DefaultRedisScript<Long> WARM_SCRIPT = loadScript("lua/seat_warm.lua", Long.class);
+    private static final DefaultRedisScript<Long> CAPACITY_SCRIPT = loadScript("lua/seat_capacity.lua", Long.class);
+    private static final DefaultRedisScript<Long> RECONCILE_SCRIPT = loadScript("lua/seat_reconcile.lua", Long.class);
+    private static final DefaultRedisScript<Long> CREDITS_ADJUST_SCRIPT = loadScript("lua/seat_credits_adjust.lua", Long.class);
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> PROMOTE_SCRIPT = loadScript("lua/seat_promote.lua", List.class);
+    @SuppressWarnings("rawtypes")
+    private static final DefaultRedisScript<List> DRAIN_SCRIPT = loadScript("lua/seat_drain.lua", List.class);
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final CourseServiceClient courseServiceClient;
+    
+    /**
+     * 座位预占结果
+     */
+    public enum ReserveResult {
+        SUCCESS, FULL, DUPLICATE, CREDIT_EXCEEDED, COURSE_NOT_WARMED, CREDITS_NOT_WARMED;
+        
+        static ReserveResult of(Long code) {
+            if (code == null) {
+                return COURSE_NOT_WARMED;
+            }
+            switch (code.intValue()) {
+                case 1: return SUCCESS;
+                case 0: return FULL;
+                case 2: return DUPLICATE;
+                case 3: return CREDIT_EXCEEDED;
+                case -2: return CREDITS_NOT_WARMED;
+                default: return COURSE_NOT_WARMED;
+            }
+        }
+    }
+    
+    /**
+     * 座位释放结果
+     */
+    public enum ReleaseResult {
+        RELEASED, NOT_MEMBER, COURSE_NOT_WARMED
+    }
+    
+    /**
+     * 候补补位结果
+     */
+    public enum PromoteStatus {
+        PROMOTED, CREDIT_EXCEEDED, NO_SEAT, COURSE_NOT_WARMED, CREDITS_NOT_WARMED
+    }
+    
+    /**
+     * @param studentId 被补位（或被移出候补）的学生，没有时为null
+     * @param joinedAt  学生加入候补的时间，补位后写库失败时用于放回原位置
+     */
+    public record Promotion(PromoteStatus status, Long studentId, Double joinedAt) {
+    }
+    
+    /**
+     * 预占座位（一次Redis往返完成所有检查）
+     */
+    public ReserveResult tryReserve(Long studentId, Long courseId, BigDecimal maxCredits) {
+        Long code = stringRedisTemplate.execute(RESERVE_SCRIPT, seatKeys(studentId, courseId),
+                String.valueOf(studentId), String.valueOf(courseId), String.valueOf(toTenths(maxCredits)));
+        ReserveResult result = ReserveResult.of(code);
+        log.debug("座位预占: studentId={}, courseId={}, result={}", studentId, courseId, result);
+        return result;
+    }
+    
+    /**
+     * 释放座位（退课、选课事务回滚）
+     */
+    public ReleaseResult release(Long studentId, Long courseId) {
+        Long code = stringRedisTemplate.execute(RELEASE_SCRIPT, seatKeys(studentId, courseId),
+                String.valueOf(studentId), String.valueOf(courseId));
+        if (code == null || code < 0) {
+            return ReleaseResult.COURSE_NOT_WARMED;
+        }
+        ReleaseResult result = code == 1 ? ReleaseResult.RELEASED : ReleaseResult.NOT_MEMBER;
+        log.debug("座位释放: studentId={}, courseId={}, result={}", studentId, courseId, result);
+        return result;
+    }
+    
+    /**
+     * 候补补位：课程有空位时把候补队列队首的学生原子地移入已选名单（同样检查学分上限）
+     * 脚本访问的key都通过KEYS传入：先读取队首学生，把其学分key一并传给脚本，脚本内确认队首未变化后再补位
+     */
+    public Promotion promote(Long courseId, String waitlistKey, BigDecimal maxCredits) {
+        String maxTenths = String.valueOf(toTenths(maxCredits));
+        for (int attempt = 0; attempt < MAX_PROMOTE_ATTEMPTS; attempt++) {
+            Set<String> head = stringRedisTemplate.opsForZSet().range(waitlistKey, 0, 0);
+            String candidate = head == null || head.isEmpty() ? "" : head.iterator().next();
+            List<String> keys = new ArrayList<>(Arrays.asList(
+                    INVENTORY_PREFIX + courseId, MEMBERS_PREFIX + courseId, DIRTY_KEY, waitlistKey));
+            if (!candidate.isEmpty()) {
+                keys.add(CREDITS_PREFIX + candidate);
+            }
+            @SuppressWarnings("unchecked")
+            List<Object> result = stringRedisTemplate.execute(PROMOTE_SCRIPT, keys,
+                    String.valueOf(courseId), maxTenths, candidate);
+            if (result == null || result.isEmpty()) {
+                return new Promotion(PromoteStatus.COURSE_NOT_WARMED, null, null);
+            }
+            Long studentId = result.size() > 1 ? Long.valueOf(result.get(1).toString()) : null;
+            Double joinedAt = result.size() > 2 ? Double.valueOf(result.get(2).toString()) : null;
+            switch (Integer.parseInt(result.get(0).toString())) {
+                case 1: return new Promotion(PromoteStatus.PROMOTED, studentId, joinedAt);
+                case 2:
+                    // 队首学生已选上并移出候补，继续处理下一名
+                case 4:
+                    // 读取队首后队列被并发修改，重新读取
+                    continue;
+                case 3: return new Promotion(PromoteStatus.CREDIT_EXCEEDED, studentId, null);
+                case -2: return new Promotion(PromoteStatus.CREDITS_NOT_WARMED, studentId, null);
+                case -1: return new Promotion(PromoteStatus.COURSE_NOT_WARMED, null, null);
+                default: return new Promotion(PromoteStatus.NO_SEAT, null, null);
+            }
+        }
+        log.warn("候补补位重试次数过多，本轮跳过: courseId={}", courseId);
+        return new Promotion(PromoteStatus.NO_SEAT, null, null);
+    }
+    
+    /**
+     * 课程容量变化时调整剩余座位
+     * @param eventId 课程变更事件ID，同一事件在多个实例上只调整一次
+     * @return 本次调用完成调整时返回true
+     */
+    public boolean adjustCapacity(Long courseId, int delta, String eventId) {
+        Long code = stringRedisTemplate.execute(CAPACITY_SCRIPT,
+                Arrays.asList(INVENTORY_PREFIX + courseId, CAPACITY_EVENT_PREFIX + courseId + ":" + eventId),
+                String.valueOf(delta), String.valueOf(CAPACITY_EVENT_TTL_SECONDS));
+        boolean adjusted = code != null && code == 1;
+        if (adjusted) {
+            log.info("课程容量变化，座位库存已调整: courseId={}, delta={}", courseId, delta);
+        }
+        return adjusted;
+    }
+    
+    /**
+     * 预热课程库存
+     * 剩余座位 = total_capacity - 已选学生数，已选学生名单来自enrollments
+     * 不使用course-service的selected_count：其中不含尚未回写的增量，回写延迟或失败时会算多剩余座位
+     * 与seat_reconcile.lua核对的不变式一致；如果库存已存在则不覆盖
+     */
+    public boolean warmCourse(Long courseId, Integer totalCapacity, BigDecimal credit, Collection<Long> activeStudentIds) {
+        int capacity = totalCapacity != null ? totalCapacity : 0;
+        int stock = Math.max(capacity - activeStudentIds.size(), 0);
+        
+        List<String> args = new ArrayList<>(activeStudentIds.size() + 2);
+        args.add(String.valueOf(stock));
+        args.add(String.valueOf(toTenths(credit)));
+        for (Long studentId : activeStudentIds) {
+            args.add(String.valueOf(studentId));
+        }
+        Long code = stringRedisTemplate.execute(WARM_SCRIPT,
+                Arrays.asList(INVENTORY_PREFIX + courseId, MEMBERS_PREFIX + courseId), args.toArray());
+        boolean warmed = code != null && code == 1;
+        if (warmed) {
+            log.info("课程库存已预热: courseId={}, totalCapacity={}, stock={}, members={}",
+                courseId, capacity, stock, activeStudentIds.size());
+        }
+        return warmed;
+    }
+    
+    /**
+     * 预热学生已选学分
+     */
+    public void warmCredits(Long studentId, BigDecimal totalCredits) {
+        stringRedisTemplate.opsForValue()
+            .setIfAbsent(CREDITS_PREFIX + studentId, String.valueOf(toTenths(totalCredits)));
+    }
+    
+    /**
+     * 按台账校正量增减学生已选学分缓存（缓存不存在时不处理，下次预热读取台账）
+     * 不能删除后重新预热：缓存中包含已预占、尚未落库的学分
+     */
+    public void adjustCredits(Long studentId, BigDecimal delta) {
+        stringRedisTemplate.execute(CREDITS_ADJUST_SCRIPT,
+                Collections.singletonList(CREDITS_PREFIX + studentId), String.valueOf(toTenths(delta)));
+    }
+    
+    /**
+     * 清除学生已选学分缓存
+     */
+    public void evictCredits(Long studentId) {
+        stringRedisTemplate.delete(CREDITS_PREFIX + studentId);
+    }
+    
+    /**
+     * 清除课程库存（下次选课时按最新数据重新预热）
+     * 清除前先回写待处理的增量，保证course-service的selected_count与已选名单一致
+     */
+    public void evictCourse(Long courseId) {
+        flushSelectedCounts();
+        stringRedisTemplate.delete(Arrays.asList(INVENTORY_PREFIX + courseId, MEMBERS_PREFIX + courseId));
+        log.info("课程库存已清除: courseId={}", courseId);
+    }
+    
+    /**
+     * 查询课程剩余座位（未预热时返回null）
+     */
+    public Integer getStock(Long courseId) {
+        Object stock = stringRedisTemplate.opsForHash().get(INVENTORY_PREFIX + courseId, "stock");
+        return stock != null ? Integer.valueOf(stock.toString()) : null;
+    }
+    
+    /**
+     * 查询尚未回写course-service的选课人数增量
+     * @return courseId -> 增量，没有待回写增量的课程不返回
+     */
+    public Map<Long, Integer> getPendingDeltas(Collection<Long> courseIds) {
+        List<Long> ids = new ArrayList<>(courseIds);
+        List<Object> values = stringRedisTemplate.opsForHash().multiGet(DIRTY_KEY,
+                ids.stream().map(String::valueOf).collect(Collectors.toList()));
+        Map<Long, Integer> deltas = new HashMap<>();
+        for (int i = 0; i < ids.size(); i++) {
+            Object value = values.get(i);
+            if (value != null) {
+                deltas.put(ids.get(i), Integer.valueOf(value.toString()));
+            }
+        }
+        return deltas;
+    }
+    
+    /**
+     * 核对课程剩余座位（应有剩余座位 = 课程容量 - 已选学生数）
+     * @param confirmedDrift 确认需要修正的偏差，为null时只核对；核对时偏差与之相同才修正
+     * @return 剩余座位偏差（当前 - 应有），库存未预热时返回null
+     */
+    public Integer reconcileStock(Long courseId, Integer totalCapacity, Integer confirmedDrift) {
+        Long drift = stringRedisTemplate.execute(RECONCILE_SCRIPT,
+                Arrays.asList(INVENTORY_PREFIX + courseId, MEMBERS_PREFIX + courseId),
+                String.valueOf(totalCapacity != null ? totalCapacity : 0),
+                confirmedDrift != null ? String.valueOf(confirmedDrift) : "");
+        return drift != null ? drift.intValue() : null;
+    }
+    
+    /**
+     * 将累积的选课人数增量回写到course-service
+     * 所有课程的增量通过一次批量请求提交（course-service一条UPDATE完成），
+     * 回写失败的增量放回Redis，下一轮重试
+     */
+    @Scheduled(fixedDelayString = "${selection.seat.flush-interval-ms:1000}")
+    public void flushSelectedCounts() {
+        @SuppressWarnings("unchecked")
+        List<Object> entries = stringRedisTemplate.execute(DRAIN_SCRIPT, Collections.singletonList(DIRTY_KEY));
+        if (entries == null || entries.isEmpty()) {
+            return;
+        }
+        
+        Map<Long, Integer> deltas = new LinkedHashMap<>();
+        for (int i = 0; i + 1 < entries.size(); i += 2) {
+            int delta = Integer.parseInt(entries.get(i + 1).toString());
+            if (delta != 0) {
+                deltas.put(Long.valueOf(entries.get(i).toString()), delta);
+            }
+        }
+        
+        List<Map.Entry<Long, Integer>> pending = new ArrayList<>(deltas.entrySet());
+        for (int from = 0; from < pending.size(); from += FLUSH_BATCH_SIZE) {
+            Map<Long, Integer> batch = new LinkedHashMap<>();
+            pending.subList(from, Math.min(from + FLUSH_BATCH_SIZE, pending.size()))
+                .forEach(entry -> batch.put(entry.getKey(), entry.getValue()));
+            try {
+                Result<Integer> result = courseServiceClient.adjustSelectedCounts(batch);
+                if (result == null || result.getCode() != 200) {
+                    throw new IllegalStateException(result != null ? result.getMessage() : "无响应");
+                }
+                log.debug("选课人数已回写: courses={}, updated={}", batch.size(), result.getData());
+            } catch (Exception e) {
+                log.warn("回写选课人数失败，稍后重试: deltas={}, error={}", batch, e.getMessage());
+                batch.forEach((courseId, delta) ->
+                    stringRedisTemplate.opsForHash().increment(DIRTY_KEY, String.valueOf(courseId), delta));
+            }
+        }
+    }
+    
+    private List<String> seatKeys(Long studentId, Long courseId) {
+        return Arrays.asList(INVENTORY_PREFIX + courseId, MEMBERS_PREFIX + courseId,
+                CREDITS_PREFIX + studentId, DIRTY_KEY);
+    }
+    
+    private static long toTenths(BigDecimal credit) {
+        if (credit == null) {
+            return 0L;
+        }
+        return credit.multiply(CREDIT_SCALE).setScale(0, RoundingMode.HALF_UP).longValue();
+    }
+    
+    static <T> DefaultRedisScript<T> loadScript(String path, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(path)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
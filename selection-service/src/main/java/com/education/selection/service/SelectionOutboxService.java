@@ -0,0 +1,58 @@
+package com.education.selection.service;
+
+import com.education.selection.entity.SelectionOutbox;
+import com.education.selection.mapper.SelectionOutboxMapper;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 选课消息发件箱
+ * 消息写入enrollment库的selection_outbox表，加入调用方的事务：事务回滚时消息一起回滚，
+ * 事务提交时不需要等待RabbitMQ，由OutboxRelay批量投递
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SelectionOutboxService {
+    
+    private final SelectionOutboxMapper outboxMapper;
+    private final ObjectMapper objectMapper;
+    
+    /**
+     * 写入一条待发送消息
+     */
+    public void enqueue(String routingKey, String eventType, Map<String, Object> payload) {
+        enqueueAll(routingKey, eventType, Collections.singletonList(payload));
+    }
+    
+    /**
+     * 批量写入待发送消息（一条INSERT）
+     */
+    public void enqueueAll(String routingKey, String eventType, List<Map<String, Object>> payloads) {
+        if (payloads.isEmpty()) {
+            return;
+        }
+        List<SelectionOutbox> messages = new ArrayList<>(payloads.size());
+        for (Map<String, Object> payload : payloads) {
+            SelectionOutbox message = new SelectionOutbox();
+            message.setRoutingKey(routingKey);
+            message.setEventType(eventType);
+            try {
+                message.setPayload(objectMapper.writeValueAsString(payload));
+            } catch (JsonProcessingException e) {
+                throw new IllegalArgumentException("消息序列化失败: " + e.getMessage(), e);
+            }
+            messages.add(message);
+        }
+        outboxMapper.insertBatch(messages);
+        log.debug("消息已写入发件箱: routingKey={}, type={}, count={}", routingKey, eventType, messages.size());
+    }
+}
@@ -3,27 +3,44 @@ package com.education.selection.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.constant.Constants;
+import com.education.common.datasource.ReadReplica;
+import com.education.common.dto.CourseView;
+import com.education.common.dto.StudentView;
+import com.education.common.event.EnrollmentChangeEvent;
 import com.education.common.exception.BusinessException;
-import com.education.common.result.Result;
+import com.education.common.pagination.CountMode;
+import com.education.common.pagination.QueryPage;
+import com.education.common.result.CursorPage;
+import com.education.common.util.KeysetCursor;
+import com.education.selection.dto.BatchScoreResult;
+import com.education.selection.dto.ScoreRowResult;
+import com.education.selection.dto.SelectionCommand;
 import com.education.selection.dto.SelectionDTO;
+import com.education.selection.dto.SelectionTicketDTO;
+import com.education.selection.dto.StudentTimetable;
 import com.education.selection.entity.Enrollment;
 import com.education.selection.feign.CourseServiceClient;
-import com.education.selection.feign.MessageServiceClient;
-import com.education.selection.feign.StudentServiceClient;
-import feign.FeignException;
 import com.education.selection.mapper.EnrollmentMapper;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
-import org.springframework.data.redis.core.RedisTemplate;
-import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.util.StringUtils;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 /**
@@ -43,180 +60,115 @@ public class SelectionService {
     
     private final EnrollmentMapper enrollmentMapper;
     private final RabbitTemplate rabbitTemplate;
-    private final RedisTemplate<String, Object> redisTemplate;
-    private final StudentServiceClient studentServiceClient;
     private final CourseServiceClient courseServiceClient;
-    private final MessageServiceClient messageServiceClient;
+    private final SeatInventoryService seatInventoryService;
+    private final SelectionTicketService selectionTicketService;
+    private final RemoteDataLoader remoteDataLoader;
+    private final CourseCatalogService courseCatalogService;
+    private final TimetableService timetableService;
+    private final CreditLedgerService creditLedgerService;
+    private final WaitlistService waitlistService;
+    private final SelectionOutboxService selectionOutboxService;
+    private final EnrollmentEventPublisher enrollmentEventPublisher;
+    private final TransactionTemplate transactionTemplate;
     
     // 最大选课学分限制
-    private static final BigDecimal MAX_TOTAL_CREDITS = new BigDecimal("30");
+    static final BigDecimal MAX_TOTAL_CREDITS = new BigDecimal("30");
+    // 游标分页单页最大条数
+    private static final int MAX_CURSOR_PAGE_SIZE = 100;
+    private static final String NOTIFICATION_SELECTION_SUCCESS = "SELECTION_SUCCESS";
+    // 批量录入成绩每块的记录数（一次IN查询 + 一条UPDATE）
+    private static final int SCORE_BATCH_SIZE = 500;
     
     /**
      * 获取可选课程列表（过滤专业/容量/时间）
      * 步骤2：拉取可选课程
+     * 从课程目录快照逐条过滤，不再把过滤结果整体收集成List再截取
      */
-    public Page<Map<String, Object>> getAvailableCourses(Long studentId, Integer current, Integer size, String keyword) {
+    public Page<CourseView> getAvailableCourses(Long studentId, Integer current, Integer size, String keyword) {
         log.info("获取可选课程列表: studentId={}, current={}, size={}, keyword={}", studentId, current, size, keyword);
         
-        // 1. 获取学生信息（如果studentId为空，跳过学生相关检查）
-        // 使用临时变量构建数据，最后赋值给final变量以确保可以在lambda表达式中使用
-        String tempStudentMajor = null;
-        Set<Long> tempSelectedCourseIds = new HashSet<>();
-        Map<Long, Map<String, Object>> tempSelectedCoursesTimeInfo = new HashMap<>();
+        Predicate<CourseView> available = availabilityFilter(studentId);
+        CourseCatalogSnapshot catalog = courseCatalogService.current();
         
+        long total = catalog.scan(keyword, null).filter(available).count();
+        List<CourseView> pagedCourses = catalog.scan(keyword, null)
+            .filter(available)
+            .skip((long) (current - 1) * size)
+            .limit(size)
+            .collect(Collectors.toList());
+        
+        Page<CourseView> page = new Page<>(current, size, total);
+        page.setRecords(pagedCourses);
+        
+        log.info("可选课程列表: 总数={}, 当前页={}, 每页数量={}, 返回数量={}, catalogVersion={}", 
+            total, current, size, pagedCourses.size(), catalog.getVersion());
+        
+        return page;
+    }
+    
+    /**
+     * 获取可选课程列表（游标分页）
+     * 从游标位置开始在课程目录快照上惰性过滤，凑满一页（多取一条判断是否有下一页）即停止
+     */
+    public CursorPage<CourseView> getAvailableCoursesByCursor(Long studentId, String cursor, Integer size, String keyword) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : 10, MAX_CURSOR_PAGE_SIZE));
+        KeysetCursor after = KeysetCursor.decode(cursor);
+        
+        Predicate<CourseView> available = availabilityFilter(studentId);
+        List<CourseView> records = courseCatalogService.current().scan(keyword, after)
+            .filter(available)
+            .limit(pageSize + 1L)
+            .collect(Collectors.toList());
+        
+        String nextCursor = null;
+        if (records.size() > pageSize) {
+            records = records.subList(0, pageSize);
+            nextCursor = CourseCatalogSnapshot.cursorOf(records.get(pageSize - 1));
+        }
+        log.info("可选课程列表（游标）: studentId={}, size={}, 返回数量={}, hasMore={}",
+            studentId, pageSize, records.size(), nextCursor != null);
+        return new CursorPage<>(new ArrayList<>(records), pageSize, nextCursor);
+    }
+    
+    /**
+     * 构建可选课程过滤条件：容量、时间冲突、重复选
+     * studentId为空或学生信息不存在时只做容量过滤（仍然可以查看课程，只是不能选课）
+     */
+    private Predicate<CourseView> availabilityFilter(Long studentId) {
+        Set<Long> selectedCourseIds = Collections.emptySet();
+        StudentTimetable timetable = null;
         if (studentId != null) {
             try {
-                Map<String, Object> studentInfo = getStudentInfo(studentId);
-                tempStudentMajor = (String) studentInfo.get("major");
-                
-                // 3. 获取学生已选课程
-                List<Enrollment> studentEnrollments = enrollmentMapper.selectList(
-                    new LambdaQueryWrapper<Enrollment>()
-                        .eq(Enrollment::getStudentId, studentId)
-                        .eq(Enrollment::getStatus, 0) // 0-已选
-                );
-                tempSelectedCourseIds = studentEnrollments.stream()
-                    .map(Enrollment::getCourseId)
-                    .collect(Collectors.toSet());
-                
-                // 4. 获取学生已选课程的时间信息（用于时间冲突检查）
-                for (Enrollment enrollment : studentEnrollments) {
-                    try {
-                        Result<Map<String, Object>> courseResult = courseServiceClient.getCourseById(enrollment.getCourseId());
-                        if (courseResult != null && courseResult.getCode() == 200 && courseResult.getData() != null) {
-                            tempSelectedCoursesTimeInfo.put(enrollment.getCourseId(), courseResult.getData());
-                        }
-                    } catch (Exception e) {
-                        log.warn("获取已选课程信息失败, courseId: {}", enrollment.getCourseId(), e);
-                    }
-                }
+                getStudentInfo(studentId);
+                // 获取学生课表（已选课程及上课时间位图，优先读取Redis缓存）
+                timetable = timetableService.getTimetable(studentId);
+                selectedCourseIds = timetable.getCourseIds();
             } catch (BusinessException e) {
                 log.warn("获取学生信息失败，studentId: {}, 错误: {}", studentId, e.getMessage());
-                // 学生信息不存在时，仍然可以查看课程，只是不能选课
-                // 使用默认的空值，已在声明时初始化
             }
         }
         
-        // 将临时变量赋值给final变量，用于lambda表达式
-        final String studentMajor = tempStudentMajor;
-        final Set<Long> selectedCourseIds = tempSelectedCourseIds;
-        final Map<Long, Map<String, Object>> selectedCoursesTimeInfo = tempSelectedCoursesTimeInfo;
-        
-        // 2. 获取所有开放选课的课程（分批获取，确保获取所有课程）
-        List<Map<String, Object>> allCourses = new ArrayList<>();
-        int pageSize = 100; // 每批获取100条
-        int pageNum = 1;
-        boolean hasMore = true;
-        
-        while (hasMore) {
-            Result<Map<String, Object>> coursePageResult = courseServiceClient.getCoursePage(
-                pageNum, pageSize, keyword, 1);
+        final Set<Long> excluded = selectedCourseIds;
+        final StudentTimetable studentTimetable = timetable;
+        return course -> {
+            Long courseId = course.courseId();
             
-            if (coursePageResult == null || coursePageResult.getCode() != 200 || coursePageResult.getData() == null) {
-                log.error("获取课程列表失败: pageNum={}, pageSize={}", pageNum, pageSize);
-                break;
+            // 过滤1：排除已选课程
+            if (excluded.contains(courseId)) {
+                return false;
             }
             
-            Map<String, Object> coursePageData = coursePageResult.getData();
-            @SuppressWarnings("unchecked")
-            List<Map<String, Object>> courses = (List<Map<String, Object>>) coursePageData.get("records");
+            // 过滤2：专业匹配（暂时不限制专业匹配，允许所有专业的学生选课）
             
-            if (courses == null || courses.isEmpty()) {
-                hasMore = false;
-            } else {
-                allCourses.addAll(courses);
-                // 如果返回的课程数量小于请求的数量，说明已经获取完所有课程
-                if (courses.size() < pageSize) {
-                    hasMore = false;
-                } else {
-                    pageNum++;
-                    // 为了防止无限循环，设置一个最大页数限制（比如100页，即最多10000条课程）
-                    if (pageNum > 100) {
-                        log.warn("课程数量过多，已获取前{}条课程", allCourses.size());
-                        hasMore = false;
-                    }
-                }
+            // 过滤3：容量检查
+            if (course.isFull()) {
+                return false;
             }
-        }
-        
-        log.info("获取到{}条开放选课的课程", allCourses.size());
-        
-        // 5. 过滤课程：专业匹配、容量、时间冲突、重复选
-        List<Map<String, Object>> availableCourses = allCourses.stream()
-            .filter(course -> {
-                Object courseIdObj = course.get("courseId");
-                if (courseIdObj == null) {
-                    courseIdObj = course.get("id"); // 兼容不同的字段名
-                }
-                if (courseIdObj == null) {
-                    return false;
-                }
-                Long courseId = ((Number) courseIdObj).longValue();
-                
-                // 过滤1：排除已选课程（如果studentId不为空）
-                if (studentId != null && selectedCourseIds.contains(courseId)) {
-                    return false;
-                }
-                
-                // 过滤2：专业匹配（如果课程有department字段，需要匹配学生的major）
-                // 注意：如果学生信息不存在，跳过专业匹配检查
-                String courseDepartment = (String) course.get("department");
-                if (StringUtils.hasText(courseDepartment) && StringUtils.hasText(studentMajor)) {
-                    // 这里可以根据实际需求调整专业匹配逻辑
-                    // 如果课程department为空，则不限制专业
-                    // 暂时不限制专业匹配，允许所有专业的学生选课
-                }
-                
-                // 过滤3：容量检查
-                Object totalCapacityObj = course.get("totalCapacity");
-                Object selectedCountObj = course.get("selectedCount");
-                Integer totalCapacity = totalCapacityObj != null ? ((Number) totalCapacityObj).intValue() : null;
-                Integer selectedCount = selectedCountObj != null ? ((Number) selectedCountObj).intValue() : null;
-                if (totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity) {
-                    return false;
-                }
-                
-                // 过滤4：时间冲突检查（简化版：如果课程有startTime和endTime，检查是否与已选课程时间重叠）
-                // 只在studentId不为空时进行时间冲突检查
-                if (studentId != null) {
-                    LocalDateTime courseStartTime = parseDateTime(course.get("startTime"));
-                    LocalDateTime courseEndTime = parseDateTime(course.get("endTime"));
-                    if (courseStartTime != null && courseEndTime != null) {
-                        for (Map<String, Object> selectedCourse : selectedCoursesTimeInfo.values()) {
-                            LocalDateTime selectedStartTime = parseDateTime(selectedCourse.get("startTime"));
-                            LocalDateTime selectedEndTime = parseDateTime(selectedCourse.get("endTime"));
-                            if (selectedStartTime != null && selectedEndTime != null) {
-                                // 检查时间是否重叠
-                                if (isTimeOverlap(courseStartTime, courseEndTime, selectedStartTime, selectedEndTime)) {
-                                    return false;
-                                }
-                            }
-                        }
-                    }
-                }
-                
-                return true;
-            })
-            .collect(Collectors.toList());
-        
-        // 6. 手动分页（基于过滤后的结果）
-        long total = availableCourses.size();
-        int start = (current - 1) * size;
-        int end = Math.min(start + size, availableCourses.size());
-        
-        List<Map<String, Object>> pagedCourses = new ArrayList<>();
-        if (start < availableCourses.size()) {
-            pagedCourses = availableCourses.subList(start, end);
-        }
-        
-        // 7. 构建分页结果
-        Page<Map<String, Object>> page = new Page<>(current, size, total);
-        page.setRecords(pagedCourses);
-        
-        log.info("可选课程列表: 总数={}, 当前页={}, 每页数量={}, 返回数量={}", 
-            total, current, size, pagedCourses.size());
-        
-        return page;
+            
+            // 过滤4：时间冲突检查（与学生课表的位图按位与）
+            return studentTimetable == null || studentTimetable.findConflict(courseId, course) == null;
+        };
     }
     
     /**
@@ -248,7 +200,7 @@ public class SelectionService {
             
             // 3.2 获取学生信息
             log.debug("获取学生信息: studentId={}", studentId);
-            Map<String, Object> studentInfo;
+            StudentView studentInfo;
             try {
                 studentInfo = getStudentInfo(studentId);
                 log.debug("学生信息获取成功: studentId={}, studentInfo={}", studentId, studentInfo);
@@ -256,11 +208,11 @@ public class SelectionService {
                 log.error("获取学生信息失败: studentId={}", studentId, e);
                 throw new BusinessException(404, "学生信息不存在");
             }
-            String studentMajor = (String) studentInfo.get("major");
+            String studentMajor = studentInfo.major();
             
             // 3.3 获取课程信息
             log.debug("获取课程信息: courseId={}", courseId);
-            Map<String, Object> courseInfo;
+            CourseView courseInfo;
             try {
                 courseInfo = getCourseInfo(courseId);
                 log.debug("课程信息获取成功: courseId={}, courseInfo={}", courseId, courseInfo);
@@ -270,145 +222,32 @@ public class SelectionService {
             }
             
             // 3.4 验证2：专业匹配
-            String courseDepartment = (String) courseInfo.get("department");
+            String courseDepartment = courseInfo.department();
             if (StringUtils.hasText(courseDepartment) && StringUtils.hasText(studentMajor)) {
                 // 这里可以根据实际需求调整专业匹配逻辑
                 // 如果课程department为空，则不限制专业
             }
             
-            // 3.5 验证3：容量检查
-            // 注意：如果记录已存在且状态不为0（退课），容量检查时需要考虑：
-            // - 学生退课时，容量已经减少
-            // - 重新选课时，如果容量已满，说明有其他学生选课了，这是正常的
-            // - 但如果容量已满，仍然不允许重新选课（除非有特殊业务需求）
-            Integer totalCapacity = parseInteger(courseInfo.get("totalCapacity"));
-            Integer selectedCount = parseInteger(courseInfo.get("selectedCount"));
-            log.debug("课程容量检查: courseId={}, totalCapacity={}, selectedCount={}, existRecord={}", 
-                courseId, totalCapacity, selectedCount, exist != null);
-            
-            // 如果记录已存在且状态不为0（退课），容量检查应该可以通过
-            // 因为学生退课时容量已经减少了，重新选课只是恢复
-            // 但如果容量已满，说明有其他学生选课了，不允许重新选课
-            if (exist == null || exist.getStatus() == null || exist.getStatus() == 0) {
-                // 新选课或已选状态：正常检查容量
-                if (totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity) {
-                    log.warn("选课失败：课程容量已满, courseId={}, totalCapacity={}, selectedCount={}", 
-                        courseId, totalCapacity, selectedCount);
-                    throw new BusinessException(400, "课程容量已满");
-                }
-            } else {
-                // 重新选课（之前退课）：如果容量已满，不允许重新选课
-                // 因为容量被其他学生占用了
-                if (totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity) {
-                    log.warn("重新选课失败：课程容量已满, courseId={}, totalCapacity={}, selectedCount={}", 
-                        courseId, totalCapacity, selectedCount);
-                    throw new BusinessException(400, "课程容量已满，无法重新选课");
-                }
-            }
-            
-            // 3.6 验证4：时间冲突检查
-            LocalDateTime courseStartTime = parseDateTime(courseInfo.get("startTime"));
-            LocalDateTime courseEndTime = parseDateTime(courseInfo.get("endTime"));
-            if (courseStartTime != null && courseEndTime != null) {
-                log.debug("检查时间冲突: courseId={}, startTime={}, endTime={}", courseId, courseStartTime, courseEndTime);
-                List<Enrollment> studentEnrollments = enrollmentMapper.selectList(
-                    new LambdaQueryWrapper<Enrollment>()
-                        .eq(Enrollment::getStudentId, studentId)
-                        .eq(Enrollment::getStatus, 0) // 0-已选
-                );
-                
-                for (Enrollment enrollment : studentEnrollments) {
-                    try {
-                        Map<String, Object> selectedCourseInfo = getCourseInfo(enrollment.getCourseId());
-                        LocalDateTime selectedStartTime = parseDateTime(selectedCourseInfo.get("startTime"));
-                        LocalDateTime selectedEndTime = parseDateTime(selectedCourseInfo.get("endTime"));
-                        
-                        if (selectedStartTime != null && selectedEndTime != null) {
-                            if (isTimeOverlap(courseStartTime, courseEndTime, selectedStartTime, selectedEndTime)) {
-                                log.warn("选课失败：时间冲突, studentId={}, courseId={}, selectedCourseId={}", 
-                                    studentId, courseId, enrollment.getCourseId());
-                                throw new BusinessException(400, "该课程与已选课程时间冲突");
-                            }
-                        }
-                    } catch (BusinessException e) {
-                        throw e;
-                    } catch (Exception e) {
-                        log.warn("检查已选课程时间冲突时出错: enrollmentId={}", enrollment.getEnrollmentId(), e);
-                        // 继续检查其他课程
-                    }
-                }
-            }
-            
-            // 3.7 验证5：学分限制检查
-            BigDecimal courseCredit = parseBigDecimal(courseInfo.get("credit"));
-            if (courseCredit != null) {
-                BigDecimal totalCredits = calculateTotalCredits(studentId);
-                log.debug("学分检查: studentId={}, courseCredit={}, totalCredits={}, maxCredits={}", 
-                    studentId, courseCredit, totalCredits, MAX_TOTAL_CREDITS);
-                if (totalCredits.add(courseCredit).compareTo(MAX_TOTAL_CREDITS) > 0) {
-                    log.warn("选课失败：学分超限, studentId={}, courseCredit={}, totalCredits={}, maxCredits={}", 
-                        studentId, courseCredit, totalCredits, MAX_TOTAL_CREDITS);
-                    throw new BusinessException(400, String.format("选课总学分不能超过%.0f学分", MAX_TOTAL_CREDITS));
-                }
-            }
+            // 3.5 验证3：时间冲突检查
+            checkTimeConflict(studentId, courseId, courseInfo, Collections.emptyList());
             
             // 步骤4：并发与锁控制 - Redis原子操作
-            String lockKey = "selection:lock:" + studentId + ":" + courseId;
-            String lockValue = UUID.randomUUID().toString();
-            
-            // 使用SET NX EX实现分布式锁
-            Boolean lockAcquired = redisTemplate.opsForValue()
-                .setIfAbsent(lockKey, lockValue, java.time.Duration.ofSeconds(10));
-            
-            if (Boolean.FALSE.equals(lockAcquired)) {
-                log.warn("选课失败：获取锁失败, studentId={}, courseId={}", studentId, courseId);
-                throw new BusinessException(400, "选课操作过于频繁，请稍后重试");
-            }
+            // 容量、重复选、学分上限由座位库存Lua脚本一次性原子判定，不再依赖逐个学生的锁和课程服务的实时人数
+            boolean isReSelection = exist != null && exist.getStatus() != null && exist.getStatus() != 0;
+            BigDecimal courseCredit = courseInfo.credit();
+            reserveSeat(studentId, courseId, () -> courseInfo, isReSelection);
+            boolean releaseOnError = !registerSeatRollback(studentId, courseId);
             
             try {
-                // 双重检查：在锁内再次检查容量和重复选
-                exist = enrollmentMapper.selectOne(wrapper);
-                if (exist != null && exist.getStatus() != null && exist.getStatus() == 0) {
-                    log.warn("选课失败：锁内检查发现已选, studentId={}, courseId={}", studentId, courseId);
-                    throw new BusinessException(400, "您已选择该课程");
-                }
-                
-                // 重新获取课程信息，确保容量是最新的
-                courseInfo = getCourseInfo(courseId);
-                selectedCount = parseInteger(courseInfo.get("selectedCount"));
-                totalCapacity = parseInteger(courseInfo.get("totalCapacity"));
-                log.debug("锁内容量检查: courseId={}, totalCapacity={}, selectedCount={}, existRecord={}", 
-                    courseId, totalCapacity, selectedCount, exist != null);
-                
-                // 锁内容量检查：同样需要考虑重新选课的情况
-                if (exist == null || exist.getStatus() == null || exist.getStatus() == 0) {
-                    // 新选课或已选状态：正常检查容量
-                    if (totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity) {
-                        log.warn("选课失败：锁内检查发现容量已满, courseId={}, totalCapacity={}, selectedCount={}", 
-                            courseId, totalCapacity, selectedCount);
-                        throw new BusinessException(400, "课程容量已满");
-                    }
-                } else {
-                    // 重新选课（之前退课）：如果容量已满，不允许重新选课
-                    if (totalCapacity != null && selectedCount != null && selectedCount >= totalCapacity) {
-                        log.warn("重新选课失败：锁内检查发现容量已满, courseId={}, totalCapacity={}, selectedCount={}", 
-                            courseId, totalCapacity, selectedCount);
-                        throw new BusinessException(400, "课程容量已满，无法重新选课");
-                    }
-                }
-                
                 // 步骤5：写入数据库
                 Enrollment enrollment;
-                Integer oldStatus = null;
-                boolean isReSelection = false; // 是否是重新选课（从退课状态恢复）
                 
                 if (exist != null) {
-                    // 如果记录已存在（可能是已退课状态），则更新状态为已选
-                    oldStatus = exist.getStatus(); // 保存原始状态
-                    isReSelection = (oldStatus != null && oldStatus != 0); // 如果是退课状态，则是重新选课
-                    
+                    // 如果记录已存在（已退课状态），则更新状态为已选
+                    Integer oldStatus = exist.getStatus();
                     enrollment = exist;
                     enrollment.setStatus(0); // 0-已选
+                    enrollment.setCredit(courseCredit);
                     enrollment.setEnrollmentTime(LocalDateTime.now()); // 更新选课时间
                     enrollment.setUpdatedAt(LocalDateTime.now());
                     
@@ -423,6 +262,7 @@ public class SelectionService {
                     enrollment.setStudentId(studentId);
                     enrollment.setCourseId(courseId);
                     enrollment.setStatus(0); // 0-已选
+                    enrollment.setCredit(courseCredit);
                     enrollment.setEnrollmentTime(LocalDateTime.now());
                     enrollment.setCreatedAt(LocalDateTime.now());
                     enrollment.setUpdatedAt(LocalDateTime.now());
@@ -433,50 +273,15 @@ public class SelectionService {
                         enrollment.getEnrollmentId(), studentId, courseId);
                 }
                 
-                // 更新课程选课人数
-                // 注意：如果是重新选课（从退课状态恢复），需要增加课程容量
-                // 如果是新选课，也需要增加课程容量
-                // 但如果记录已存在且状态已经是0（已选），则不应该增加容量（这种情况理论上不应该发生）
-                // 但是，如果记录已存在且状态已经是0，说明之前已经选过课了，不应该再次增加容量
-                // 这种情况应该在前面就被拦截了，但为了安全起见，这里也做判断
-                if (oldStatus == null || oldStatus != 0) {
-                    // 只有在新选课或重新选课（从退课状态恢复）时才增加容量
-                    try {
-                        log.debug("更新课程选课人数: courseId={}, isReSelection={}, oldStatus={}", courseId, isReSelection, oldStatus);
-                        Result<?> updateResult = courseServiceClient.incrementSelectedCount(courseId);
-                        if (updateResult == null || updateResult.getCode() != 200) {
-                            log.error("更新课程选课人数失败: courseId={}, result={}", courseId, updateResult);
-                            // 如果是404错误，可能是接口路径问题或服务未启动
-                            if (updateResult == null) {
-                                throw new BusinessException(500, "更新课程容量失败：无法连接到课程服务");
-                            }
-                            throw new BusinessException(500, "更新课程容量失败: " + (updateResult.getMessage() != null ? updateResult.getMessage() : "未知错误"));
-                        }
-                        log.info("课程选课人数已更新: courseId={}, isReSelection={}", courseId, isReSelection);
-                    } catch (FeignException e) {
-                        log.error("更新课程选课人数失败（Feign异常）: courseId={}, status={}, message={}", 
-                            courseId, e.status(), e.getMessage(), e);
-                        // 如果更新失败，回滚选课记录（事务会自动回滚）
-                        if (e.status() == 404) {
-                            // 404可能是接口不存在，也可能是课程不存在
-                            String errorMsg = "更新课程容量失败：";
-                            if (e.contentUTF8() != null && e.contentUTF8().contains("课程不存在")) {
-                                errorMsg += "课程不存在（courseId=" + courseId + "）";
-                            } else {
-                                errorMsg += "课程服务接口不存在或课程不存在，请检查课程服务是否正常运行";
-                            }
-                            throw new BusinessException(500, errorMsg);
-                        }
-                        throw new BusinessException(500, "更新课程容量失败: " + e.getMessage());
-                    } catch (Exception e) {
-                        log.error("更新课程选课人数失败: courseId={}", courseId, e);
-                        // 如果更新失败，回滚选课记录（事务会自动回滚）
-                        throw new BusinessException(500, "更新课程容量失败: " + e.getMessage());
-                    }
-                } else {
-                    log.warn("记录已存在且状态为0（已选），跳过增加容量: courseId={}, enrollmentId={}", 
-                        courseId, enrollment.getEnrollmentId());
-                }
+                // 课程选课人数（courses.selected_count）由座位库存累积增量后定时回写，这里不再同步调用课程服务
+                
+                // 学分台账与选课记录在同一事务内更新
+                creditLedgerService.addCredits(studentId, courseCredit);
+                
+                // 课表已变化，事务提交后清除缓存，并更新课程成员索引
+                runAfterCommit(() -> timetableService.evict(studentId));
+                enrollmentEventPublisher.publishAfterCommit(courseId, Collections.singletonList(studentId),
+                    EnrollmentChangeEvent.TYPE_SELECTED);
                 
                 // 步骤6：消息推送通知
                 sendSelectionNotification(studentId, courseId, studentInfo, courseInfo);
@@ -488,30 +293,23 @@ public class SelectionService {
                 result.setCourseId(courseId);
                 result.setStatus(0);
                 result.setSelectionTime(enrollment.getEnrollmentTime());
-                result.setStudentName((String) studentInfo.get("name"));
-                result.setCourseName((String) courseInfo.get("courseName"));
-                result.setCourseCode((String) courseInfo.get("courseCode"));
-                result.setTeacherName((String) courseInfo.get("teacherName"));
+                result.setStudentName(studentInfo.name());
+                result.setCourseName(courseInfo.courseName());
+                result.setCourseCode(courseInfo.courseCode());
+                result.setTeacherName(courseInfo.teacherName());
                 result.setCredit(courseCredit);
                 // 设置课程封面
-                Object coverImage = courseInfo.get("coverImage");
-                if (coverImage != null) {
-                    result.setCoverImage(coverImage.toString());
-                }
+                result.setCoverImage(courseInfo.coverImage());
                 
                 log.info("选课成功: studentId={}, courseId={}, enrollmentId={}", studentId, courseId, enrollment.getEnrollmentId());
                 return result;
-                
-            } finally {
-                // 释放锁
-                try {
-                    String script = "if redis.call('get', KEYS[1]) == ARGV[1] then return redis.call('del', KEYS[1]) else return 0 end";
-                    DefaultRedisScript<Long> redisScript = new DefaultRedisScript<>(script, Long.class);
-                    redisTemplate.execute(redisScript, Collections.singletonList(lockKey), lockValue);
-                    log.debug("释放选课锁: lockKey={}", lockKey);
-                } catch (Exception e) {
-                    log.error("释放选课锁失败: lockKey={}", lockKey, e);
+            
+            } catch (RuntimeException e) {
+                // 没有事务同步时（非代理调用），写库失败需要立即归还座位
+                if (releaseOnError) {
+                    seatInventoryService.release(studentId, courseId);
                 }
+                throw e;
             }
         } catch (BusinessException e) {
             log.error("选课业务异常: studentId={}, courseId={}, error={}", studentId, courseId, e.getMessage());
@@ -523,25 +321,197 @@ public class SelectionService {
     }
     
     /**
-     * 处理选课（异步消息处理，保留兼容性）
+     * 异步选课：提交
+     * 只在请求线程内完成座位预占（一次Redis往返），学生校验、时间冲突检查和写库交给消息消费者批量处理
+     * 返回受理凭证，前端通过凭证轮询选课结果
      */
-    public void processSelection(SelectionDTO dto) {
-        log.info("处理选课消息: studentId={}, courseId={}", dto.getStudentId(), dto.getCourseId());
-        // 注意：这个方法现在已经不需要了，因为选课已经同步处理
-        // 但为了兼容性，保留这个方法
+    public SelectionTicketDTO submitSelection(Long studentId, Long courseId) {
+        log.info("提交异步选课: studentId={}, courseId={}", studentId, courseId);
+        
+        // 课程信息只在库存未预热时才需要
+        reserveSeat(studentId, courseId, () -> getCourseInfo(courseId), false);
+        
+        SelectionTicketDTO ticket;
         try {
-            selectCourse(dto.getStudentId(), dto.getCourseId());
+            ticket = selectionTicketService.create(studentId, courseId);
+            
+            SelectionCommand command = new SelectionCommand();
+            command.setTicketId(ticket.getTicketId());
+            command.setStudentId(studentId);
+            command.setCourseId(courseId);
+            command.setSubmittedAt(ticket.getSubmittedAt());
+            rabbitTemplate.convertAndSend(Constants.EXCHANGE_SELECTION, Constants.ROUTING_KEY_SELECTION, command);
         } catch (Exception e) {
-            log.error("处理选课消息失败", e);
-            throw e;
+            log.error("提交异步选课失败，归还座位: studentId={}, courseId={}", studentId, courseId, e);
+            seatInventoryService.release(studentId, courseId);
+            throw new BusinessException(500, "选课请求提交失败，请稍后重试");
+        }
+        
+        log.info("异步选课已受理: studentId={}, courseId={}, ticketId={}", studentId, courseId, ticket.getTicketId());
+        return ticket;
+    }
+    
+    /**
+     * 异步选课：批量落库
+     * 座位已在提交时预占，这里逐条做学生和时间冲突校验，校验不通过的归还座位并标记失败，
+     * 其余记录一条INSERT ... ON DUPLICATE KEY UPDATE批量写入（与学分台账、通知发件箱同一事务）
+     * 写库异常直接抛出（此时事务已回滚），由消费者决定重试或逐条处理
+     * @param rejected 校验不通过、已标记失败的命令在标记后立即加入，写库异常时消费者据此跳过这些命令，不会重复标记失败
+     */
+    public void completeSelections(List<SelectionCommand> commands, Collection<SelectionCommand> rejected) {
+        Map<Long, StudentView> studentCache = new HashMap<>();
+        Map<Long, CourseView> courseCache = new HashMap<>();
+        // 同一批次内同一学生已通过校验的课程，参与时间冲突检查
+        Map<Long, List<CourseView>> acceptedByStudent = new HashMap<>();
+        List<SelectionCommand> accepted = new ArrayList<>();
+        
+        // 整批的学生、课程信息各一次批量查询
+        studentCache.putAll(remoteDataLoader.getStudents(
+            commands.stream().map(SelectionCommand::getStudentId).collect(Collectors.toSet())));
+        courseCache.putAll(remoteDataLoader.getCourses(
+            commands.stream().map(SelectionCommand::getCourseId).collect(Collectors.toSet())));
+        
+        for (SelectionCommand command : commands) {
+            Long studentId = command.getStudentId();
+            Long courseId = command.getCourseId();
+            try {
+                studentCache.computeIfAbsent(studentId, this::getStudentInfo);
+                CourseView courseInfo = courseCache.computeIfAbsent(courseId, this::getCourseInfo);
+                List<CourseView> pending = acceptedByStudent.computeIfAbsent(studentId, k -> new ArrayList<>());
+                checkTimeConflict(studentId, courseId, courseInfo, pending);
+                pending.add(courseInfo);
+                accepted.add(command);
+            } catch (BusinessException e) {
+                failSelection(command, e.getMessage());
+                rejected.add(command);
+            }
+        }
+        
+        if (accepted.isEmpty()) {
+            return;
+        }
+        
+        LocalDateTime now = LocalDateTime.now();
+        List<Enrollment> enrollments = accepted.stream().map(command -> {
+            Enrollment enrollment = new Enrollment();
+            enrollment.setStudentId(command.getStudentId());
+            enrollment.setCourseId(command.getCourseId());
+            enrollment.setCredit(courseCache.get(command.getCourseId()).credit());
+            enrollment.setEnrollmentTime(now);
+            enrollment.setCreatedAt(now);
+            enrollment.setUpdatedAt(now);
+            return enrollment;
+        }).collect(Collectors.toList());
+        Set<Long> studentIds = accepted.stream().map(SelectionCommand::getStudentId).collect(Collectors.toSet());
+        List<Map<String, Object>> notifications = new ArrayList<>(accepted.size());
+        List<Map<String, Object>> promotions = new ArrayList<>();
+        for (SelectionCommand command : accepted) {
+            notifications.add(buildSelectionNotification(command.getStudentId(), command.getCourseId(),
+                studentCache.get(command.getStudentId()), courseCache.get(command.getCourseId())));
+            if (command.isFromWaitlist()) {
+                promotions.add(WaitlistService.promotionNotification(command.getStudentId(), command.getCourseId(),
+                    command.getTicketId()));
+            }
+        }
+        
+        // 选课记录、学分台账、通知发件箱在同一事务内写入，任何一步失败整体回滚，由消费者逐条重试或标记失败
+        Map<String, Long> enrollmentIds = transactionTemplate.execute(status -> {
+            enrollmentMapper.upsertBatch(enrollments);
+            creditLedgerService.rebuild(studentIds);
+            accepted.stream()
+                .collect(Collectors.groupingBy(SelectionCommand::getCourseId,
+                    Collectors.mapping(SelectionCommand::getStudentId, Collectors.toList())))
+                .forEach((courseId, selected) ->
+                    enrollmentEventPublisher.publishAfterCommit(courseId, selected, EnrollmentChangeEvent.TYPE_SELECTED));
+            
+            Map<String, Long> ids = new HashMap<>();
+            for (Enrollment saved : enrollmentMapper.selectByStudentCoursePairs(enrollments)) {
+                ids.put(saved.getStudentId() + ":" + saved.getCourseId(), saved.getEnrollmentId());
+            }
+            
+            // 整批通知一条INSERT写入发件箱；候补补位的选课落库成功后才通知学生候补成功
+            // 写入失败时异常直接抛出，选课记录随之回滚，不会出现已选课却没有通知的情况
+            selectionOutboxService.enqueueAll(Constants.ROUTING_KEY_SELECTION_NOTIFICATION,
+                NOTIFICATION_SELECTION_SUCCESS, notifications);
+            selectionOutboxService.enqueueAll(Constants.ROUTING_KEY_SELECTION_NOTIFICATION,
+                WaitlistService.NOTIFICATION_PROMOTED, promotions);
+            return ids;
+        });
+        
+        // 以下在事务提交后执行：凭证和课表缓存都在Redis中，失败只记录日志，不能再抛给消费者（否则会归还已落库的座位）
+        for (Long studentId : studentIds) {
+            try {
+                timetableService.evict(studentId);
+            } catch (Exception e) {
+                log.warn("清除学生课表缓存失败: studentId={}, error={}", studentId, e.getMessage());
+            }
+        }
+        for (SelectionCommand command : accepted) {
+            try {
+                selectionTicketService.markSuccess(command.getTicketId(),
+                    enrollmentIds != null ? enrollmentIds.get(command.getStudentId() + ":" + command.getCourseId()) : null);
+            } catch (Exception e) {
+                log.error("更新选课凭证失败: ticketId={}", command.getTicketId(), e);
+            }
+        }
+        log.info("异步选课批量落库完成: total={}, success={}", commands.size(), accepted.size());
+    }
+    
+    /**
+     * 异步选课：写库异常重试仍失败后调用
+     * 先确认选课记录确实没有写入（事务已回滚）再归还座位、标记失败；
+     * 提交结果未知（如提交时连接断开）而记录已存在时，按选课成功处理
+     * @return 已标记失败时返回true，选课记录已存在时返回false
+     */
+    public boolean failSelectionAfterRollback(SelectionCommand command, String reason) {
+        Enrollment enrollment = enrollmentMapper.selectOne(new LambdaQueryWrapper<Enrollment>()
+            .eq(Enrollment::getStudentId, command.getStudentId())
+            .eq(Enrollment::getCourseId, command.getCourseId())
+            .eq(Enrollment::getStatus, 0)
+            .last("LIMIT 1"));
+        if (enrollment != null) {
+            log.warn("选课记录已存在，按选课成功处理: ticketId={}, studentId={}, courseId={}, enrollmentId={}",
+                command.getTicketId(), command.getStudentId(), command.getCourseId(), enrollment.getEnrollmentId());
+            selectionTicketService.markSuccess(command.getTicketId(), enrollment.getEnrollmentId());
+            return false;
+        }
+        failSelection(command, reason);
+        return true;
+    }
+    
+    /**
+     * 异步选课：标记失败并归还座位
+     */
+    public void failSelection(SelectionCommand command, String reason) {
+        log.warn("异步选课失败: ticketId={}, studentId={}, courseId={}, reason={}",
+            command.getTicketId(), command.getStudentId(), command.getCourseId(), reason);
+        releaseSeat(command.getStudentId(), command.getCourseId());
+        waitlistService.requestPromotion(command.getCourseId());
+        selectionTicketService.markFailed(command.getTicketId(), reason);
+        if (command.isFromWaitlist()) {
+            waitlistService.notifyRemoved(command.getStudentId(), command.getCourseId(), reason);
+        }
+    }
+    
+    /**
+     * 查询异步选课凭证
+     */
+    public SelectionTicketDTO getTicket(String ticketId) {
+        SelectionTicketDTO ticket = selectionTicketService.get(ticketId);
+        if (ticket == null) {
+            throw new BusinessException(404, "选课凭证不存在或已过期");
         }
+        return ticket;
     }
     
     /**
      * 获取选课分页列表
      */
+    @ReadReplica
     public Page<SelectionDTO> getPage(Integer current, Integer size, Long studentId, Long courseId) {
-        Page<Enrollment> page = new Page<>(current, size);
+        // 不限学生和课程的管理端列表总数按执行计划预估（返回approximate=true），按学生/课程查询时总数短时间内复用
+        QueryPage<Enrollment> page = QueryPage.of(current, size,
+                studentId == null && courseId == null ? CountMode.APPROXIMATE : CountMode.CACHED);
         LambdaQueryWrapper<Enrollment> wrapper = new LambdaQueryWrapper<>();
         
         if (studentId != null) {
@@ -554,7 +524,24 @@ public class SelectionService {
         wrapper.orderByDesc(Enrollment::getCreatedAt);
         Page<Enrollment> enrollmentPage = enrollmentMapper.selectPage(page, wrapper);
         
-        Page<SelectionDTO> dtoPage = new Page<>(current, size, enrollmentPage.getTotal());
+        // 整页的学生、课程信息各通过一次批量接口获取
+        Map<Long, StudentView> students = Collections.emptyMap();
+        Map<Long, CourseView> courses = Collections.emptyMap();
+        try {
+            students = remoteDataLoader.getStudents(enrollmentPage.getRecords().stream()
+                    .map(Enrollment::getStudentId).collect(Collectors.toSet()));
+        } catch (Exception e) {
+            log.error("批量获取学生信息异常", e);
+        }
+        try {
+            courses = remoteDataLoader.getCourses(enrollmentPage.getRecords().stream()
+                    .map(Enrollment::getCourseId).collect(Collectors.toSet()));
+        } catch (Exception e) {
+            log.warn("批量获取课程信息失败", e);
+        }
+        final Map<Long, StudentView> studentMap = students;
+        final Map<Long, CourseView> courseMap = courses;
+        
         List<SelectionDTO> dtoList = enrollmentPage.getRecords().stream()
                 .map(enrollment -> {
                     SelectionDTO result = new SelectionDTO();
@@ -564,23 +551,22 @@ public class SelectionService {
                     result.setStatus(enrollment.getStatus());
                     result.setSelectionTime(enrollment.getEnrollmentTime());
                     
-                    // 通过 Feign Client 获取学生信息
+                    // 学生信息
                     try {
-                        Result<Map<String, Object>> studentResult = studentServiceClient.getStudentById(enrollment.getStudentId());
-                        if (studentResult != null && studentResult.getCode() == 200 && studentResult.getData() != null) {
-                            Map<String, Object> studentData = studentResult.getData();
+                        StudentView studentData = studentMap.get(enrollment.getStudentId());
+                        if (studentData != null) {
                             // 获取学生姓名
-                            Object name = studentData.get("name");
-                            if (name != null && !name.toString().trim().isEmpty()) {
-                                result.setStudentName(name.toString());
+                            String name = studentData.name();
+                            if (StringUtils.hasText(name)) {
+                                result.setStudentName(name);
                             } else {
                                 result.setStudentName("未知");
                                 log.warn("学生姓名为空, studentId: {}", enrollment.getStudentId());
                             }
                             // 获取学号（username）
-                            Object username = studentData.get("username");
-                            if (username != null && !username.toString().trim().isEmpty()) {
-                                result.setStudentNo(username.toString());
+                            String username = studentData.username();
+                            if (StringUtils.hasText(username)) {
+                                result.setStudentNo(username);
                             } else {
                                 result.setStudentNo("未知");
                                 log.warn("学生学号为空, studentId: {}", enrollment.getStudentId());
@@ -588,7 +574,7 @@ public class SelectionService {
                             log.debug("获取学生信息成功: studentId={}, name={}, username={}", 
                                 enrollment.getStudentId(), result.getStudentName(), result.getStudentNo());
                         } else {
-                            log.warn("获取学生信息失败: studentId={}, result={}", enrollment.getStudentId(), studentResult);
+                            log.warn("获取学生信息失败: studentId={}", enrollment.getStudentId());
                             result.setStudentName("未知");
                             result.setStudentNo("未知");
                         }
@@ -598,45 +584,16 @@ public class SelectionService {
                         result.setStudentNo("未知");
                     }
                     
-                    // 通过 Feign Client 获取课程信息
+                    // 课程信息
                     try {
-                        Result<Map<String, Object>> courseResult = courseServiceClient.getCourseById(enrollment.getCourseId());
-                        if (courseResult != null && courseResult.getCode() == 200 && courseResult.getData() != null) {
-                            Map<String, Object> courseData = courseResult.getData();
-                            Object courseName = courseData.get("courseName");
-                            Object courseCode = courseData.get("courseCode");
-                            Object teacherName = courseData.get("teacherName");
-                            Object credit = courseData.get("credit");
-                            Object coverImage = courseData.get("coverImage");
-                            
-                            if (courseName != null) {
-                                result.setCourseName(courseName.toString());
-                            } else {
-                                result.setCourseName("未知");
-                            }
-                            if (courseCode != null) {
-                                result.setCourseCode(courseCode.toString());
-                            } else {
-                                result.setCourseCode("未知");
-                            }
-                            if (teacherName != null) {
-                                result.setTeacherName(teacherName.toString());
-                            }
-                            if (credit != null) {
-                                try {
-                                    if (credit instanceof Number) {
-                                        result.setCredit(BigDecimal.valueOf(((Number) credit).doubleValue()));
-                                    } else {
-                                        result.setCredit(new BigDecimal(credit.toString()));
-                                    }
-                                } catch (Exception e) {
-                                    log.warn("解析学分失败, credit: {}", credit, e);
-                                }
-                            }
+                        CourseView courseData = courseMap.get(enrollment.getCourseId());
+                        if (courseData != null) {
+                            result.setCourseName(courseData.courseName() != null ? courseData.courseName() : "未知");
+                            result.setCourseCode(courseData.courseCode() != null ? courseData.courseCode() : "未知");
+                            result.setTeacherName(courseData.teacherName());
+                            result.setCredit(courseData.credit());
                             // 设置课程封面
-                            if (coverImage != null) {
-                                result.setCoverImage(coverImage.toString());
-                            }
+                            result.setCoverImage(courseData.coverImage());
                         } else {
                             result.setCourseName("未知");
                             result.setCourseCode("未知");
@@ -655,9 +612,8 @@ public class SelectionService {
                     return result;
                 })
                 .collect(Collectors.toList());
-        dtoPage.setRecords(dtoList);
         
-        return dtoPage;
+        return page.withRecords(dtoList);
     }
     
     /**
@@ -674,183 +630,187 @@ public class SelectionService {
             throw new BusinessException(403, "无权限取消该选课");
         }
         
+        boolean wasSelected = enrollment.getStatus() != null && enrollment.getStatus() == 0;
+        
         // 更新状态为已退
         enrollment.setStatus(1); // 1-已退
         enrollment.setUpdatedAt(LocalDateTime.now());
         enrollmentMapper.updateById(enrollment);
         
-        // 减少课程选课人数
-        try {
-            courseServiceClient.decrementSelectedCount(enrollment.getCourseId());
-            log.info("课程选课人数已减少: courseId={}", enrollment.getCourseId());
-        } catch (Exception e) {
-            log.error("减少课程选课人数失败: courseId={}", enrollment.getCourseId(), e);
+        if (wasSelected) {
+            creditLedgerService.addCredits(studentId,
+                enrollment.getCredit() != null ? enrollment.getCredit().negate() : null);
+        }
+        
+        // 归还座位：事务提交后再释放，避免回滚时座位已被其他学生占用，随后为候补学生补位
+        if (wasSelected) {
+            Long courseId = enrollment.getCourseId();
+            runAfterCommit(() -> {
+                releaseSeat(studentId, courseId);
+                waitlistService.requestPromotion(courseId);
+            });
+            enrollmentEventPublisher.publishAfterCommit(courseId, Collections.singletonList(studentId),
+                EnrollmentChangeEvent.TYPE_WITHDRAWN);
         }
+        runAfterCommit(() -> timetableService.evict(studentId));
     }
     
     // ========== 私有辅助方法 ==========
     
     /**
-     * 获取学生信息
+     * 通过座位库存预占座位
+     * 库存或学分未预热时先预热再重试
      */
-    private Map<String, Object> getStudentInfo(Long studentId) {
-        Result<Map<String, Object>> result = studentServiceClient.getStudentById(studentId);
-        if (result == null || result.getCode() != 200 || result.getData() == null) {
-            throw new BusinessException(404, "学生信息不存在");
+    private void reserveSeat(Long studentId, Long courseId, Supplier<CourseView> courseLoader, boolean isReSelection) {
+        for (int attempt = 0; attempt < 3; attempt++) {
+            SeatInventoryService.ReserveResult result = seatInventoryService.tryReserve(studentId, courseId, MAX_TOTAL_CREDITS);
+            switch (result) {
+                case SUCCESS:
+                    return;
+                case FULL:
+                    log.warn("选课失败：课程容量已满, courseId={}, isReSelection={}", courseId, isReSelection);
+                    throw new BusinessException(400, isReSelection ? "课程容量已满，无法重新选课" : "课程容量已满");
+                case DUPLICATE:
+                    log.warn("选课失败：座位库存中已存在该学生, studentId={}, courseId={}", studentId, courseId);
+                    throw new BusinessException(400, "您已选择该课程");
+                case CREDIT_EXCEEDED:
+                    log.warn("选课失败：学分超限, studentId={}, courseId={}, maxCredits={}", studentId, courseId, MAX_TOTAL_CREDITS);
+                    throw new BusinessException(400, String.format("选课总学分不能超过%.0f学分", MAX_TOTAL_CREDITS));
+                case COURSE_NOT_WARMED:
+                    CourseView courseInfo = courseLoader.get();
+                    seatInventoryService.warmCourse(courseId,
+                        courseInfo.totalCapacity(),
+                        courseInfo.credit(),
+                        enrollmentMapper.selectActiveStudentIds(courseId));
+                    break;
+                case CREDITS_NOT_WARMED:
+                    seatInventoryService.warmCredits(studentId, creditLedgerService.getTotalCredits(studentId));
+                    break;
+                default:
+                    break;
+            }
         }
-        return result.getData();
+        log.error("选课失败：座位库存预热失败, studentId={}, courseId={}", studentId, courseId);
+        throw new BusinessException(500, "选课失败：座位库存初始化失败，请稍后重试");
     }
     
     /**
-     * 获取课程信息
+     * 时间冲突检查（基于学生课表的上课时间位图）
+     * @param pendingCourses 尚未写入数据库、但已确定要选的课程（批量处理时使用）
      */
-    private Map<String, Object> getCourseInfo(Long courseId) {
-        Result<Map<String, Object>> result = courseServiceClient.getCourseById(courseId);
-        if (result == null || result.getCode() != 200 || result.getData() == null) {
-            throw new BusinessException(404, "课程信息不存在");
+    private void checkTimeConflict(Long studentId, Long courseId, CourseView courseInfo,
+                                   Collection<CourseView> pendingCourses) {
+        StudentTimetable timetable = timetableService.getTimetable(studentId).with(pendingCourses);
+        Long conflictCourseId = timetable.findConflict(courseId, courseInfo);
+        if (conflictCourseId != null) {
+            log.warn("选课失败：时间冲突, studentId={}, courseId={}, selectedCourseId={}",
+                studentId, courseId, conflictCourseId);
+            throw new BusinessException(400, "该课程与已选课程时间冲突");
         }
-        return result.getData();
     }
     
     /**
-     * 计算学生总学分
+     * 注册事务回滚时归还座位
+     * @return 是否注册成功（当前没有事务同步时返回false，由调用方自行归还）
      */
-    private BigDecimal calculateTotalCredits(Long studentId) {
-        List<Enrollment> enrollments = enrollmentMapper.selectList(
-            new LambdaQueryWrapper<Enrollment>()
-                .eq(Enrollment::getStudentId, studentId)
-                .eq(Enrollment::getStatus, 0) // 0-已选
-        );
-        
-        BigDecimal totalCredits = BigDecimal.ZERO;
-        for (Enrollment enrollment : enrollments) {
-            try {
-                Map<String, Object> courseInfo = getCourseInfo(enrollment.getCourseId());
-                BigDecimal credit = parseBigDecimal(courseInfo.get("credit"));
-                if (credit != null) {
-                    totalCredits = totalCredits.add(credit);
+    private boolean registerSeatRollback(Long studentId, Long courseId) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return false;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    log.warn("选课事务未提交，归还座位: studentId={}, courseId={}", studentId, courseId);
+                    seatInventoryService.release(studentId, courseId);
                 }
-            } catch (Exception e) {
-                log.warn("获取课程学分失败, courseId: {}", enrollment.getCourseId(), e);
             }
-        }
-        
-        return totalCredits;
+        });
+        return true;
     }
     
     /**
-     * 检查时间是否重叠
+     * 在当前事务提交后执行（没有事务时立即执行）
      */
-    private boolean isTimeOverlap(LocalDateTime start1, LocalDateTime end1, 
-                                  LocalDateTime start2, LocalDateTime end2) {
-        // 时间重叠的条件：start1 < end2 && start2 < end1
-        return start1.isBefore(end2) && start2.isBefore(end1);
+    private void runAfterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
     }
     
     /**
-     * 解析LocalDateTime
+     * 归还座位
+     * 课程库存未预热时，直接减少课程服务中的选课人数
      */
-    private LocalDateTime parseDateTime(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof LocalDateTime) {
-            return (LocalDateTime) obj;
-        }
-        if (obj instanceof String) {
-            try {
-                return LocalDateTime.parse((String) obj);
-            } catch (Exception e) {
-                log.warn("解析时间失败: {}", obj, e);
-                return null;
+    private void releaseSeat(Long studentId, Long courseId) {
+        try {
+            SeatInventoryService.ReleaseResult result = seatInventoryService.release(studentId, courseId);
+            if (result == SeatInventoryService.ReleaseResult.COURSE_NOT_WARMED) {
+                // 无法得知该课程学分，清除学生学分缓存，下次选课时按学分台账重新预热
+                seatInventoryService.evictCredits(studentId);
+                courseServiceClient.decrementSelectedCount(courseId);
+                log.info("课程选课人数已减少: courseId={}", courseId);
             }
+        } catch (Exception e) {
+            log.error("归还座位失败: studentId={}, courseId={}", studentId, courseId, e);
         }
-        return null;
     }
     
     /**
-     * 解析BigDecimal
+     * 获取学生信息
      */
-    private BigDecimal parseBigDecimal(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof BigDecimal) {
-            return (BigDecimal) obj;
-        }
-        if (obj instanceof Number) {
-            return BigDecimal.valueOf(((Number) obj).doubleValue());
-        }
-        try {
-            return new BigDecimal(obj.toString());
-        } catch (Exception e) {
-            log.warn("解析BigDecimal失败: {}", obj, e);
-            return null;
+    private StudentView getStudentInfo(Long studentId) {
+        StudentView studentInfo = remoteDataLoader.getStudent(studentId);
+        if (studentInfo == null) {
+            throw new BusinessException(404, "学生信息不存在");
         }
+        return studentInfo;
     }
     
     /**
-     * 解析Integer
-     * 安全地从Map中获取Integer值，处理不同的Number类型
+     * 获取课程信息
      */
-    private Integer parseInteger(Object obj) {
-        if (obj == null) {
-            return null;
-        }
-        if (obj instanceof Integer) {
-            return (Integer) obj;
-        }
-        if (obj instanceof Number) {
-            return ((Number) obj).intValue();
-        }
-        try {
-            return Integer.parseInt(obj.toString());
-        } catch (Exception e) {
-            log.warn("解析Integer失败: {}", obj, e);
-            return null;
+    private CourseView getCourseInfo(Long courseId) {
+        CourseView courseInfo = remoteDataLoader.getCourse(courseId);
+        if (courseInfo == null) {
+            throw new BusinessException(404, "课程信息不存在");
         }
+        return courseInfo;
     }
     
     /**
      * 发送选课通知
-     * 注意：由于消息服务接口限制，这里暂时使用RabbitMQ发送异步通知
-     * 或者可以通过网关转发请求，在请求头中设置系统用户信息
+     * 注意：由于消息服务接口限制，这里通过RabbitMQ发送异步通知
+     * 通知先写入发件箱（与选课记录同一事务），事务提交后由OutboxRelay批量投递，
+     * 选课事务不再等待broker，事务回滚时也不会发出通知；
+     * 写入发件箱失败时异常直接抛出，选课随之回滚，不会出现已选课却没有通知的情况
      */
     private void sendSelectionNotification(Long studentId, Long courseId, 
-                                          Map<String, Object> studentInfo, 
-                                          Map<String, Object> courseInfo) {
-        try {
-            String studentName = (String) studentInfo.get("name");
-            String courseName = (String) courseInfo.get("courseName");
-            Long teacherId = parseLong(courseInfo.get("teacherId"));
-            
-            // 由于消息服务需要从请求头获取用户信息，而Feign客户端无法直接设置请求头
-            // 这里我们使用RabbitMQ发送异步通知，或者记录日志
-            // 实际项目中可以通过网关转发，在网关中设置系统用户请求头
-            
-            log.info("选课通知 - 学生: {}, 课程: {}, 教师: {}", studentName, courseName, teacherId);
-            
-            // 可以通过RabbitMQ发送通知消息到消息服务
-            Map<String, Object> notification = new HashMap<>();
-            notification.put("type", "SELECTION_SUCCESS");
-            notification.put("studentId", studentId);
-            notification.put("studentName", studentName);
-            notification.put("courseId", courseId);
-            notification.put("courseName", courseName);
-            notification.put("teacherId", teacherId);
-            notification.put("timestamp", System.currentTimeMillis());
-            
-            try {
-                rabbitTemplate.convertAndSend(Constants.EXCHANGE_SELECTION, "selection.notification", notification);
-                log.info("选课通知消息已发送到队列: studentId={}, courseId={}", studentId, courseId);
-            } catch (Exception e) {
-                log.warn("发送选课通知消息到队列失败", e);
-            }
-            
-        } catch (Exception e) {
-            log.error("发送选课通知失败", e);
-            // 通知失败不影响选课流程
-        }
+                                          StudentView studentInfo, 
+                                          CourseView courseInfo) {
+        log.info("选课通知 - 学生: {}, 课程: {}, 教师: {}", studentInfo.name(), courseInfo.courseName(), courseInfo.teacherId());
+        selectionOutboxService.enqueue(Constants.ROUTING_KEY_SELECTION_NOTIFICATION, NOTIFICATION_SELECTION_SUCCESS,
+            buildSelectionNotification(studentId, courseId, studentInfo, courseInfo));
+    }
+    
+    private Map<String, Object> buildSelectionNotification(Long studentId, Long courseId,
+                                                           StudentView studentInfo, CourseView courseInfo) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", NOTIFICATION_SELECTION_SUCCESS);
+        notification.put("studentId", studentId);
+        notification.put("studentName", studentInfo != null ? studentInfo.name() : null);
+        notification.put("courseId", courseId);
+        notification.put("courseName", courseInfo != null ? courseInfo.courseName() : null);
+        notification.put("teacherId", courseInfo != null ? courseInfo.teacherId() : null);
+        notification.put("timestamp", System.currentTimeMillis());
+        return notification;
     }
     
     /**
@@ -907,39 +867,167 @@ public class SelectionService {
     
     /**
      * 批量更新成绩
+     * 整批先在内存中校验，再按块（每块一次IN查询 + 一条UPDATE ... CASE）写入，返回逐行结果
      */
     @Transactional
-    public void batchUpdateScore(List<Map<String, Object>> scoreList) {
+    public BatchScoreResult batchUpdateScore(List<Map<String, Object>> scoreList) {
         log.info("批量更新成绩: count={}", scoreList.size());
         
+        List<ScoreRowResult> rows = new ArrayList<>(scoreList.size());
         for (Map<String, Object> item : scoreList) {
-            Long enrollmentId = parseLong(item.get("enrollmentId"));
-            Object scoreObj = item.get("score");
-            Double score = null;
-            
-            if (scoreObj != null) {
-                if (scoreObj instanceof Number) {
-                    score = ((Number) scoreObj).doubleValue();
-                } else {
-                    try {
-                        score = Double.parseDouble(scoreObj.toString());
-                    } catch (Exception e) {
-                        log.warn("解析成绩失败: enrollmentId={}, score={}", enrollmentId, scoreObj);
-                        continue;
-                    }
+            rows.add(parseScoreRow(rows.size() + 1, item.get("enrollmentId"), item.get("score")));
+        }
+        
+        BatchScoreResult result = new BatchScoreResult();
+        Set<Long> seen = new HashSet<>();
+        for (int from = 0; from < rows.size(); from += SCORE_BATCH_SIZE) {
+            List<ScoreRowResult> chunk = rows.subList(from, Math.min(from + SCORE_BATCH_SIZE, rows.size()));
+            applyScores(chunk, seen);
+            chunk.forEach(result::add);
+        }
+        
+        log.info("批量更新成绩完成: total={}, updated={}, failed={}", result.getTotal(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+    
+    /**
+     * 通过CSV导入成绩（每行：enrollmentId,score，可带表头，score为空表示清除成绩）
+     * 边读边按块写入，不把整个文件读入内存；每块单独一个事务提交，
+     * 读取文件期间不占用数据库连接和行锁，某一块写入失败只影响该块的行
+     */
+    public BatchScoreResult importScores(InputStream input) {
+        BatchScoreResult result = new BatchScoreResult();
+        Set<Long> seen = new HashSet<>();
+        List<ScoreRowResult> chunk = new ArrayList<>(SCORE_BATCH_SIZE);
+        int row = 0;
+        
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(input, StandardCharsets.UTF_8))) {
+            String line;
+            boolean first = true;
+            while ((line = reader.readLine()) != null) {
+                if (first) {
+                    line = line.replace("\uFEFF", "");
+                }
+                if (!StringUtils.hasText(line)) {
+                    continue;
+                }
+                String[] fields = line.split(",", -1);
+                String idField = fields[0].trim();
+                // 第一行不是数字时视为表头
+                if (first && !idField.isEmpty() && !Character.isDigit(idField.charAt(0))) {
+                    first = false;
+                    continue;
+                }
+                first = false;
+                
+                String scoreField = fields.length > 1 ? fields[1].trim() : "";
+                chunk.add(parseScoreRow(++row, idField, scoreField.isEmpty() ? null : scoreField));
+                if (chunk.size() >= SCORE_BATCH_SIZE) {
+                    applyScoresInTransaction(chunk, seen, result);
+                    chunk = new ArrayList<>(SCORE_BATCH_SIZE);
                 }
             }
-            
-            if (enrollmentId != null) {
-                try {
-                    updateScore(enrollmentId, score);
-                } catch (Exception e) {
-                    log.error("更新成绩失败: enrollmentId={}, score={}", enrollmentId, score, e);
-                    // 继续处理其他记录
+        } catch (IOException e) {
+            log.error("读取成绩文件失败", e);
+            throw new BusinessException(400, "读取成绩文件失败");
+        }
+        applyScoresInTransaction(chunk, seen, result);
+        
+        log.info("导入成绩完成: total={}, updated={}, failed={}", result.getTotal(), result.getUpdated(), result.getFailed());
+        return result;
+    }
+    
+    /**
+     * 解析并校验一行成绩（不访问数据库），校验失败时message不为空
+     */
+    private ScoreRowResult parseScoreRow(int row, Object enrollmentIdObj, Object scoreObj) {
+        ScoreRowResult result = new ScoreRowResult();
+        result.setRow(row);
+        result.setEnrollmentId(parseLong(enrollmentIdObj));
+        if (result.getEnrollmentId() == null) {
+            result.setMessage("选课记录ID无效");
+            return result;
+        }
+        
+        if (scoreObj != null) {
+            try {
+                result.setScore(scoreObj instanceof Number
+                    ? ((Number) scoreObj).doubleValue()
+                    : Double.parseDouble(scoreObj.toString().trim()));
+            } catch (NumberFormatException e) {
+                log.warn("解析成绩失败: enrollmentId={}, score={}", result.getEnrollmentId(), scoreObj);
+                result.setMessage("成绩格式错误");
+                return result;
+            }
+            if (result.getScore() < 0 || result.getScore() > 100) {
+                result.setMessage("成绩必须在0-100之间");
+            }
+        }
+        return result;
+    }
+    
+    /**
+     * 在独立事务中写入一块成绩，提交后计入结果；写入失败时本块回滚，本块中待写入的行标记失败
+     */
+    private void applyScoresInTransaction(List<ScoreRowResult> rows, Set<Long> seen, BatchScoreResult result) {
+        if (rows.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> applyScores(rows, seen));
+        } catch (RuntimeException e) {
+            log.error("写入成绩失败，本块已回滚: firstRow={}, rows={}", rows.get(0).getRow(), rows.size(), e);
+            for (ScoreRowResult row : rows) {
+                if (row.isSuccess() || row.getMessage() == null) {
+                    row.setSuccess(false);
+                    row.setMessage("成绩写入失败，请重新导入该行");
                 }
             }
         }
+        rows.forEach(result::add);
+    }
+    
+    /**
+     * 写入一块已校验的成绩：一次IN查询加载选课记录状态，一条UPDATE ... CASE写入
+     */
+    private void applyScores(List<ScoreRowResult> rows, Set<Long> seen) {
+        List<ScoreRowResult> valid = new ArrayList<>(rows.size());
+        for (ScoreRowResult row : rows) {
+            if (row.getMessage() != null) {
+                continue;
+            }
+            if (!seen.add(row.getEnrollmentId())) {
+                row.setMessage("选课记录重复");
+                continue;
+            }
+            valid.add(row);
+        }
         
-        log.info("批量更新成绩完成");
+        if (!valid.isEmpty()) {
+            Map<Long, Integer> statusById = new HashMap<>();
+            enrollmentMapper.selectList(new LambdaQueryWrapper<Enrollment>()
+                    .select(Enrollment::getEnrollmentId, Enrollment::getStatus)
+                    .in(Enrollment::getEnrollmentId, valid.stream().map(ScoreRowResult::getEnrollmentId).collect(Collectors.toList())))
+                .forEach(e -> statusById.put(e.getEnrollmentId(), e.getStatus()));
+            
+            List<Enrollment> updates = new ArrayList<>(valid.size());
+            for (ScoreRowResult row : valid) {
+                if (!statusById.containsKey(row.getEnrollmentId())) {
+                    row.setMessage("选课记录不存在");
+                } else if (!Integer.valueOf(0).equals(statusById.get(row.getEnrollmentId()))) {
+                    row.setMessage("只能为已选课程录入成绩");
+                } else {
+                    Enrollment update = new Enrollment();
+                    update.setEnrollmentId(row.getEnrollmentId());
+                    update.setScore(row.getScore());
+                    updates.add(update);
+                    row.setSuccess(true);
+                    row.setMessage("成绩已更新");
+                }
+            }
+            if (!updates.isEmpty()) {
+                enrollmentMapper.updateScoreBatch(updates);
+            }
+        }
     }
 }
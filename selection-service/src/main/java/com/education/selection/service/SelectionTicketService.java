@@ -0,0 +1,90 @@
+package com.education.selection.service;
+
+import com.education.selection.dto.SelectionTicketDTO;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步选课凭证服务
+ * 凭证保存在Redis中，供前端轮询选课进度
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class SelectionTicketService {
+    
+    private static final String TICKET_PREFIX = "selection:ticket:";
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${selection.async.ticket-ttl-hours:24}")
+    private long ticketTtlHours;
+    
+    /**
+     * 创建处理中的凭证
+     */
+    public SelectionTicketDTO create(Long studentId, Long courseId) {
+        SelectionTicketDTO ticket = new SelectionTicketDTO();
+        ticket.setTicketId(UUID.randomUUID().toString().replace("-", ""));
+        ticket.setStudentId(studentId);
+        ticket.setCourseId(courseId);
+        ticket.setStatus(SelectionTicketDTO.STATUS_PENDING);
+        ticket.setMessage("选课请求排队处理中");
+        ticket.setSubmittedAt(System.currentTimeMillis());
+        save(ticket);
+        return ticket;
+    }
+    
+    /**
+     * 标记选课成功
+     */
+    public void markSuccess(String ticketId, Long enrollmentId) {
+        update(ticketId, SelectionTicketDTO.STATUS_SUCCESS, "选课成功", enrollmentId);
+    }
+    
+    /**
+     * 标记选课失败
+     */
+    public void markFailed(String ticketId, String message) {
+        update(ticketId, SelectionTicketDTO.STATUS_FAILED, message, null);
+    }
+    
+    /**
+     * 查询凭证（不存在或已过期时返回null）
+     */
+    public SelectionTicketDTO get(String ticketId) {
+        Object cached = redisTemplate.opsForValue().get(TICKET_PREFIX + ticketId);
+        if (cached instanceof SelectionTicketDTO) {
+            return (SelectionTicketDTO) cached;
+        } else if (cached instanceof LinkedHashMap) {
+            return objectMapper.convertValue(cached, SelectionTicketDTO.class);
+        }
+        return null;
+    }
+    
+    private void update(String ticketId, String status, String message, Long enrollmentId) {
+        SelectionTicketDTO ticket = get(ticketId);
+        if (ticket == null) {
+            log.warn("选课凭证不存在或已过期: ticketId={}", ticketId);
+            return;
+        }
+        ticket.setStatus(status);
+        ticket.setMessage(message);
+        ticket.setEnrollmentId(enrollmentId);
+        ticket.setFinishedAt(System.currentTimeMillis());
+        save(ticket);
+    }
+    
+    private void save(SelectionTicketDTO ticket) {
+        redisTemplate.opsForValue().set(TICKET_PREFIX + ticket.getTicketId(), ticket, ticketTtlHours, TimeUnit.HOURS);
+    }
+}
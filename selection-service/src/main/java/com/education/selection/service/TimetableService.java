@@ -0,0 +1,85 @@
+package com.education.selection.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.common.dto.CourseView;
+import com.education.selection.dto.StudentTimetable;
+import com.education.selection.entity.Enrollment;
+import com.education.selection.mapper.EnrollmentMapper;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 学生课表服务
+ * 学生的已选课程及其上课时间位图缓存在Redis中，选课/退课后清除
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TimetableService {
+    
+    private static final String TIMETABLE_PREFIX = "selection:timetable:";
+    
+    private final EnrollmentMapper enrollmentMapper;
+    private final RemoteDataLoader remoteDataLoader;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    @Value("${selection.timetable.ttl-minutes:30}")
+    private long ttlMinutes;
+    
+    /**
+     * 获取学生课表（缓存未命中时从已选课程构建）
+     */
+    public StudentTimetable getTimetable(Long studentId) {
+        String cacheKey = TIMETABLE_PREFIX + studentId;
+        try {
+            Object cached = redisTemplate.opsForValue().get(cacheKey);
+            if (cached instanceof StudentTimetable) {
+                return (StudentTimetable) cached;
+            } else if (cached instanceof LinkedHashMap) {
+                return objectMapper.convertValue(cached, StudentTimetable.class);
+            }
+        } catch (Exception e) {
+            log.warn("读取学生课表缓存失败: studentId={}, error={}", studentId, e.getMessage());
+        }
+        
+        List<Long> courseIds = enrollmentMapper.selectList(
+            new LambdaQueryWrapper<Enrollment>()
+                .eq(Enrollment::getStudentId, studentId)
+                .eq(Enrollment::getStatus, 0) // 0-已选
+        ).stream().map(Enrollment::getCourseId).collect(Collectors.toList());
+        Map<Long, CourseView> courses = courseIds.isEmpty()
+            ? Collections.emptyMap() : remoteDataLoader.getCourses(courseIds);
+        StudentTimetable timetable = StudentTimetable.of(studentId, courseIds, courses);
+        if (courses.size() < courseIds.size()) {
+            // 部分课程信息获取失败，不缓存不完整的课表
+            log.warn("构建学生课表时部分课程信息缺失: studentId={}, courseIds={}", studentId, courseIds);
+            return timetable;
+        }
+        
+        try {
+            redisTemplate.opsForValue().set(cacheKey, timetable, ttlMinutes, TimeUnit.MINUTES);
+        } catch (Exception e) {
+            log.warn("写入学生课表缓存失败: studentId={}, error={}", studentId, e.getMessage());
+        }
+        return timetable;
+    }
+    
+    /**
+     * 清除学生课表缓存（选课、退课后调用）
+     */
+    public void evict(Long studentId) {
+        redisTemplate.delete(TIMETABLE_PREFIX + studentId);
+    }
+}
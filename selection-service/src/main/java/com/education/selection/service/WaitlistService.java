@@ -0,0 +1,286 @@
+package com.education.selection.service;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.education.common.constant.Constants;
+import com.education.common.dto.CourseView;
+import com.education.common.exception.BusinessException;
+import com.education.selection.dto.SelectionCommand;
+import com.education.selection.dto.SelectionTicketDTO;
+import com.education.selection.dto.WaitlistEntryDTO;
+import com.education.selection.entity.Enrollment;
+import com.education.selection.mapper.EnrollmentMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.amqp.rabbit.core.RabbitTemplate;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 候补选课服务
+ * 课程满员时学生加入候补队列（Redis有序集合，按加入时间排序），不再反复请求选课接口；
+ * 退课、异步选课失败、课程扩容后记录课程ID，由补位任务合并处理：
+ * 座位库存Lua脚本原子地把队首学生移入已选名单，再走异步选课流程写库，落库成功后通知学生
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class WaitlistService {
+    
+    private static final String WAITLIST_PREFIX = "seat:waitlist:";
+    // 有候补学生的课程ID，定时巡检兜底
+    private static final String WAITLIST_INDEX_KEY = "seat:waitlist:courses";
+    // 单门课程每轮最多补位人数，剩余的下一轮继续
+    private static final int MAX_PROMOTIONS_PER_ROUND = 100;
+    static final String NOTIFICATION_PROMOTED = "WAITLIST_PROMOTED";
+    static final String NOTIFICATION_REMOVED = "WAITLIST_REMOVED";
+    
+    private static final DefaultRedisScript<Long> JOIN_SCRIPT =
+        SeatInventoryService.loadScript("lua/seat_waitlist_join.lua", Long.class);
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final SeatInventoryService seatInventoryService;
+    private final CreditLedgerService creditLedgerService;
+    private final CourseCatalogService courseCatalogService;
+    private final RemoteDataLoader remoteDataLoader;
+    private final EnrollmentMapper enrollmentMapper;
+    private final SelectionTicketService selectionTicketService;
+    private final RabbitTemplate rabbitTemplate;
+    private final SelectionOutboxService selectionOutboxService;
+    
+    private final Set<Long> pendingCourseIds = ConcurrentHashMap.newKeySet();
+    
+    @Value("${selection.waitlist.max-size:200}")
+    private int maxSize;
+    
+    /**
+     * 加入候补（只有课程已满时允许）
+     */
+    public WaitlistEntryDTO join(Long studentId, Long courseId) {
+        CourseView course = courseCatalogService.current().getById(courseId);
+        if (course == null) {
+            throw new BusinessException(404, "课程不存在或未开放选课");
+        }
+        Long selected = enrollmentMapper.selectCount(new LambdaQueryWrapper<Enrollment>()
+            .eq(Enrollment::getStudentId, studentId)
+            .eq(Enrollment::getCourseId, courseId)
+            .eq(Enrollment::getStatus, 0));
+        if (selected != null && selected > 0) {
+            throw new BusinessException(400, "您已选择该课程");
+        }
+        Integer stock = seatInventoryService.getStock(courseId);
+        boolean full = stock != null ? stock <= 0 : course.isFull();
+        if (!full) {
+            throw new BusinessException(400, "课程尚有空位，请直接选课");
+        }
+        
+        Long code = stringRedisTemplate.execute(JOIN_SCRIPT, Arrays.asList(waitlistKey(courseId), WAITLIST_INDEX_KEY),
+            String.valueOf(studentId), String.valueOf(System.currentTimeMillis()), String.valueOf(maxSize),
+            String.valueOf(courseId));
+        if (code != null && code < 0) {
+            throw new BusinessException(400, "候补人数已满");
+        }
+        log.info("加入候补: studentId={}, courseId={}", studentId, courseId);
+        
+        // 加入前后可能刚好有人退课
+        requestPromotion(courseId);
+        return getEntry(studentId, courseId);
+    }
+    
+    /**
+     * 退出候补
+     */
+    public void leave(Long studentId, Long courseId) {
+        Long removed = stringRedisTemplate.opsForZSet().remove(waitlistKey(courseId), String.valueOf(studentId));
+        if (removed == null || removed == 0) {
+            throw new BusinessException(404, "不在该课程的候补队列中");
+        }
+        log.info("退出候补: studentId={}, courseId={}", studentId, courseId);
+    }
+    
+    /**
+     * 查询候补排队位置
+     */
+    public WaitlistEntryDTO getEntry(Long studentId, Long courseId) {
+        String key = waitlistKey(courseId);
+        String member = String.valueOf(studentId);
+        Long rank = stringRedisTemplate.opsForZSet().rank(key, member);
+        if (rank == null) {
+            throw new BusinessException(404, "不在该课程的候补队列中");
+        }
+        Double joinedAt = stringRedisTemplate.opsForZSet().score(key, member);
+        
+        WaitlistEntryDTO entry = new WaitlistEntryDTO();
+        entry.setStudentId(studentId);
+        entry.setCourseId(courseId);
+        entry.setPosition(rank + 1);
+        entry.setWaitingCount(stringRedisTemplate.opsForZSet().zCard(key));
+        entry.setJoinedAt(joinedAt != null ? joinedAt.longValue() : null);
+        return entry;
+    }
+    
+    /**
+     * 课程可能空出座位（退课、选课失败、扩容），等待下一轮补位
+     */
+    public void requestPromotion(Long courseId) {
+        if (courseId != null) {
+            pendingCourseIds.add(courseId);
+        }
+    }
+    
+    /**
+     * 补位任务：合并处理积累的课程
+     */
+    @Scheduled(fixedDelayString = "${selection.waitlist.promote-interval-ms:200}")
+    public void processPendingPromotions() {
+        if (pendingCourseIds.isEmpty()) {
+            return;
+        }
+        List<Long> courseIds = new ArrayList<>(pendingCourseIds);
+        pendingCourseIds.removeAll(courseIds);
+        for (Long courseId : courseIds) {
+            try {
+                promote(courseId);
+            } catch (Exception e) {
+                log.warn("候补补位失败，稍后重试: courseId={}, error={}", courseId, e.getMessage());
+                pendingCourseIds.add(courseId);
+            }
+        }
+    }
+    
+    /**
+     * 定时巡检所有有候补学生的课程，兜底实例重启等情况下丢失的补位请求
+     */
+    @Scheduled(fixedDelayString = "${selection.waitlist.sweep-interval-ms:60000}")
+    public void sweep() {
+        Set<String> courseIds = stringRedisTemplate.opsForSet().members(WAITLIST_INDEX_KEY);
+        if (courseIds == null) {
+            return;
+        }
+        for (String courseId : courseIds) {
+            Long waiting = stringRedisTemplate.opsForZSet().zCard(waitlistKey(Long.valueOf(courseId)));
+            if (waiting == null || waiting == 0) {
+                stringRedisTemplate.opsForSet().remove(WAITLIST_INDEX_KEY, courseId);
+            } else {
+                pendingCourseIds.add(Long.valueOf(courseId));
+            }
+        }
+    }
+    
+    private void promote(Long courseId) {
+        String key = waitlistKey(courseId);
+        for (int i = 0; i < MAX_PROMOTIONS_PER_ROUND; i++) {
+            SeatInventoryService.Promotion promotion =
+                seatInventoryService.promote(courseId, key, SelectionService.MAX_TOTAL_CREDITS);
+            switch (promotion.status()) {
+                case PROMOTED:
+                    if (!dispatch(courseId, promotion)) {
+                        return;
+                    }
+                    break;
+                case CREDIT_EXCEEDED:
+                    log.info("候补学生学分超限，已移出候补: studentId={}, courseId={}", promotion.studentId(), courseId);
+                    notifyRemoved(promotion.studentId(), courseId, "已选课程总学分超出上限");
+                    break;
+                case CREDITS_NOT_WARMED:
+                    seatInventoryService.warmCredits(promotion.studentId(),
+                        creditLedgerService.getTotalCredits(promotion.studentId()));
+                    break;
+                case COURSE_NOT_WARMED:
+                    if (!warmCourse(courseId)) {
+                        return;
+                    }
+                    break;
+                default:
+                    return;
+            }
+        }
+        // 本轮补位人数已达上限，下一轮继续
+        requestPromotion(courseId);
+    }
+    
+    /**
+     * 补位成功后走异步选课流程（学生校验、时间冲突检查、写库、选课通知）
+     * 候补成功通知在落库成功后与选课通知一起写入发件箱，校验不通过时通知学生已移出候补
+     * 提交失败时归还座位并把学生放回候补原位置
+     */
+    private boolean dispatch(Long courseId, SeatInventoryService.Promotion promotion) {
+        Long studentId = promotion.studentId();
+        try {
+            SelectionTicketDTO ticket = selectionTicketService.create(studentId, courseId);
+            
+            SelectionCommand command = new SelectionCommand();
+            command.setTicketId(ticket.getTicketId());
+            command.setStudentId(studentId);
+            command.setCourseId(courseId);
+            command.setSubmittedAt(ticket.getSubmittedAt());
+            command.setFromWaitlist(true);
+            rabbitTemplate.convertAndSend(Constants.EXCHANGE_SELECTION, Constants.ROUTING_KEY_SELECTION, command);
+            
+            log.info("候补补位成功: studentId={}, courseId={}, ticketId={}", studentId, courseId, ticket.getTicketId());
+            return true;
+        } catch (Exception e) {
+            log.error("候补补位提交失败，归还座位: studentId={}, courseId={}", studentId, courseId, e);
+            seatInventoryService.release(studentId, courseId);
+            stringRedisTemplate.opsForZSet().add(waitlistKey(courseId), String.valueOf(studentId),
+                promotion.joinedAt() != null ? promotion.joinedAt() : 0D);
+            pendingCourseIds.add(courseId);
+            return false;
+        }
+    }
+    
+    /**
+     * 预热课程库存，课程已不存在时清空候补队列
+     */
+    private boolean warmCourse(Long courseId) {
+        CourseView course = remoteDataLoader.getCourse(courseId);
+        if (course == null) {
+            log.warn("课程不存在，清空候补队列: courseId={}", courseId);
+            stringRedisTemplate.delete(waitlistKey(courseId));
+            stringRedisTemplate.opsForSet().remove(WAITLIST_INDEX_KEY, String.valueOf(courseId));
+            return false;
+        }
+        seatInventoryService.warmCourse(courseId, course.totalCapacity(), course.credit(),
+            enrollmentMapper.selectActiveStudentIds(courseId));
+        return true;
+    }
+    
+    /**
+     * 候补成功通知（由选课落库事务写入发件箱）
+     */
+    static Map<String, Object> promotionNotification(Long studentId, Long courseId, String ticketId) {
+        Map<String, Object> notification = new HashMap<>();
+        notification.put("type", NOTIFICATION_PROMOTED);
+        notification.put("studentId", studentId);
+        notification.put("courseId", courseId);
+        notification.put("ticketId", ticketId);
+        notification.put("timestamp", System.currentTimeMillis());
+        return notification;
+    }
+    
+    /**
+     * 通知学生已被移出候补队列（学分超限，或补位后选课校验不通过）
+     */
+    public void notifyRemoved(Long studentId, Long courseId, String reason) {
+        try {
+            Map<String, Object> notification = new HashMap<>();
+            notification.put("type", NOTIFICATION_REMOVED);
+            notification.put("studentId", studentId);
+            notification.put("courseId", courseId);
+            notification.put("reason", reason);
+            notification.put("timestamp", System.currentTimeMillis());
+            selectionOutboxService.enqueue(Constants.ROUTING_KEY_SELECTION_NOTIFICATION, NOTIFICATION_REMOVED, notification);
+        } catch (Exception e) {
+            log.warn("发送移出候补通知失败: studentId={}, courseId={}", studentId, courseId, e);
+        }
+    }
+    
+    private static String waitlistKey(Long courseId) {
+        return WAITLIST_PREFIX + courseId;
+    }
+}
@@ -0,0 +1,13 @@
+-- 课程容量变化时调整剩余座位（库存未预热时不处理，下次预热会读取最新容量）
+-- 每个选课服务实例都会收到同一条课程变更事件，用事件标记保证只调整一次
+-- KEYS[1] 课程库存 hash，KEYS[2] 事件已处理标记
+-- ARGV[1] 容量变化量，ARGV[2] 标记保留时间（秒）
+-- 返回：1-已调整，0-事件已处理过，-1-课程库存未预热
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+if not redis.call('SET', KEYS[2], '1', 'NX', 'EX', ARGV[2]) then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], 'stock', tonumber(ARGV[1]))
+return 1
@@ -0,0 +1,13 @@
+-- 按台账校正量增减学生已选学分缓存（缓存不存在时不处理，下次预热会读取台账）
+-- KEYS[1] 学生已选学分（学分*10）
+-- ARGV[1] 校正量（学分*10，可为负数）
+-- 返回：调整后的学分*10，缓存不存在时返回nil
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return false
+end
+local credits = redis.call('INCRBY', KEYS[1], tonumber(ARGV[1]))
+if credits < 0 then
+    redis.call('SET', KEYS[1], 0)
+    credits = 0
+end
+return credits
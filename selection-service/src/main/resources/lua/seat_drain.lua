@@ -0,0 +1,7 @@
+-- 取出并清空待回写的选课人数增量
+-- KEYS[1] 增量 hash
+local entries = redis.call('HGETALL', KEYS[1])
+if #entries > 0 then
+    redis.call('DEL', KEYS[1])
+end
+return entries
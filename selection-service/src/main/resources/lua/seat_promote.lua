@@ -0,0 +1,42 @@
+-- 候补补位（原子操作）：课程有空位时把候补队列队首的学生移入已选名单
+-- KEYS[1] 课程库存 hash，KEYS[2] 课程已选学生 set，KEYS[3] 待回写的选课人数增量 hash
+-- KEYS[4] 课程候补队列 zset：studentId -> 加入时间，KEYS[5] 队首学生已选学分（队列为空时不传）
+-- ARGV[1] courseId，ARGV[2] 学分上限（学分*10），ARGV[3] 调用方读到的队首学生ID（队列为空时为空串）
+-- 返回：{1, studentId, 加入时间}-补位成功，{2, studentId}-学生已选上，已移出候补，
+--      {3, studentId}-学分超限已移出候补，{4}-队首已变化，
+--      {0}-没有空位或候补为空，{-1}-课程库存未预热，{-2, studentId}-学生学分未预热
+-- 学分key由调用方通过KEYS传入，只处理ARGV[3]这一名学生，返回2、4时调用方重新读取队首后再次执行
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return {-1}
+end
+local stock = tonumber(redis.call('HGET', KEYS[1], 'stock') or '0')
+if stock <= 0 then
+    return {0}
+end
+local head = redis.call('ZRANGE', KEYS[4], 0, 0, 'WITHSCORES')
+if #head == 0 then
+    return {0}
+end
+local studentId = head[1]
+if studentId ~= ARGV[3] then
+    return {4}
+end
+if redis.call('SISMEMBER', KEYS[2], studentId) == 1 then
+    -- 已经通过其他途径选上，直接移出候补
+    redis.call('ZREM', KEYS[4], studentId)
+    return {2, studentId}
+end
+if redis.call('EXISTS', KEYS[5]) == 0 then
+    return {-2, studentId}
+end
+redis.call('ZREM', KEYS[4], studentId)
+local credit = tonumber(redis.call('HGET', KEYS[1], 'credit') or '0')
+local used = tonumber(redis.call('GET', KEYS[5]) or '0')
+if used + credit > tonumber(ARGV[2]) then
+    return {3, studentId}
+end
+redis.call('HINCRBY', KEYS[1], 'stock', -1)
+redis.call('SADD', KEYS[2], studentId)
+redis.call('INCRBY', KEYS[5], credit)
+redis.call('HINCRBY', KEYS[3], ARGV[1], 1)
+return {1, studentId, head[2]}
@@ -0,0 +1,17 @@
+-- 核对课程剩余座位：应有剩余座位 = 课程容量 - 已选学生数（不小于0）
+-- KEYS[1] 课程库存 hash，KEYS[2] 课程已选学生 set
+-- ARGV[1] 课程容量，ARGV[2] 确认需要修正的偏差（为空时只核对不修正；偏差已变化时不修正）
+-- 返回：剩余座位偏差（当前 - 应有），库存未预热时返回nil
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return false
+end
+local stock = tonumber(redis.call('HGET', KEYS[1], 'stock') or '0')
+local expected = tonumber(ARGV[1]) - redis.call('SCARD', KEYS[2])
+if expected < 0 then
+    expected = 0
+end
+local drift = stock - expected
+if ARGV[2] ~= '' and drift ~= 0 and drift == tonumber(ARGV[2]) then
+    redis.call('HSET', KEYS[1], 'stock', expected)
+end
+return drift
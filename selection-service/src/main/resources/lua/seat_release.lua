@@ -0,0 +1,16 @@
+-- 释放选课座位（退课或选课事务回滚时调用）
+-- KEYS/ARGV 与 seat_reserve.lua 相同
+-- 返回：1-已释放，0-学生不在已选名单中，-1-课程库存未预热
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+if redis.call('SREM', KEYS[2], ARGV[1]) == 0 then
+    return 0
+end
+redis.call('HINCRBY', KEYS[1], 'stock', 1)
+local credit = tonumber(redis.call('HGET', KEYS[1], 'credit') or '0')
+if redis.call('EXISTS', KEYS[3]) == 1 then
+    redis.call('DECRBY', KEYS[3], credit)
+end
+redis.call('HINCRBY', KEYS[4], ARGV[2], -1)
+return 1
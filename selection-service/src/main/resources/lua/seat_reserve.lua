@@ -0,0 +1,30 @@
+-- 选课座位预占（原子操作）
+-- KEYS[1] 课程库存 hash：stock（剩余座位）、credit（学分*10）
+-- KEYS[2] 课程已选学生 set
+-- KEYS[3] 学生已选学分（学分*10）
+-- KEYS[4] 待回写MySQL的选课人数增量 hash：courseId -> delta
+-- ARGV[1] studentId，ARGV[2] courseId，ARGV[3] 学分上限（学分*10）
+-- 返回：1-成功，0-容量已满，2-重复选课，3-学分超限，-1-课程库存未预热，-2-学生学分未预热
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return -1
+end
+if redis.call('EXISTS', KEYS[3]) == 0 then
+    return -2
+end
+if redis.call('SISMEMBER', KEYS[2], ARGV[1]) == 1 then
+    return 2
+end
+local stock = tonumber(redis.call('HGET', KEYS[1], 'stock') or '0')
+if stock <= 0 then
+    return 0
+end
+local credit = tonumber(redis.call('HGET', KEYS[1], 'credit') or '0')
+local used = tonumber(redis.call('GET', KEYS[3]) or '0')
+if used + credit > tonumber(ARGV[3]) then
+    return 3
+end
+redis.call('HINCRBY', KEYS[1], 'stock', -1)
+redis.call('SADD', KEYS[2], ARGV[1])
+redis.call('INCRBY', KEYS[3], credit)
+redis.call('HINCRBY', KEYS[4], ARGV[2], 1)
+return 1
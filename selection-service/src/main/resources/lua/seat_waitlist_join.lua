@@ -0,0 +1,13 @@
+-- 加入候补队列（人数上限检查与加入原子完成，并发加入不会超过上限）
+-- KEYS[1] 课程候补队列 zset，KEYS[2] 有候补学生的课程ID set
+-- ARGV[1] 学生ID，ARGV[2] 加入时间（毫秒），ARGV[3] 候补人数上限，ARGV[4] 课程ID
+-- 返回：1-已加入，0-已在候补队列中，-1-候补人数已满
+if redis.call('ZSCORE', KEYS[1], ARGV[1]) then
+    return 0
+end
+if redis.call('ZCARD', KEYS[1]) >= tonumber(ARGV[3]) then
+    return -1
+end
+redis.call('ZADD', KEYS[1], ARGV[2], ARGV[1])
+redis.call('SADD', KEYS[2], ARGV[4])
+return 1
@@ -0,0 +1,12 @@
+-- 预热课程库存（仅在库存不存在时写入，避免覆盖运行中的库存）
+-- KEYS[1] 课程库存 hash，KEYS[2] 课程已选学生 set
+-- ARGV[1] 剩余座位，ARGV[2] 学分*10，ARGV[3..n] 已选学生ID
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return 0
+end
+redis.call('DEL', KEYS[2])
+redis.call('HSET', KEYS[1], 'stock', ARGV[1], 'credit', ARGV[2])
+for i = 3, #ARGV do
+    redis.call('SADD', KEYS[2], ARGV[i])
+end
+return 1
@@ -0,0 +1,69 @@
+package com.education.selection.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * CSV导出：BOM、CRLF换行、引号转义、公式注入防护、单元格格式
+ */
+class CsvExportWriterTest {
+    
+    @Test
+    void writesBomOnceAndCrlfLineEndings() throws IOException {
+        String csv = write(List.of("学号", "姓名"), List.of("2024001", "张三"));
+        
+        assertEquals("\uFEFF学号,姓名\r\n2024001,张三\r\n", csv);
+    }
+    
+    @Test
+    void quotesFieldsWithSeparatorsQuotesAndLineBreaks() throws IOException {
+        String csv = write(List.of("a,b", "say \"hi\"", "line1\nline2", "plain"));
+        
+        assertEquals("\uFEFF\"a,b\",\"say \"\"hi\"\"\",\"line1\nline2\",plain\r\n", csv);
+    }
+    
+    @Test
+    void prefixesFormulaLikeTextButNotNumbers() throws IOException {
+        String csv = write(Arrays.asList("=SUM(A1:A2)", "+1", "-1", "@cmd", -1, new BigDecimal("-2.5")));
+        
+        assertEquals("\uFEFF'=SUM(A1:A2),'+1,'-1,'@cmd,-1,-2.5\r\n", csv);
+    }
+    
+    @Test
+    void formatsNullsDatesAndDecimals() throws IOException {
+        String csv = write(Arrays.asList(null, LocalDateTime.of(2024, 9, 1, 8, 5, 3), new BigDecimal("3.50"),
+                new BigDecimal("90.00")));
+        
+        assertEquals("\uFEFF,2024-09-01 08:05:03,3.5,90\r\n", csv);
+    }
+    
+    @Test
+    void emptyExportHasNoBom() throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (CsvExportWriter writer = new CsvExportWriter(output)) {
+            writer.finish();
+        }
+        
+        assertEquals(0, output.size());
+    }
+    
+    private static String write(List<?>... rows) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (CsvExportWriter writer = new CsvExportWriter(output)) {
+            for (List<?> row : rows) {
+                writer.writeRow(row);
+            }
+            writer.finish();
+        }
+        return output.toString(StandardCharsets.UTF_8);
+    }
+}
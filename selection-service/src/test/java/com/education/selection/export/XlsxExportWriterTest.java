@@ -0,0 +1,85 @@
+package com.education.selection.export;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * XLSX导出：包结构完整，数字/文本/空单元格按SpreadsheetML写出，XML特殊字符转义
+ */
+class XlsxExportWriterTest {
+    
+    @Test
+    void finishWritesCompletePackage() throws IOException {
+        Map<String, String> entries = write(List.of("学号", "成绩"), Arrays.asList("2024001", 95));
+        
+        assertTrue(entries.containsKey("[Content_Types].xml"));
+        assertTrue(entries.containsKey("_rels/.rels"));
+        assertTrue(entries.containsKey("xl/_rels/workbook.xml.rels"));
+        assertTrue(entries.get("xl/workbook.xml").contains("<sheet name=\"Sheet1\" sheetId=\"1\" r:id=\"rId1\"/>"));
+        assertTrue(entries.get("[Content_Types].xml").contains("/xl/worksheets/sheet1.xml"));
+        assertFalse(entries.containsKey("xl/worksheets/sheet2.xml"));
+    }
+    
+    @Test
+    void writesRowsWithCellTypes() throws IOException {
+        Map<String, String> entries = write(
+                List.of("学号", "学分", "成绩"),
+                Arrays.asList("2024001", new BigDecimal("3.50"), null));
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        
+        assertTrue(sheet.contains("<row r=\"1\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">学号</t></is></c>"), sheet);
+        assertTrue(sheet.contains("<row r=\"2\"><c t=\"inlineStr\"><is><t xml:space=\"preserve\">2024001</t></is></c>"
+                + "<c><v>3.5</v></c><c/></row>"), sheet);
+        assertTrue(sheet.endsWith("</sheetData></worksheet>"), sheet);
+    }
+    
+    @Test
+    void escapesXmlAndDropsInvalidControlCharacters() throws IOException {
+        Map<String, String> entries = write(List.of("<a href=\"x\">&</a>\u0001\tok"));
+        String sheet = entries.get("xl/worksheets/sheet1.xml");
+        
+        assertTrue(sheet.contains("&lt;a href=&quot;x&quot;&gt;&amp;&lt;/a&gt;\tok"), sheet);
+        assertFalse(sheet.contains("\u0001"));
+    }
+    
+    @Test
+    void emptyExportStillHasOneSheet() throws IOException {
+        Map<String, String> entries = write();
+        
+        assertEquals("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"yes\"?>"
+                + "<worksheet xmlns=\"http://schemas.openxmlformats.org/spreadsheetml/2006/main\"><sheetData>"
+                + "</sheetData></worksheet>", entries.get("xl/worksheets/sheet1.xml"));
+    }
+    
+    private static Map<String, String> write(List<?>... rows) throws IOException {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        try (XlsxExportWriter writer = new XlsxExportWriter(output)) {
+            for (List<?> row : rows) {
+                writer.writeRow(row);
+            }
+            writer.finish();
+        }
+        
+        Map<String, String> entries = new HashMap<>();
+        try (ZipInputStream zip = new ZipInputStream(new ByteArrayInputStream(output.toByteArray()), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while ((entry = zip.getNextEntry()) != null) {
+                entries.put(entry.getName(), new String(zip.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return entries;
+    }
+}
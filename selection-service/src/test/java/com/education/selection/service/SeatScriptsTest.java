@@ -0,0 +1,302 @@
+package com.education.selection.service;
+
+import com.education.selection.service.SeatInventoryService.PromoteStatus;
+import com.education.selection.service.SeatInventoryService.Promotion;
+import com.education.selection.service.SeatInventoryService.ReleaseResult;
+import com.education.selection.service.SeatInventoryService.ReserveResult;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.redis.connection.lettuce.LettuceConnectionFactory;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.testcontainers.containers.GenericContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+import org.testcontainers.utility.DockerImageName;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 座位库存Lua脚本（预热、预占、释放、候补补位、加入候补、核对）
+ * 在真实Redis上执行，没有Docker时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class SeatScriptsTest {
+    
+    private static final Long COURSE_ID = 1L;
+    private static final BigDecimal MAX_CREDITS = new BigDecimal("10");
+    private static final String WAITLIST_KEY = "waitlist:course:" + COURSE_ID;
+    
+    @Container
+    private static final GenericContainer<?> REDIS =
+            new GenericContainer<>(DockerImageName.parse("redis:7-alpine")).withExposedPorts(6379);
+    
+    private static LettuceConnectionFactory connectionFactory;
+    
+    private StringRedisTemplate redis;
+    private SeatInventoryService seats;
+    
+    @BeforeAll
+    static void connect() {
+        connectionFactory = new LettuceConnectionFactory(REDIS.getHost(), REDIS.getMappedPort(6379));
+        connectionFactory.afterPropertiesSet();
+    }
+    
+    @AfterAll
+    static void disconnect() {
+        connectionFactory.destroy();
+    }
+    
+    @BeforeEach
+    void setUp() {
+        redis = new StringRedisTemplate(connectionFactory);
+        redis.execute((RedisCallback<Object>) connection -> {
+            connection.serverCommands().flushDb();
+            return null;
+        });
+        // 这些用例不回写选课人数，不需要course-service客户端
+        seats = new SeatInventoryService(redis, null);
+    }
+    
+    @Test
+    void reserveTakesSeatAndCredits() {
+        seats.warmCourse(COURSE_ID, 2, new BigDecimal("3.0"), List.of());
+        seats.warmCredits(100L, BigDecimal.ZERO);
+        
+        assertEquals(ReserveResult.SUCCESS, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertTrue(redis.opsForSet().isMember("seat:members:" + COURSE_ID, "100"));
+        assertEquals("30", redis.opsForValue().get("seat:credits:100"));
+        assertEquals(Map.of(COURSE_ID, 1), seats.getPendingDeltas(List.of(COURSE_ID)));
+    }
+    
+    @Test
+    void reserveRejectsDuplicateWithoutTakingAnotherSeat() {
+        seats.warmCourse(COURSE_ID, 2, new BigDecimal("3.0"), List.of());
+        seats.warmCredits(100L, BigDecimal.ZERO);
+        seats.tryReserve(100L, COURSE_ID, MAX_CREDITS);
+        
+        assertEquals(ReserveResult.DUPLICATE, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertEquals("30", redis.opsForValue().get("seat:credits:100"));
+    }
+    
+    @Test
+    void reserveRejectsWhenFull() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        seats.warmCredits(100L, BigDecimal.ZERO);
+        seats.warmCredits(101L, BigDecimal.ZERO);
+        
+        assertEquals(ReserveResult.SUCCESS, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        assertEquals(ReserveResult.FULL, seats.tryReserve(101L, COURSE_ID, MAX_CREDITS));
+        assertEquals(0, seats.getStock(COURSE_ID));
+        assertFalse(redis.opsForSet().isMember("seat:members:" + COURSE_ID, "101"));
+    }
+    
+    @Test
+    void reserveRejectsWhenCreditLimitExceeded() {
+        seats.warmCourse(COURSE_ID, 5, new BigDecimal("2.0"), List.of());
+        seats.warmCredits(100L, new BigDecimal("8.5"));
+        
+        assertEquals(ReserveResult.CREDIT_EXCEEDED, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        assertEquals(5, seats.getStock(COURSE_ID));
+        assertEquals("85", redis.opsForValue().get("seat:credits:100"));
+    }
+    
+    @Test
+    void reserveReportsMissingWarmUp() {
+        assertEquals(ReserveResult.COURSE_NOT_WARMED, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        
+        seats.warmCourse(COURSE_ID, 5, new BigDecimal("2.0"), List.of());
+        assertEquals(ReserveResult.CREDITS_NOT_WARMED, seats.tryReserve(100L, COURSE_ID, MAX_CREDITS));
+        assertEquals(5, seats.getStock(COURSE_ID));
+    }
+    
+    @Test
+    void warmCourseCountsExistingMembersAndDoesNotOverwrite() {
+        assertTrue(seats.warmCourse(COURSE_ID, 3, new BigDecimal("2.0"), List.of(1L, 2L)));
+        assertEquals(1, seats.getStock(COURSE_ID));
+        
+        assertFalse(seats.warmCourse(COURSE_ID, 10, new BigDecimal("2.0"), List.of()));
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertEquals(2L, redis.opsForSet().size("seat:members:" + COURSE_ID));
+    }
+    
+    @Test
+    void warmCourseNeverGoesBelowZeroWhenOverEnrolled() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of(1L, 2L, 3L));
+        
+        assertEquals(0, seats.getStock(COURSE_ID));
+    }
+    
+    @Test
+    void releaseReturnsSeatAndCredits() {
+        seats.warmCourse(COURSE_ID, 2, new BigDecimal("3.0"), List.of());
+        seats.warmCredits(100L, BigDecimal.ZERO);
+        seats.tryReserve(100L, COURSE_ID, MAX_CREDITS);
+        
+        assertEquals(ReleaseResult.RELEASED, seats.release(100L, COURSE_ID));
+        
+        assertEquals(2, seats.getStock(COURSE_ID));
+        assertFalse(redis.opsForSet().isMember("seat:members:" + COURSE_ID, "100"));
+        assertEquals("0", redis.opsForValue().get("seat:credits:100"));
+        assertEquals(Map.of(COURSE_ID, 0), seats.getPendingDeltas(List.of(COURSE_ID)));
+    }
+    
+    @Test
+    void releaseIsIdempotent() {
+        seats.warmCourse(COURSE_ID, 2, new BigDecimal("3.0"), List.of());
+        seats.warmCredits(100L, BigDecimal.ZERO);
+        seats.tryReserve(100L, COURSE_ID, MAX_CREDITS);
+        seats.release(100L, COURSE_ID);
+        
+        assertEquals(ReleaseResult.NOT_MEMBER, seats.release(100L, COURSE_ID));
+        assertEquals(2, seats.getStock(COURSE_ID));
+        assertEquals("0", redis.opsForValue().get("seat:credits:100"));
+    }
+    
+    @Test
+    void releaseReportsMissingWarmUp() {
+        assertEquals(ReleaseResult.COURSE_NOT_WARMED, seats.release(100L, COURSE_ID));
+    }
+    
+    @Test
+    void promoteMovesHeadOfWaitlistIntoFreeSeat() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        seats.warmCredits(200L, BigDecimal.ZERO);
+        seats.warmCredits(201L, BigDecimal.ZERO);
+        redis.opsForZSet().add(WAITLIST_KEY, "200", 1000);
+        redis.opsForZSet().add(WAITLIST_KEY, "201", 2000);
+        
+        Promotion promotion = seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS);
+        
+        assertEquals(new Promotion(PromoteStatus.PROMOTED, 200L, 1000.0), promotion);
+        assertEquals(0, seats.getStock(COURSE_ID));
+        assertTrue(redis.opsForSet().isMember("seat:members:" + COURSE_ID, "200"));
+        assertEquals("20", redis.opsForValue().get("seat:credits:200"));
+        assertEquals(1L, redis.opsForZSet().size(WAITLIST_KEY));
+        
+        assertEquals(PromoteStatus.NO_SEAT, seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS).status());
+        assertEquals(1L, redis.opsForZSet().size(WAITLIST_KEY));
+    }
+    
+    @Test
+    void promoteSkipsStudentsAlreadySelected() {
+        seats.warmCourse(COURSE_ID, 2, new BigDecimal("2.0"), List.of(200L));
+        seats.warmCredits(201L, BigDecimal.ZERO);
+        redis.opsForZSet().add(WAITLIST_KEY, "200", 1000);
+        redis.opsForZSet().add(WAITLIST_KEY, "201", 2000);
+        
+        Promotion promotion = seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS);
+        
+        assertEquals(PromoteStatus.PROMOTED, promotion.status());
+        assertEquals(201L, promotion.studentId());
+        assertEquals(0L, redis.opsForZSet().size(WAITLIST_KEY));
+    }
+    
+    @Test
+    void promoteDropsStudentOverCreditLimit() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        seats.warmCredits(300L, new BigDecimal("9.5"));
+        redis.opsForZSet().add(WAITLIST_KEY, "300", 1000);
+        
+        Promotion promotion = seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS);
+        
+        assertEquals(new Promotion(PromoteStatus.CREDIT_EXCEEDED, 300L, null), promotion);
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertEquals(0L, redis.opsForZSet().size(WAITLIST_KEY));
+        assertEquals("95", redis.opsForValue().get("seat:credits:300"));
+    }
+    
+    @Test
+    void promoteKeepsStudentWhoseCreditsAreNotWarmed() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        redis.opsForZSet().add(WAITLIST_KEY, "400", 1000);
+        
+        Promotion promotion = seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS);
+        
+        assertEquals(new Promotion(PromoteStatus.CREDITS_NOT_WARMED, 400L, null), promotion);
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertEquals(1L, redis.opsForZSet().size(WAITLIST_KEY));
+    }
+    
+    @Test
+    void promoteReportsMissingWarmUpAndEmptyWaitlist() {
+        assertEquals(PromoteStatus.COURSE_NOT_WARMED, seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS).status());
+        
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        assertEquals(PromoteStatus.NO_SEAT, seats.promote(COURSE_ID, WAITLIST_KEY, MAX_CREDITS).status());
+    }
+    
+    @Test
+    @SuppressWarnings("rawtypes")
+    void promoteScriptOnlyTouchesTheHeadPassedByTheCaller() {
+        seats.warmCourse(COURSE_ID, 1, new BigDecimal("2.0"), List.of());
+        seats.warmCredits(201L, BigDecimal.ZERO);
+        redis.opsForZSet().add(WAITLIST_KEY, "200", 1000);
+        redis.opsForZSet().add(WAITLIST_KEY, "201", 2000);
+        DefaultRedisScript<List> promote = SeatInventoryService.loadScript("lua/seat_promote.lua", List.class);
+        List<String> keys = Arrays.asList("seat:inv:" + COURSE_ID, "seat:members:" + COURSE_ID, "seat:dirty",
+                WAITLIST_KEY, "seat:credits:201");
+        
+        assertEquals(List.of(4L), redis.execute(promote, keys, String.valueOf(COURSE_ID), "100", "201"));
+        assertEquals(1, seats.getStock(COURSE_ID));
+        assertEquals(2L, redis.opsForZSet().size(WAITLIST_KEY));
+        assertEquals("0", redis.opsForValue().get("seat:credits:201"));
+    }
+    
+    @Test
+    void waitlistJoinEnforcesCapAtomically() {
+        DefaultRedisScript<Long> join = SeatInventoryService.loadScript("lua/seat_waitlist_join.lua", Long.class);
+        List<String> keys = Arrays.asList(WAITLIST_KEY, "waitlist:courses");
+        
+        assertEquals(1L, redis.execute(join, keys, "200", "1000", "2", String.valueOf(COURSE_ID)));
+        assertEquals(0L, redis.execute(join, keys, "200", "1500", "2", String.valueOf(COURSE_ID)));
+        assertEquals(1L, redis.execute(join, keys, "201", "2000", "2", String.valueOf(COURSE_ID)));
+        assertEquals(-1L, redis.execute(join, keys, "202", "3000", "2", String.valueOf(COURSE_ID)));
+        
+        assertEquals(1000.0, redis.opsForZSet().score(WAITLIST_KEY, "200"));
+        assertNull(redis.opsForZSet().score(WAITLIST_KEY, "202"));
+        assertTrue(redis.opsForSet().isMember("waitlist:courses", String.valueOf(COURSE_ID)));
+    }
+    
+    @Test
+    void reconcileOnlyFixesConfirmedDrift() {
+        seats.warmCourse(COURSE_ID, 5, new BigDecimal("2.0"), List.of(1L, 2L));
+        assertEquals(0, seats.reconcileStock(COURSE_ID, 5, null));
+        
+        redis.opsForHash().put("seat:inv:" + COURSE_ID, "stock", "7");
+        assertEquals(4, seats.reconcileStock(COURSE_ID, 5, null));
+        assertEquals(7, seats.getStock(COURSE_ID));
+        
+        // 偏差已变化（与上一轮确认的不同）时不修正
+        assertEquals(4, seats.reconcileStock(COURSE_ID, 5, 3));
+        assertEquals(7, seats.getStock(COURSE_ID));
+        
+        assertEquals(4, seats.reconcileStock(COURSE_ID, 5, 4));
+        assertEquals(3, seats.getStock(COURSE_ID));
+    }
+    
+    @Test
+    void reconcileTreatsOverEnrollmentAsZeroSeats() {
+        seats.warmCourse(COURSE_ID, 3, new BigDecimal("2.0"), List.of());
+        redis.opsForSet().add("seat:members:" + COURSE_ID, "1", "2", "3", "4");
+        
+        assertEquals(3, seats.reconcileStock(COURSE_ID, 3, 3));
+        assertEquals(0, seats.getStock(COURSE_ID));
+    }
+    
+    @Test
+    void reconcileReportsMissingWarmUp() {
+        assertNull(seats.reconcileStock(COURSE_ID, 5, null));
+    }
+}
@@ -30,7 +30,10 @@ CREATE TABLE IF NOT EXISTS `courses` (
   UNIQUE KEY `uk_course_code` (`course_code`),
   KEY `idx_teacher_id` (`teacher_id`),
   KEY `idx_status` (`status`),
-  KEY `idx_department` (`department`)
+  KEY `idx_department` (`department`),
+  -- 游标分页：按 (created_at, course_id) 倒序定位
+  KEY `idx_created_at_course_id` (`created_at`, `course_id`),
+  KEY `idx_status_created_at_course_id` (`status`, `created_at`, `course_id`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='课程信息表';
 
 -- 课程时间表（course_schedule）
@@ -48,6 +51,19 @@ CREATE TABLE IF NOT EXISTS `course_schedule` (
   CONSTRAINT `fk_course_schedule_course` FOREIGN KEY (`course_id`) REFERENCES `courses` (`course_id`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='课程时间表';
 
+-- 教师投影表（teacher_projection）
+-- 由teacher-service的教师变更事件维护，course-service首次使用时通过teacher-service接口全量同步一次
+CREATE TABLE IF NOT EXISTS `teacher_projection` (
+  `teacher_id` BIGINT NOT NULL COMMENT '教师ID',
+  `user_id` BIGINT DEFAULT NULL COMMENT '登录用户ID（user_credentials表的id）',
+  `name` VARCHAR(50) DEFAULT NULL COMMENT '教师姓名',
+  `department` VARCHAR(100) DEFAULT NULL COMMENT '所属院系',
+  `status` TINYINT DEFAULT 1 COMMENT '状态：0-禁用，1-启用',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`teacher_id`),
+  KEY `idx_user_id` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='教师投影表';
+
 -- 初始化测试课程数据
 INSERT INTO `courses` (`course_code`, `course_name`, `teacher_id`, `teacher_name`, `course_description`, `cover_image`, `credit`, `total_capacity`, `selected_count`, `status`, `start_time`, `end_time`, `department`) VALUES
 ('CS101', 'Java程序设计', 1, '张明', '本课程主要介绍Java语言的基础语法、面向对象编程、集合框架、IO流、多线程等内容，通过理论学习和实践操作，使学生掌握Java编程的基本技能。', 'http://localhost:9000/education-files/course-covers/java-cover.jpg', 4.0, 50, 0, 1, '2024-09-01 00:00:00', '2024-12-31 23:59:59', '计算机科学学院'),
@@ -0,0 +1,18 @@
+-- ============================================
+-- course-service 教师投影升级脚本
+-- 新增教师投影表，课程服务不再跨库查询teacher_service_db
+-- 表创建后无需手工初始化：course-service首次使用时通过teacher-service接口全量同步
+-- ============================================
+
+USE `course_service_db`;
+
+CREATE TABLE IF NOT EXISTS `teacher_projection` (
+  `teacher_id` BIGINT NOT NULL COMMENT '教师ID',
+  `user_id` BIGINT DEFAULT NULL COMMENT '登录用户ID（user_credentials表的id）',
+  `name` VARCHAR(50) DEFAULT NULL COMMENT '教师姓名',
+  `department` VARCHAR(100) DEFAULT NULL COMMENT '所属院系',
+  `status` TINYINT DEFAULT 1 COMMENT '状态：0-禁用，1-启用',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`teacher_id`),
+  KEY `idx_user_id` (`user_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='教师投影表';
@@ -0,0 +1,32 @@
+-- ============================================
+-- enrollment-service 学分台账升级脚本
+-- 选课记录增加学分快照，新增学生学分台账表
+-- ============================================
+
+USE `enrollment_service_db`;
+
+-- 1. 选课记录增加学分快照字段
+ALTER TABLE `enrollments`
+ADD COLUMN `credit` DECIMAL(4,1) DEFAULT NULL COMMENT '选课时的课程学分快照' AFTER `status`;
+
+-- 2. 回填已有选课记录的学分（需要有权限访问course_service_db）
+UPDATE `enrollments` e
+JOIN `course_service_db`.`courses` c ON c.course_id = e.course_id
+SET e.credit = c.credit
+WHERE e.credit IS NULL;
+
+-- 3. 创建学生学分台账表
+CREATE TABLE IF NOT EXISTS `student_credit_ledger` (
+  `student_id` BIGINT NOT NULL COMMENT '学生ID',
+  `total_credits` DECIMAL(6,1) NOT NULL DEFAULT 0 COMMENT '已选课程总学分',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`student_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='学生学分台账表';
+
+-- 4. 按选课记录初始化台账
+INSERT INTO `student_credit_ledger` (`student_id`, `total_credits`)
+SELECT `student_id`, IFNULL(SUM(`credit`), 0)
+FROM `enrollments`
+WHERE `status` = 0
+GROUP BY `student_id`
+ON DUPLICATE KEY UPDATE `total_credits` = VALUES(`total_credits`);
@@ -15,6 +15,8 @@ CREATE TABLE IF NOT EXISTS `enrollments` (
   `course_id` BIGINT NOT NULL COMMENT '课程ID（来自course-service）',
   `enrollment_time` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '选课时间',
   `status` TINYINT DEFAULT 0 COMMENT '选课状态：0-已选，1-已退',
+  `credit` DECIMAL(4,1) DEFAULT NULL COMMENT '选课时的课程学分快照',
+  `score` DOUBLE DEFAULT NULL COMMENT '成绩（0-100）',
   `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`enrollment_id`),
@@ -22,7 +24,8 @@ CREATE TABLE IF NOT EXISTS `enrollments` (
   KEY `idx_student_id` (`student_id`),
   KEY `idx_course_id` (`course_id`),
   KEY `idx_status` (`status`),
-  KEY `idx_enrollment_time` (`enrollment_time`)
+  KEY `idx_enrollment_time` (`enrollment_time`),
+  KEY `idx_updated_at` (`updated_at`)
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='选课记录表';
 
 -- 初始化测试选课数据
@@ -40,3 +43,28 @@ INSERT INTO `enrollments` (`student_id`, `course_id`, `enrollment_time`, `status
 (4, 5, '2024-09-05 13:05:00', 0),
 (4, 14, '2024-09-05 13:10:00', 0);
 
+-- 学生学分台账表（student_credit_ledger）
+-- 保存每个学生已选课程的总学分，选课/退课时同步增减，定时任务按enrollments全量校正
+CREATE TABLE IF NOT EXISTS `student_credit_ledger` (
+  `student_id` BIGINT NOT NULL COMMENT '学生ID',
+  `total_credits` DECIMAL(6,1) NOT NULL DEFAULT 0 COMMENT '已选课程总学分',
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`student_id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='学生学分台账表';
+
+-- 选课消息发件箱（selection_outbox）
+-- 选课通知与选课记录在同一事务内写入，由发件箱中继批量投递到RabbitMQ（selection.exchange）
+CREATE TABLE IF NOT EXISTS `selection_outbox` (
+  `id` BIGINT NOT NULL AUTO_INCREMENT COMMENT '消息ID',
+  `routing_key` VARCHAR(100) NOT NULL COMMENT '路由键',
+  `event_type` VARCHAR(50) NOT NULL COMMENT '消息类型',
+  `payload` TEXT NOT NULL COMMENT '消息内容（JSON）',
+  `status` TINYINT NOT NULL DEFAULT 0 COMMENT '状态：0-待发送，1-已发送，2-发送失败（超过重试次数）',
+  `attempts` INT NOT NULL DEFAULT 0 COMMENT '发送失败次数',
+  `created_at` DATETIME DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  `sent_at` DATETIME DEFAULT NULL COMMENT '发送时间',
+  PRIMARY KEY (`id`),
+  KEY `idx_status_id` (`status`, `id`),
+  KEY `idx_status_sent_at` (`status`, `sent_at`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='选课消息发件箱';
+
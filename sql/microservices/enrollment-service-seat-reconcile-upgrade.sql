@@ -0,0 +1,9 @@
+-- ============================================
+-- enrollment-service 选课人数核对升级脚本
+-- 选课记录按更新时间建立索引，用于增量核对courses.selected_count
+-- ============================================
+
+USE `enrollment_service_db`;
+
+ALTER TABLE `enrollments`
+ADD KEY `idx_updated_at` (`updated_at`);
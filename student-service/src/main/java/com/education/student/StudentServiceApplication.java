@@ -1,12 +1,15 @@
 package com.education.student;
 
+import com.education.common.datasource.ReadWriteRoutingConfiguration;
 import org.mybatis.spring.annotation.MapperScan;
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.cloud.client.discovery.EnableDiscoveryClient;
+import org.springframework.context.annotation.Import;
 
 @SpringBootApplication
 @EnableDiscoveryClient
+@Import(ReadWriteRoutingConfiguration.class)
 @MapperScan("com.education.student.mapper")
 public class StudentServiceApplication {
     public static void main(String[] args) {
@@ -11,6 +11,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/student")
 @RequiredArgsConstructor
@@ -24,6 +26,15 @@ public class StudentController {
         return Result.success(dto);
     }
     
+    /**
+     * 批量获取学生信息（供其他服务一次性查询多名学生）
+     */
+    @PostMapping("/batch")
+    public Result<List<StudentDTO>> getByIds(@RequestBody List<Long> ids) {
+        List<StudentDTO> list = studentService.getByIds(ids);
+        return Result.success(list);
+    }
+    
     @GetMapping("/page")
     public Result<Page<StudentDTO>> getPage(
             @RequestParam(value = "current", defaultValue = "1") Integer current,
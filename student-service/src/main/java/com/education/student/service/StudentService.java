@@ -3,6 +3,7 @@ package com.education.student.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.constant.Constants;
+import com.education.common.datasource.ReadReplica;
 import com.education.common.exception.BusinessException;
 import com.education.student.dto.StudentDTO;
 import com.education.student.entity.Student;
@@ -19,15 +20,18 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class StudentService {
     
+    // 批量查询单次最多返回的学生数
+    private static final int MAX_BATCH_SIZE = 500;
+    
     private final StudentMapper studentMapper;
     private final UserCredentialMapper userCredentialMapper;
     private final RedisTemplate<String, Object> redisTemplate;
@@ -56,6 +60,30 @@ public class StudentService {
         return dto;
     }
     
+    /**
+     * 批量获取学生信息
+     * 学生和登录账号各一次查询，不存在的ID直接忽略
+     */
+    public List<StudentDTO> getByIds(List<Long> studentIds) {
+        if (studentIds == null || studentIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> distinctIds = studentIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (distinctIds.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "单次最多查询" + MAX_BATCH_SIZE + "名学生");
+        }
+        if (distinctIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        
+        List<Student> students = studentMapper.selectBatchIds(distinctIds);
+        Map<Long, UserCredential> credentials = loadCredentials(students);
+        return students.stream()
+                .map(student -> convertToDTO(student, credentials.get(student.getStudentId())))
+                .collect(Collectors.toList());
+    }
+    
+    @ReadReplica
     public Page<StudentDTO> getPage(Integer current, Integer size, String keyword) {
         Page<Student> page = new Page<>(current, size);
         LambdaQueryWrapper<Student> wrapper = new LambdaQueryWrapper<>();
@@ -70,8 +98,9 @@ public class StudentService {
         Page<Student> studentPage = studentMapper.selectPage(page, wrapper);
         
         Page<StudentDTO> dtoPage = new Page<>(current, size, studentPage.getTotal());
+        Map<Long, UserCredential> credentials = loadCredentials(studentPage.getRecords());
         List<StudentDTO> dtoList = studentPage.getRecords().stream()
-                .map(this::convertToDTO)
+                .map(student -> convertToDTO(student, credentials.get(student.getStudentId())))
                 .collect(Collectors.toList());
         dtoPage.setRecords(dtoList);
         
@@ -300,10 +329,36 @@ public class StudentService {
         return convertToDTO(student);
     }
     
+    /**
+     * 批量查询学生的登录账号
+     */
+    private Map<Long, UserCredential> loadCredentials(List<Student> students) {
+        if (students.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        List<Long> studentIds = students.stream().map(Student::getStudentId).collect(Collectors.toList());
+        return userCredentialMapper.selectList(
+            new LambdaQueryWrapper<UserCredential>()
+                .in(UserCredential::getStudentId, studentIds)
+        ).stream().collect(Collectors.toMap(UserCredential::getStudentId, Function.identity(), (a, b) -> a));
+    }
+    
     /**
      * 将Student实体转换为DTO
      */
     private StudentDTO convertToDTO(Student student) {
+        // 查询学号（username）和userId
+        UserCredential credential = userCredentialMapper.selectOne(
+            new LambdaQueryWrapper<UserCredential>()
+                .eq(UserCredential::getStudentId, student.getStudentId())
+        );
+        return convertToDTO(student, credential);
+    }
+    
+    /**
+     * 将Student实体转换为DTO，登录账号由调用方预先查询
+     */
+    private StudentDTO convertToDTO(Student student, UserCredential credential) {
         StudentDTO dto = new StudentDTO();
         dto.setStudentId(student.getStudentId());
         dto.setName(student.getName());
@@ -315,11 +370,6 @@ public class StudentService {
         dto.setAvatarUrl(student.getAvatarUrl());
         dto.setStatus(student.getStatus());
         
-        // 查询学号（username）和userId
-        UserCredential credential = userCredentialMapper.selectOne(
-            new LambdaQueryWrapper<UserCredential>()
-                .eq(UserCredential::getStudentId, student.getStudentId())
-        );
         if (credential != null) {
             dto.setUsername(credential.getUsername());
             dto.setUserId(credential.getId()); // 设置userId，用于消息服务
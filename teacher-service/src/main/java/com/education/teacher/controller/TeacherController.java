@@ -2,6 +2,7 @@ package com.education.teacher.controller;
 
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.constant.Constants;
+import com.education.common.dto.TeacherView;
 import com.education.common.exception.BusinessException;
 import com.education.common.result.Result;
 import com.education.teacher.dto.TeacherDTO;
@@ -11,6 +12,8 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import java.util.List;
+
 @RestController
 @RequestMapping("/teacher")
 @RequiredArgsConstructor
@@ -92,4 +95,22 @@ public class TeacherController {
         }
         return Result.success(dto);
     }
+    
+    /**
+     * 教师投影数据（按teacherId游标分页，供course-service全量同步）
+     */
+    @GetMapping("/projections")
+    public Result<List<TeacherView>> listProjections(
+            @RequestParam(value = "afterId", defaultValue = "0") Long afterId,
+            @RequestParam(value = "size", defaultValue = "500") Integer size) {
+        return Result.success(teacherService.listProjections(afterId, size));
+    }
+    
+    /**
+     * 批量解析教师投影数据，参数中每个ID可能是teacherId，也可能是userId（不存在的不返回）
+     */
+    @PostMapping("/projections/resolve")
+    public Result<List<TeacherView>> resolveProjections(@RequestBody List<Long> ids) {
+        return Result.success(teacherService.resolveProjections(ids));
+    }
 }
@@ -7,6 +7,9 @@ import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
 
+import java.util.Collection;
+import java.util.List;
+
 @Mapper
 public interface UserCredentialMapper extends BaseMapper<UserCredential> {
     
@@ -28,5 +31,19 @@ public interface UserCredentialMapper extends BaseMapper<UserCredential> {
     
     @Select("SELECT * FROM user_service_db.user_credentials WHERE id = #{id}")
     UserCredential selectByIdFromUserDb(@Param("id") Long id);
+    
+    /**
+     * 批量查询教师的登录凭证
+     */
+    @Select("<script>SELECT * FROM user_service_db.user_credentials WHERE role = 'TEACHER' AND teacher_id IN " +
+            "<foreach collection='teacherIds' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<UserCredential> selectByTeacherIds(@Param("teacherIds") Collection<Long> teacherIds);
+    
+    /**
+     * 按id批量查询教师的登录凭证
+     */
+    @Select("<script>SELECT * FROM user_service_db.user_credentials WHERE role = 'TEACHER' AND id IN " +
+            "<foreach collection='ids' item='id' open='(' separator=',' close=')'>#{id}</foreach></script>")
+    List<UserCredential> selectTeachersByIds(@Param("ids") Collection<Long> ids);
 }
 
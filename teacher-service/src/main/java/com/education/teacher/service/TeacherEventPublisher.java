@@ -0,0 +1,55 @@
+package com.education.teacher.service;
+
+import com.education.common.constant.Constants;
+import com.education.common.event.TeacherChangeEvent;
+import com.education.teacher.entity.Teacher;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 教师变更事件发布
+ * 事件在事务提交后发布，course-service据此维护本地的教师投影
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class TeacherEventPublisher {
+    
+    private final StringRedisTemplate stringRedisTemplate;
+    private final ObjectMapper objectMapper;
+    
+    public void publishAfterCommit(Teacher teacher, Long userId, String type) {
+        if (teacher == null || teacher.getTeacherId() == null) {
+            return;
+        }
+        TeacherChangeEvent event = new TeacherChangeEvent(teacher.getTeacherId(), type);
+        event.setUserId(userId);
+        event.setName(teacher.getName());
+        event.setDepartment(teacher.getDepartment());
+        event.setStatus(teacher.getStatus());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            publish(event);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                publish(event);
+            }
+        });
+    }
+    
+    private void publish(TeacherChangeEvent event) {
+        try {
+            stringRedisTemplate.convertAndSend(Constants.CHANNEL_TEACHER_CHANGED, objectMapper.writeValueAsString(event));
+        } catch (Exception e) {
+            // 发布失败不影响教师变更，订阅方有定时全量同步兜底
+            log.warn("发布教师变更事件失败: teacherId={}, type={}", event.getTeacherId(), event.getType(), e);
+        }
+    }
+}
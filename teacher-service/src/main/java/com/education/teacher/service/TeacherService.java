@@ -3,6 +3,8 @@ package com.education.teacher.service;
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.education.common.constant.Constants;
+import com.education.common.dto.TeacherView;
+import com.education.common.event.TeacherChangeEvent;
 import com.education.common.exception.BusinessException;
 import com.education.teacher.dto.TeacherDTO;
 import com.education.teacher.entity.Teacher;
@@ -19,8 +21,7 @@ import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
 
 import java.time.LocalDateTime;
-import java.util.LinkedHashMap;
-import java.util.List;
+import java.util.*;
 import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 
@@ -33,6 +34,10 @@ public class TeacherService {
     private final RedisTemplate<String, Object> redisTemplate;
     private final ObjectMapper objectMapper;
     private final PasswordEncoder passwordEncoder;
+    private final TeacherEventPublisher teacherEventPublisher;
+    
+    // 批量接口单次最多返回的教师数
+    private static final int MAX_BATCH_SIZE = 500;
     
     public TeacherDTO getById(Long id) {
         String cacheKey = Constants.REDIS_TEACHER_PREFIX + id;
@@ -162,6 +167,7 @@ public class TeacherService {
             System.out.println("创建的记录ID: " + createdCredential.getId());
             System.out.println("创建的记录用户名: " + createdCredential.getUsername());
             System.out.println("创建的记录角色: " + createdCredential.getRole());
+            teacherEventPublisher.publishAfterCommit(teacher, createdCredential.getId(), TeacherChangeEvent.TYPE_CREATED);
         } catch (BusinessException e) {
             throw e;
         } catch (Exception e) {
@@ -253,6 +259,7 @@ public class TeacherService {
         teacherMapper.updateById(teacher);
         
         redisTemplate.delete(Constants.REDIS_TEACHER_PREFIX + id);
+        teacherEventPublisher.publishAfterCommit(teacher, null, TeacherChangeEvent.TYPE_UPDATED);
         
         TeacherDTO result = new TeacherDTO();
         BeanUtils.copyProperties(teacher, result);
@@ -284,6 +291,7 @@ public class TeacherService {
         
         teacherMapper.deleteById(id);
         redisTemplate.delete(Constants.REDIS_TEACHER_PREFIX + id);
+        teacherEventPublisher.publishAfterCommit(teacher, null, TeacherChangeEvent.TYPE_DELETED);
     }
     
     @Transactional
@@ -298,6 +306,7 @@ public class TeacherService {
         teacherMapper.updateById(teacher);
         
         redisTemplate.delete(Constants.REDIS_TEACHER_PREFIX + id);
+        teacherEventPublisher.publishAfterCommit(teacher, null, TeacherChangeEvent.TYPE_UPDATED);
     }
     
     /**
@@ -325,6 +334,53 @@ public class TeacherService {
         return convertToDTO(teacher);
     }
     
+    /**
+     * 教师投影数据（按teacherId游标分页），登录凭证一次批量查询
+     */
+    public List<TeacherView> listProjections(Long afterId, Integer size) {
+        int pageSize = Math.max(1, Math.min(size != null ? size : MAX_BATCH_SIZE, MAX_BATCH_SIZE));
+        List<Teacher> teachers = teacherMapper.selectList(new LambdaQueryWrapper<Teacher>()
+                .gt(afterId != null, Teacher::getTeacherId, afterId)
+                .orderByAsc(Teacher::getTeacherId)
+                .last("LIMIT " + pageSize));
+        return toViews(teachers);
+    }
+    
+    /**
+     * 批量解析教师投影数据，参数中每个ID可能是teacherId，也可能是userId（user_credentials表的id）
+     */
+    public List<TeacherView> resolveProjections(List<Long> teacherIdsOrUserIds) {
+        if (teacherIdsOrUserIds == null || teacherIdsOrUserIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> ids = teacherIdsOrUserIds.stream().filter(Objects::nonNull).collect(Collectors.toCollection(LinkedHashSet::new));
+        if (ids.size() > MAX_BATCH_SIZE) {
+            throw new BusinessException(400, "单次最多查询" + MAX_BATCH_SIZE + "名教师");
+        }
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Set<Long> teacherIds = new LinkedHashSet<>(ids);
+        userCredentialMapper.selectTeachersByIds(ids).stream()
+                .map(UserCredential::getTeacherId)
+                .filter(Objects::nonNull)
+                .forEach(teacherIds::add);
+        return toViews(teacherMapper.selectBatchIds(teacherIds));
+    }
+    
+    private List<TeacherView> toViews(List<Teacher> teachers) {
+        if (teachers.isEmpty()) {
+            return Collections.emptyList();
+        }
+        Map<Long, Long> userIds = new HashMap<>();
+        userCredentialMapper.selectByTeacherIds(teachers.stream().map(Teacher::getTeacherId).collect(Collectors.toList()))
+                .forEach(credential -> userIds.putIfAbsent(credential.getTeacherId(), credential.getId()));
+        return teachers.stream()
+                .map(teacher -> new TeacherView(teacher.getTeacherId(), userIds.get(teacher.getTeacherId()),
+                        teacher.getName(), teacher.getDepartment(), teacher.getStatus()))
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 将Teacher实体转换为DTO
      */